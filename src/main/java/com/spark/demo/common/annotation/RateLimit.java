@@ -5,7 +5,7 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 接口限流注解
- * 基于Redis + Bucket4j实现分布式限流
+ * 默认按节点本地计数；store 选择 REDIS / REDIS_LEASE 时所有节点共享同一个Redis令牌桶
  * 
  * @author spark
  */
@@ -20,10 +20,20 @@ public @interface RateLimit {
     String key() default "";
 
     /**
-     * 限流次数，默认每分钟10次
+     * 限流方式，默认按周期计数
+     */
+    Kind kind() default Kind.RATE;
+
+    /**
+     * 限流次数，默认每分钟10次；CONCURRENCY 为最大并发数，ADAPTIVE_CONCURRENCY 为并发上限
      */
     long count() default 10;
 
+    /**
+     * 从配置读取限流次数的属性名，如 app.security.rate-limit.login-limit，配置存在时覆盖 count
+     */
+    String countProperty() default "";
+
     /**
      * 限流时间窗口，默认1分钟
      */
@@ -39,6 +49,21 @@ public @interface RateLimit {
      */
     LimitType limitType() default LimitType.DEFAULT;
 
+    /**
+     * 计数存储，默认节点本地；只对 RATE、SLIDING_WINDOW 生效
+     */
+    Store store() default Store.LOCAL;
+
+    /**
+     * REDIS_LEASE 模式下每次从Redis预取的令牌数，不超过限流次数
+     */
+    int leaseSize() default 10;
+
+    /**
+     * ADAPTIVE_CONCURRENCY 的目标p99耗时（毫秒），超过后收缩并发上限
+     */
+    long targetP99Millis() default 500;
+
     /**
      * 限流失败消息
      */
@@ -61,4 +86,46 @@ public @interface RateLimit {
          */
         USER
     }
-} 
\ No newline at end of file
+
+    /**
+     * 限流方式枚举
+     */
+    enum Kind {
+        /**
+         * 固定周期计数：每个周期 count 次（Redis存储时为连续补充的令牌桶）
+         */
+        RATE,
+        /**
+         * 滑动窗口：按上一周期计数的剩余权重加当前周期计数估算，避免周期边界处的两倍突发；
+         * Redis存储时使用令牌桶，本身连续补充、没有周期边界
+         */
+        SLIDING_WINDOW,
+        /**
+         * 最大并发数：同一key同时执行的请求不超过 count，用于保护验证码生成等耗时接口；节点本地计数
+         */
+        CONCURRENCY,
+        /**
+         * 自适应并发：并发上限在 [1, count] 内调整，p99耗时超过 targetP99Millis 时收缩，恢复后逐步放大；节点本地计数
+         */
+        ADAPTIVE_CONCURRENCY
+    }
+
+    /**
+     * 计数存储枚举
+     */
+    enum Store {
+        /**
+         * 节点本地计数，N个节点时整体上限为N倍
+         */
+        LOCAL,
+        /**
+         * Redis令牌桶，每次请求执行一次Lua脚本，集群内精确限流
+         */
+        REDIS,
+        /**
+         * Redis令牌桶 + 本地租约：一次预取 leaseSize 个令牌在本节点消费，用完或租约到期后再预取，
+         * 多数请求不访问Redis；未用完的令牌随租约过期作废，集群整体不会超过限流次数
+         */
+        REDIS_LEASE
+    }
+}
@@ -2,11 +2,13 @@ package com.spark.demo.common.aspect;
 
 import com.spark.demo.common.annotation.RateLimit;
 import com.spark.demo.common.exception.BusinessException;
+import com.spark.demo.common.ratelimit.AdaptiveConcurrencyLimit;
+import com.spark.demo.common.ratelimit.ConcurrencyLimiter;
+import com.spark.demo.common.ratelimit.LocalRateLimitStore;
+import com.spark.demo.common.ratelimit.RateLimitKey;
+import com.spark.demo.common.ratelimit.RedisRateLimiter;
 import com.spark.demo.common.result.ResultCode;
 import com.spark.demo.common.util.IpUtil;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,20 +16,26 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 限流切面
- * 基于Bucket4j + Redis实现分布式限流
- * 
+ * 每个方法的限流范围（key前缀、次数、周期）解析一次后缓存，每次请求只按限流类型补充IP或用户ID；
+ * 按注解的 store 选择节点本地计数（LocalRateLimitStore）或Redis令牌桶（RedisRateLimiter，可选本地租约）；
+ * 并发类限流（CONCURRENCY、ADAPTIVE_CONCURRENCY）在方法返回或抛出异常后释放名额
+ *
  * @author spark
  */
 @Slf4j
@@ -36,88 +44,126 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class RateLimitAspect {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    
+    private final LocalRateLimitStore localRateLimitStore;
+    private final RedisRateLimiter redisRateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Environment environment;
+
+    @Value("${app.security.rate-limit.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 可信反向代理IP，只有来自这些地址的请求才按 X-Forwarded-For 识别客户端IP
+     */
+    @Value("${app.security.rate-limit.trusted-proxies:}")
+    private Set<String> trustedProxies = Collections.emptySet();
+
     /**
-     * 本地缓存，避免频繁创建Bucket
+     * 方法 -> 限流范围，数量与 @RateLimit 方法数相同
      */
-    private final ConcurrentHashMap<String, Bucket> bucketCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, LimitScope> scopeCache = new ConcurrentHashMap<>();
 
     @Around("@annotation(rateLimit)")
     public Object around(ProceedingJoinPoint point, RateLimit rateLimit) throws Throwable {
-        String key = generateKey(point, rateLimit);
-        
-        // 获取或创建Bucket
-        Bucket bucket = getBucket(key, rateLimit);
-        
-        // 尝试消费一个令牌
-        if (bucket.tryConsume(1)) {
+        if (!enabled) {
+            return point.proceed();
+        }
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        LimitScope scope = scopeCache.computeIfAbsent(method, m -> new LimitScope(m, rateLimit, environment));
+        RateLimitKey key = generateKey(point, scope, rateLimit);
+
+        switch (rateLimit.kind()) {
+            case CONCURRENCY:
+                return proceedConcurrent(point, key, (int) scope.limit, null, rateLimit);
+            case ADAPTIVE_CONCURRENCY:
+                AdaptiveConcurrencyLimit adaptive = concurrencyLimiter.adaptiveLimit(scope.name, (int) scope.limit,
+                        Duration.ofMillis(rateLimit.targetP99Millis()));
+                return proceedConcurrent(point, key, adaptive.currentLimit(), adaptive, rateLimit);
+            default:
+                break;
+        }
+
+        if (tryAcquire(key, scope, rateLimit)) {
             log.debug("限流检查通过，key: {}", key);
             return point.proceed();
         } else {
-            log.warn("触发限流，key: {}, 限制: {}次/{}{}", 
-                    key, rateLimit.count(), rateLimit.time(), rateLimit.timeUnit());
+            log.warn("触发限流，key: {}, 限制: {}次/{}{}",
+                    key, scope.limit, rateLimit.time(), rateLimit.timeUnit());
             throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, rateLimit.message());
         }
     }
 
     /**
-     * 生成限流key
+     * 占用并发名额后执行方法，返回或抛出异常后释放；自适应限流同时记录方法耗时
      */
-    private String generateKey(ProceedingJoinPoint point, RateLimit rateLimit) {
-        StringBuilder keyBuilder = new StringBuilder("rate_limit:");
-        
-        // 使用自定义key或方法签名
-        if (StringUtils.hasText(rateLimit.key())) {
-            keyBuilder.append(rateLimit.key());
-        } else {
-            MethodSignature signature = (MethodSignature) point.getSignature();
-            keyBuilder.append(signature.getDeclaringTypeName())
-                     .append(".")
-                     .append(signature.getName());
+    private Object proceedConcurrent(ProceedingJoinPoint point, RateLimitKey key, int limit,
+                                     AdaptiveConcurrencyLimit adaptive, RateLimit rateLimit) throws Throwable {
+        if (!concurrencyLimiter.tryAcquire(key, limit)) {
+            log.warn("触发并发限流，key: {}, 并发上限: {}", key, limit);
+            throw new BusinessException(ResultCode.TOO_MANY_REQUESTS, rateLimit.message());
+        }
+        long start = System.nanoTime();
+        try {
+            return point.proceed();
+        } finally {
+            concurrencyLimiter.release(key);
+            if (adaptive != null) {
+                adaptive.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private boolean tryAcquire(RateLimitKey key, LimitScope scope, RateLimit rateLimit) {
+        if (rateLimit.kind() == RateLimit.Kind.SLIDING_WINDOW && rateLimit.store() == RateLimit.Store.LOCAL) {
+            return localRateLimitStore.tryAcquireSliding(key, scope.limit, scope.periodNanos);
+        }
+        // Redis令牌桶按时间连续补充，本身没有固定窗口的边界突发，滑动窗口直接复用
+        switch (rateLimit.store()) {
+            case REDIS:
+                return redisRateLimiter.tryAcquire(key, scope.limit, scope.periodNanos);
+            case REDIS_LEASE:
+                return redisRateLimiter.tryAcquireLeased(key, scope.limit, scope.periodNanos, rateLimit.leaseSize());
+            case LOCAL:
+            default:
+                return localRateLimitStore.tryAcquire(key, scope.limit, scope.periodNanos);
         }
-        
-        // 根据限流类型添加后缀
+    }
+
+    /**
+     * 生成限流key，全局限流直接复用缓存的key
+     */
+    private RateLimitKey generateKey(ProceedingJoinPoint point, LimitScope scope, RateLimit rateLimit) {
         switch (rateLimit.limitType()) {
             case IP:
-                keyBuilder.append(":").append(getClientIP());
-                break;
+                return new RateLimitKey(scope.name, getClientIP(currentRequest(point)));
             case USER:
-                keyBuilder.append(":").append(getCurrentUserId());
-                break;
+                return new RateLimitKey(scope.name, getCurrentUserId(currentRequest(point)));
             case DEFAULT:
             default:
-                // 全局限流，不添加后缀
-                break;
+                return scope.globalKey;
         }
-        
-        return keyBuilder.toString();
     }
 
     /**
-     * 获取或创建Bucket
+     * 当前请求：优先取方法参数中的HttpServletRequest，没有时再从RequestContextHolder获取
      */
-    private Bucket getBucket(String key, RateLimit rateLimit) {
-        return bucketCache.computeIfAbsent(key, k -> {
-            // 创建限流配置
-            Duration duration = Duration.of(rateLimit.time(), rateLimit.timeUnit().toChronoUnit());
-            Bandwidth bandwidth = Bandwidth.classic(rateLimit.count(), Refill.intervally(rateLimit.count(), duration));
-            
-            return Bucket.builder()
-                    .addLimit(bandwidth)
-                    .build();
-        });
+    private HttpServletRequest currentRequest(ProceedingJoinPoint point) {
+        for (Object arg : point.getArgs()) {
+            if (arg instanceof HttpServletRequest request) {
+                return request;
+            }
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes ? servletAttributes.getRequest() : null;
     }
 
     /**
-     * 获取客户端IP
+     * 获取客户端IP：转发头可伪造，按IP限流只信任可信代理转发的地址
      */
-    private String getClientIP() {
+    private String getClientIP(HttpServletRequest request) {
         try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                return IpUtil.getClientIP(request);
+            if (request != null) {
+                return IpUtil.getClientIP(request, trustedProxies);
             }
         } catch (Exception e) {
             log.warn("获取客户端IP失败", e);
@@ -128,26 +174,45 @@ public class RateLimitAspect {
     /**
      * 获取当前用户ID
      */
-    private String getCurrentUserId() {
-        try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                // 从请求头或session中获取用户ID
-                String userId = request.getHeader("X-User-Id");
-                if (StringUtils.hasText(userId)) {
-                    return userId;
-                }
-                // 可以从JWT token中解析用户ID
-                String token = request.getHeader("Authorization");
-                if (StringUtils.hasText(token) && token.startsWith("Bearer ")) {
-                    // 这里可以解析JWT获取用户ID，暂时返回token的hash
-                    return String.valueOf(token.hashCode());
-                }
+    private String getCurrentUserId(HttpServletRequest request) {
+        if (request != null) {
+            // 从请求头或session中获取用户ID
+            String userId = request.getHeader("X-User-Id");
+            if (StringUtils.hasText(userId)) {
+                return userId;
+            }
+            // 可以从JWT token中解析用户ID
+            String token = request.getHeader("Authorization");
+            if (StringUtils.hasText(token) && token.startsWith("Bearer ")) {
+                // 这里可以解析JWT获取用户ID，暂时返回token的hash
+                return String.valueOf(token.hashCode());
             }
-        } catch (Exception e) {
-            log.warn("获取当前用户ID失败", e);
         }
         return "anonymous";
     }
-} 
\ No newline at end of file
+
+    /**
+     * 方法的限流范围
+     */
+    private static final class LimitScope {
+
+        private final String name;
+
+        private final RateLimitKey globalKey;
+
+        private final long limit;
+
+        private final long periodNanos;
+
+        LimitScope(Method method, RateLimit rateLimit, Environment environment) {
+            this.name = "rate_limit:" + (StringUtils.hasText(rateLimit.key())
+                    ? rateLimit.key()
+                    : method.getDeclaringClass().getName() + "." + method.getName());
+            this.globalKey = new RateLimitKey(name, null);
+            this.limit = StringUtils.hasText(rateLimit.countProperty())
+                    ? environment.getProperty(rateLimit.countProperty(), Long.class, rateLimit.count())
+                    : rateLimit.count();
+            this.periodNanos = rateLimit.timeUnit().toNanos(rateLimit.time());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.spark.demo.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spring Cache批量写入
+ * 按缓存自身的key前缀、序列化器和TTL生成Redis命令，通过管道批量写入，
+ * 写入结果与 Cache.put 逐条写入一致，但每批只需一次网络往返
+ *
+ * 写入后丢弃本节点近端缓存中的对应条目；底层不是RedisCache时退化为逐条put
+ *
+ * @author spark
+ * @date 2025-06-28
+ */
+@Slf4j
+@Component
+public class CacheBatchWriter {
+
+    @Autowired
+    @Qualifier("cacheManager")
+    private CacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${app.redis.pipeline-flush-size:500}")
+    private int pipelineFlushSize = 500;
+
+    /**
+     * 批量写入缓存，value为null的条目跳过
+     *
+     * @return 写入的条目数
+     */
+    public int putAll(String cacheName, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            log.warn("缓存不存在，跳过批量写入 - Cache: {}", cacheName);
+            return 0;
+        }
+
+        Cache target = unwrap(cache);
+        if (!(target instanceof RedisCache redisCache)) {
+            int written = 0;
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                if (entry.getValue() != null) {
+                    cache.put(entry.getKey(), entry.getValue());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        List<byte[][]> commands = new ArrayList<>(entries.size());
+        List<Duration> ttls = new ArrayList<>(entries.size());
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            commands.add(new byte[][]{
+                    toBytes(config.getKeySerializationPair().write(cacheKey(config, redisCache.getName(), entry.getKey()))),
+                    toBytes(config.getValueSerializationPair().write(entry.getValue()))
+            });
+            ttls.add(config.getTtlFunction().getTimeToLive(entry.getKey(), entry.getValue()));
+        }
+
+        int flushSize = Math.max(1, pipelineFlushSize);
+        for (int from = 0; from < commands.size(); from += flushSize) {
+            int to = Math.min(from + flushSize, commands.size());
+            List<byte[][]> chunk = commands.subList(from, to);
+            List<Duration> chunkTtls = ttls.subList(from, to);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Duration ttl = chunkTtls.get(i);
+                    Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+                            ? Expiration.persistent() : Expiration.from(ttl);
+                    connection.stringCommands().set(chunk.get(i)[0], chunk.get(i)[1], expiration,
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        }
+
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            entries.keySet().forEach(twoLevelCache::evictLocal);
+        }
+        return commands.size();
+    }
+
+    /**
+     * 剥离近端缓存、提前刷新、单飞等装饰层，找到实际的远程缓存
+     */
+    private Cache unwrap(Cache cache) {
+        Cache current = cache;
+        while (true) {
+            if (current instanceof TwoLevelCache twoLevelCache) {
+                current = twoLevelCache.getRemoteCache();
+            } else if (current instanceof RefreshAheadCache refreshAheadCache) {
+                current = refreshAheadCache.getDelegate();
+            } else if (current instanceof SingleFlightCache singleFlightCache) {
+                current = singleFlightCache.getDelegate();
+            } else {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 与RedisCache一致的Redis key：缓存前缀 + 经缓存配置的转换服务转换后的key
+     */
+    public static String cacheKey(RedisCacheConfiguration config, String cacheName, Object key) {
+        String converted = key instanceof String text ? text : config.getConversionService().convert(key, String.class);
+        return config.usePrefix() ? config.getKeyPrefixFor(cacheName) + converted : converted;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.spark.demo.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效消息总线
+ * 生产环境使用Redis发布/订阅作为传输，测试环境可使用进程内实现
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 发布失效消息，发布失败只记录日志，不影响业务写操作（缓存TTL兜底）
+     *
+     * @param message 失效消息
+     */
+    void publish(CacheInvalidationMessage message);
+
+    /**
+     * 订阅失效消息
+     *
+     * @param listener 消息处理器
+     */
+    void subscribe(Consumer<CacheInvalidationMessage> listener);
+
+    /**
+     * 当前节点ID
+     */
+    String getNodeId();
+}
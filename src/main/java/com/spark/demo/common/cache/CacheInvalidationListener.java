@@ -0,0 +1,110 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 缓存失效消息消费者
+ * 收到消息后丢弃本节点近端缓存中的对应条目、作废进行中的提前刷新，并统计失效传播延迟
+ *
+ * 指标：
+ * - cache.invalidation.received{origin=local|remote}
+ * - cache.invalidation.latency{origin=local|remote}（发布到本地丢弃完成的耗时，跨节点受时钟偏差影响）
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Slf4j
+@Component
+public class CacheInvalidationListener {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    @Qualifier("cacheManager")
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter localReceived;
+
+    private Counter remoteReceived;
+
+    private Timer localLatency;
+
+    private Timer remoteLatency;
+
+    @PostConstruct
+    public void init() {
+        localReceived = receivedCounter("local");
+        remoteReceived = receivedCounter("remote");
+        localLatency = latencyTimer("local");
+        remoteLatency = latencyTimer("remote");
+        cacheInvalidationBus.subscribe(this::onMessage);
+        log.info("缓存失效监听已注册, nodeId: {}", cacheInvalidationBus.getNodeId());
+    }
+
+    public void onMessage(CacheInvalidationMessage message) {
+        if (!(cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager)) {
+            return;
+        }
+
+        RefreshAheadCacheManager refreshAheadCacheManager =
+                twoLevelCacheManager.getRemoteCacheManager() instanceof RefreshAheadCacheManager manager ? manager : null;
+        for (String cacheName : message.getCacheNames()) {
+            if (refreshAheadCacheManager != null) {
+                // 其他节点的变更可能发生在本节点刷新加载期间，丢弃进行中的刷新结果
+                refreshAheadCacheManager.markInvalidated(cacheName);
+            }
+            if (message.isClearAll()) {
+                twoLevelCacheManager.clearLocal(cacheName);
+            } else {
+                for (Object key : message.getKeys()) {
+                    twoLevelCacheManager.evictLocal(cacheName, normalizeKey(key));
+                }
+            }
+        }
+
+        boolean local = cacheInvalidationBus.getNodeId().equals(message.getOriginNode());
+        (local ? localReceived : remoteReceived).increment();
+        if (message.getPublishedAt() > 0) {
+            long latencyMillis = Math.max(0, System.currentTimeMillis() - message.getPublishedAt());
+            (local ? localLatency : remoteLatency).record(Duration.ofMillis(latencyMillis));
+        }
+
+        log.debug("本地缓存已失效, reason: {}, caches: {}, keys: {}", message.getReason(), message.getCacheNames(), message.getKeys());
+    }
+
+    private Counter receivedCounter(String origin) {
+        return Counter.builder("cache.invalidation.received")
+                .tag("origin", origin)
+                .register(meterRegistry);
+    }
+
+    private Timer latencyTimer(String origin) {
+        return Timer.builder("cache.invalidation.latency")
+                .tag("origin", origin)
+                .register(meterRegistry);
+    }
+
+    /**
+     * JSON反序列化后数值型key可能为Integer，统一转换为Long与缓存中的userId等key保持一致
+     */
+    private Object normalizeKey(Object key) {
+        if (key instanceof Number number) {
+            return number.longValue();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,62 @@
+package com.spark.demo.common.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 缓存失效消息
+ * 由执行写操作的节点发布，所有节点（包括发布者自身）收到后丢弃本地缓存中的对应条目
+ *
+ * keys为空表示清空cacheNames对应的全部本地条目；数值型key在JSON传输后统一按Long处理
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Data
+public class CacheInvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 需要失效的缓存名称
+     */
+    private List<String> cacheNames = new ArrayList<>();
+
+    /**
+     * 需要失效的缓存key，为空表示全部
+     */
+    private List<Object> keys = new ArrayList<>();
+
+    /**
+     * 失效原因，如 role:12、user:1001，便于排查
+     */
+    private String reason;
+
+    /**
+     * 发布节点ID
+     */
+    private String originNode;
+
+    /**
+     * 发布时间（毫秒时间戳），用于统计失效传播延迟
+     */
+    private long publishedAt;
+
+    public static CacheInvalidationMessage of(Collection<String> cacheNames, Collection<?> keys, String reason) {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setCacheNames(new ArrayList<>(cacheNames));
+        if (keys != null) {
+            message.setKeys(new ArrayList<>(keys));
+        }
+        message.setReason(reason);
+        return message;
+    }
+
+    public boolean isClearAll() {
+        return keys == null || keys.isEmpty();
+    }
+}
@@ -0,0 +1,36 @@
+package com.spark.demo.common.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 提前刷新加载器注册表
+ * 后台刷新不能复用调用方的 valueLoader：它包装的是已经结束的方法调用，再次执行会跳过缓存拦截器之后的
+ * 所有拦截器（事务、指标等），且运行在请求上下文之外。各缓存的所有者按缓存名称注册独立的加载函数，
+ * 函数只依赖key、可在刷新线程池中直接执行；未注册加载器的缓存不做提前刷新
+ *
+ * @author spark
+ * @date 2025-06-26
+ */
+public class CacheRefreshLoaders {
+
+    private final ConcurrentMap<String, Function<Object, ?>> loaders = new ConcurrentHashMap<>();
+
+    /**
+     * 注册缓存的刷新加载函数
+     *
+     * @param cacheName 缓存名称
+     * @param loader    key -> 最新值，返回null时保留当前值
+     */
+    public void register(String cacheName, Function<Object, ?> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    /**
+     * 缓存的刷新加载函数，未注册返回null
+     */
+    public Function<Object, ?> get(String cacheName) {
+        return loaders.get(cacheName);
+    }
+}
@@ -0,0 +1,46 @@
+package com.spark.demo.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内缓存失效消息总线
+ * 同步投递给本进程内的订阅者，用于单节点部署和测试
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Slf4j
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        message.setOriginNode(nodeId);
+        message.setPublishedAt(System.currentTimeMillis());
+        for (Consumer<CacheInvalidationMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.error("处理缓存失效消息失败, reason: {}", message.getReason(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,70 @@
+package com.spark.demo.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis发布/订阅的缓存失效消息总线
+ * 每个节点订阅同一频道，消息以JSON格式传输
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper;
+
+    private final ChannelTopic topic;
+
+    public RedisCacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     ObjectMapper objectMapper,
+                                     String channel) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        message.setOriginNode(nodeId);
+        message.setPublishedAt(System.currentTimeMillis());
+        try {
+            stringRedisTemplate.convertAndSend(topic.getTopic(), objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.error("发布缓存失效消息失败, reason: {}", message.getReason(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                String body = new String(message.getBody(), StandardCharsets.UTF_8);
+                listener.accept(objectMapper.readValue(body, CacheInvalidationMessage.class));
+            } catch (Exception e) {
+                log.error("处理缓存失效消息失败, channel: {}", topic.getTopic(), e);
+            }
+        }, topic);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+}
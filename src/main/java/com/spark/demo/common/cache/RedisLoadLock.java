@@ -0,0 +1,123 @@
+package com.spark.demo.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * 跨节点加载锁
+ * 单飞加载器只能合并本JVM内的并发，多节点同时未命中时由该锁保证只有一个节点访问数据库：
+ * 抢到锁的节点加载并写入缓存，其余节点轮询缓存等待结果，超时后降级为直接加载
+ *
+ * Redis不可用时不阻塞加载，直接执行loader
+ *
+ * @author spark
+ * @date 2025-06-25
+ */
+@Slf4j
+public class RedisLoadLock {
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final long MIN_BACKOFF_MILLIS = 10;
+
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Duration lockTtl;
+
+    private final Duration waitTimeout;
+
+    public RedisLoadLock(StringRedisTemplate redisTemplate, Duration lockTtl, Duration waitTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * 在跨节点锁保护下加载
+     *
+     * @param lockKey 锁key
+     * @param recheck 重新读取缓存，返回非null表示其他节点已加载完成
+     * @param loader  数据加载器
+     */
+    public <T> T callWithLock(String lockKey, Callable<Cache.ValueWrapper> recheck, Callable<T> loader) throws Exception {
+        return callWithLock(lockKey, lockTtl, waitTimeout, recheck, loader);
+    }
+
+    /**
+     * 在跨节点锁保护下加载，使用本次调用指定的锁过期时间和等待时间
+     *
+     * @param lockKey     锁key
+     * @param lockTtl     锁过期时间
+     * @param waitTimeout 等待其他节点加载的最长时间
+     * @param recheck     重新读取缓存，返回非null表示其他节点已加载完成
+     * @param loader      数据加载器
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T callWithLock(String lockKey, Duration lockTtl, Duration waitTimeout,
+                              Callable<Cache.ValueWrapper> recheck, Callable<T> loader) throws Exception {
+        String token = UUID.randomUUID().toString();
+        if (!tryAcquire(lockKey, token, lockTtl)) {
+            long deadline = System.nanoTime() + waitTimeout.toNanos();
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+
+                Cache.ValueWrapper loaded = recheck.call();
+                if (loaded != null) {
+                    return (T) loaded.get();
+                }
+                if (tryAcquire(lockKey, token, lockTtl)) {
+                    return loadHoldingLock(lockKey, token, recheck, loader);
+                }
+            }
+            log.warn("等待其他节点加载超时，直接加载, lockKey: {}", lockKey);
+            return loader.call();
+        }
+        return loadHoldingLock(lockKey, token, recheck, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T loadHoldingLock(String lockKey, String token, Callable<Cache.ValueWrapper> recheck,
+                                  Callable<T> loader) throws Exception {
+        try {
+            // 持锁后再次检查，上一个持锁节点可能刚刚写入
+            Cache.ValueWrapper loaded = recheck.call();
+            if (loaded != null) {
+                return (T) loaded.get();
+            }
+            return loader.call();
+        } finally {
+            release(lockKey, token);
+        }
+    }
+
+    private boolean tryAcquire(String lockKey, String token, Duration lockTtl) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (Exception e) {
+            // Redis异常时视为获得锁，不因锁不可用阻塞加载
+            log.warn("获取加载锁失败，跳过跨节点合并, lockKey: {}, 原因: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void release(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(lockKey), token);
+        } catch (Exception e) {
+            log.warn("释放加载锁失败, lockKey: {}, 原因: {}", lockKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.spark.demo.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于SCAN的批量删除
+ * 用游标分批遍历匹配的key，每批通过管道发送UNLINK，不会像KEYS那样长时间阻塞Redis；
+ * UNLINK在后台线程回收内存，大value也不会阻塞
+ *
+ * 同时作为RedisCacheWriter的清理策略，@CacheEvict(allEntries = true) 走同一路径
+ *
+ * @author spark
+ * @date 2025-06-27
+ */
+@Slf4j
+public class RedisScanDeleter implements BatchStrategy {
+
+    /**
+     * 删除进度回调
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * 每批删除完成后回调
+         *
+         * @param batches 已完成批次数
+         * @param deleted 累计删除的key数量
+         */
+        void onProgress(int batches, long deleted);
+    }
+
+    private final int batchSize;
+
+    public RedisScanDeleter(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize必须大于0");
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+        long start = System.currentTimeMillis();
+        long deleted = delete(connection, pattern, (batches, count) ->
+                log.debug("清理缓存进度 - Cache: {}, 批次: {}, 已删除: {}", name, batches, count));
+        log.info("清理缓存完成 - Cache: {}, 删除数量: {}, 耗时: {}ms", name, deleted, System.currentTimeMillis() - start);
+        return deleted;
+    }
+
+    /**
+     * 删除匹配模式的所有key
+     *
+     * @param connection Redis连接
+     * @param pattern    匹配模式
+     * @param listener   进度回调，可为null
+     * @return 删除的key数量
+     */
+    public long delete(RedisConnection connection, byte[] pattern, ProgressListener listener) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        long deleted = 0;
+        int batches = 0;
+
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    deleted += unlink(connection, batch);
+                    notify(listener, ++batches, deleted);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleted += unlink(connection, batch);
+            notify(listener, ++batches, deleted);
+        }
+        return deleted;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 管道发送本批UNLINK；必须在游标取下一页前关闭管道，否则SCAN会被排进管道
+     */
+    private long unlink(RedisConnection connection, List<byte[]> keys) {
+        List<Object> results;
+        connection.openPipeline();
+        try {
+            for (byte[] key : keys) {
+                connection.keyCommands().unlink(key);
+            }
+        } finally {
+            results = connection.closePipeline();
+            keys.clear();
+        }
+
+        long count = 0;
+        for (Object result : results) {
+            if (result instanceof Number number) {
+                count += number.longValue();
+            }
+        }
+        return count;
+    }
+
+    private void notify(ProgressListener listener, int batches, long deleted) {
+        if (listener != null) {
+            listener.onProgress(batches, deleted);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.spark.demo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 提前刷新缓存
+ * 包装远程缓存的 get(key, valueLoader) 路径：命中的条目进入过期前的刷新窗口后，按概率在后台重新加载并写回，
+ * 调用方始终直接拿到当前值，条目不会在高并发下同时过期（避免缓存断崖）
+ *
+ * 刷新概率随剩余TTL线性上升：剩余时间为窗口长度时为0，到期时为1；同一key同时只有一个刷新任务
+ * 条目的过期时间在本节点写入时记录；其他节点写入的条目首次命中时在后台查询剩余TTL
+ *
+ * 刷新使用按缓存名称注册的加载函数（见 CacheRefreshLoaders），未注册的缓存不刷新；
+ * 刷新开始后发生过 evict/clear（含失效总线通知）时，刷新结果可能基于变更前的数据，直接丢弃
+ *
+ * @author spark
+ * @date 2025-06-26
+ */
+@Slf4j
+public class RefreshAheadCache implements Cache {
+
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    private final Cache delegate;
+
+    private final long ttlMillis;
+
+    private final long refreshWindowMillis;
+
+    private final Executor executor;
+
+    /**
+     * 查询条目剩余TTL（毫秒），返回负数表示不存在或未设置过期
+     */
+    private final ToLongFunction<Object> remainingTtlLookup;
+
+    /**
+     * key -> 过期时间点（毫秒时间戳）；过时的记录最多导致一次提前刷新，随后被新的写入覆盖
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Long> expiries;
+
+    private final Set<Object> pending = ConcurrentHashMap.newKeySet();
+
+    private final CacheRefreshLoaders refreshLoaders;
+
+    /**
+     * 刷新值写入后的回调，用于丢弃上层近端缓存中的旧值，可为null
+     */
+    private final Consumer<Object> refreshListener;
+
+    /**
+     * 失效代数，每次 evict/clear 递增
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Counter refreshSuccessCounter;
+
+    private final Counter refreshFailureCounter;
+
+    private final Counter refreshDiscardedCounter;
+
+    public RefreshAheadCache(Cache delegate, Duration ttl, double refreshWindowRatio, Executor executor,
+                             ToLongFunction<Object> remainingTtlLookup, CacheRefreshLoaders refreshLoaders,
+                             Consumer<Object> refreshListener, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.ttlMillis = ttl.toMillis();
+        this.refreshWindowMillis = (long) (ttlMillis * refreshWindowRatio);
+        this.executor = executor;
+        this.remainingTtlLookup = remainingTtlLookup;
+        this.refreshLoaders = refreshLoaders;
+        this.refreshListener = refreshListener;
+        this.expiries = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .build();
+        if (meterRegistry != null) {
+            this.refreshSuccessCounter = Counter.builder("cache.refresh").tag("cache", delegate.getName())
+                    .tag("result", "success").description("提前刷新成功次数").register(meterRegistry);
+            this.refreshFailureCounter = Counter.builder("cache.refresh").tag("cache", delegate.getName())
+                    .tag("result", "failure").description("提前刷新失败次数").register(meterRegistry);
+            this.refreshDiscardedCounter = Counter.builder("cache.refresh").tag("cache", delegate.getName())
+                    .tag("result", "discarded").description("刷新期间条目失效而丢弃的次数").register(meterRegistry);
+        } else {
+            this.refreshSuccessCounter = null;
+            this.refreshFailureCounter = null;
+            this.refreshDiscardedCounter = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loadedHere = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loadedHere[0] = true;
+            T loaded = valueLoader.call();
+            if (loaded != null) {
+                recordWrite(key);
+            }
+            return loaded;
+        });
+        if (!loadedHere[0] && value != null) {
+            maybeRefresh(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        recordWrite(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            recordWrite(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictions.incrementAndGet();
+        delegate.evict(key);
+        expiries.invalidate(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.incrementAndGet();
+        expiries.invalidate(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        evictions.incrementAndGet();
+        delegate.clear();
+        expiries.invalidateAll();
+    }
+
+    @Override
+    public boolean invalidate() {
+        evictions.incrementAndGet();
+        expiries.invalidateAll();
+        return delegate.invalidate();
+    }
+
+    /**
+     * 其他节点已失效该缓存的条目（失效总线通知），丢弃进行中的刷新结果
+     */
+    public void markInvalidated() {
+        evictions.incrementAndGet();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    private void recordWrite(Object key) {
+        expiries.put(key, System.currentTimeMillis() + ttlMillis);
+    }
+
+    private void maybeRefresh(Object key) {
+        Function<Object, ?> loader = refreshLoaders != null ? refreshLoaders.get(getName()) : null;
+        if (loader == null) {
+            return;
+        }
+        Long expiresAt = expiries.getIfPresent(key);
+        if (expiresAt == null) {
+            // 其他节点写入的条目，后台查询一次剩余TTL
+            if (remainingTtlLookup != null) {
+                submit(key, () -> {
+                    long remaining = remainingTtlLookup.applyAsLong(key);
+                    if (remaining >= 0) {
+                        expiries.put(key, System.currentTimeMillis() + remaining);
+                    }
+                });
+            }
+            return;
+        }
+
+        long remaining = expiresAt - System.currentTimeMillis();
+        if (remaining > refreshWindowMillis) {
+            return;
+        }
+        double probability = remaining <= 0 ? 1.0 : 1.0 - (double) remaining / refreshWindowMillis;
+        if (ThreadLocalRandom.current().nextDouble() >= probability) {
+            return;
+        }
+        submit(key, () -> refresh(key, loader));
+    }
+
+    private void refresh(Object key, Function<Object, ?> loader) {
+        long startEvictions = evictions.get();
+        try {
+            Object value = loader.apply(key);
+            if (value == null) {
+                increment(refreshSuccessCounter);
+                return;
+            }
+            if (evictions.get() != startEvictions) {
+                discard(key);
+                return;
+            }
+            put(key, value);
+            // 失效先递增代数再删除条目：写入后代数仍未变化，之后的失效一定能删掉刚写入的值
+            if (evictions.get() != startEvictions) {
+                delegate.evict(key);
+                expiries.invalidate(key);
+                discard(key);
+                return;
+            }
+            if (refreshListener != null) {
+                refreshListener.accept(key);
+            }
+            increment(refreshSuccessCounter);
+            log.debug("缓存提前刷新完成 - Cache: {}, Key: {}", getName(), key);
+        } catch (Exception e) {
+            increment(refreshFailureCounter);
+            log.warn("缓存提前刷新失败，保留当前值 - Cache: {}, Key: {}, 原因: {}", getName(), key, e.getMessage());
+        }
+    }
+
+    private void discard(Object key) {
+        increment(refreshDiscardedCounter);
+        log.debug("刷新期间缓存已失效，丢弃刷新结果 - Cache: {}, Key: {}", getName(), key);
+    }
+
+    /**
+     * 同一key同时只提交一个后台任务，线程池满时放弃本次刷新
+     */
+    private void submit(Object key, Runnable task) {
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("缓存后台任务失败 - Cache: {}, Key: {}, 原因: {}", getName(), key, e.getMessage());
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+        }
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * 提前刷新缓存管理器
+ * 对配置了TTL的缓存名称叠加提前刷新，其余缓存原样透传；刷新使用 CacheRefreshLoaders 中按缓存名称注册的加载函数
+ *
+ * @author spark
+ * @date 2025-06-26
+ */
+public class RefreshAheadCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final Map<String, Duration> cacheTtls;
+
+    private final double refreshWindowRatio;
+
+    private final Executor executor;
+
+    private final BiFunction<String, Object, Long> remainingTtlLookup;
+
+    private final CacheRefreshLoaders refreshLoaders;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, RefreshAheadCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * (缓存名, key) 刷新写入后的回调，见 setRefreshListener
+     */
+    private volatile BiConsumer<String, Object> refreshListener;
+
+    /**
+     * @param cacheTtls          启用提前刷新的缓存名称及其TTL
+     * @param refreshWindowRatio 刷新窗口占TTL的比例
+     * @param remainingTtlLookup (缓存名, key) -> 剩余TTL毫秒，为null时只刷新本节点写入的条目
+     * @param refreshLoaders     各缓存的刷新加载函数
+     */
+    public RefreshAheadCacheManager(CacheManager delegate, Map<String, Duration> cacheTtls, double refreshWindowRatio,
+                                    Executor executor, BiFunction<String, Object, Long> remainingTtlLookup,
+                                    CacheRefreshLoaders refreshLoaders, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cacheTtls = Map.copyOf(cacheTtls);
+        this.refreshWindowRatio = refreshWindowRatio;
+        this.executor = executor;
+        this.remainingTtlLookup = remainingTtlLookup;
+        this.refreshLoaders = refreshLoaders;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Duration ttl = cacheTtls.get(name);
+        if (ttl == null) {
+            return delegate.getCache(name);
+        }
+        RefreshAheadCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> new RefreshAheadCache(target, ttl, refreshWindowRatio, executor,
+                remainingTtlLookup != null ? key -> remainingTtl(n, key) : null, refreshLoaders,
+                key -> notifyRefreshed(n, key), meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 设置刷新写入后的回调；上层近端缓存在本管理器之后创建，由配置类在创建后设置
+     */
+    public void setRefreshListener(BiConsumer<String, Object> refreshListener) {
+        this.refreshListener = refreshListener;
+    }
+
+    /**
+     * 其他节点已失效指定缓存，丢弃本节点该缓存进行中的刷新结果
+     */
+    public void markInvalidated(String cacheName) {
+        RefreshAheadCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.markInvalidated();
+        }
+    }
+
+    private void notifyRefreshed(String name, Object key) {
+        BiConsumer<String, Object> listener = refreshListener;
+        if (listener != null) {
+            listener.accept(name, key);
+        }
+    }
+
+    private long remainingTtl(String name, Object key) {
+        Long remaining = remainingTtlLookup.apply(name, key);
+        return remaining != null ? remaining : -1;
+    }
+}
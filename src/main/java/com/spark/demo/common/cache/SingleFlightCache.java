@@ -0,0 +1,137 @@
+package com.spark.demo.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 单飞缓存
+ * 包装远程缓存，接管 get(key, valueLoader)（即 @Cacheable(sync = true) 的未命中路径）：
+ * 同key的并发未命中只读取一次Redis、只执行一次加载，可选叠加跨节点加载锁
+ *
+ * 加载结果为null时不写入缓存；读取缓存异常（如反序列化失败）按未命中处理，由加载结果覆盖
+ *
+ * @author spark
+ * @date 2025-06-25
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+
+    private static final String LOCK_PREFIX = "app:cache:lock:";
+
+    private final Cache delegate;
+
+    private final SingleFlightLoader loader;
+
+    private final RedisLoadLock loadLock;
+
+    public SingleFlightCache(Cache delegate, SingleFlightLoader loader, RedisLoadLock loadLock) {
+        this.delegate = delegate;
+        this.loader = loader;
+        this.loadLock = loadLock;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            return loader.load(key, () -> {
+                ValueWrapper cached = getQuietly(key);
+                if (cached != null) {
+                    return (T) cached.get();
+                }
+                T value = loadLock != null
+                        ? loadLock.callWithLock(LOCK_PREFIX + getName() + ":" + key, () -> getQuietly(key), valueLoader)
+                        : valueLoader.call();
+                if (value != null) {
+                    putQuietly(key, value);
+                }
+                return value;
+            });
+        } catch (ValueRetrievalException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * 进行中的加载数量
+     */
+    public int inFlightCount() {
+        return loader.inFlightCount();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    private ValueWrapper getQuietly(Object key) {
+        try {
+            ValueWrapper wrapper = delegate.get(key);
+            return wrapper != null && wrapper.get() != null ? wrapper : null;
+        } catch (RuntimeException e) {
+            log.warn("读取缓存失败，按未命中处理 - Cache: {}, Key: {}, 原因: {}", getName(), key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putQuietly(Object key, Object value) {
+        try {
+            delegate.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("写入缓存失败 - Cache: {}, Key: {}, 原因: {}", getName(), key, e.getMessage());
+        }
+    }
+}
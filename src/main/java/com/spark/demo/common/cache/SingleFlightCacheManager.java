@@ -0,0 +1,59 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 单飞缓存管理器
+ * 为被包装CacheManager返回的每个缓存加上单飞加载，缓存名称和其余行为保持不变
+ *
+ * @author spark
+ * @date 2025-06-25
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final RedisLoadLock loadLock;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, SingleFlightCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param loadLock 跨节点加载锁，为null时只合并本JVM内的并发加载
+     */
+    public SingleFlightCacheManager(CacheManager delegate, RedisLoadLock loadLock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.loadLock = loadLock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        SingleFlightCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name,
+                n -> new SingleFlightCache(target, new SingleFlightLoader(n, meterRegistry), loadLock));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+}
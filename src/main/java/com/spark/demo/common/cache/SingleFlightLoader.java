@@ -0,0 +1,96 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 单飞加载器
+ * 同一个key的并发加载在本JVM内合并为一次：第一个调用方执行加载，其余调用方等待并共享同一结果（或同一异常）
+ *
+ * 指标：cache.load{cache, result=origin|coalesced}，origin为实际执行加载的次数，coalesced为被合并的次数
+ *
+ * @author spark
+ * @date 2025-06-25
+ */
+public class SingleFlightLoader {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter originCounter;
+
+    private final Counter coalescedCounter;
+
+    public SingleFlightLoader(String name, MeterRegistry meterRegistry) {
+        if (meterRegistry != null) {
+            this.originCounter = Counter.builder("cache.load").tag("cache", name).tag("result", "origin")
+                    .description("缓存未命中时实际执行的加载次数").register(meterRegistry);
+            this.coalescedCounter = Counter.builder("cache.load").tag("cache", name).tag("result", "coalesced")
+                    .description("缓存未命中时合并到进行中加载的次数").register(meterRegistry);
+        } else {
+            this.originCounter = null;
+            this.coalescedCounter = null;
+        }
+    }
+
+    /**
+     * 加载key对应的值，同key并发调用只执行一次loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Object key, Callable<T> loader) throws Exception {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            increment(coalescedCounter);
+            return (T) await(existing);
+        }
+
+        increment(originCounter);
+        try {
+            T value = loader.call();
+            future.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 当前进行中的加载数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.spark.demo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 二级缓存
+ * 一级为进程内近端缓存（Caffeine，容量+TTL淘汰），二级为原有的远程缓存（Redis）
+ *
+ * 读：先查本地，未命中再查Redis，命中后回填本地
+ * 写/删：同时作用于两级，保证本节点读到的始终是最新写入
+ *
+ * @author spark
+ * @date 2025-06-20
+ */
+@Slf4j
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+
+    private final Cache<Object, Object> localCache;
+
+    private final org.springframework.cache.Cache remoteCache;
+
+    public TwoLevelCache(String name, Cache<Object, Object> localCache, org.springframework.cache.Cache remoteCache) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = remoteCache.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            localCache.put(key, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配, 期望: " + type.getName() + ", 实际: " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+
+        T loaded = remoteCache.get(key, valueLoader);
+        if (loaded != null) {
+            localCache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        if (value != null) {
+            localCache.put(key, value);
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        if (existing != null && existing.get() != null) {
+            localCache.put(key, existing.get());
+        } else if (value != null) {
+            localCache.put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        localCache.invalidate(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        localCache.invalidate(key);
+        return remoteCache.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+    }
+
+    @Override
+    public boolean invalidate() {
+        localCache.invalidateAll();
+        return remoteCache.invalidate();
+    }
+
+    /**
+     * 仅清除本地一级缓存中的指定key（用于集群失效通知，Redis已由发起节点处理）
+     */
+    public void evictLocal(Object key) {
+        localCache.invalidate(key);
+    }
+
+    /**
+     * 仅清空本地一级缓存
+     */
+    public void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 本地一级缓存当前条目数（近似值）
+     */
+    public long localSize() {
+        return localCache.estimatedSize();
+    }
+
+    public org.springframework.cache.Cache getRemoteCache() {
+        return remoteCache;
+    }
+}
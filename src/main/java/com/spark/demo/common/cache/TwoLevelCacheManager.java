@@ -0,0 +1,124 @@
+package com.spark.demo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 二级缓存管理器
+ * 包装原有的CacheManager，对指定名称的缓存叠加进程内近端缓存，其余缓存原样透传
+ *
+ * 近端缓存的命中/未命中/淘汰统计通过MeterRegistry导出，指标名为 cache.gets / cache.evictions，
+ * tag cache=near:{cacheName}
+ *
+ * @author spark
+ * @date 2025-06-20
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+
+    private final Set<String> nearCacheNames;
+
+    private final long maximumSize;
+
+    private final Duration expireAfterWrite;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, Collection<String> nearCacheNames,
+                                long maximumSize, Duration expireAfterWrite, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.nearCacheNames = Collections.unmodifiableSet(new LinkedHashSet<>(nearCacheNames));
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!nearCacheNames.contains(name)) {
+            return remoteCacheManager.getCache(name);
+        }
+        TwoLevelCache cache = twoLevelCaches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return twoLevelCaches.computeIfAbsent(name, n -> createTwoLevelCache(n, remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(twoLevelCaches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 清除本节点本地缓存中的某个key，远程缓存不受影响
+     */
+    public void evictLocal(String cacheName, Object key) {
+        TwoLevelCache cache = twoLevelCaches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    /**
+     * 清空指定缓存的本地一级缓存
+     */
+    public void clearLocal(String cacheName) {
+        TwoLevelCache cache = twoLevelCaches.get(cacheName);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    /**
+     * 清空全部本地一级缓存
+     */
+    public void clearAllLocal() {
+        twoLevelCaches.values().forEach(TwoLevelCache::clearLocal);
+    }
+
+    public Set<String> getNearCacheNames() {
+        return nearCacheNames;
+    }
+
+    public CacheManager getRemoteCacheManager() {
+        return remoteCacheManager;
+    }
+
+    private TwoLevelCache createTwoLevelCache(String name, Cache remoteCache) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, "near:" + name);
+        }
+
+        log.info("近端缓存已启用 - Cache: {}, 最大条目: {}, TTL: {}", name, maximumSize, expireAfterWrite);
+        return new TwoLevelCache(name, localCache, remoteCache);
+    }
+}
@@ -0,0 +1,115 @@
+package com.spark.demo.common.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应并发上限
+ * 被保护方法的耗时记入带p99的Micrometer计时器（ratelimit.adaptive.latency，同时暴露给Prometheus），
+ * 每个调整周期读取一次p99：超过目标耗时则上限乘以0.75收缩（收缩后一个统计窗口内不再收缩，避免旧样本反复触发），
+ * 否则按最大上限的1/20逐步放大，上限始终在 [1, maxLimit] 内
+ *
+ * @author spark
+ * @date 2025-07-05
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    private static final double DECREASE_RATIO = 0.75;
+
+    private static final int MIN_SAMPLES = 10;
+
+    private final int maxLimit;
+
+    private final long targetNanos;
+
+    private final long adjustIntervalNanos;
+
+    private final long windowNanos;
+
+    private final Timer latency;
+
+    private final LongSupplier ticker;
+
+    private final LongAdder samples = new LongAdder();
+
+    private final AtomicLong lastAdjust;
+
+    private volatile long lastDecrease;
+
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimit(String scope, int maxLimit, Duration target, Duration adjustInterval,
+                                    Duration window, MeterRegistry meterRegistry, LongSupplier ticker) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = this.maxLimit;
+        this.targetNanos = target.toNanos();
+        this.adjustIntervalNanos = adjustInterval.toNanos();
+        this.windowNanos = window.toNanos();
+        this.ticker = ticker;
+        long now = ticker.getAsLong();
+        this.lastAdjust = new AtomicLong(now);
+        this.lastDecrease = now - windowNanos;
+        this.latency = Timer.builder("ratelimit.adaptive.latency")
+                .tag("scope", scope)
+                .publishPercentiles(0.99)
+                .distributionStatisticExpiry(window)
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.adaptive.limit", this, AdaptiveConcurrencyLimit::currentLimit)
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    public int currentLimit() {
+        return limit;
+    }
+
+    /**
+     * 记录一次调用耗时，到达调整周期时按p99调整上限
+     */
+    public void record(long latencyNanos) {
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        samples.increment();
+        long now = ticker.getAsLong();
+        long last = lastAdjust.get();
+        if (now - last >= adjustIntervalNanos && lastAdjust.compareAndSet(last, now)) {
+            adjust(now);
+        }
+    }
+
+    private void adjust(long now) {
+        if (samples.sumThenReset() < MIN_SAMPLES) {
+            return;
+        }
+        double p99 = p99Nanos();
+        if (Double.isNaN(p99)) {
+            return;
+        }
+        int current = limit;
+        if (p99 > targetNanos) {
+            if (now - lastDecrease >= windowNanos) {
+                limit = Math.max(1, (int) (current * DECREASE_RATIO));
+                lastDecrease = now;
+            }
+        } else if (current < maxLimit) {
+            limit = Math.min(maxLimit, current + Math.max(1, maxLimit / 20));
+        }
+    }
+
+    private double p99Nanos() {
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == 0.99) {
+                return value.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+}
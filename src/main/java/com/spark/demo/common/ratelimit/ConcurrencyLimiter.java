@@ -0,0 +1,71 @@
+package com.spark.demo.common.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 并发数限流
+ * 每个限流key一个非阻塞的计数信号量：获取时在途数未达上限则加一，方法返回后释放；
+ * 在途数回到0的key立即移除，保存的key数量不超过当前在途请求数
+ *
+ * 自适应上限（AdaptiveConcurrencyLimit）按限流范围共享，同一接口的所有key使用同一个动态上限
+ *
+ * @author spark
+ * @date 2025-07-05
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.rate-limit.adaptive.adjust-interval:PT1S}")
+    private Duration adjustInterval = Duration.ofSeconds(1);
+
+    @Value("${app.security.rate-limit.adaptive.window:PT10S}")
+    private Duration window = Duration.ofSeconds(10);
+
+    LongSupplier ticker = System::nanoTime;
+
+    private final ConcurrentHashMap<RateLimitKey, Integer> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, AdaptiveConcurrencyLimit> adaptiveLimits = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试占用一个并发名额，成功后必须调用 release
+     */
+    public boolean tryAcquire(RateLimitKey key, int limit) {
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(key, (k, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= limit) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    public void release(RateLimitKey key) {
+        inFlight.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public int inFlight(RateLimitKey key) {
+        return inFlight.getOrDefault(key, 0);
+    }
+
+    /**
+     * 限流范围对应的自适应上限，首次使用时创建
+     */
+    public AdaptiveConcurrencyLimit adaptiveLimit(String scope, int maxLimit, Duration targetP99) {
+        return adaptiveLimits.computeIfAbsent(scope, s -> new AdaptiveConcurrencyLimit(s, maxLimit, targetP99,
+                adjustInterval, window, meterRegistry, ticker));
+    }
+}
@@ -0,0 +1,202 @@
+package com.spark.demo.common.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地限流存储
+ * 按key分段加锁（每段一把锁、一个按访问顺序排列的LinkedHashMap），不同key的限流检查互不阻塞；
+ * 每个key只保存一个固定窗口计数器（窗口起点、本周期及上一周期已用次数、最近访问时间），与 Refill.intervally 的令牌桶语义一致：
+ * 从首次访问起每个周期补满 limit 次；滑动窗口模式额外按上一周期计数的剩余权重估算
+ *
+ * 内存有界：每段最多保存 maxKeys / stripes 个key，超出时淘汰最久未访问的key（被淘汰的key重新从满额开始）；
+ * 空闲超过 idleTimeout 且计数已不再影响限流的key在访问时顺带清理，并由定时任务兜底清理
+ *
+ * @author spark
+ * @date 2025-07-03
+ */
+@Slf4j
+@Component
+public class LocalRateLimitStore {
+
+    @Value("${app.security.rate-limit.local-store.max-keys:100000}")
+    private int maxKeys = 100_000;
+
+    @Value("${app.security.rate-limit.local-store.stripes:64}")
+    private int stripes = 64;
+
+    @Value("${app.security.rate-limit.local-store.idle-timeout:PT10M}")
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    LongSupplier ticker = System::nanoTime;
+
+    private Stripe[] stripeArray;
+
+    private int stripeMask;
+
+    private long idleTimeoutNanos;
+
+    @PostConstruct
+    public void init() {
+        int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        int maxPerStripe = Math.max(1, maxKeys / stripeCount);
+        stripeArray = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripeArray[i] = new Stripe(maxPerStripe);
+        }
+        stripeMask = stripeCount - 1;
+        idleTimeoutNanos = idleTimeout.toNanos();
+        log.info("本地限流存储已初始化, maxKeys: {}, stripes: {}, idleTimeout: {}", maxKeys, stripeCount, idleTimeout);
+    }
+
+    /**
+     * 尝试获取一次许可
+     *
+     * @param key         限流key
+     * @param limit       每个周期允许的次数
+     * @param periodNanos 周期（纳秒）
+     * @return 是否放行
+     */
+    public boolean tryAcquire(RateLimitKey key, long limit, long periodNanos) {
+        return acquire(key, limit, periodNanos, false);
+    }
+
+    /**
+     * 按滑动窗口尝试获取一次许可：上一周期计数按其在滑动窗口内的剩余比例计入，
+     * 周期边界前后各用满 limit 次的突发被限制为 limit 次
+     *
+     * @param key         限流key
+     * @param limit       任意一个周期长度的窗口内允许的次数（估算）
+     * @param periodNanos 窗口长度（纳秒）
+     * @return 是否放行
+     */
+    public boolean tryAcquireSliding(RateLimitKey key, long limit, long periodNanos) {
+        return acquire(key, limit, periodNanos, true);
+    }
+
+    private boolean acquire(RateLimitKey key, long limit, long periodNanos, boolean sliding) {
+        long now = ticker.getAsLong();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                window = new Window(now, periodNanos);
+                stripe.windows.put(key, window);
+            } else if (now - window.start >= window.period) {
+                long periods = (now - window.start) / window.period;
+                window.previousUsed = periods == 1 ? window.used : 0;
+                window.start += periods * window.period;
+                window.used = 0;
+            }
+            window.lastAccess = now;
+            long used = window.used;
+            if (sliding && window.previousUsed > 0) {
+                double previousWeight = (double) (window.period - (now - window.start)) / window.period;
+                used += (long) (window.previousUsed * previousWeight);
+            }
+            boolean permitted = used < limit;
+            if (permitted) {
+                window.used++;
+            }
+            stripe.evictIdle(now, idleTimeoutNanos, 2);
+            return permitted;
+        }
+    }
+
+    /**
+     * 当前保存的key数量
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripeArray) {
+            synchronized (stripe) {
+                size += stripe.windows.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 清理所有空闲key，访问停止后释放内存
+     */
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.local-store.sweep-interval:60000}",
+            initialDelayString = "${app.security.rate-limit.local-store.sweep-interval:60000}")
+    public void sweep() {
+        long now = ticker.getAsLong();
+        int evicted = 0;
+        for (Stripe stripe : stripeArray) {
+            synchronized (stripe) {
+                evicted += stripe.evictIdle(now, idleTimeoutNanos, Integer.MAX_VALUE);
+            }
+        }
+        if (evicted > 0) {
+            log.debug("清理空闲限流key: {}", evicted);
+        }
+    }
+
+    private Stripe stripeFor(RateLimitKey key) {
+        int h = key.hashCode();
+        return stripeArray[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    private static final class Stripe {
+
+        private final LinkedHashMap<RateLimitKey, Window> windows;
+
+        Stripe(int maxSize) {
+            this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<RateLimitKey, Window> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        /**
+         * 从最久未访问的一端清理空闲且计数已失效的key，遇到未空闲的key即停止
+         */
+        int evictIdle(long now, long idleTimeoutNanos, int maxScan) {
+            int evicted = 0;
+            Iterator<Window> iterator = windows.values().iterator();
+            for (int scanned = 0; scanned < maxScan && iterator.hasNext(); scanned++) {
+                Window window = iterator.next();
+                if (now - window.lastAccess < idleTimeoutNanos) {
+                    break;
+                }
+                // 滑动窗口还会用到上一周期的计数，窗口起点之后两个周期才能安全清理
+                if (now - window.start >= 2 * window.period) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+
+    private static final class Window {
+
+        private final long period;
+
+        private long start;
+
+        private long used;
+
+        private long previousUsed;
+
+        private long lastAccess;
+
+        Window(long start, long period) {
+            this.start = start;
+            this.period = period;
+        }
+    }
+}
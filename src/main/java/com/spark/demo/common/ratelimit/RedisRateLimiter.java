@@ -0,0 +1,146 @@
+package com.spark.demo.common.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Redis分布式限流
+ * 每个限流key对应Redis中的一个令牌桶（Hash：tokens、ts），容量为限流次数，按 limit / period 的速率连续补充；
+ * 取令牌由Lua脚本原子完成，时间取Redis服务器时间（脚本先读TIME再写入，需Redis 5+），各节点时钟不一致不影响计数
+ *
+ * 租约模式一次取多个令牌缓存在本节点，后续请求在本地扣减，用完或租约过期后再取；
+ * 已取出的令牌已在Redis中扣除，集群整体不会超过限流次数，代价是节点间分配不完全均匀
+ *
+ * Redis不可用时降级为 LocalRateLimitStore 按节点本地计数
+ *
+ * @author spark
+ * @date 2025-07-04
+ */
+@Slf4j
+@Component
+public class RedisRateLimiter {
+
+    /**
+     * KEYS[1] 令牌桶key；ARGV[1] 容量，ARGV[2] 周期（毫秒），ARGV[3] 请求令牌数；返回实际取得的令牌数
+     */
+    private static final DefaultRedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local period = tonumber(ARGV[2])
+            local requested = tonumber(ARGV[3])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1])
+            local ts = tonumber(state[2])
+            if tokens == nil or ts == nil then
+                tokens = capacity
+                ts = now
+            elseif now > ts then
+                tokens = math.min(capacity, tokens + (now - ts) * capacity / period)
+                ts = now
+            end
+            local granted = math.min(requested, math.floor(tokens))
+            tokens = tokens - granted
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+            redis.call('PEXPIRE', KEYS[1], period)
+            return granted
+            """, Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private LocalRateLimitStore localRateLimitStore;
+
+    @Value("${app.security.rate-limit.redis.lease-ttl:PT1S}")
+    private Duration leaseTtl = Duration.ofSeconds(1);
+
+    @Value("${app.security.rate-limit.redis.max-leases:10000}")
+    private long maxLeases = 10_000;
+
+    LongSupplier ticker = System::nanoTime;
+
+    private Cache<RateLimitKey, Lease> leases;
+
+    @PostConstruct
+    public void init() {
+        leases = Caffeine.newBuilder()
+                .maximumSize(maxLeases)
+                .expireAfterAccess(leaseTtl.multipliedBy(2))
+                .build();
+    }
+
+    /**
+     * 每次请求从Redis令牌桶取一个令牌
+     */
+    public boolean tryAcquire(RateLimitKey key, long limit, long periodNanos) {
+        Long granted = acquireFromRedis(key, limit, periodNanos, 1);
+        if (granted == null) {
+            return localRateLimitStore.tryAcquire(key, limit, periodNanos);
+        }
+        return granted > 0;
+    }
+
+    /**
+     * 优先消费本地租约中的令牌，租约用完或过期时从Redis再取 leaseSize 个
+     */
+    public boolean tryAcquireLeased(RateLimitKey key, long limit, long periodNanos, int leaseSize) {
+        Lease lease = leases.get(key, k -> new Lease());
+        synchronized (lease) {
+            long now = ticker.getAsLong();
+            if (lease.remaining > 0 && now - lease.expiresAt < 0) {
+                lease.remaining--;
+                return true;
+            }
+            Long granted = acquireFromRedis(key, limit, periodNanos, Math.max(1, Math.min(leaseSize, limit)));
+            if (granted == null) {
+                lease.remaining = 0;
+                return localRateLimitStore.tryAcquire(key, limit, periodNanos);
+            }
+            if (granted <= 0) {
+                lease.remaining = 0;
+                return false;
+            }
+            lease.remaining = granted - 1;
+            lease.expiresAt = now + leaseTtl.toNanos();
+            return true;
+        }
+    }
+
+    /**
+     * @return 取得的令牌数，Redis不可用返回null
+     */
+    private Long acquireFromRedis(RateLimitKey key, long limit, long periodNanos, long requested) {
+        try {
+            Long granted = stringRedisTemplate.execute(ACQUIRE_SCRIPT, Collections.singletonList(key.toString()),
+                    String.valueOf(limit), String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toMillis(periodNanos))),
+                    String.valueOf(requested));
+            return granted != null ? granted : 0L;
+        } catch (Exception e) {
+            log.warn("Redis限流不可用，降级为本地限流，key: {}, 原因: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 本节点持有的令牌租约
+     */
+    private static final class Lease {
+
+        private long remaining;
+
+        private long expiresAt;
+    }
+}
@@ -0,0 +1,66 @@
+package com.spark.demo.common.session;
+
+import com.spark.demo.entity.User;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Session中的用户快照
+ * 只保存鉴权与上下文需要的字段，并记录生成时的用户版本号；版本号与 UserVersionRegistry 中的当前版本一致时，
+ * 请求直接使用快照，无需查询用户
+ *
+ * 注意：Session序列化器按非final类型写入类型信息，本类不能声明为final
+ *
+ * @author spark
+ * @date 2025-06-29
+ */
+@Data
+public class UserSessionSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Session属性名
+     */
+    public static final String SESSION_ATTRIBUTE = "userSnapshot";
+
+    private Long userId;
+
+    private String uuid;
+
+    private String username;
+
+    private String role;
+
+    private Integer status;
+
+    /**
+     * 生成快照时的用户版本号
+     */
+    private long version;
+
+    public static UserSessionSnapshot of(User user, long version) {
+        UserSessionSnapshot snapshot = new UserSessionSnapshot();
+        snapshot.setUserId(user.getId());
+        snapshot.setUuid(user.getUuid());
+        snapshot.setUsername(user.getUsername());
+        snapshot.setRole(user.getRole());
+        snapshot.setStatus(user.getStatus());
+        snapshot.setVersion(version);
+        return snapshot;
+    }
+
+    /**
+     * 转换为用户上下文使用的User，只包含快照中的字段
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(userId);
+        user.setUuid(uuid);
+        user.setUsername(username);
+        user.setRole(role);
+        user.setStatus(status);
+        return user;
+    }
+}
@@ -0,0 +1,136 @@
+package com.spark.demo.common.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * 用户版本号登记
+ * 用户状态、密码、角色等影响鉴权的信息变更时递增版本号，Session中的用户快照版本号落后即需重新校验
+ *
+ * 版本号存放在Redis（app:user:version:{uuid}），各节点在本地缓存读取结果；递增后通过缓存失效总线
+ * 通知所有节点丢弃本地值，本地缓存的过期时间兜底消息丢失的情况。Redis读取失败时返回 UNKNOWN，
+ * 调用方应按版本不一致处理
+ *
+ * 版本号同时作为JWT中的权限版本戳（pv），过期时间必须大于访问token的有效期，否则启动失败：
+ * 版本号过期后旧token中的版本戳无法再与当前版本比较
+ *
+ * @author spark
+ * @date 2025-06-29
+ */
+@Slf4j
+@Component
+public class UserVersionRegistry {
+
+    /**
+     * 失效总线上代表用户版本号的名称
+     */
+    public static final String CACHE_NAME = "user:session:version";
+
+    /**
+     * 版本号未知（Redis不可用）
+     */
+    public static final long UNKNOWN = -1L;
+
+    private static final String KEY_PREFIX = "app:user:version:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${app.session.user-version.local-max-size:100000}")
+    private long localMaxSize = 100_000;
+
+    @Value("${app.session.user-version.local-ttl:PT5M}")
+    private Duration localTtl = Duration.ofMinutes(5);
+
+    @Value("${app.session.user-version.ttl:P2D}")
+    private Duration versionTtl = Duration.ofDays(2);
+
+    /**
+     * 访问token有效期（小时）
+     */
+    @Value("${app.jwt.expiration:24}")
+    private int accessTokenHours = 24;
+
+    private Cache<String, Long> localVersions;
+
+    @PostConstruct
+    public void init() {
+        Duration accessTokenTtl = Duration.ofHours(accessTokenHours);
+        if (versionTtl.compareTo(accessTokenTtl) <= 0) {
+            throw new IllegalStateException("app.session.user-version.ttl (" + versionTtl
+                    + ") 必须大于访问token有效期 app.jwt.expiration (" + accessTokenTtl + ")");
+        }
+        localVersions = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        cacheInvalidationBus.subscribe(message -> {
+            if (!message.getCacheNames().contains(CACHE_NAME)) {
+                return;
+            }
+            if (message.isClearAll()) {
+                localVersions.invalidateAll();
+            } else {
+                message.getKeys().forEach(key -> localVersions.invalidate(String.valueOf(key)));
+            }
+        });
+    }
+
+    /**
+     * 当前版本号，从未变更过的用户为0
+     */
+    public long currentVersion(String uuid) {
+        Long version = localVersions.getIfPresent(uuid);
+        if (version != null) {
+            return version;
+        }
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + uuid);
+            long loaded = value != null ? Long.parseLong(value) : 0L;
+            localVersions.put(uuid, loaded);
+            return loaded;
+        } catch (Exception e) {
+            log.warn("读取用户版本号失败，UUID: {}", uuid, e);
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * 递增版本号并通知所有节点，使该用户所有Session中的快照失效
+     *
+     * @return 新版本号，失败返回 UNKNOWN
+     */
+    public long bump(String uuid) {
+        try {
+            String key = KEY_PREFIX + uuid;
+            // 以当前毫秒时间作为起点，版本号过期后重新递增也不会与过期前的版本号（含token中的版本戳）重合
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()), versionTtl);
+            Long version = stringRedisTemplate.opsForValue().increment(key);
+            stringRedisTemplate.expire(key, versionTtl);
+            localVersions.put(uuid, version);
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(Collections.singletonList(CACHE_NAME),
+                    Collections.singletonList(uuid), "user-version:" + uuid));
+            log.debug("用户版本号已递增，UUID: {}, 版本: {}", uuid, version);
+            return version;
+        } catch (Exception e) {
+            // 本地值作废，至少本节点会重新校验
+            localVersions.invalidate(uuid);
+            log.error("递增用户版本号失败，UUID: {}", uuid, e);
+            return UNKNOWN;
+        }
+    }
+}
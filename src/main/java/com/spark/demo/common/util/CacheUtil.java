@@ -1,12 +1,25 @@
 package com.spark.demo.common.util;
 
+import com.spark.demo.common.cache.RedisLoadLock;
+import com.spark.demo.common.cache.RedisScanDeleter;
+import com.spark.demo.common.cache.SingleFlightLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -23,11 +36,30 @@ import java.util.function.Supplier;
 public class CacheUtil {
 
     private final RedisTemplate<String, Object> redisTemplate;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final RedisScanDeleter redisScanDeleter;
+
+    private final RedisUtil redisUtil;
+
+    private SingleFlightLoader mutexLoader;
+
+    private RedisLoadLock mutexLock;
     
     private static final String NULL_VALUE = "NULL";
     private static final String LOCK_PREFIX = "lock:";
     private static final Random RANDOM = new Random();
 
+    @PostConstruct
+    public void init() {
+        mutexLoader = new SingleFlightLoader("cacheUtil:mutex", meterRegistryProvider.getIfAvailable());
+        // 锁时长由每次调用的lockTimeout决定，这里的默认值不会被使用
+        mutexLock = new RedisLoadLock(stringRedisTemplate, Duration.ofSeconds(10), Duration.ofSeconds(10));
+    }
+
     /**
      * 防穿透查询
      * 如果缓存和数据库都没有数据，会缓存空值防止穿透
@@ -76,7 +108,8 @@ public class CacheUtil {
 
     /**
      * 防击穿查询（互斥锁）
-     * 使用分布式锁防止缓存击穿
+     * 本JVM内同key并发只加载一次，跨节点通过分布式锁互斥：未抢到锁的调用方轮询缓存等待结果，
+     * 等待超过锁超时时间后降级为直接查询数据库
      * 
      * @param key 缓存key
      * @param dataLoader 数据加载器
@@ -96,58 +129,40 @@ public class CacheUtil {
             return (T) cached;
         }
         
-        // 3. 缓存未命中，尝试获取锁
-        String lockKey = LOCK_PREFIX + key;
-        boolean lockAcquired = tryLock(lockKey, lockTimeout);
-        
+        // 3. 缓存未命中，合并并发加载并在分布式锁保护下查询数据库
+        Duration lockDuration = Duration.ofSeconds(lockTimeout);
         try {
-            if (lockAcquired) {
-                // 4. 获取锁成功，再次检查缓存（双重检查）
-                cached = redisTemplate.opsForValue().get(key);
-                if (cached != null && !NULL_VALUE.equals(cached)) {
-                    log.debug("双重检查缓存命中，key: {}", key);
-                    return (T) cached;
-                }
-                
-                // 5. 查询数据库
-                log.debug("获取锁成功，查询数据库，key: {}", key);
-                T data = dataLoader.get();
-                
-                // 6. 写入缓存
-                if (data != null) {
-                    long randomTimeout = timeout + RANDOM.nextInt(300);
-                    redisTemplate.opsForValue().set(key, data, randomTimeout, unit);
-                    log.debug("数据写入缓存，key: {}", key);
-                } else {
-                    redisTemplate.opsForValue().set(key, NULL_VALUE, 60, TimeUnit.SECONDS);
-                    log.debug("缓存空值，key: {}", key);
-                }
-                
-                return data;
-            } else {
-                // 7. 获取锁失败，等待后重试
-                log.debug("获取锁失败，等待重试，key: {}", key);
-                try {
-                    Thread.sleep(50); // 等待50ms
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                
-                // 重试查询缓存
-                cached = redisTemplate.opsForValue().get(key);
-                if (cached != null && !NULL_VALUE.equals(cached)) {
-                    return (T) cached;
-                }
-                
-                // 如果还是没有，直接查询数据库（降级策略）
-                log.warn("缓存重建超时，直接查询数据库，key: {}", key);
-                return dataLoader.get();
-            }
-        } finally {
-            if (lockAcquired) {
-                releaseLock(lockKey);
-            }
+            return mutexLoader.load(key, () -> mutexLock.callWithLock(LOCK_PREFIX + key, lockDuration, lockDuration,
+                    () -> recheck(key),
+                    () -> {
+                        log.debug("获取锁成功，查询数据库，key: {}", key);
+                        T data = dataLoader.get();
+                        if (data != null) {
+                            long randomTimeout = timeout + RANDOM.nextInt(300);
+                            redisTemplate.opsForValue().set(key, data, randomTimeout, unit);
+                            log.debug("数据写入缓存，key: {}", key);
+                        } else {
+                            redisTemplate.opsForValue().set(key, NULL_VALUE, 60, TimeUnit.SECONDS);
+                            log.debug("缓存空值，key: {}", key);
+                        }
+                        return data;
+                    }));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("缓存加载失败，key: " + key, e);
+        }
+    }
+
+    /**
+     * 加锁后/等待中重新检查缓存，空值标记视为已加载（结果为null）
+     */
+    private Cache.ValueWrapper recheck(String key) {
+        Object cached = redisTemplate.opsForValue().get(key);
+        if (cached == null) {
+            return null;
         }
+        return new SimpleValueWrapper(NULL_VALUE.equals(cached) ? null : cached);
     }
 
     /**
@@ -160,44 +175,27 @@ public class CacheUtil {
      */
     public <T> void warmUp(String[] keys, java.util.function.Function<String, T> dataLoader, 
                           long baseTimeout, TimeUnit unit) {
+        Map<String, Object> loaded = new LinkedHashMap<>();
         for (String key : keys) {
             try {
                 T data = dataLoader.apply(key);
                 if (data != null) {
-                    // 为每个key添加不同的随机过期时间
-                    long randomTimeout = baseTimeout + RANDOM.nextInt(600); // 随机增加0-10分钟
-                    redisTemplate.opsForValue().set(key, data, randomTimeout, unit);
-                    log.debug("预热缓存，key: {}, timeout: {}", key, randomTimeout);
+                    loaded.put(key, data);
                 }
             } catch (Exception e) {
                 log.error("预热缓存失败，key: {}", key, e);
             }
         }
-    }
-
-    /**
-     * 尝试获取分布式锁
-     * 
-     * @param lockKey 锁key
-     * @param timeout 超时时间（秒）
-     * @return 是否获取成功
-     */
-    private boolean tryLock(String lockKey, long timeout) {
-        String lockValue = Thread.currentThread().getName() + ":" + System.currentTimeMillis();
-        Boolean success = redisTemplate.opsForValue().setIfAbsent(lockKey, lockValue, timeout, TimeUnit.SECONDS);
-        return Boolean.TRUE.equals(success);
-    }
+        if (loaded.isEmpty()) {
+            return;
+        }
 
-    /**
-     * 释放分布式锁
-     * 
-     * @param lockKey 锁key
-     */
-    private void releaseLock(String lockKey) {
+        // 为每个key添加不同的随机过期时间（0-10分钟），按批次管道写入
         try {
-            redisTemplate.delete(lockKey);
+            redisUtil.multiSet(loaded, key -> baseTimeout + RANDOM.nextInt(600), unit);
+            log.debug("预热缓存完成，数量: {}", loaded.size());
         } catch (Exception e) {
-            log.error("释放锁失败，key: {}", lockKey, e);
+            log.error("预热缓存写入失败，数量: {}", loaded.size(), e);
         }
     }
 
@@ -213,18 +211,33 @@ public class CacheUtil {
 
     /**
      * 批量删除缓存
+     * 使用SCAN分批遍历并管道UNLINK，不阻塞Redis
+     * 
+     * @param pattern 匹配模式
+     * @return 删除数量，失败时返回-1
+     */
+    public long deleteByPattern(String pattern) {
+        return deleteByPattern(pattern, (batches, deleted) ->
+                log.debug("批量删除缓存进度，pattern: {}, 批次: {}, 已删除: {}", pattern, batches, deleted));
+    }
+
+    /**
+     * 批量删除缓存，每批完成后回调进度
      * 
      * @param pattern 匹配模式
+     * @param listener 进度回调
+     * @return 删除数量，失败时返回-1
      */
-    public void deleteByPattern(String pattern) {
+    public long deleteByPattern(String pattern, RedisScanDeleter.ProgressListener listener) {
         try {
-            var keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("批量删除缓存，pattern: {}, count: {}", pattern, keys.size());
-            }
+            byte[] rawPattern = pattern.getBytes(StandardCharsets.UTF_8);
+            Long deleted = redisTemplate.execute((RedisCallback<Long>) connection ->
+                    redisScanDeleter.delete(connection, rawPattern, listener));
+            log.debug("批量删除缓存，pattern: {}, count: {}", pattern, deleted);
+            return deleted != null ? deleted : 0;
         } catch (Exception e) {
             log.error("批量删除缓存失败，pattern: {}", pattern, e);
+            return -1;
         }
     }
 
@@ -4,6 +4,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StringUtils;
 
+import java.util.Set;
+
 /**
  * IP工具类
  * 用于获取客户端真实IP地址
@@ -84,6 +86,50 @@ public class IpUtil {
         return ip;
     }
 
+    /**
+     * 获取可信的客户端IP地址（用于限流等安全相关场景）
+     * 转发头可由客户端任意伪造，只有直连地址是可信代理时才读取 X-Forwarded-For：
+     * 从右向左跳过可信代理，第一个非代理地址即客户端IP；未配置可信代理时直接使用直连地址
+     *
+     * @param request        HTTP请求
+     * @param trustedProxies 可信代理IP
+     * @return 客户端IP地址
+     */
+    public static String getClientIP(HttpServletRequest request, Set<String> trustedProxies) {
+        if (request == null) {
+            return UNKNOWN;
+        }
+        String remoteAddr = normalize(request.getRemoteAddr());
+        if (trustedProxies == null || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (!StringUtils.hasText(forwardedFor)) {
+            String realIp = request.getHeader("X-Real-IP");
+            return isValidIP(realIp) ? normalize(realIp.trim()) : remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = normalize(hops[i].trim());
+            if (!StringUtils.hasText(hop) || UNKNOWN.equalsIgnoreCase(hop)) {
+                // 无法识别的转发记录之前的地址都不可信
+                break;
+            }
+            if (!trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
+
+    /**
+     * 处理本地回环地址
+     */
+    private static String normalize(String ip) {
+        return LOCALHOST_IPV6.equals(ip) ? LOCALHOST_IPV4 : ip;
+    }
+
     /**
      * 验证IP地址是否有效
      * 
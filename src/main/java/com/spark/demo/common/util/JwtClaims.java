@@ -0,0 +1,101 @@
+package com.spark.demo.common.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * 已验签的JWT声明
+ * 由 JwtUtil#parseClaims 解析一次得到，调用方从同一对象读取用户名、用户ID、类型等，避免重复解析和验签
+ *
+ * @author spark
+ * @date 2025-06-30
+ */
+public final class JwtClaims {
+
+    public static final String TYPE_ACCESS = "access";
+
+    public static final String TYPE_REFRESH = "refresh";
+
+    /**
+     * 权限版本戳声明名，值为签发时的用户版本号（UserVersionRegistry）
+     */
+    public static final String PERMISSION_VERSION = "pv";
+
+    private final Claims claims;
+
+    JwtClaims(Claims claims) {
+        this.claims = claims;
+    }
+
+    /**
+     * 用户名（subject）
+     */
+    public String getUsername() {
+        return claims.getSubject();
+    }
+
+    public Long getUserId() {
+        return claims.get("userId", Long.class);
+    }
+
+    /**
+     * token类型：access / refresh
+     */
+    public String getTokenType() {
+        return claims.get("type", String.class);
+    }
+
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(getTokenType());
+    }
+
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(getTokenType());
+    }
+
+    public String getRole() {
+        return claims.get("role", String.class);
+    }
+
+    public String getUuid() {
+        return claims.get("uuid", String.class);
+    }
+
+    /**
+     * 权限版本戳，签发时版本号未知则为null
+     */
+    public Long getPermissionVersion() {
+        return claims.get(PERMISSION_VERSION, Long.class);
+    }
+
+    /**
+     * token唯一标识（jti），未设置时为null
+     */
+    public String getId() {
+        return claims.getId();
+    }
+
+    public Date getIssuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    /**
+     * 剩余有效时间（毫秒），已过期为0
+     */
+    public long getRemainingMillis() {
+        Date expiration = claims.getExpiration();
+        return expiration == null ? Long.MAX_VALUE : Math.max(0, expiration.getTime() - System.currentTimeMillis());
+    }
+
+    /**
+     * 原始声明，读取自定义声明时使用
+     */
+    public Claims getClaims() {
+        return claims;
+    }
+}
@@ -2,6 +2,8 @@ package com.spark.demo.common.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -11,10 +13,15 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * JWT工具类
  * 提供JWT token的生成、解析、验证功能
+ *
+ * 签名密钥与解析器在初始化时构建一次（JwtParser不可变、线程安全）；
+ * 需要多个声明时使用 parseClaims 解析一次，不要依次调用 validateToken、getXxxFromToken；
+ * 生成的每个token都带有唯一的jti，用于吊销（TokenRevocationList）
  * 
  * @author spark
  */
@@ -40,11 +47,23 @@ public class JwtUtil {
     @Value("${app.jwt.refresh-expiration:7}")
     private int refreshExpiration;
 
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /**
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     /**
@@ -60,9 +79,10 @@ public class JwtUtil {
         Instant expiry = now.plus(Duration.ofHours(expiration));
 
         JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("userId", userId)
-                .claim("type", "access")
+                .claim("type", JwtClaims.TYPE_ACCESS)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiry))
                 .signWith(getSigningKey());
@@ -87,15 +107,41 @@ public class JwtUtil {
         Instant expiry = now.plus(Duration.ofDays(refreshExpiration));
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("userId", userId)
-                .claim("type", "refresh")
+                .claim("type", JwtClaims.TYPE_REFRESH)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiry))
                 .signWith(getSigningKey())
                 .compact();
     }
 
+    /**
+     * 解析并验证token，返回类型化的声明视图
+     *
+     * @param token JWT token
+     * @return 已验签的声明
+     */
+    public JwtClaims parseClaims(String token) {
+        return new JwtClaims(parseToken(token));
+    }
+
+    /**
+     * 解析并验证token，无效时返回null而不抛出异常，供过滤器等每请求调用的场景使用
+     *
+     * @param token JWT token
+     * @return 已验签的声明，无效返回null
+     */
+    public JwtClaims tryParseClaims(String token) {
+        try {
+            return new JwtClaims(jwtParser.parseSignedClaims(token).getPayload());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT token无效: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 解析token
      *
@@ -104,11 +150,7 @@ public class JwtUtil {
      */
     public Claims parseToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return jwtParser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("JWT token已过期: {}", e.getMessage());
             throw new RuntimeException("Token已过期");
@@ -134,12 +176,7 @@ public class JwtUtil {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            parseToken(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return tryParseClaims(token) != null;
     }
 
     /**
@@ -149,8 +186,7 @@ public class JwtUtil {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return parseClaims(token).getUsername();
     }
 
     /**
@@ -160,8 +196,7 @@ public class JwtUtil {
      * @return 用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("userId", Long.class);
+        return parseClaims(token).getUserId();
     }
 
     /**
@@ -171,8 +206,7 @@ public class JwtUtil {
      * @return token类型
      */
     public String getTokenType(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("type", String.class);
+        return parseClaims(token).getTokenType();
     }
 
     /**
@@ -182,15 +216,8 @@ public class JwtUtil {
      * @return 是否即将过期
      */
     public boolean isTokenExpiringSoon(String token) {
-        try {
-            Claims claims = parseToken(token);
-            Date expiration = claims.getExpiration();
-            Date now = new Date();
-            long timeUntilExpiry = expiration.getTime() - now.getTime();
-            return timeUntilExpiry < Duration.ofHours(1).toMillis();
-        } catch (Exception e) {
-            return true;
-        }
+        JwtClaims claims = tryParseClaims(token);
+        return claims == null || claims.getRemainingMillis() < Duration.ofHours(1).toMillis();
     }
 
     /**
@@ -200,13 +227,7 @@ public class JwtUtil {
      * @return 剩余有效时间（秒）
      */
     public long getTokenRemainingTime(String token) {
-        try {
-            Claims claims = parseToken(token);
-            Date expiration = claims.getExpiration();
-            Date now = new Date();
-            return Math.max(0, (expiration.getTime() - now.getTime()) / 1000);
-        } catch (Exception e) {
-            return 0;
-        }
+        JwtClaims claims = tryParseClaims(token);
+        return claims == null ? 0 : claims.getRemainingMillis() / 1000;
     }
 } 
\ No newline at end of file
@@ -3,11 +3,22 @@ package com.spark.demo.common.util;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
 
 /**
  * Redis工具类
@@ -40,6 +51,12 @@ public class RedisUtil {
     @Qualifier("genericRedisTemplate")
     private RedisTemplate<String, Object> genericRedisTemplate;
 
+    /**
+     * 批量操作每次管道提交的命令数，避免单批过大占用连接和内存
+     */
+    @Value("${app.redis.pipeline-flush-size:500}")
+    private int pipelineFlushSize = 500;
+
     // ==================== 字符串操作 ====================
 
     /**
@@ -255,6 +272,134 @@ public class RedisUtil {
         redisTemplate.opsForHash().putAll(key, hash);
     }
 
+    // ==================== 批量操作（管道） ====================
+
+    /**
+     * 批量获取值，按批次使用MGET，结果顺序与keys一致，不存在的key对应null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        List<Object> result = new ArrayList<>(keys.size());
+        for (List<String> chunk : chunks(keys)) {
+            List<Object> values = redisTemplate.opsForValue().multiGet(chunk);
+            result.addAll(values != null ? values : Collections.nCopies(chunk.size(), null));
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取字符串值（推荐，避免序列化乱码）
+     */
+    public List<String> multiGetString(Collection<String> keys) {
+        List<String> result = new ArrayList<>(keys.size());
+        for (List<String> chunk : chunks(keys)) {
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(chunk);
+            result.addAll(values != null ? values : Collections.nCopies(chunk.size(), null));
+        }
+        return result;
+    }
+
+    /**
+     * 批量设置值并指定统一的过期时间，通过管道发送
+     */
+    public void multiSet(Map<String, ?> entries, long timeout, TimeUnit unit) {
+        multiSet(entries, key -> timeout, unit);
+    }
+
+    /**
+     * 批量设置值，每个key单独计算过期时间（如加随机偏移防雪崩），通过管道发送
+     */
+    public void multiSet(Map<String, ?> entries, ToLongFunction<String> timeoutOf, TimeUnit unit) {
+        pipelined(redisTemplate, entries.entrySet(),
+                (ops, entry) -> ops.opsForValue().set(entry.getKey(), entry.getValue(),
+                        timeoutOf.applyAsLong(entry.getKey()), unit));
+    }
+
+    /**
+     * 批量设置字符串值并指定统一的过期时间（推荐，避免序列化乱码）
+     */
+    public void multiSetString(Map<String, String> entries, long timeout, TimeUnit unit) {
+        pipelined(stringRedisTemplate, entries.entrySet(),
+                (ops, entry) -> ops.opsForValue().set(entry.getKey(), entry.getValue(), timeout, unit));
+    }
+
+    /**
+     * 批量设置过期时间
+     *
+     * @return 设置成功的key数量
+     */
+    public long multiExpire(Collection<String> keys, long timeout, TimeUnit unit) {
+        List<Object> results = pipelined(redisTemplate, keys, (ops, key) -> ops.expire(key, timeout, unit));
+        return results.stream().filter(Boolean.TRUE::equals).count();
+    }
+
+    /**
+     * 批量获取多个Hash的全部字段
+     *
+     * @return key -> Hash内容，不存在的key对应空Map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<Object, Object>> hashGetAllBatch(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        List<Object> results = pipelined(redisTemplate, keyList, (ops, key) -> ops.opsForHash().entries(key));
+        Map<String, Map<Object, Object>> hashes = new LinkedHashMap<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            Object hash = i < results.size() ? results.get(i) : null;
+            hashes.put(keyList.get(i), hash instanceof Map ? (Map<Object, Object>) hash : Collections.emptyMap());
+        }
+        return hashes;
+    }
+
+    /**
+     * 批量写入多个Hash，可选统一过期时间（timeout <= 0 表示不设置）
+     */
+    public void hashSetAllBatch(Map<String, ? extends Map<String, ?>> hashes, long timeout, TimeUnit unit) {
+        pipelined(redisTemplate, hashes.entrySet(), (ops, entry) -> {
+            ops.opsForHash().putAll(entry.getKey(), entry.getValue());
+            if (timeout > 0) {
+                ops.expire(entry.getKey(), timeout, unit);
+            }
+        });
+    }
+
+    /**
+     * 按批次管道执行，每批一次网络往返，返回各命令结果（已反序列化）
+     */
+    private <K, V, T> List<Object> pipelined(RedisTemplate<K, V> template, Collection<T> items,
+                                             BiConsumer<RedisOperations<K, V>, T> command) {
+        List<Object> results = new ArrayList<>(items.size());
+        for (List<T> chunk : chunks(items)) {
+            results.addAll(template.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <OK, OV> Object execute(RedisOperations<OK, OV> operations) throws DataAccessException {
+                    RedisOperations<K, V> ops = (RedisOperations<K, V>) operations;
+                    for (T item : chunk) {
+                        command.accept(ops, item);
+                    }
+                    return null;
+                }
+            }));
+        }
+        return results;
+    }
+
+    private <T> List<List<T>> chunks(Collection<T> items) {
+        int size = Math.max(1, pipelineFlushSize);
+        List<List<T>> chunks = new ArrayList<>((items.size() + size - 1) / size);
+        List<T> current = new ArrayList<>(Math.min(size, items.size()));
+        for (T item : items) {
+            current.add(item);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(Math.min(size, items.size()));
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
     // ==================== 使用建议方法 ====================
 
     /**
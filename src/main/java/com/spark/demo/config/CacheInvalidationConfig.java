@@ -0,0 +1,53 @@
+package com.spark.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.cache.RedisCacheInvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 缓存失效消息总线配置
+ * app.cache.invalidation.transport=redis（默认）使用Redis发布/订阅，memory 使用进程内实现
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Slf4j
+@Configuration
+public class CacheInvalidationConfig {
+
+    @Value("${app.cache.invalidation.channel:app:cache:invalidation}")
+    private String channel;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache.invalidation", name = "transport", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache.invalidation", name = "transport", havingValue = "redis", matchIfMissing = true)
+    public CacheInvalidationBus redisCacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                          RedisMessageListenerContainer cacheInvalidationListenerContainer,
+                                                          ObjectMapper objectMapper) {
+        log.info("✅ 缓存失效总线配置完成 - Redis发布/订阅, 频道: {}", channel);
+        return new RedisCacheInvalidationBus(stringRedisTemplate, cacheInvalidationListenerContainer, objectMapper, channel);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cache.invalidation", name = "transport", havingValue = "memory")
+    public CacheInvalidationBus inMemoryCacheInvalidationBus() {
+        log.info("✅ 缓存失效总线配置完成 - 进程内实现");
+        return new InMemoryCacheInvalidationBus();
+    }
+}
@@ -1,5 +1,6 @@
 package com.spark.demo.config;
 
+import com.spark.demo.modules.rbac.context.AuthorizationContextFilter;
 import com.spark.demo.modules.rbac.filter.RbacFilter;
 import com.spark.demo.modules.rbac.interceptor.PermissionInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class RbacWebConfig implements WebMvcConfigurer {
     @Autowired
     private RbacFilter rbacFilter;
 
+    @Autowired
+    private AuthorizationContextFilter authorizationContextFilter;
+
     /**
      * 注册权限拦截器
      */
@@ -48,6 +52,19 @@ public class RbacWebConfig implements WebMvcConfigurer {
                 );
     }
 
+    /**
+     * 注册鉴权上下文过滤器，位于认证和RBAC过滤器之外，请求结束时上报鉴权开销
+     */
+    @Bean
+    public FilterRegistrationBean<AuthorizationContextFilter> authorizationContextFilterRegistration() {
+        FilterRegistrationBean<AuthorizationContextFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(authorizationContextFilter);
+        registration.addUrlPatterns("/*");
+        registration.setName("authorizationContextFilter");
+        registration.setOrder(0);
+        return registration;
+    }
+
     /**
      * 注册RBAC过滤器
      */
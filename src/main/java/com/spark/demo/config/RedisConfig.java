@@ -2,10 +2,26 @@ package com.spark.demo.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.spark.demo.common.cache.CacheBatchWriter;
+import com.spark.demo.common.cache.CacheRefreshLoaders;
+import com.spark.demo.common.cache.RedisLoadLock;
+import com.spark.demo.common.cache.RedisScanDeleter;
+import com.spark.demo.common.cache.RefreshAheadCacheManager;
+import com.spark.demo.common.cache.SingleFlightCacheManager;
+import com.spark.demo.common.cache.TwoLevelCacheManager;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
@@ -19,15 +35,24 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
 
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Redis 统一配置类
@@ -36,7 +61,7 @@ import java.util.Map;
  * 1. 主RedisTemplate - 使用Jackson2JsonRedisSerializer（避免乱码，推荐日常使用）
  * 2. 通用RedisTemplate - 使用GenericJackson2JsonRedisSerializer（保留类型信息）
  * 3. Spring Session - 使用JSON序列化，解决Hash value乱码问题
- * 4. 缓存管理器 - 统一序列化配置
+ * 4. 缓存管理器 - 统一序列化配置，RBAC鉴权缓存叠加进程内近端缓存
  * 5. RedisUtil工具类支持
  * 
  * 基于Redis官方文档最佳实践：
@@ -62,6 +87,78 @@ public class RedisConfig implements CachingConfigurer {
     @Value("${spring.cache.redis.cache-null-values:false}")
     private boolean cacheNullValues;
 
+    /**
+     * 缓存未命中时合并同key的并发加载（作用于 @Cacheable(sync = true)）
+     */
+    @Value("${app.cache.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    /**
+     * 是否启用跨节点加载锁
+     */
+    @Value("${app.cache.single-flight.distributed-lock:false}")
+    private boolean singleFlightDistributedLock;
+
+    @Value("${app.cache.single-flight.lock-ttl:PT10S}")
+    private Duration singleFlightLockTtl;
+
+    @Value("${app.cache.single-flight.lock-wait-timeout:PT3S}")
+    private Duration singleFlightLockWaitTimeout;
+
+    /**
+     * 条目临近过期时后台提前刷新（作用于 @Cacheable(sync = true)）
+     */
+    @Value("${app.cache.refresh-ahead.enabled:true}")
+    private boolean refreshAheadEnabled;
+
+    /**
+     * 启用提前刷新的缓存名称，TTL取各缓存自身配置；缓存所有者需在 CacheRefreshLoaders 中注册刷新加载函数
+     */
+    @Value("${app.cache.refresh-ahead.cache-names:rbac:user:role:ids,rbac:role:info,rbac:role:permissions,rbac:role:permission:bits,rbac:role:menus}")
+    private List<String> refreshAheadCacheNames;
+
+    /**
+     * 刷新窗口占TTL的比例，剩余TTL进入该窗口后按概率触发刷新
+     */
+    @Value("${app.cache.refresh-ahead.window-ratio:0.2}")
+    private double refreshAheadWindowRatio;
+
+    /**
+     * 按模式批量删除（含 allEntries 清理）时每批SCAN/UNLINK的key数量
+     */
+    @Value("${app.cache.bulk-delete.batch-size:500}")
+    private int bulkDeleteBatchSize;
+
+    @Value("${app.cache.refresh-ahead.pool-size:2}")
+    private int refreshAheadPoolSize;
+
+    @Value("${app.cache.refresh-ahead.queue-capacity:500}")
+    private int refreshAheadQueueCapacity;
+
+    /**
+     * 近端缓存最大条目数（每个缓存名称单独计算）
+     */
+    @Value("${rbac.performance.near-cache-max-size:10000}")
+    private long nearCacheMaxSize;
+
+    /**
+     * 近端缓存写入后过期时间
+     */
+    @Value("${rbac.performance.near-cache-ttl:PT1M}")
+    private Duration nearCacheTtl;
+
+    /**
+     * 每次请求鉴权都会读取的RBAC缓存，叠加进程内近端缓存
+     */
+    private static final List<String> NEAR_CACHE_NAMES = Arrays.asList(
+            "rbac:user:role:ids",
+            "rbac:role:info",
+            "rbac:role:permission:bits"
+    );
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
     /**
      * 主要的RedisTemplate配置 - 使用Jackson2JsonRedisSerializer（不包含类型信息，避免乱码）
      * 推荐日常使用，在Redis客户端中显示清晰可读的JSON格式
@@ -179,8 +276,10 @@ public class RedisConfig implements CachingConfigurer {
         // 针对不同缓存名称的特定配置
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         
-        // 用户缓存 - 较长TTL
-        cacheConfigurations.put("userCache", defaultConfig.entryTtl(Duration.ofHours(2)));
+        // 用户缓存 - 较长TTL；同时存放User和UserVO，使用带类型信息的序列化器才能还原为实体
+        cacheConfigurations.put("userCache", defaultConfig.entryTtl(Duration.ofHours(2))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericJackson2JsonRedisSerializer(createObjectMapperWithTypeInfo()))));
         
         // 短期缓存 - 较短TTL
         cacheConfigurations.put("shortCache", defaultConfig.entryTtl(Duration.ofMinutes(5)));
@@ -191,14 +290,102 @@ public class RedisConfig implements CachingConfigurer {
         // 权限缓存 - 中等TTL
         cacheConfigurations.put("authCache", defaultConfig.entryTtl(Duration.ofMinutes(30)));
 
-        RedisCacheManager cacheManager = RedisCacheManager.builder(redisConnectionFactory)
+        // RBAC角色级缓存 - 值为固定类型，使用带类型的序列化器，避免反序列化为Map
+        TypeFactory typeFactory = TypeFactory.defaultInstance();
+        cacheConfigurations.put("rbac:user:role:ids",
+                typedCacheConfig(defaultConfig, typeFactory.constructCollectionType(List.class, Long.class)));
+        cacheConfigurations.put("rbac:role:info",
+                typedCacheConfig(defaultConfig, typeFactory.constructType(Role.class)));
+        cacheConfigurations.put("rbac:role:permissions",
+                typedCacheConfig(defaultConfig, typeFactory.constructCollectionType(List.class, Permission.class)));
+        cacheConfigurations.put("rbac:role:permission:bits",
+                typedCacheConfig(defaultConfig, typeFactory.constructType(PermissionBits.class)));
+        cacheConfigurations.put("rbac:role:menus",
+                typedCacheConfig(defaultConfig, typeFactory.constructCollectionType(List.class, Menu.class)));
+
+        // allEntries清理使用SCAN + UNLINK分批删除，替代默认的KEYS
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory,
+                redisScanDeleter());
+        RedisCacheManager cacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .transactionAware() // 支持事务
                 .build();
         
         log.info("✅ Redis缓存管理器配置完成 - 使用JSON序列化，默认TTL: {}", defaultCacheTtl);
-        return cacheManager;
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        CacheManager remoteCacheManager = cacheManager;
+        RefreshAheadCacheManager refreshAheadCacheManager = null;
+        if (singleFlightEnabled) {
+            RedisLoadLock loadLock = singleFlightDistributedLock
+                    ? new RedisLoadLock(new StringRedisTemplate(redisConnectionFactory), singleFlightLockTtl, singleFlightLockWaitTimeout)
+                    : null;
+            remoteCacheManager = new SingleFlightCacheManager(cacheManager, loadLock, meterRegistry);
+            log.info("缓存单飞加载已启用 - 跨节点加载锁: {}", singleFlightDistributedLock);
+        }
+
+        if (refreshAheadEnabled && !singleFlightEnabled) {
+            // 刷新复用单飞加载器合并同一条目的并发刷新，关闭单飞时提前刷新不生效
+            log.warn("缓存提前刷新依赖单飞加载，app.cache.single-flight.enabled=false 时不启用提前刷新");
+        } else if (refreshAheadEnabled) {
+            Map<String, Duration> refreshTtls = new LinkedHashMap<>();
+            for (String name : refreshAheadCacheNames) {
+                RedisCacheConfiguration config = cacheConfigurations.getOrDefault(name, defaultConfig);
+                refreshTtls.put(name, config.getTtlFunction().getTimeToLive(name, null));
+            }
+            // 与RedisCache写入时的key一致：缓存自身的前缀 + 经转换服务转换后的key
+            RedisCacheConfiguration ttlDefaultConfig = defaultConfig;
+            StringRedisTemplate ttlTemplate = new StringRedisTemplate(redisConnectionFactory);
+            refreshAheadCacheManager = new RefreshAheadCacheManager(remoteCacheManager, refreshTtls,
+                    refreshAheadWindowRatio, cacheRefreshExecutor(),
+                    (name, key) -> ttlTemplate.getExpire(CacheBatchWriter.cacheKey(
+                            cacheConfigurations.getOrDefault(name, ttlDefaultConfig), name, key), TimeUnit.MILLISECONDS),
+                    cacheRefreshLoaders(), meterRegistry);
+            remoteCacheManager = refreshAheadCacheManager;
+            log.info("缓存提前刷新已启用 - 缓存: {}, 刷新窗口比例: {}", refreshTtls.keySet(), refreshAheadWindowRatio);
+        }
+
+        // 高频鉴权缓存前置进程内近端缓存，稳态下鉴权不再访问Redis
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(remoteCacheManager, NEAR_CACHE_NAMES,
+                nearCacheMaxSize, nearCacheTtl, meterRegistry);
+        if (refreshAheadCacheManager != null) {
+            // 后台刷新只写入Redis，同时丢弃本节点近端缓存中的旧值
+            refreshAheadCacheManager.setRefreshListener(twoLevelCacheManager::evictLocal);
+        }
+        return twoLevelCacheManager;
+    }
+
+    /**
+     * 基于SCAN的批量删除器，供缓存清理和 CacheUtil.deleteByPattern 共用
+     */
+    @Bean
+    public RedisScanDeleter redisScanDeleter() {
+        return new RedisScanDeleter(bulkDeleteBatchSize);
+    }
+
+    /**
+     * 缓存提前刷新加载函数注册表，由各缓存的所有者注册
+     */
+    @Bean
+    public CacheRefreshLoaders cacheRefreshLoaders() {
+        return new CacheRefreshLoaders();
+    }
+
+    /**
+     * 缓存提前刷新执行器
+     * 独立于业务异步线程池；队列满时拒绝并放弃本次刷新，调用方继续使用当前值
+     */
+    @Bean("cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(refreshAheadPoolSize);
+        executor.setMaxPoolSize(refreshAheadPoolSize);
+        executor.setQueueCapacity(refreshAheadQueueCapacity);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
     }
 
     /**
@@ -267,6 +454,21 @@ public class RedisConfig implements CachingConfigurer {
      * 适用于：日常缓存、简单对象存储、要求Redis数据可读的场景
      */
     private Jackson2JsonRedisSerializer<Object> createCleanJsonSerializer() {
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(createCleanObjectMapper(), Object.class);
+        
+        log.debug("创建清洁JSON序列化器完成");
+        return serializer;
+    }
+
+    /**
+     * 指定值类型的缓存配置，数据格式与清洁序列化器一致，反序列化时直接还原为目标类型
+     */
+    private RedisCacheConfiguration typedCacheConfig(RedisCacheConfiguration baseConfig, JavaType valueType) {
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(createCleanObjectMapper(), valueType);
+        return baseConfig.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+    }
+
+    private ObjectMapper createCleanObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
         
@@ -278,11 +480,7 @@ public class RedisConfig implements CachingConfigurer {
         // 其他配置
         objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         objectMapper.configure(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
-        
-        log.debug("创建清洁JSON序列化器完成");
-        return serializer;
+        return objectMapper;
     }
     
     /**
@@ -1,9 +1,12 @@
 package com.spark.demo.filter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spark.demo.common.context.UserContext;
 import com.spark.demo.common.result.Result;
 import com.spark.demo.common.result.ResultCode;
+import com.spark.demo.common.session.UserSessionSnapshot;
+import com.spark.demo.common.session.UserVersionRegistry;
 import com.spark.demo.entity.User;
 import com.spark.demo.service.UserService;
 import jakarta.servlet.*;
@@ -15,12 +18,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * 认证过滤器
  *
+ * 已登录用户的请求走零分配快路径：排除路径为预先构建的前缀数组，客户端IP只在拒绝/异常时才解析，
+ * 快路径上只有DEBUG日志；拒绝响应体在类加载时序列化为字节数组，直接写入输出流
+ *
+ * 当前用户取自Session中的用户快照，快照版本号与 UserVersionRegistry 一致时不查询用户；
+ * 快照缺失或版本落后时才从数据库重新加载并刷新快照
+ *
  * @author spark
  * @date 2025-05-29
  */
@@ -31,10 +38,15 @@ public class AuthFilter implements Filter {
     @Autowired
     private UserService userService;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private UserVersionRegistry userVersionRegistry;
+
+    private static final String CONTENT_TYPE_JSON = "application/json;charset=UTF-8";
+
+    private static final String LOGOUT_PATH = "/api/v1/users/logout";
 
-    // 不需要认证的路径
-    private static final List<String> EXCLUDE_PATHS = Arrays.asList(
+    // 不需要认证的路径（前缀匹配）
+    private static final String[] EXCLUDE_PATHS = {
             "/api/v1/users/login",
             "/api/v1/users/register",
             "/api/v1/users/password-login",
@@ -47,150 +59,171 @@ public class AuthFilter implements Filter {
             "/api/webjars",
             "/api/swagger-resources",
             "/error"
-    );
+    };
+
+    private static final byte[] NOT_LOGGED_IN_BODY = jsonBody(ResultCode.UNAUTHORIZED, "用户未登录");
+
+    private static final byte[] USER_DISABLED_BODY = jsonBody(ResultCode.UNAUTHORIZED, "用户已被禁用");
+
+    private static final byte[] UNSUPPORTED_BODY = jsonBody(ResultCode.FAIL, "不支持的请求/响应类型");
+
+    private static final byte[] AUTH_ERROR_BODY = jsonBody(ResultCode.FAIL, "认证异常");
 
     @Override
-public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
-        throws IOException, ServletException {
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
 
-    if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
-        log.warn("不支持的请求/响应类型");
-        writeErrorResponse((HttpServletResponse) response, "不支持的请求/响应类型");
-        return;
-    }
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            log.warn("不支持的请求/响应类型");
+            if (response instanceof HttpServletResponse httpResponse) {
+                writeResponse(httpResponse, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, UNSUPPORTED_BODY);
+            }
+            return;
+        }
 
-    HttpServletRequest httpRequest = (HttpServletRequest) request;
-    HttpServletResponse httpResponse = (HttpServletResponse) response;
-
-    String requestURI = httpRequest.getRequestURI();
-    String method = httpRequest.getMethod();
-    String clientIp = getClientIpAddress(httpRequest);
-
-    // 提前记录关键信息
-    log.info("AuthFilter处理请求 - URI: {}, Method: {}", requestURI, method);
-    
-    // 对OPTIONS预检请求直接放行，不进行身份验证
-    if ("OPTIONS".equalsIgnoreCase(method)) {
-        log.info("OPTIONS预检请求直接放行: {}", requestURI);
-        chain.doFilter(request, response);
-        return;
-    }
-    
-    // 调试排除路径
-    log.debug("检查排除路径 - URI: {}, 排除路径列表: {}", requestURI, EXCLUDE_PATHS);
-    boolean excluded = isExcludePath(requestURI);
-    log.debug("排除路径检查结果 - URI: {}, 是否排除: {}", requestURI, excluded);
+        String requestURI = httpRequest.getRequestURI();
+        String method = httpRequest.getMethod();
+        log.debug("AuthFilter处理请求 - URI: {}, Method: {}", requestURI, method);
 
-    try {
-        // 快速处理排除路径
-        if (excluded) {
-            log.info("请求路径在排除列表中: {}", requestURI);
+        // 对OPTIONS预检请求直接放行，不进行身份验证
+        if ("OPTIONS".equalsIgnoreCase(method)) {
+            log.debug("OPTIONS预检请求直接放行: {}", requestURI);
             chain.doFilter(request, response);
             return;
         }
 
-        // 处理认证流程
-        HttpSession session = httpRequest.getSession(false);
-        User currentUser = null;
+        // 快速处理排除路径
+        if (isExcludePath(requestURI)) {
+            log.debug("请求路径在排除列表中: {}", requestURI);
+            chain.doFilter(request, response);
+            return;
+        }
 
-        if (session != null) {
-            String userUuid = (String) session.getAttribute("userUuid");
+        try {
+            // 处理认证流程
+            HttpSession session = httpRequest.getSession(false);
+            User currentUser = null;
 
-            if (userUuid != null) {
-                currentUser = userService.findByUuid(userUuid);
+            if (session != null) {
+                currentUser = resolveUser(session);
+            } else {
+                log.debug("Session为空，请求路径: {}", requestURI);
+            }
 
-                if (log.isDebugEnabled()) {
-                    log.debug("通过UUID查找用户结果: {}", currentUser != null ? "找到用户" : "用户不存在");
+            if (currentUser == null) {
+                // 特殊处理logout请求：即使Session无效，也允许访问logout接口
+                if (LOGOUT_PATH.equals(requestURI)) {
+                    log.info("处理logout请求，即使用户未登录也允许访问");
+                    chain.doFilter(request, response);
+                    return;
                 }
 
-                if (currentUser == null || currentUser.getDeletedTime() != null) {
-                    if (currentUser != null && currentUser.getDeletedTime() != null) {
-                        log.warn("用户已被删除，UUID: {}", userUuid);
-                    }
-                    currentUser = null;
-                }
+                log.warn("用户未登录，请求路径: {}, IP: {}, Session存在: {}",
+                        requestURI, getClientIpAddress(httpRequest), session != null);
+                writeResponse(httpResponse, HttpServletResponse.SC_UNAUTHORIZED, NOT_LOGGED_IN_BODY);
+                return;
             }
 
-            if (log.isTraceEnabled()) {
-                log.trace("处理认证请求 - URI: {}, SessionId: {}", requestURI,
-                        session != null ? session.getId() : "null");
-                log.trace("Session中的用户信息 - userUuid: {}", userUuid);
+            if (currentUser.getStatus() == 0) {
+                log.warn("用户已被禁用，UUID: {}, IP: {}", currentUser.getUuid(), getClientIpAddress(httpRequest));
+                writeResponse(httpResponse, HttpServletResponse.SC_UNAUTHORIZED, USER_DISABLED_BODY);
+                return;
             }
-        } else if (log.isDebugEnabled()) {
-            log.debug("Session为空，请求路径: {}", requestURI);
+
+            // 设置用户上下文
+            UserContext.setCurrentUser(currentUser);
+
+            // 继续执行后续过滤器链
+            chain.doFilter(request, response);
+
+        } catch (ServletException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("认证过滤器异常，请求路径: {}, IP: {}", requestURI, getClientIpAddress(httpRequest), e);
+            writeResponse(httpResponse, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, AUTH_ERROR_BODY);
+        } finally {
+            UserContext.clear();
         }
+    }
 
-        if (currentUser == null) {
-            // 特殊处理logout请求：即使Session无效，也允许访问logout接口
-            if (requestURI.equals("/api/v1/users/logout")) {
-                log.info("处理logout请求，即使用户未登录也允许访问");
-                chain.doFilter(request, response);
-                return;
-            }
-            
-            log.warn("用户未登录，请求路径: {}, IP: {}, Session存在: {}",
-                    requestURI, clientIp, session != null);
-            writeUnauthorizedResponse(httpResponse, "用户未登录");
-            return;
+    /**
+     * 从Session快照解析当前用户，版本号一致时不做任何查询
+     */
+    private User resolveUser(HttpSession session) {
+        Object attribute = session.getAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE);
+        if (attribute instanceof UserSessionSnapshot snapshot
+                && snapshot.getVersion() == userVersionRegistry.currentVersion(snapshot.getUuid())) {
+            return snapshot.toUser();
         }
+        return revalidate(session);
+    }
 
-        if (currentUser.getStatus() == 0) {
-            log.warn("用户已被禁用，UUID: {}, IP: {}", currentUser.getUuid(), clientIp);
-            writeUnauthorizedResponse(httpResponse, "用户已被禁用");
-            return;
+    /**
+     * 快照缺失或版本落后时重新加载用户并刷新快照
+     * 按ID直接查库而不走userCache：版本号在写操作提交后递增，此时userCache中可能仍是尚未驱逐的旧条目
+     */
+    private User revalidate(HttpSession session) {
+        String userUuid = (String) session.getAttribute("userUuid");
+        if (userUuid == null) {
+            return null;
         }
 
-        // 设置用户上下文
-        UserContext.setCurrentUser(currentUser);
+        // 先读版本号再加载用户，加载期间发生的变更会在下次请求时再次触发校验
+        long version = userVersionRegistry.currentVersion(userUuid);
+        Object userId = session.getAttribute("userId");
+        User user = userId instanceof Number id ? userService.getById(id.longValue()) : userService.findByUuid(userUuid);
 
-        // 继续执行后续过滤器链
-        chain.doFilter(request, response);
+        if (user == null || user.getDeletedTime() != null || !userUuid.equals(user.getUuid())) {
+            log.warn("用户不存在或已被删除，UUID: {}", userUuid);
+            session.removeAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE);
+            return null;
+        }
 
-    } catch (ServletException | IOException e) {
-        throw e;
-    } catch (Exception e) {
-        log.error("认证过滤器异常，请求路径: {}, IP: {}", requestURI, clientIp, e);
-        writeErrorResponse(httpResponse, "认证异常");
-    } finally {
-        UserContext.clear();
+        if (version != UserVersionRegistry.UNKNOWN) {
+            session.setAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE, UserSessionSnapshot.of(user, version));
+        }
+        log.debug("用户快照已刷新，UUID: {}, 版本: {}", userUuid, version);
+        return user;
     }
-}
-
 
     /**
      * 检查是否为排除路径
      */
-    private boolean isExcludePath(String requestURI) {
-        return EXCLUDE_PATHS.stream().anyMatch(requestURI::startsWith);
+    private static boolean isExcludePath(String requestURI) {
+        for (String excludePath : EXCLUDE_PATHS) {
+            if (requestURI.startsWith(excludePath)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 写入未授权响应
+     * 写入预先序列化的JSON响应
      */
-    private void writeUnauthorizedResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType("application/json;charset=UTF-8");
-        Result<Void> result = Result.fail(ResultCode.UNAUTHORIZED.getCode(), message);
-        response.getWriter().write(objectMapper.writeValueAsString(result));
+    private static void writeResponse(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(CONTENT_TYPE_JSON);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
 
-    /**
-     * 写入错误响应
-     */
-    private void writeErrorResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        response.setContentType("application/json;charset=UTF-8");
-        Result<Void> result = Result.fail(ResultCode.FAIL.getCode(), message);
-        response.getWriter().write(objectMapper.writeValueAsString(result));
+    private static byte[] jsonBody(ResultCode resultCode, String message) {
+        try {
+            return new ObjectMapper().writeValueAsBytes(Result.fail(resultCode.getCode(), message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化认证响应失败: " + message, e);
+        }
     }
 
     /**
-     * 获取客户端IP地址
+     * 获取客户端IP地址（只在需要记录日志时调用）
      */
-    private String getClientIpAddress(HttpServletRequest request) {
+    private static String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma >= 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
         }
 
         String xRealIp = request.getHeader("X-Real-IP");
@@ -200,4 +233,4 @@ public void doFilter(ServletRequest request, ServletResponse response, FilterCha
 
         return request.getRemoteAddr();
     }
-} 
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.spark.demo.modules.auth.controller;
 
+import com.spark.demo.common.annotation.RateLimit;
 import com.spark.demo.common.annotation.RequireAuth;
 import com.spark.demo.common.context.UserContext;
 import com.spark.demo.common.result.Result;
@@ -114,6 +115,8 @@ public class AuthController {
         tags = {"用户认证"}
     )
     @ApiDocUtil.AuthApiResponses
+    @RateLimit(key = "auth:password-login", countProperty = "app.security.rate-limit.login-limit", count = 5,
+            limitType = RateLimit.LimitType.IP, store = RateLimit.Store.REDIS, message = "登录尝试过于频繁，请稍后再试")
     @PostMapping("/login")
     public Result<String> login(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -156,6 +159,8 @@ public class AuthController {
         tags = {"用户认证"}
     )
     @ApiDocUtil.AuthApiResponses
+    @RateLimit(key = "auth:password-login", countProperty = "app.security.rate-limit.login-limit", count = 5,
+            limitType = RateLimit.LimitType.IP, store = RateLimit.Store.REDIS, message = "登录尝试过于频繁，请稍后再试")
     @PostMapping("/password-login")
     public Result<String> passwordLogin(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -472,6 +477,8 @@ public class AuthController {
             )
         )
     )
+    @RateLimit(key = "auth:password-login", countProperty = "app.security.rate-limit.login-limit", count = 5,
+            limitType = RateLimit.LimitType.IP, store = RateLimit.Store.REDIS, message = "登录尝试过于频繁，请稍后再试")
     @PostMapping("/jwt/password-login")
     public Result<Map<String, Object>> jwtPasswordLogin(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -557,4 +564,26 @@ public class AuthController {
         Map<String, Object> tokenData = authService.refreshToken(refreshToken);
         return Result.success(tokenData);
     }
-} 
\ No newline at end of file
+
+    @Operation(
+        summary = "JWT登出",
+        description = """
+            **功能说明**：吊销当前访问令牌，并可同时吊销刷新令牌
+            
+            **注意事项**：
+            - 访问令牌通过 Authorization: Bearer {token} 请求头传入
+            - 吊销后的令牌在剩余有效期内不能再用于访问或刷新
+            """,
+        tags = {"JWT认证"}
+    )
+    @PostMapping("/jwt/logout")
+    public Result<Void> jwtLogout(
+            @Parameter(description = "访问令牌请求头", required = true)
+            @RequestHeader("Authorization") String authorization,
+            @Parameter(description = "刷新令牌")
+            @RequestParam(required = false) String refreshToken) {
+        String accessToken = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        authService.logout(accessToken, refreshToken);
+        return Result.success();
+    }
+}
@@ -1,5 +1,6 @@
 package com.spark.demo.modules.auth.controller;
 
+import com.spark.demo.common.annotation.RateLimit;
 import com.spark.demo.common.result.Result;
 import com.spark.demo.modules.auth.service.CaptchaService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,6 +30,9 @@ public class CaptchaController {
      * 生成滑动验证码
      */
     @GetMapping("/generate")
+    @RateLimit(key = "captcha:generate", kind = RateLimit.Kind.CONCURRENCY,
+            countProperty = "app.security.rate-limit.captcha-concurrency", count = 20,
+            message = "验证码生成繁忙，请稍后再试")
     @Operation(summary = "生成滑动验证码", description = "生成滑动验证码图片和相关信息")
     public Result<Map<String, Object>> generateCaptcha() {
         log.info("请求生成滑动验证码");
@@ -20,7 +20,10 @@ import java.io.IOException;
 
 /**
  * JWT认证过滤器
- * 从请求头中提取JWT token并验证
+ * 从请求头中提取JWT token并验证，每个token只解析、验签一次；
+ * 验签结果与用户主体缓存在 VerifiedTokenCache 中，同一token的后续请求不再验签和查询用户；
+ * 用户主体优先由声明中的角色和权限版本戳构建（CustomUserDetailsService#loadUserByClaims），不查询数据库；
+ * 每个请求都检查 TokenRevocationList，未吊销的token由本地布隆过滤器直接判定，不访问Redis
  * 
  * @author spark
  * @since 2025-06-14
@@ -32,6 +35,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList tokenRevocationList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -41,10 +46,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.getUsernameFromToken(jwt);
+            VerifiedTokenCache.VerifiedToken verified = StringUtils.hasText(jwt)
+                    ? verifiedTokenCache.resolve(jwt, jwtUtil::tryParseClaims, userDetailsService::loadUserByClaims)
+                    : null;
+            if (verified != null && tokenRevocationList.isRevoked(verified.getClaims().getId())) {
+                log.debug("token已吊销，jti: {}", verified.getClaims().getId());
+            } else if (verified != null) {
+                String username = verified.getClaims().getUsername();
                 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = verified.getPrincipal();
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,194 @@
+package com.spark.demo.modules.auth.security;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.util.JwtClaims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT吊销列表
+ * 按token ID（jti）吊销访问token和刷新token，吊销记录存放在Redis（app:jwt:revoked:{jti}），
+ * 以 SET NX 写入、过期时间等于token的剩余有效期，同一jti只有一次吊销成功，可用于一次性token的原子占用；
+ * 同时写入按过期时间排序的索引（ZSET），供各节点重建布隆过滤器
+ *
+ * 本地布隆过滤器判定"未吊销"时直接返回，不访问Redis；判定"可能已吊销"时再查询Redis确认。
+ * 过滤器定时按索引重建（同时清理索引中已过期的jti），新的吊销通过缓存失效总线实时加入各节点的过滤器。
+ * 首次重建成功前过滤器不完整，所有检查都查询Redis；确认阶段Redis不可用时按已吊销处理
+ *
+ * @author spark
+ * @date 2025-07-02
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    /**
+     * 失效总线上代表吊销列表的名称，keys为新吊销的jti
+     */
+    public static final String CACHE_NAME = "jwt:revocation";
+
+    private static final String KEY_PREFIX = "app:jwt:revoked:";
+
+    private static final String INDEX_KEY = "app:jwt:revocation:index";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${app.jwt.revocation.expected-insertions:100000}")
+    private long expectedInsertions = 100_000;
+
+    @Value("${app.jwt.revocation.fpp:0.001}")
+    private double fpp = 0.001;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * 首次重建成功后为true，此前过滤器中缺少启动前的吊销记录
+     */
+    private volatile boolean complete;
+
+    /**
+     * 重建期间新加入的jti，切换过滤器后补入新过滤器；不在重建中时为null
+     */
+    private Set<String> pendingDuringRebuild;
+
+    private final Object filterLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedInsertions, fpp);
+        cacheInvalidationBus.subscribe(message -> {
+            if (!message.getCacheNames().contains(CACHE_NAME) || message.isClearAll()) {
+                return;
+            }
+            message.getKeys().forEach(key -> addLocal(String.valueOf(key)));
+        });
+        rebuild();
+    }
+
+    /**
+     * 吊销token，直到其自然过期；重复吊销幂等
+     *
+     * @param claims 已验签的token声明
+     * @return 是否处于已吊销状态（本次吊销、此前已吊销、token已过期均为true）；token没有jti或Redis写入失败返回false
+     */
+    public boolean revoke(JwtClaims claims) {
+        return revokeIfAbsent(claims) != RevokeOutcome.FAILED;
+    }
+
+    /**
+     * 原子地使用一次性token（如刷新token轮换）：吊销并返回是否由本次调用完成吊销，
+     * 同一token的并发请求只有一个返回true
+     *
+     * @param claims 已验签的token声明
+     * @return 本次调用吊销成功返回true；已被吊销、已过期、没有jti或Redis写入失败返回false
+     */
+    public boolean consume(JwtClaims claims) {
+        return revokeIfAbsent(claims) == RevokeOutcome.REVOKED;
+    }
+
+    /**
+     * token是否已吊销；没有jti的token无法吊销，返回false
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (complete && !filter.mightContain(jti)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY_PREFIX + jti));
+        } catch (Exception e) {
+            log.warn("查询token吊销状态失败，按已吊销处理，jti: {}", jti, e);
+            return true;
+        }
+    }
+
+    /**
+     * 按Redis中的索引重建本地布隆过滤器，同时清理索引中已过期的jti
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval:60000}",
+            initialDelayString = "${app.jwt.revocation.sync-interval:60000}")
+    public void rebuild() {
+        synchronized (filterLock) {
+            pendingDuringRebuild = ConcurrentHashMap.newKeySet();
+        }
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, 0, System.currentTimeMillis());
+            Set<String> revoked = stringRedisTemplate.opsForZSet().range(INDEX_KEY, 0, -1);
+            int size = revoked != null ? revoked.size() : 0;
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, size * 2L), fpp);
+            if (revoked != null) {
+                revoked.forEach(rebuilt::put);
+            }
+            synchronized (filterLock) {
+                pendingDuringRebuild.forEach(rebuilt::put);
+                filter = rebuilt;
+                complete = true;
+            }
+            log.debug("JWT吊销过滤器已重建，吊销数: {}", size);
+        } catch (Exception e) {
+            log.warn("重建JWT吊销过滤器失败，继续使用当前过滤器", e);
+        } finally {
+            synchronized (filterLock) {
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    private RevokeOutcome revokeIfAbsent(JwtClaims claims) {
+        String jti = claims.getId();
+        if (jti == null) {
+            log.warn("token缺少jti，无法吊销，用户: {}", claims.getUsername());
+            return RevokeOutcome.FAILED;
+        }
+        long remainingMillis = claims.getRemainingMillis();
+        if (remainingMillis <= 0) {
+            return RevokeOutcome.EXPIRED;
+        }
+        try {
+            Boolean absent = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(KEY_PREFIX + jti, "1", Duration.ofMillis(remainingMillis));
+            if (!Boolean.TRUE.equals(absent)) {
+                return RevokeOutcome.ALREADY_REVOKED;
+            }
+            stringRedisTemplate.opsForZSet().add(INDEX_KEY, jti, claims.getExpiration().getTime());
+        } catch (Exception e) {
+            log.error("吊销token失败，jti: {}", jti, e);
+            return RevokeOutcome.FAILED;
+        }
+        addLocal(jti);
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(Collections.singletonList(CACHE_NAME),
+                Collections.singletonList(jti), "jwt-revoke:" + jti));
+        log.debug("token已吊销，jti: {}, 剩余有效期: {}ms", jti, remainingMillis);
+        return RevokeOutcome.REVOKED;
+    }
+
+    private void addLocal(String jti) {
+        synchronized (filterLock) {
+            filter.put(jti);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(jti);
+            }
+        }
+    }
+
+    private enum RevokeOutcome {
+        REVOKED, ALREADY_REVOKED, EXPIRED, FAILED
+    }
+}
@@ -0,0 +1,175 @@
+package com.spark.demo.modules.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
+import com.spark.demo.modules.auth.service.CustomUserDetailsService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 已验签JWT缓存
+ * 以token的SHA-256摘要为key（不在内存中保留原始token），缓存验签后的声明和加载出的用户主体，
+ * 同一token的后续请求跳过验签和用户查询
+ *
+ * 条目在token自身过期时失效，且不超过配置的最长缓存时间；条目记录加载时的用户版本号，
+ * 用户状态、密码、删除等变更递增版本号后，命中时版本不一致即按未命中重新加载
+ *
+ * @author spark
+ * @date 2025-07-01
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    });
+
+    @Autowired
+    private UserVersionRegistry userVersionRegistry;
+
+    @Value("${app.jwt.verified-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.jwt.verified-cache.max-size:10000}")
+    private long maxSize = 10_000;
+
+    @Value("${app.jwt.verified-cache.max-ttl:PT5M}")
+    private Duration maxTtl = Duration.ofMinutes(5);
+
+    private Cache<ByteBuffer, VerifiedToken> tokens;
+
+    @PostConstruct
+    public void init() {
+        long maxTtlNanos = maxTtl.toNanos();
+        tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+                        return Math.min(TimeUnit.MILLISECONDS.toNanos(value.getClaims().getRemainingMillis()), maxTtlNanos);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        log.info("JWT验签缓存已初始化, enabled: {}, maxSize: {}, maxTtl: {}", enabled, maxSize, maxTtl);
+    }
+
+    /**
+     * 解析token：命中且用户版本号未变时直接返回缓存条目，否则验签、加载用户主体并缓存
+     *
+     * @param token           JWT token
+     * @param verifier        验签，无效返回null
+     * @param principalLoader 按声明加载用户主体
+     * @return 已验签的token，无效返回null
+     */
+    public VerifiedToken resolve(String token, Function<String, JwtClaims> verifier,
+                                 Function<JwtClaims, UserDetails> principalLoader) {
+        ByteBuffer key = enabled ? digest(token) : null;
+        if (key != null) {
+            VerifiedToken cached = tokens.getIfPresent(key);
+            if (cached != null && cached.getVersion() == currentVersion(cached.getUuid())) {
+                return cached;
+            }
+        }
+
+        JwtClaims claims = verifier.apply(token);
+        if (claims == null) {
+            return null;
+        }
+
+        // 先读版本号再加载用户，加载期间发生的变更会使条目在下次命中时失效
+        String uuid = claims.getUuid();
+        long version = currentVersion(uuid);
+        UserDetails principal = principalLoader.apply(claims);
+        if (uuid == null && principal instanceof CustomUserDetailsService.CustomUserPrincipal customPrincipal) {
+            uuid = customPrincipal.getUser().getUuid();
+            version = currentVersion(uuid);
+        }
+
+        VerifiedToken verified = new VerifiedToken(claims, principal, uuid, version);
+        if (key != null && version != UserVersionRegistry.UNKNOWN && claims.getRemainingMillis() > 0) {
+            tokens.put(key, verified);
+        }
+        return verified;
+    }
+
+    public long size() {
+        return tokens.estimatedSize();
+    }
+
+    private long currentVersion(String uuid) {
+        return uuid != null ? userVersionRegistry.currentVersion(uuid) : UserVersionRegistry.UNKNOWN;
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * 已验签的token：声明、用户主体及加载时的用户版本号
+     */
+    public static final class VerifiedToken {
+
+        private final JwtClaims claims;
+
+        private final UserDetails principal;
+
+        private final String uuid;
+
+        private final long version;
+
+        VerifiedToken(JwtClaims claims, UserDetails principal, String uuid, long version) {
+            this.claims = claims;
+            this.principal = principal;
+            this.uuid = uuid;
+            this.version = version;
+        }
+
+        public JwtClaims getClaims() {
+            return claims;
+        }
+
+        public UserDetails getPrincipal() {
+            return principal;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.spark.demo.modules.auth.service;
 
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
 import com.spark.demo.common.util.JwtUtil;
 import com.spark.demo.dto.PasswordLoginDTO;
 import com.spark.demo.dto.SmsLoginDTO;
 import com.spark.demo.entity.User;
+import com.spark.demo.modules.auth.security.TokenRevocationList;
 import com.spark.demo.service.UserService;
 import com.spark.demo.service.SmsService;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +19,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 认证服务
@@ -34,6 +38,8 @@ public class AuthService {
     private final UserService userService;
     private final SmsService smsService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserVersionRegistry userVersionRegistry;
 
     /**
      * 密码登录并生成JWT token
@@ -62,9 +68,7 @@ public class AuthService {
             User user = userPrincipal.getUser();
 
             // 生成JWT tokens
-            Map<String, Object> additionalClaims = new HashMap<>();
-            additionalClaims.put("role", user.getRole());
-            additionalClaims.put("uuid", user.getUuid());
+            Map<String, Object> additionalClaims = tokenClaims(user);
 
             String accessToken = jwtUtil.generateAccessToken(user.getId(), user.getPhone(), additionalClaims);
             String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getPhone());
@@ -113,9 +117,7 @@ public class AuthService {
             }
 
             // 生成JWT tokens
-            Map<String, Object> additionalClaims = new HashMap<>();
-            additionalClaims.put("role", user.getRole());
-            additionalClaims.put("uuid", user.getUuid());
+            Map<String, Object> additionalClaims = tokenClaims(user);
 
             String accessToken = jwtUtil.generateAccessToken(user.getId(), user.getPhone(), additionalClaims);
             String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getPhone());
@@ -146,27 +148,29 @@ public class AuthService {
     public Map<String, Object> refreshToken(String refreshToken) {
         try {
             // 验证刷新token
-            if (!jwtUtil.validateToken(refreshToken)) {
+            JwtClaims claims = jwtUtil.tryParseClaims(refreshToken);
+            if (claims == null) {
                 throw new RuntimeException("刷新token无效");
             }
 
             // 检查token类型
-            String tokenType = jwtUtil.getTokenType(refreshToken);
-            if (!"refresh".equals(tokenType)) {
+            if (!claims.isRefreshToken()) {
                 throw new RuntimeException("token类型错误");
             }
+            // 刷新token只能使用一次：签发新token前原子占用，并发的同一刷新token只有一个请求成功
+            if (!tokenRevocationList.consume(claims)) {
+                throw new RuntimeException("刷新token已失效");
+            }
 
             // 获取用户信息
-            Long userId = jwtUtil.getUserIdFromToken(refreshToken);
+            Long userId = claims.getUserId();
             User user = userService.getById(userId);
             if (user == null || user.getStatus() != 1) {
                 throw new RuntimeException("用户不存在或已被禁用");
             }
 
             // 生成新的tokens
-            Map<String, Object> additionalClaims = new HashMap<>();
-            additionalClaims.put("role", user.getRole());
-            additionalClaims.put("uuid", user.getUuid());
+            Map<String, Object> additionalClaims = tokenClaims(user);
 
             String newAccessToken = jwtUtil.generateAccessToken(user.getId(), user.getPhone(), additionalClaims);
             String newRefreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getPhone());
@@ -187,6 +191,45 @@ public class AuthService {
         }
     }
 
+    /**
+     * JWT登出：吊销访问token和刷新token，两者在剩余有效期内都不能再使用
+     *
+     * @param accessToken  访问token
+     * @param refreshToken 刷新token，可为空
+     */
+    public void logout(String accessToken, String refreshToken) {
+        JwtClaims accessClaims = accessToken != null ? jwtUtil.tryParseClaims(accessToken) : null;
+        if (accessClaims == null) {
+            throw new RuntimeException("访问token无效");
+        }
+        if (!tokenRevocationList.revoke(accessClaims)) {
+            throw new RuntimeException("登出失败，请稍后重试");
+        }
+
+        JwtClaims refreshClaims = refreshToken != null ? jwtUtil.tryParseClaims(refreshToken) : null;
+        if (refreshClaims != null && refreshClaims.isRefreshToken()
+                && Objects.equals(refreshClaims.getUserId(), accessClaims.getUserId())) {
+            tokenRevocationList.revoke(refreshClaims);
+        }
+
+        SecurityContextHolder.clearContext();
+        log.info("用户JWT登出成功: {}", accessClaims.getUsername());
+    }
+
+    /**
+     * 访问token的额外声明：角色、UUID及权限版本戳，版本戳与当前用户版本号一致时过滤器直接由声明构建用户主体
+     */
+    private Map<String, Object> tokenClaims(User user) {
+        Map<String, Object> additionalClaims = new HashMap<>();
+        additionalClaims.put("role", user.getRole());
+        additionalClaims.put("uuid", user.getUuid());
+        long version = userVersionRegistry.currentVersion(user.getUuid());
+        if (version != UserVersionRegistry.UNKNOWN) {
+            additionalClaims.put(JwtClaims.PERMISSION_VERSION, version);
+        }
+        return additionalClaims;
+    }
+
     /**
      * 根据手机号查找用户
      */
@@ -1,10 +1,13 @@
 package com.spark.demo.modules.auth.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
 import com.spark.demo.entity.User;
 import com.spark.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,6 +22,10 @@ import java.util.List;
 /**
  * 自定义用户详情服务
  * 实现Spring Security的UserDetailsService接口
+ *
+ * JWT认证时优先由已验签的声明构建用户主体：访问token中的权限版本戳（pv）与用户当前版本号一致，
+ * 说明签发后用户状态、角色、密码均未变更，声明中的角色仍然有效，无需查询数据库；
+ * 版本戳缺失或落后时回退到按用户名查询
  * 
  * @author spark
  * @since 2025-06-14
@@ -29,6 +36,10 @@ import java.util.List;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserService userService;
+    private final UserVersionRegistry userVersionRegistry;
+
+    @Value("${app.jwt.stateless-principal.enabled:true}")
+    private boolean statelessPrincipalEnabled = true;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -51,6 +62,37 @@ public class CustomUserDetailsService implements UserDetailsService {
         return new CustomUserPrincipal(user);
     }
 
+    /**
+     * 按已验签的JWT声明加载用户主体，权限版本戳有效时不查询数据库
+     *
+     * @param claims 已验签的token声明
+     * @return 用户主体
+     */
+    public UserDetails loadUserByClaims(JwtClaims claims) {
+        if (statelessPrincipalEnabled && isStampCurrent(claims)) {
+            User user = new User();
+            user.setId(claims.getUserId());
+            user.setUuid(claims.getUuid());
+            user.setPhone(claims.getUsername());
+            user.setRole(claims.getRole());
+            // 签发时用户为启用状态，之后的禁用会递增版本号使版本戳失效
+            user.setStatus(1);
+            return new CustomUserPrincipal(user);
+        }
+        log.debug("权限版本戳缺失或已过期，从数据库加载用户: {}", claims.getUsername());
+        return loadUserByUsername(claims.getUsername());
+    }
+
+    private boolean isStampCurrent(JwtClaims claims) {
+        Long stamp = claims.getPermissionVersion();
+        if (stamp == null || !claims.isAccessToken() || claims.getUuid() == null
+                || claims.getUserId() == null || claims.getRole() == null) {
+            return false;
+        }
+        long current = userVersionRegistry.currentVersion(claims.getUuid());
+        return current != UserVersionRegistry.UNKNOWN && current == stamp;
+    }
+
     /**
      * 自定义用户主体类
      */
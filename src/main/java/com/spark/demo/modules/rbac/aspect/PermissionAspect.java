@@ -6,7 +6,10 @@ import com.spark.demo.common.result.ResultCode;
 import com.spark.demo.entity.User;
 import com.spark.demo.modules.rbac.annotation.RequirePermission;
 import com.spark.demo.modules.rbac.annotation.RequireRole;
-import com.spark.demo.modules.rbac.service.RbacCacheService;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.context.AuthorizationContext;
+import com.spark.demo.modules.rbac.context.AuthorizationContextResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -21,10 +24,14 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 权限验证AOP切面
  * 实现基于注解的权限和角色验证
+ * 角色、权限位图取自请求级 AuthorizationContext，与过滤器、拦截器共用；
+ * 同一请求内多次经过同一注解（如嵌套调用）时直接使用记忆的结论
  * 
  * @author spark
  * @date 2025-01-01
@@ -36,7 +43,16 @@ import java.util.Set;
 public class PermissionAspect {
 
     @Autowired
-    private RbacCacheService rbacCacheService;
+    private AuthorizationContextResolver authorizationContextResolver;
+
+    @Autowired
+    private PermissionCodeDictionary permissionCodeDictionary;
+
+    /**
+     * 注解权限编译后的掩码，字典版本变化时重新编译
+     */
+    private final ConcurrentMap<RequirePermission, PermissionCodeDictionary.Requirement> compiledRequirements =
+            new ConcurrentHashMap<>();
 
     /**
      * 权限验证切点
@@ -53,6 +69,8 @@ public class PermissionAspect {
                 throw new BusinessException(ResultCode.UNAUTHORIZED, "用户未登录");
             }
 
+            AuthorizationContext context = authorizationContextResolver.current();
+
             // 获取方法和类上的权限注解
             RequirePermission methodAnnotation = getMethodAnnotation(joinPoint, RequirePermission.class);
             RequirePermission classAnnotation = getClassAnnotation(joinPoint, RequirePermission.class);
@@ -65,13 +83,13 @@ public class PermissionAspect {
             }
 
             // 检查是否允许超级管理员跳过
-            if (annotation.allowSuperAdmin() && isSuperAdmin(currentUser)) {
+            if (annotation.allowSuperAdmin() && context.isSuperAdmin()) {
                 log.debug("超级管理员跳过权限验证, userId: {}", currentUser.getId());
                 return;
             }
 
             // 验证权限
-            validatePermissions(currentUser.getId(), annotation);
+            validatePermissions(context, annotation);
             
             log.debug("权限验证通过, userId: {}, permissions: {}", 
                     currentUser.getId(), Arrays.toString(annotation.value()));
@@ -99,6 +117,8 @@ public class PermissionAspect {
                 throw new BusinessException(ResultCode.UNAUTHORIZED, "用户未登录");
             }
 
+            AuthorizationContext context = authorizationContextResolver.current();
+
             // 获取方法和类上的角色注解
             RequireRole methodAnnotation = getMethodAnnotation(joinPoint, RequireRole.class);
             RequireRole classAnnotation = getClassAnnotation(joinPoint, RequireRole.class);
@@ -111,13 +131,13 @@ public class PermissionAspect {
             }
 
             // 检查是否允许超级管理员跳过
-            if (annotation.allowSuperAdmin() && isSuperAdmin(currentUser)) {
+            if (annotation.allowSuperAdmin() && context.isSuperAdmin()) {
                 log.debug("超级管理员跳过角色验证, userId: {}", currentUser.getId());
                 return;
             }
 
             // 验证角色
-            validateRoles(currentUser.getId(), annotation);
+            validateRoles(context, annotation);
             
             log.debug("角色验证通过, userId: {}, roles: {}", 
                     currentUser.getId(), Arrays.toString(annotation.value()));
@@ -133,55 +153,70 @@ public class PermissionAspect {
     /**
      * 验证权限
      */
-    private void validatePermissions(Long userId, RequirePermission annotation) {
+    private void validatePermissions(AuthorizationContext context, RequirePermission annotation) {
         String[] requiredPermissions = annotation.value();
         if (requiredPermissions.length == 0) {
             return; // 没有指定权限，跳过验证
         }
 
-        Set<String> userPermissions = rbacCacheService.getUserPermissionCodes(userId);
-        
-        boolean hasPermission;
-        if (annotation.logical() == RequirePermission.LogicalType.AND) {
-            // AND关系：需要拥有所有权限
-            hasPermission = Arrays.stream(requiredPermissions)
-                    .allMatch(userPermissions::contains);
-        } else {
-            // OR关系：只需要拥有其中一个权限
-            hasPermission = Arrays.stream(requiredPermissions)
-                    .anyMatch(userPermissions::contains);
-        }
+        boolean hasPermission = context.decide(annotation, () -> matchesPermissions(context, annotation));
 
         if (!hasPermission) {
             String message = StringUtils.hasText(annotation.message()) ? 
                     annotation.message() : "权限不足，访问被拒绝";
             log.warn("权限验证失败, userId: {}, 需要权限: {}, 用户权限: {}", 
-                    userId, Arrays.toString(requiredPermissions), userPermissions);
+                    context.getUserId(), Arrays.toString(requiredPermissions), context.getPermissionCodes());
             throw new BusinessException(ResultCode.FORBIDDEN, message);
         }
     }
 
+    private boolean matchesPermissions(AuthorizationContext context, RequirePermission annotation) {
+        PermissionBits userPermissionBits = context.getPermissionBits();
+        if (userPermissionBits != null) {
+            // 位图判断：AND为掩码全包含，OR为掩码有交集
+            PermissionCodeDictionary.Requirement requirement = compileRequirement(annotation);
+            return annotation.logical() == RequirePermission.LogicalType.AND
+                    ? requirement.matchesAll(userPermissionBits)
+                    : requirement.matchesAny(userPermissionBits);
+        }
+
+        // 权限编码字典未就绪，退回编码集合判断
+        Set<String> userPermissions = context.getPermissionCodes();
+        if (annotation.logical() == RequirePermission.LogicalType.AND) {
+            // AND关系：需要拥有所有权限
+            return Arrays.stream(annotation.value())
+                    .allMatch(userPermissions::contains);
+        }
+        // OR关系：只需要拥有其中一个权限
+        return Arrays.stream(annotation.value())
+                .anyMatch(userPermissions::contains);
+    }
+
+    /**
+     * 获取注解对应的权限掩码，注解实例在类加载后固定，可直接作为缓存key
+     */
+    private PermissionCodeDictionary.Requirement compileRequirement(RequirePermission annotation) {
+        PermissionCodeDictionary.Requirement requirement = compiledRequirements.get(annotation);
+        if (requirement == null || requirement.getDictionaryVersion() != permissionCodeDictionary.getVersion()) {
+            requirement = permissionCodeDictionary.compile(annotation.value());
+            compiledRequirements.put(annotation, requirement);
+        }
+        return requirement;
+    }
+
     /**
      * 验证角色
      */
-    private void validateRoles(Long userId, RequireRole annotation) {
+    private void validateRoles(AuthorizationContext context, RequireRole annotation) {
         String[] requiredRoles = annotation.value();
         if (requiredRoles.length == 0) {
             return; // 没有指定角色，跳过验证
         }
 
-        Set<String> userRoles = rbacCacheService.getUserRoleCodes(userId);
-        
-        boolean hasRole;
-        if (annotation.logical() == RequireRole.LogicalType.AND) {
-            // AND关系：需要拥有所有角色
-            hasRole = Arrays.stream(requiredRoles)
-                    .allMatch(userRoles::contains);
-        } else {
-            // OR关系：只需要拥有其中一个角色
-            hasRole = Arrays.stream(requiredRoles)
-                    .anyMatch(userRoles::contains);
-        }
+        Set<String> userRoles = context.getRoleCodes();
+        Long userId = context.getUserId();
+
+        boolean hasRole = context.decide(annotation, () -> matchesRoles(userRoles, annotation));
 
         if (!hasRole) {
             String message = StringUtils.hasText(annotation.message()) ? 
@@ -192,17 +227,15 @@ public class PermissionAspect {
         }
     }
 
-    /**
-     * 检查是否为超级管理员
-     */
-    private boolean isSuperAdmin(User user) {
-        if (user == null) {
-            return false;
+    private boolean matchesRoles(Set<String> userRoles, RequireRole annotation) {
+        if (annotation.logical() == RequireRole.LogicalType.AND) {
+            // AND关系：需要拥有所有角色
+            return Arrays.stream(annotation.value())
+                    .allMatch(userRoles::contains);
         }
-        
-        // 检查用户角色是否包含超级管理员
-        Set<String> userRoles = rbacCacheService.getUserRoleCodes(user.getId());
-        return userRoles.contains("super_admin");
+        // OR关系：只需要拥有其中一个角色
+        return Arrays.stream(annotation.value())
+                .anyMatch(userRoles::contains);
     }
 
     /**
@@ -0,0 +1,110 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.matcher.RouteIndex;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户路径权限匹配器缓存
+ * 把用户各启用角色的接口权限（路径 + 方法）编译为一个 RouteIndex，支持精确路径、{var} 路径变量和Ant通配符，
+ * 路径检查耗时与路径段数成正比；角色和角色权限取自RBAC缓存，请求路径上不访问数据库
+ *
+ * 匹配器按角色组合共享（RoleSetCache），角色信息或角色权限缓存失效时丢弃包含相关角色的匹配器
+ *
+ * 权限路径为数据库中的原始路径（不含context-path）
+ *
+ * @author spark
+ * @date 2025-07-07
+ */
+@Slf4j
+@Component
+public class PathPermissionMatcherCache {
+
+    /**
+     * 影响编译结果的角色级缓存
+     */
+    private static final Set<String> SOURCE_CACHE_NAMES = Set.of("rbac:role:info", "rbac:role:permissions");
+
+    @Lazy
+    @Autowired
+    private RbacCacheService rbacCacheService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${rbac.performance.path-matcher-max-size:10000}")
+    private long maxSize = 10_000;
+
+    @Value("${rbac.performance.near-cache-ttl:PT1M}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    private RoleSetCache<RouteIndex<Boolean>> matchers;
+
+    @PostConstruct
+    public void init() {
+        matchers = new RoleSetCache<>(SOURCE_CACHE_NAMES, maxSize, ttl, cacheInvalidationBus);
+    }
+
+    /**
+     * 用户是否拥有访问指定路径和方法的接口权限
+     *
+     * @param userId 用户ID
+     * @param path   路径（不含context-path和查询参数）
+     * @param method HTTP方法，为空时只匹配不限方法的权限
+     */
+    public boolean matches(Long userId, String path, String method) {
+        if (userId == null || !StringUtils.hasText(path)) {
+            return false;
+        }
+        return matcherFor(userId).matches(path, method);
+    }
+
+    /**
+     * 已缓存的匹配器数量
+     */
+    public long size() {
+        return matchers.size();
+    }
+
+    RouteIndex<Boolean> matcherFor(Long userId) {
+        return matchers.get(RoleSetCache.roleSetOf(rbacCacheService.getUserRoles(userId)), this::compile);
+    }
+
+    private RouteIndex<Boolean> compile(List<Long> roleIds) {
+        RouteIndex.Builder<Boolean> builder = RouteIndex.builder();
+        int rules = 0;
+        for (Long roleId : roleIds) {
+            List<Permission> permissions = rbacCacheService.getRolePermissions(roleId);
+            if (permissions == null) {
+                continue;
+            }
+            for (Permission permission : permissions) {
+                if (!StringUtils.hasText(permission.getPath())) {
+                    continue;
+                }
+                String method = StringUtils.hasText(permission.getMethod()) ? permission.getMethod().trim() : "*";
+                try {
+                    builder.add(permission.getPath().trim(), method, Boolean.TRUE);
+                    rules++;
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无效的接口权限路径, permissionCode: {}, path: {}, method: {}",
+                            permission.getPermissionCode(), permission.getPath(), permission.getMethod());
+                }
+            }
+        }
+        log.debug("编译路径权限匹配器, 角色: {}, 规则数: {}", roleIds, rules);
+        return builder.build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 用户权限位图
+ * 第i位表示用户拥有权限字典中编号为i的权限，按64位一个long存放
+ *
+ * 与字典版本绑定：字典重建后版本变化，旧位图视为失效需重新计算
+ *
+ * @author spark
+ * @date 2025-06-24
+ */
+public final class PermissionBits implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    private final long dictionaryVersion;
+
+    private final long[] words;
+
+    @JsonCreator
+    public PermissionBits(@JsonProperty("dictionaryVersion") long dictionaryVersion,
+                          @JsonProperty("words") long[] words) {
+        this.dictionaryVersion = dictionaryVersion;
+        this.words = words != null ? words : EMPTY_WORDS;
+    }
+
+    public long getDictionaryVersion() {
+        return dictionaryVersion;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * 是否拥有指定编号的权限
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int wordIndex = id >>> 6;
+        return wordIndex < words.length && (words[wordIndex] & (1L << id)) != 0;
+    }
+
+    /**
+     * 是否拥有掩码中的全部权限
+     */
+    public boolean containsAll(long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            long word = i < words.length ? words[i] : 0L;
+            if ((word & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否拥有掩码中的任一权限
+     */
+    public boolean containsAny(long[] mask) {
+        int length = Math.min(mask.length, words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拥有的权限数量
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PermissionBits that)) {
+            return false;
+        }
+        return dictionaryVersion == that.dictionaryVersion && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(dictionaryVersion) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionBits{version=" + dictionaryVersion + ", count=" + cardinality() + "}";
+    }
+}
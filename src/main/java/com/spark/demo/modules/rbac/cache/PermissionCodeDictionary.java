@@ -0,0 +1,231 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 权限编码字典
+ * 将权限编码映射为连续的整数编号（按权限ID排序后的位置），用于把用户权限集合压缩为位图
+ *
+ * 字典包含已禁用/已删除的权限，保证新增权限只会追加编号、已有编号不漂移；
+ * 版本号由有序编码列表的哈希得到，所有节点基于同一份数据构建出的版本一致，
+ * 因此存放在Redis中的位图可以跨节点共享，字典变化后旧位图通过版本比对自动失效
+ *
+ * @author spark
+ * @date 2025-06-24
+ */
+@Slf4j
+@Component
+public class PermissionCodeDictionary {
+
+    /**
+     * 失效总线上代表权限字典的名称
+     */
+    public static final String CACHE_NAME = "rbac:permission:dictionary";
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(message -> {
+            if (message.getCacheNames().contains(CACHE_NAME)) {
+                reload();
+            }
+        });
+        reload();
+    }
+
+    /**
+     * 重新加载字典，失败时保留原字典
+     */
+    public synchronized void reload() {
+        try {
+            Snapshot newSnapshot = Snapshot.of(permissionMapper.selectAllPermissionCodes());
+            snapshot = newSnapshot;
+            log.info("权限编码字典已加载, 编码数: {}, 版本: {}", newSnapshot.codes.length, Long.toHexString(newSnapshot.version));
+        } catch (Exception e) {
+            log.error("加载权限编码字典失败，继续使用当前字典, 编码数: {}", snapshot.codes.length, e);
+        }
+    }
+
+    /**
+     * 字典是否可用（尚未成功加载时调用方应回退到编码集合判断）
+     */
+    public boolean isReady() {
+        return snapshot.codes.length > 0;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public int size() {
+        return snapshot.codes.length;
+    }
+
+    /**
+     * 权限编码对应的编号，未知编码返回-1
+     */
+    public int idOf(String permissionCode) {
+        Integer id = snapshot.ids.get(permissionCode);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 权限编码集合编码为位图
+     */
+    public PermissionBits encode(Collection<String> permissionCodes) {
+        Snapshot current = snapshot;
+        long[] words = new long[(current.codes.length + 63) >>> 6];
+        for (String code : permissionCodes) {
+            Integer id = current.ids.get(code);
+            if (id != null) {
+                words[id >>> 6] |= 1L << id;
+            }
+        }
+        return new PermissionBits(current.version, words);
+    }
+
+    /**
+     * 位图解码为权限编码集合
+     */
+    public Set<String> decode(PermissionBits bits) {
+        Snapshot current = snapshot;
+        if (bits == null || bits.getDictionaryVersion() != current.version) {
+            return Collections.emptySet();
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        long[] words = bits.getWords();
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int id = (i << 6) + Long.numberOfTrailingZeros(word);
+                if (id < current.codes.length) {
+                    codes.add(current.codes[id]);
+                }
+                word &= word - 1;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * 位图是否基于当前字典版本构建
+     */
+    public boolean isCurrent(PermissionBits bits) {
+        return bits != null && bits.getDictionaryVersion() == snapshot.version;
+    }
+
+    /**
+     * 将一组权限编码编译为掩码，供AND/OR批量判断
+     */
+    public Requirement compile(String[] permissionCodes) {
+        Snapshot current = snapshot;
+        long[] mask = new long[(current.codes.length + 63) >>> 6];
+        boolean containsUnknown = false;
+        for (String code : permissionCodes) {
+            Integer id = current.ids.get(code);
+            if (id == null) {
+                containsUnknown = true;
+            } else {
+                mask[id >>> 6] |= 1L << id;
+            }
+        }
+        return new Requirement(current.version, mask, containsUnknown);
+    }
+
+    /**
+     * 编译后的权限要求
+     */
+    public static final class Requirement {
+
+        private final long dictionaryVersion;
+
+        private final long[] mask;
+
+        /**
+         * 包含字典中不存在的权限编码，AND关系下任何用户都无法满足
+         */
+        private final boolean containsUnknown;
+
+        Requirement(long dictionaryVersion, long[] mask, boolean containsUnknown) {
+            this.dictionaryVersion = dictionaryVersion;
+            this.mask = mask;
+            this.containsUnknown = containsUnknown;
+        }
+
+        public long getDictionaryVersion() {
+            return dictionaryVersion;
+        }
+
+        public boolean matchesAll(PermissionBits bits) {
+            return !containsUnknown && bits.containsAll(mask);
+        }
+
+        public boolean matchesAny(PermissionBits bits) {
+            return bits.containsAny(mask);
+        }
+    }
+
+    /**
+     * 字典快照，构建后只读
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], Collections.emptyMap(), 0L);
+
+        final String[] codes;
+
+        final Map<String, Integer> ids;
+
+        final long version;
+
+        private Snapshot(String[] codes, Map<String, Integer> ids, long version) {
+            this.codes = codes;
+            this.ids = ids;
+            this.version = version;
+        }
+
+        static Snapshot of(List<Permission> permissions) {
+            String[] codes = permissions.stream()
+                    .map(Permission::getPermissionCode)
+                    .filter(StringUtils::hasText)
+                    .distinct()
+                    .toArray(String[]::new);
+            Map<String, Integer> ids = new HashMap<>(codes.length * 2);
+            // FNV-1a 64位哈希，作为跨节点一致的字典版本
+            long version = 0xcbf29ce484222325L;
+            for (int i = 0; i < codes.length; i++) {
+                ids.put(codes[i], i);
+                for (byte b : codes[i].getBytes(StandardCharsets.UTF_8)) {
+                    version ^= b;
+                    version *= 0x100000001b3L;
+                }
+                version ^= '\n';
+                version *= 0x100000001b3L;
+            }
+            return new Snapshot(codes, Collections.unmodifiableMap(ids), version);
+        }
+    }
+}
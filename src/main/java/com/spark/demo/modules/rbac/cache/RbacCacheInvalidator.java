@@ -0,0 +1,201 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.TwoLevelCacheManager;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.modules.rbac.filter.ApiPermissionRuleRegistry;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RBAC缓存失效协调器
+ * 角色、权限、菜单、用户写操作完成后调用：本节点清除Redis缓存，并通过失效总线通知所有节点丢弃近端缓存
+ *
+ * 在事务中调用时延迟到事务提交后执行，避免其他节点在提交前重新加载到旧数据
+ *
+ * @author spark
+ * @date 2025-06-21
+ */
+@Slf4j
+@Component
+public class RbacCacheInvalidator {
+
+    /**
+     * 以userId为key的RBAC缓存，用户的权限/菜单由角色缓存合并得到，用户级只有角色ID列表
+     */
+    public static final List<String> USER_CACHE_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "rbac:user:role:ids"
+    ));
+
+    /**
+     * 以roleId为key的RBAC缓存
+     */
+    public static final List<String> ROLE_CACHE_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "rbac:role:info",
+            "rbac:role:permissions",
+            "rbac:role:permission:bits",
+            "rbac:role:menus"
+    ));
+
+    /**
+     * 权限定义变更影响的角色缓存
+     */
+    private static final List<String> ROLE_PERMISSION_CACHE_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "rbac:role:permissions",
+            "rbac:role:permission:bits"
+    ));
+
+    /**
+     * 以uuid为key的用户信息缓存，仅其中叠加了近端缓存的名称需要广播
+     */
+    public static final List<String> ACCOUNT_CACHE_NAMES = Collections.unmodifiableList(Arrays.asList(
+            "userCache",
+            "authCache"
+    ));
+
+    @Lazy
+    @Autowired
+    private RbacCacheService rbacCacheService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private UserVersionRegistry userVersionRegistry;
+
+    @Autowired
+    @Qualifier("cacheManager")
+    private CacheManager cacheManager;
+
+    /**
+     * 用户角色分配变更
+     */
+    public void onUserRolesChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            rbacCacheService.clearUserAllCache(userId);
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(USER_CACHE_NAMES,
+                    Collections.singletonList(userId), "user:" + userId));
+        });
+    }
+
+    /**
+     * 用户账号信息变更（状态、密码、角色、删除），userCache/authCache的Redis条目由调用方的@CacheEvict处理；
+     * 同时递增用户版本号，该用户所有Session中的用户快照在下次请求时重新校验
+     */
+    public void onUserAccountChanged(String uuid) {
+        if (uuid == null) {
+            return;
+        }
+        afterCommit(() -> {
+            userVersionRegistry.bump(uuid);
+            List<String> nearCacheNames = nearCacheNames(ACCOUNT_CACHE_NAMES);
+            if (!nearCacheNames.isEmpty()) {
+                cacheInvalidationBus.publish(CacheInvalidationMessage.of(nearCacheNames,
+                        Collections.singletonList(uuid), "account:" + uuid));
+            }
+        });
+    }
+
+    /**
+     * 角色及其权限/菜单分配变更
+     */
+    public void onRoleChanged(Long roleId) {
+        afterCommit(() -> {
+            rbacCacheService.clearCacheByRoleChange(roleId);
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(ROLE_CACHE_NAMES,
+                    Collections.singletonList(roleId), "role:" + roleId));
+        });
+    }
+
+    /**
+     * 新增权限定义，尚未分配给角色，只需刷新API权限规则表、权限编码字典和权限目录快照
+     */
+    public void onPermissionCreated(Long permissionId) {
+        afterCommit(() -> publishPermissionCatalogChanged(permissionId));
+    }
+
+    /**
+     * 权限定义变更
+     */
+    public void onPermissionChanged(Long permissionId) {
+        afterCommit(() -> {
+            rbacCacheService.clearCacheByPermissionChange(permissionId);
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(ROLE_PERMISSION_CACHE_NAMES, null, "permission:" + permissionId));
+            publishPermissionCatalogChanged(permissionId);
+        });
+    }
+
+    /**
+     * 新增菜单定义，尚未分配给角色，只需重建菜单目录快照
+     */
+    public void onMenuCreated(Long menuId) {
+        afterCommit(() -> cacheInvalidationBus.publish(CacheInvalidationMessage.of(
+                Collections.singletonList(RbacCatalog.MENU_CACHE_NAME), null, "menu:" + menuId)));
+    }
+
+    /**
+     * 菜单定义变更
+     */
+    public void onMenuChanged(Long menuId) {
+        afterCommit(() -> {
+            rbacCacheService.clearCacheByMenuChange(menuId);
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(
+                    Arrays.asList("rbac:role:menus", RbacCatalog.MENU_CACHE_NAME), null, "menu:" + menuId));
+        });
+    }
+
+    private void publishPermissionCatalogChanged(Long permissionId) {
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(
+                Arrays.asList(ApiPermissionRuleRegistry.RULES_CACHE_NAME, PermissionCodeDictionary.CACHE_NAME,
+                        RbacCatalog.PERMISSION_CACHE_NAME),
+                null, "permission:" + permissionId));
+    }
+
+    /**
+     * 纯Redis缓存由调用方清除后各节点立即可见，只有近端缓存需要通过总线通知其他节点
+     */
+    private List<String> nearCacheNames(List<String> cacheNames) {
+        if (!(cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager)) {
+            return Collections.emptyList();
+        }
+        return cacheNames.stream()
+                .filter(twoLevelCacheManager.getNearCacheNames()::contains)
+                .toList();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runQuietly(action);
+                }
+            });
+        } else {
+            runQuietly(action);
+        }
+    }
+
+    private void runQuietly(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.error("RBAC缓存失效处理失败", e);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.spark.demo.common.cache.CacheBatchWriter;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.entity.RoleMenu;
+import com.spark.demo.entity.RolePermission;
+import com.spark.demo.entity.User;
+import com.spark.demo.entity.UserRole;
+import com.spark.demo.mapper.UserMapper;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.mapper.RoleMapper;
+import com.spark.demo.modules.rbac.mapper.RoleMenuMapper;
+import com.spark.demo.modules.rbac.mapper.RolePermissionMapper;
+import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * RBAC缓存批量预热
+ * 按批次处理活跃用户：每批用少量 IN 查询一次取回用户角色、角色信息、角色权限和角色菜单，
+ * 在内存中组装出与 RbacCacheServiceImpl 各 @Cacheable 方法相同的缓存值，再按缓存管道写入Redis
+ *
+ * 批次在 rbacWarmupExecutor 上并行执行；同一次预热中已处理的角色不会重复查询和写入
+ *
+ * 指标：
+ * - rbac.warmup.users / rbac.warmup.roles / rbac.warmup.entries：累计预热的用户数、角色数、缓存条目数
+ * - rbac.warmup.batch：单批耗时
+ * - rbac.warmup.progress：当前预热进度（0~1）
+ * - rbac.warmup.throughput：最近一次预热的吞吐量（用户/秒）
+ *
+ * @author spark
+ * @date 2025-06-28
+ */
+@Slf4j
+@Component
+public class RbacCacheWarmer {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private RoleMenuMapper roleMenuMapper;
+
+    @Autowired
+    private MenuMapper menuMapper;
+
+    @Autowired
+    private PermissionCodeDictionary permissionCodeDictionary;
+
+    @Autowired
+    private CacheBatchWriter cacheBatchWriter;
+
+    @Autowired
+    @Qualifier("rbacWarmupExecutor")
+    private Executor warmupExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 每批处理的用户数
+     */
+    @Value("${rbac.performance.warmup-batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * 同时执行的批次数，需小于预热线程池的队列容量（预热线程池满时会丢弃任务）
+     */
+    @Value("${rbac.performance.warmup-parallelism:4}")
+    private int parallelism = 4;
+
+    /**
+     * 单次预热的最大用户数
+     */
+    @Value("${rbac.performance.warmup-max-users:1000}")
+    private int maxUsers = 1000;
+
+    /**
+     * 加载用户角色关系时每条 IN 查询的用户数
+     */
+    @Value("${rbac.performance.user-role-load-batch-size:500}")
+    private int userRoleLoadBatchSize = 500;
+
+    private final AtomicLong processedUsers = new AtomicLong();
+
+    private final AtomicLong totalUsers = new AtomicLong();
+
+    private final AtomicLong lastThroughput = new AtomicLong();
+
+    private Counter userCounter;
+
+    private Counter roleCounter;
+
+    private Counter entryCounter;
+
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void init() {
+        userCounter = Counter.builder("rbac.warmup.users").description("预热的用户数").register(meterRegistry);
+        roleCounter = Counter.builder("rbac.warmup.roles").description("预热的角色数").register(meterRegistry);
+        entryCounter = Counter.builder("rbac.warmup.entries").description("预热写入的缓存条目数").register(meterRegistry);
+        batchTimer = Timer.builder("rbac.warmup.batch").description("单批预热耗时").register(meterRegistry);
+        Gauge.builder("rbac.warmup.progress", this, warmer -> warmer.progress())
+                .description("当前预热进度").register(meterRegistry);
+        Gauge.builder("rbac.warmup.throughput", lastThroughput, AtomicLong::get)
+                .description("最近一次预热吞吐量（用户/秒）").register(meterRegistry);
+    }
+
+    /**
+     * 预热活跃用户的RBAC缓存，阻塞直到所有批次完成
+     *
+     * @return 预热的用户数
+     */
+    public int warmUpActiveUsers() {
+        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(User::getId)
+               .eq(User::getStatus, 1) // 正常状态
+               .isNull(User::getDeletedTime) // 未删除
+               .orderByDesc(User::getUpdatedTime)
+               .last("LIMIT " + maxUsers); // 限制数量，避免一次性加载过多
+        List<Long> userIds = userMapper.selectList(wrapper).stream().map(User::getId).collect(Collectors.toList());
+        return warmUp(userIds);
+    }
+
+    /**
+     * 预热指定用户的RBAC缓存，阻塞直到所有批次完成
+     *
+     * @return 预热的用户数
+     */
+    public int warmUp(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        processedUsers.set(0);
+        totalUsers.set(userIds.size());
+        Set<Long> warmedRoles = ConcurrentHashMap.newKeySet();
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<Long> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            permits.acquireUninterruptibly();
+            try {
+                futures.add(CompletableFuture
+                        .runAsync(() -> batchTimer.record(() -> warmUpBatch(batch, warmedRoles)), warmupExecutor)
+                        .whenComplete((ignored, e) -> {
+                            permits.release();
+                            if (e != null) {
+                                log.warn("RBAC缓存批次预热失败, 用户数: {}", batch.size(), e);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                permits.release();
+                log.warn("RBAC缓存预热批次提交失败, 用户数: {}", batch.size(), e);
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        long warmed = processedUsers.get();
+        lastThroughput.set(warmed * 1000 / elapsed);
+        log.info("RBAC缓存预热完成, 用户数: {}/{}, 角色数: {}, 耗时: {}ms, 吞吐量: {} 用户/秒",
+                warmed, userIds.size(), warmedRoles.size(), elapsed, lastThroughput.get());
+        return (int) warmed;
+    }
+
+    /**
+     * 当前预热进度（0~1）
+     */
+    public double progress() {
+        long total = totalUsers.get();
+        return total == 0 ? 0 : (double) processedUsers.get() / total;
+    }
+
+    private void warmUpBatch(List<Long> userIds, Set<Long> warmedRoles) {
+        // 1. 用户 -> 角色ID（同时写入用户角色缓存）
+        Map<Long, List<Long>> roleIdsByUser = loadUserRoleIds(userIds);
+
+        // 2. 本次预热中尚未处理过的角色
+        List<Long> roleIds = roleIdsByUser.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .filter(warmedRoles::add)
+                .collect(Collectors.toList());
+
+        int entries = roleIdsByUser.size();
+        if (!roleIds.isEmpty()) {
+            entries += warmUpRoles(roleIds);
+            roleCounter.increment(roleIds.size());
+        }
+
+        entryCounter.increment(entries);
+        userCounter.increment(userIds.size());
+        long processed = processedUsers.addAndGet(userIds.size());
+        log.debug("RBAC缓存预热进度: {}/{}, 本批角色数: {}, 写入条目: {}", processed, totalUsers.get(), roleIds.size(), entries);
+    }
+
+    /**
+     * 按用户集合查询角色ID并管道写入用户角色缓存，没有角色的用户缓存为空列表；
+     * 用户数超过 userRoleLoadBatchSize 时拆为多条 IN 查询
+     *
+     * @return 用户ID -> 角色ID列表，顺序与userIds一致
+     */
+    public Map<Long, List<Long>> loadUserRoleIds(Collection<Long> userIds) {
+        List<Long> userIdList = new ArrayList<>(userIds);
+        Map<Long, List<Long>> roleIdsByUser = new LinkedHashMap<>();
+        int size = Math.max(1, userRoleLoadBatchSize);
+        for (int from = 0; from < userIdList.size(); from += size) {
+            List<Long> chunk = userIdList.subList(from, Math.min(from + size, userIdList.size()));
+            Map<Long, List<Long>> loaded = new LinkedHashMap<>();
+            chunk.forEach(userId -> loaded.put(userId, new ArrayList<>()));
+            List<UserRole> userRoles = userRoleMapper.selectList(new LambdaQueryWrapper<UserRole>()
+                    .select(UserRole::getUserId, UserRole::getRoleId)
+                    .in(UserRole::getUserId, chunk));
+            for (UserRole userRole : userRoles) {
+                List<Long> roleIds = loaded.get(userRole.getUserId());
+                if (roleIds != null) {
+                    roleIds.add(userRole.getRoleId());
+                }
+            }
+            cacheBatchWriter.putAll("rbac:user:role:ids", loaded);
+            roleIdsByUser.putAll(loaded);
+        }
+        return roleIdsByUser;
+    }
+
+    /**
+     * 按角色批量查询信息、权限、菜单，组装为角色级缓存值并写入
+     */
+    private int warmUpRoles(List<Long> roleIds) {
+        Map<Long, Role> roles = roleMapper.selectBatchIds(roleIds).stream()
+                .collect(Collectors.toMap(Role::getId, role -> role, (a, b) -> a, LinkedHashMap::new));
+
+        // 角色 -> 权限，与 PermissionMapper#selectPermissionsByRoleId 的过滤条件一致
+        Map<Long, List<Long>> permissionIdsByRole = groupIds(rolePermissionMapper.selectList(
+                        new LambdaQueryWrapper<RolePermission>()
+                                .select(RolePermission::getRoleId, RolePermission::getPermissionId)
+                                .in(RolePermission::getRoleId, roleIds)),
+                RolePermission::getRoleId, RolePermission::getPermissionId);
+        Map<Long, Permission> permissions = permissionIdsByRole.isEmpty() ? Collections.emptyMap()
+                : permissionMapper.selectList(new LambdaQueryWrapper<Permission>()
+                        .in(Permission::getId, distinct(permissionIdsByRole.values()))
+                        .eq(Permission::getStatus, 1))
+                .stream().collect(Collectors.toMap(Permission::getId, p -> p));
+
+        // 角色 -> 菜单，与 MenuMapper#selectMenusByRoleId 的过滤条件和排序一致
+        Map<Long, List<Long>> menuIdsByRole = groupIds(roleMenuMapper.selectList(
+                        new LambdaQueryWrapper<RoleMenu>()
+                                .select(RoleMenu::getRoleId, RoleMenu::getMenuId)
+                                .in(RoleMenu::getRoleId, roleIds)),
+                RoleMenu::getRoleId, RoleMenu::getMenuId);
+        List<Menu> menus = menuIdsByRole.isEmpty() ? Collections.emptyList()
+                : menuMapper.selectList(new LambdaQueryWrapper<Menu>()
+                        .in(Menu::getId, distinct(menuIdsByRole.values()))
+                        .eq(Menu::getStatus, 1)
+                        .orderByAsc(Menu::getSort));
+
+        Map<Long, List<Permission>> rolePermissions = new LinkedHashMap<>();
+        Map<Long, PermissionBits> rolePermissionBits = new LinkedHashMap<>();
+        Map<Long, List<Menu>> roleMenus = new LinkedHashMap<>();
+        for (Long roleId : roleIds) {
+            List<Permission> granted = new ArrayList<>();
+            for (Long permissionId : permissionIdsByRole.getOrDefault(roleId, Collections.emptyList())) {
+                Permission permission = permissions.get(permissionId);
+                if (permission != null) {
+                    granted.add(permission);
+                }
+            }
+            rolePermissions.put(roleId, granted);
+            if (permissionCodeDictionary.isReady()) {
+                rolePermissionBits.put(roleId, permissionCodeDictionary.encode(granted.stream()
+                        .map(Permission::getPermissionCode)
+                        .filter(StringUtils::hasText)
+                        .collect(Collectors.toSet())));
+            }
+
+            Set<Long> menuIds = new LinkedHashSet<>(menuIdsByRole.getOrDefault(roleId, Collections.emptyList()));
+            roleMenus.put(roleId, menus.stream()
+                    .filter(menu -> menuIds.contains(menu.getId()))
+                    .collect(Collectors.toList()));
+        }
+
+        return cacheBatchWriter.putAll("rbac:role:info", roles)
+                + cacheBatchWriter.putAll("rbac:role:permissions", rolePermissions)
+                + cacheBatchWriter.putAll("rbac:role:permission:bits", rolePermissionBits)
+                + cacheBatchWriter.putAll("rbac:role:menus", roleMenus);
+    }
+
+    private static <T> Map<Long, List<Long>> groupIds(List<T> rows, Function<T, Long> keyOf,
+                                                     Function<T, Long> valueOf) {
+        Map<Long, List<Long>> grouped = new HashMap<>();
+        for (T row : rows) {
+            grouped.computeIfAbsent(keyOf.apply(row), k -> new ArrayList<>()).add(valueOf.apply(row));
+        }
+        return grouped;
+    }
+
+    private static Set<Long> distinct(Collection<List<Long>> ids) {
+        Set<Long> result = new LinkedHashSet<>();
+        ids.forEach(result::addAll);
+        return result;
+    }
+}
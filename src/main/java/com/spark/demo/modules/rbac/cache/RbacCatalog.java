@@ -0,0 +1,416 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * RBAC菜单/权限目录快照
+ * 启用的菜单和权限各自构建为一份不可变快照：ID索引、父ID到子节点的邻接表（已按排序字段排好）、编码/路径索引，
+ * 菜单另外预先组装好整棵菜单树；菜单树、子节点、按编码/路径查询都直接读取当前快照，不访问数据库，
+ * 用户菜单树由整棵菜单树按用户可访问的菜单裁剪得到
+ *
+ * 快照基于数据库已排好序的结果一次遍历构建（排序字段为空的排在最后，对已有序的输入只需线性时间），
+ * 菜单或权限写操作提交后通过失效总线通知各节点重建对应快照并整体替换，读取方始终看到完整一致的一份；
+ * 重建失败时保留当前快照，另有定时刷新兜底
+ *
+ * 返回的实体为快照内共享的对象，调用方只读，不要修改
+ *
+ * @author spark
+ * @date 2025-07-08
+ */
+@Slf4j
+@Component
+public class RbacCatalog {
+
+    /**
+     * 失效总线上代表菜单目录的名称
+     */
+    public static final String MENU_CACHE_NAME = "rbac:catalog:menu";
+
+    /**
+     * 失效总线上代表权限目录的名称
+     */
+    public static final String PERMISSION_CACHE_NAME = "rbac:catalog:permission";
+
+    /**
+     * 根节点的父ID，父ID为空的节点同样视为根节点
+     */
+    public static final Long ROOT_PARENT_ID = 0L;
+
+    @Autowired
+    private MenuMapper menuMapper;
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private volatile MenuSnapshot menuSnapshot = MenuSnapshot.EMPTY;
+
+    private volatile PermissionSnapshot permissionSnapshot = PermissionSnapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(message -> {
+            if (message.getCacheNames().contains(MENU_CACHE_NAME)) {
+                reloadMenus();
+            }
+            if (message.getCacheNames().contains(PERMISSION_CACHE_NAME)) {
+                reloadPermissions();
+            }
+        });
+        reloadMenus();
+        reloadPermissions();
+    }
+
+    /**
+     * 重建菜单快照，失败时保留原快照
+     */
+    public synchronized void reloadMenus() {
+        try {
+            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(Menu::getStatus, 1)
+                       .orderByAsc(Menu::getSort)
+                       .orderByDesc(Menu::getCreatedTime);
+            MenuSnapshot newSnapshot = MenuSnapshot.of(menuMapper.selectList(queryWrapper),
+                    menuSnapshot.version + 1);
+            menuSnapshot = newSnapshot;
+            log.info("菜单目录快照已加载, 菜单数: {}, 根节点数: {}, 版本: {}", newSnapshot.hierarchy.all.size(),
+                    newSnapshot.tree.size(), newSnapshot.version);
+        } catch (Exception e) {
+            log.error("加载菜单目录快照失败，继续使用当前快照, 菜单数: {}", menuSnapshot.hierarchy.all.size(), e);
+        }
+    }
+
+    /**
+     * 重建权限快照，失败时保留原快照
+     */
+    public synchronized void reloadPermissions() {
+        try {
+            LambdaQueryWrapper<Permission> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(Permission::getStatus, 1)
+                       .orderByAsc(Permission::getSort)
+                       .orderByDesc(Permission::getCreatedTime);
+            PermissionSnapshot newSnapshot = PermissionSnapshot.of(permissionMapper.selectList(queryWrapper),
+                    permissionSnapshot.version + 1);
+            permissionSnapshot = newSnapshot;
+            log.info("权限目录快照已加载, 权限数: {}, 版本: {}", newSnapshot.hierarchy.all.size(), newSnapshot.version);
+        } catch (Exception e) {
+            log.error("加载权限目录快照失败，继续使用当前快照, 权限数: {}", permissionSnapshot.hierarchy.all.size(), e);
+        }
+    }
+
+    /**
+     * 定时全量刷新，兜底失效消息丢失的情况
+     */
+    @Scheduled(fixedDelayString = "${rbac.performance.api-rule-refresh-interval:300000}",
+            initialDelayString = "${rbac.performance.api-rule-refresh-interval:300000}")
+    public void scheduledReload() {
+        reloadMenus();
+        reloadPermissions();
+    }
+
+    // ==================== 菜单 ====================
+
+    /**
+     * 菜单快照版本，每次重建递增
+     */
+    public long getMenuVersion() {
+        return menuSnapshot.version;
+    }
+
+    /**
+     * 所有启用菜单，按排序字段排列
+     */
+    public List<Menu> getMenus() {
+        return menuSnapshot.hierarchy.all;
+    }
+
+    /**
+     * 整棵菜单树，父菜单未启用的菜单不出现在树中
+     */
+    public List<Menu> getMenuTree() {
+        return menuSnapshot.tree;
+    }
+
+    public List<Menu> getRootMenus() {
+        return menuSnapshot.hierarchy.childrenOf(ROOT_PARENT_ID);
+    }
+
+    /**
+     * 子菜单（不含下级），parentId为空时返回根菜单
+     */
+    public List<Menu> getChildMenus(Long parentId) {
+        return menuSnapshot.hierarchy.childrenOf(parentId);
+    }
+
+    public Menu getMenu(Long menuId) {
+        return menuId != null ? menuSnapshot.hierarchy.byId.get(menuId) : null;
+    }
+
+    public Menu getMenuByCode(String menuCode) {
+        return menuCode != null ? menuSnapshot.byCode.get(menuCode) : null;
+    }
+
+    /**
+     * 按路径查询菜单，多个菜单路径相同时返回排序靠前的一个
+     */
+    public Menu getMenuByPath(String path) {
+        return path != null ? menuSnapshot.byPath.get(path) : null;
+    }
+
+    /**
+     * 按允许的菜单ID集合裁剪整棵菜单树，允许菜单的祖先菜单自动保留
+     * 子树未被裁剪的节点直接复用快照中的共享节点，只有子节点被裁掉的节点才生成副本
+     *
+     * @param menuIds 允许的菜单ID集合
+     */
+    public List<Menu> projectMenuTree(Set<Long> menuIds) {
+        if (menuIds == null || menuIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return prune(menuSnapshot.tree, menuIds);
+    }
+
+    // ==================== 权限 ====================
+
+    /**
+     * 权限快照版本，每次重建递增
+     */
+    public long getPermissionVersion() {
+        return permissionSnapshot.version;
+    }
+
+    /**
+     * 所有启用权限，按排序字段排列
+     */
+    public List<Permission> getPermissions() {
+        return permissionSnapshot.hierarchy.all;
+    }
+
+    public List<Permission> getRootPermissions() {
+        return permissionSnapshot.hierarchy.childrenOf(ROOT_PARENT_ID);
+    }
+
+    /**
+     * 子权限（不含下级），parentId为空时返回根权限
+     */
+    public List<Permission> getChildPermissions(Long parentId) {
+        return permissionSnapshot.hierarchy.childrenOf(parentId);
+    }
+
+    public Permission getPermission(Long permissionId) {
+        return permissionId != null ? permissionSnapshot.hierarchy.byId.get(permissionId) : null;
+    }
+
+    public Permission getPermissionByCode(String permissionCode) {
+        return permissionCode != null ? permissionSnapshot.byCode.get(permissionCode) : null;
+    }
+
+    /**
+     * 裁剪一层节点；没有任何节点被裁剪或替换时返回原列表，上层据此判断能否复用自身节点
+     */
+    private static List<Menu> prune(List<Menu> nodes, Set<Long> menuIds) {
+        List<Menu> result = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            Menu node = nodes.get(i);
+            List<Menu> children = prune(node.getChildren(), menuIds);
+            Menu kept;
+            if (!menuIds.contains(node.getId()) && children.isEmpty()) {
+                kept = null;
+            } else if (children == node.getChildren()) {
+                kept = node;
+            } else {
+                kept = new Menu();
+                BeanUtils.copyProperties(node, kept, "children");
+                kept.setChildren(children);
+            }
+
+            if (kept != node && result == null) {
+                result = new ArrayList<>(nodes.size());
+                result.addAll(nodes.subList(0, i));
+            }
+            if (kept != null && result != null) {
+                result.add(kept);
+            }
+        }
+        if (result == null) {
+            return nodes;
+        }
+        return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 按ID和父ID组织的不可变层级索引
+     */
+    static final class Hierarchy<T> {
+
+        /**
+         * 全部节点，按排序字段排列
+         */
+        final List<T> all;
+
+        final Map<Long, T> byId;
+
+        /**
+         * 父ID -> 子节点，子节点顺序与 all 一致
+         */
+        final Map<Long, List<T>> children;
+
+        private Hierarchy(List<T> all, Map<Long, T> byId, Map<Long, List<T>> children) {
+            this.all = all;
+            this.byId = byId;
+            this.children = children;
+        }
+
+        static <T> Hierarchy<T> empty() {
+            return new Hierarchy<>(Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        static <T> Hierarchy<T> of(List<T> rows, Function<T, Long> idGetter, Function<T, Long> parentIdGetter,
+                                   Function<T, Integer> sortGetter) {
+            List<T> sorted = new ArrayList<>(rows);
+            // 数据库已按排序字段排好，这里只把排序字段为空的移到最后；稳定排序，已有序的输入为线性时间
+            sorted.sort(Comparator.comparing(sortGetter, Comparator.nullsLast(Integer::compareTo)));
+
+            Map<Long, T> byId = new HashMap<>(sorted.size() * 2);
+            Map<Long, List<T>> children = new HashMap<>();
+            for (T row : sorted) {
+                byId.put(idGetter.apply(row), row);
+                Long parentId = parentIdGetter.apply(row);
+                children.computeIfAbsent(parentId != null ? parentId : ROOT_PARENT_ID, key -> new ArrayList<>())
+                        .add(row);
+            }
+            children.replaceAll((parentId, list) -> Collections.unmodifiableList(list));
+            return new Hierarchy<>(Collections.unmodifiableList(sorted), Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(children));
+        }
+
+        List<T> childrenOf(Long parentId) {
+            return children.getOrDefault(parentId != null ? parentId : ROOT_PARENT_ID, Collections.emptyList());
+        }
+    }
+
+    /**
+     * 菜单快照
+     */
+    static final class MenuSnapshot {
+
+        static final MenuSnapshot EMPTY = new MenuSnapshot(0L, Hierarchy.empty(), Collections.emptyMap(),
+                Collections.emptyMap(), Collections.emptyList());
+
+        final long version;
+
+        final Hierarchy<Menu> hierarchy;
+
+        final Map<String, Menu> byCode;
+
+        final Map<String, Menu> byPath;
+
+        /**
+         * 预先组装的菜单树，节点为带children的菜单副本，不影响 hierarchy 中的扁平菜单
+         */
+        final List<Menu> tree;
+
+        private MenuSnapshot(long version, Hierarchy<Menu> hierarchy, Map<String, Menu> byCode,
+                             Map<String, Menu> byPath, List<Menu> tree) {
+            this.version = version;
+            this.hierarchy = hierarchy;
+            this.byCode = byCode;
+            this.byPath = byPath;
+            this.tree = tree;
+        }
+
+        static MenuSnapshot of(List<Menu> menus, long version) {
+            Hierarchy<Menu> hierarchy = Hierarchy.of(menus, Menu::getId, Menu::getParentId, Menu::getSort);
+
+            Map<String, Menu> byCode = new HashMap<>(hierarchy.all.size() * 2);
+            Map<String, Menu> byPath = new HashMap<>(hierarchy.all.size() * 2);
+            Map<Long, Menu> nodes = new HashMap<>(hierarchy.all.size() * 2);
+            for (Menu menu : hierarchy.all) {
+                if (StringUtils.hasText(menu.getMenuCode())) {
+                    byCode.putIfAbsent(menu.getMenuCode(), menu);
+                }
+                if (StringUtils.hasText(menu.getPath())) {
+                    byPath.putIfAbsent(menu.getPath(), menu);
+                }
+                Menu node = new Menu();
+                BeanUtils.copyProperties(menu, node, "children");
+                nodes.put(menu.getId(), node);
+            }
+
+            // 每个节点直接挂上邻接表中的子节点，只有从根可达的节点出现在树中
+            for (Menu node : nodes.values()) {
+                node.setChildren(toNodes(hierarchy.childrenOf(node.getId()), nodes));
+            }
+            List<Menu> tree = toNodes(hierarchy.childrenOf(ROOT_PARENT_ID), nodes);
+
+            return new MenuSnapshot(version, hierarchy, Collections.unmodifiableMap(byCode),
+                    Collections.unmodifiableMap(byPath), tree);
+        }
+
+        private static List<Menu> toNodes(List<Menu> menus, Map<Long, Menu> nodes) {
+            if (menus.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Menu> result = new ArrayList<>(menus.size());
+            for (Menu menu : menus) {
+                result.add(nodes.get(menu.getId()));
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+
+    /**
+     * 权限快照
+     */
+    static final class PermissionSnapshot {
+
+        static final PermissionSnapshot EMPTY = new PermissionSnapshot(0L, Hierarchy.empty(), Collections.emptyMap());
+
+        final long version;
+
+        final Hierarchy<Permission> hierarchy;
+
+        final Map<String, Permission> byCode;
+
+        private PermissionSnapshot(long version, Hierarchy<Permission> hierarchy, Map<String, Permission> byCode) {
+            this.version = version;
+            this.hierarchy = hierarchy;
+            this.byCode = byCode;
+        }
+
+        static PermissionSnapshot of(List<Permission> permissions, long version) {
+            Hierarchy<Permission> hierarchy = Hierarchy.of(permissions, Permission::getId, Permission::getParentId,
+                    Permission::getSort);
+            Map<String, Permission> byCode = new HashMap<>(hierarchy.all.size() * 2);
+            for (Permission permission : hierarchy.all) {
+                if (StringUtils.hasText(permission.getPermissionCode())) {
+                    byCode.putIfAbsent(permission.getPermissionCode(), permission);
+                }
+            }
+            return new PermissionSnapshot(version, hierarchy, Collections.unmodifiableMap(byCode));
+        }
+    }
+}
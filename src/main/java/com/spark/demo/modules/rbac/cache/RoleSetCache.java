@@ -0,0 +1,127 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.entity.Role;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 按角色组合共享的本地缓存
+ * 用户级RBAC派生数据（路径权限匹配器、菜单树投影等）只取决于用户的启用角色，
+ * key为启用角色ID列表（升序），相同角色组合的用户共用一份结果，
+ * 内存和构建开销与不同的授权组合数成正比，而不是用户数
+ *
+ * 来源角色缓存失效时（失效总线消息）丢弃包含相关角色的条目，并与近端缓存使用相同的TTL兜底；
+ * 构建期间收到失效消息时，结果可能基于失效前的数据，返回给本次调用但不保留在缓存中
+ *
+ * @author spark
+ * @date 2025-07-09
+ */
+public final class RoleSetCache<V> {
+
+    private final Set<String> sourceCacheNames;
+
+    private final Cache<List<Long>, V> entries;
+
+    /**
+     * 失效代数，每收到一条相关失效消息递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param sourceCacheNames 影响缓存结果的角色级缓存名称
+     * @param maxSize          最大角色组合数
+     * @param ttl              写入后过期时间
+     */
+    public RoleSetCache(Set<String> sourceCacheNames, long maxSize, Duration ttl,
+                        CacheInvalidationBus cacheInvalidationBus) {
+        this.sourceCacheNames = sourceCacheNames;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        cacheInvalidationBus.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * 角色列表对应的缓存key：角色ID升序、不可变
+     */
+    public static List<Long> roleSetOf(List<Role> roles) {
+        List<Long> roleIds = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            roleIds.add(role.getId());
+        }
+        return roleSetOfIds(roleIds);
+    }
+
+    /**
+     * 角色ID集合对应的缓存key：角色ID升序、不可变
+     */
+    public static List<Long> roleSetOfIds(Collection<Long> roleIds) {
+        List<Long> sorted = new ArrayList<>(roleIds);
+        Collections.sort(sorted);
+        return Collections.unmodifiableList(sorted);
+    }
+
+    public V get(List<Long> roleSet, Function<List<Long>, V> loader) {
+        return get(roleSet, value -> true, loader);
+    }
+
+    /**
+     * 获取角色组合对应的结果，不存在或已不新鲜时构建，同一角色组合的并发构建只执行一次
+     *
+     * @param roleSet 角色组合，见 roleSetOf
+     * @param fresh   已缓存的结果是否仍可用（如依赖的快照版本未变化）
+     * @param loader  构建函数
+     */
+    public V get(List<Long> roleSet, Predicate<V> fresh, Function<List<Long>, V> loader) {
+        long startGeneration = generation.get();
+        V value = entries.get(roleSet, loader);
+        if (!fresh.test(value)) {
+            entries.asMap().remove(roleSet, value);
+            value = entries.get(roleSet, loader);
+        }
+        // 失效处理先递增代数再删除条目：代数未变时，之后的失效消息一定能删掉刚写入的条目
+        if (generation.get() != startGeneration) {
+            entries.asMap().remove(roleSet, value);
+        }
+        return value;
+    }
+
+    /**
+     * 已缓存的角色组合数量
+     */
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    private void onInvalidation(CacheInvalidationMessage message) {
+        if (Collections.disjoint(message.getCacheNames(), sourceCacheNames)) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (message.isClearAll()) {
+            entries.invalidateAll();
+            return;
+        }
+        Set<Long> roleIds = new HashSet<>();
+        for (Object key : message.getKeys()) {
+            if (key instanceof Number number) {
+                roleIds.add(number.longValue());
+            }
+        }
+        entries.asMap().keySet().removeIf(key -> !Collections.disjoint(key, roleIds));
+    }
+}
@@ -0,0 +1,115 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户菜单树投影缓存
+ * 用户菜单树不再按用户查询、组装，而是用用户各启用角色的菜单ID集合裁剪 RbacCatalog 中的整棵菜单树：
+ * 可访问菜单的祖先自动保留，未被裁剪的子树直接复用全局树的共享节点
+ *
+ * 投影结果按角色组合共享（RoleSetCache），角色信息或角色菜单缓存失效时丢弃包含相关角色的投影；
+ * 菜单目录重建后按快照版本在下次访问时重新裁剪
+ *
+ * @author spark
+ * @date 2025-07-09
+ */
+@Slf4j
+@Component
+public class UserMenuTreeCache {
+
+    /**
+     * 影响投影结果的角色级缓存
+     */
+    private static final Set<String> SOURCE_CACHE_NAMES = Set.of("rbac:role:info", "rbac:role:menus");
+
+    @Lazy
+    @Autowired
+    private RbacCacheService rbacCacheService;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${rbac.performance.user-menu-tree-max-size:10000}")
+    private long maxSize = 10_000;
+
+    @Value("${rbac.performance.near-cache-ttl:PT1M}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    private RoleSetCache<Projection> projections;
+
+    @PostConstruct
+    public void init() {
+        projections = new RoleSetCache<>(SOURCE_CACHE_NAMES, maxSize, ttl, cacheInvalidationBus);
+    }
+
+    /**
+     * 用户菜单树，返回的节点与其他用户共享，调用方只读
+     */
+    public List<Menu> getUserMenuTree(Long userId) {
+        if (userId == null) {
+            return Collections.emptyList();
+        }
+        List<Long> roleIds = RoleSetCache.roleSetOf(rbacCacheService.getUserRoles(userId));
+        if (roleIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long version = rbacCatalog.getMenuVersion();
+        return projections.get(roleIds, projection -> projection.menuVersion == version,
+                key -> new Projection(version, rbacCatalog.projectMenuTree(allowedMenuIds(key)))).tree;
+    }
+
+    /**
+     * 已缓存的投影数量
+     */
+    public long size() {
+        return projections.size();
+    }
+
+    private Set<Long> allowedMenuIds(List<Long> roleIds) {
+        Set<Long> menuIds = new HashSet<>();
+        for (Long roleId : roleIds) {
+            List<Menu> menus = rbacCacheService.getRoleMenus(roleId);
+            if (menus == null) {
+                continue;
+            }
+            for (Menu menu : menus) {
+                menuIds.add(menu.getId());
+            }
+        }
+        log.debug("裁剪用户菜单树, 角色: {}, 可访问菜单数: {}", roleIds, menuIds.size());
+        return menuIds;
+    }
+
+    /**
+     * 基于某个菜单快照版本裁剪出的菜单树
+     */
+    private static final class Projection {
+
+        private final long menuVersion;
+
+        private final List<Menu> tree;
+
+        private Projection(long menuVersion, List<Menu> tree) {
+            this.menuVersion = menuVersion;
+            this.tree = tree;
+        }
+    }
+}
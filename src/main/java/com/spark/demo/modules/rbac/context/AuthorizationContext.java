@@ -0,0 +1,188 @@
+package com.spark.demo.modules.rbac.context;
+
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 请求级鉴权上下文
+ * 一个请求内RbacFilter、PermissionInterceptor、PermissionAspect共用同一份用户授权数据：
+ * 角色编码集合、超级管理员标记、权限位图（字典未就绪时为权限编码集合），均在首次使用时加载一次；
+ * 各层的鉴权结论按判断项记忆，同一请求内重复的判断直接返回
+ *
+ * 只在处理请求的线程内使用，不做同步；同时累计本请求的鉴权耗时、判断次数和记忆命中次数，
+ * 请求结束时由 AuthorizationContextFilter 上报
+ *
+ * @author spark
+ * @date 2025-07-06
+ */
+public final class AuthorizationContext {
+
+    /**
+     * 请求属性名
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthorizationContext.class.getName();
+
+    public static final String SUPER_ADMIN_ROLE = "super_admin";
+
+    private final Long userId;
+
+    private final RbacCacheService rbacCacheService;
+
+    private final PermissionCodeDictionary permissionCodeDictionary;
+
+    private Set<String> roleCodes;
+
+    private boolean permissionsLoaded;
+
+    private PermissionBits permissionBits;
+
+    private Set<String> permissionCodes;
+
+    private Map<Object, Boolean> decisions;
+
+    private long costNanos;
+
+    private int decisionCount;
+
+    private int memoHits;
+
+    AuthorizationContext(Long userId, RbacCacheService rbacCacheService,
+                         PermissionCodeDictionary permissionCodeDictionary) {
+        this.userId = userId;
+        this.rbacCacheService = rbacCacheService;
+        this.permissionCodeDictionary = permissionCodeDictionary;
+    }
+
+    /**
+     * 当前用户ID，未登录为null
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isAuthenticated() {
+        return userId != null;
+    }
+
+    /**
+     * 用户启用角色的编码集合
+     */
+    public Set<String> getRoleCodes() {
+        if (roleCodes == null) {
+            long start = System.nanoTime();
+            roleCodes = userId != null ? rbacCacheService.getUserRoleCodes(userId) : Collections.emptySet();
+            costNanos += System.nanoTime() - start;
+        }
+        return roleCodes;
+    }
+
+    public boolean isSuperAdmin() {
+        return getRoleCodes().contains(SUPER_ADMIN_ROLE);
+    }
+
+    public boolean hasRole(String roleCode) {
+        decisionCount++;
+        return getRoleCodes().contains(roleCode);
+    }
+
+    /**
+     * 用户权限位图，权限编码字典未就绪时返回null
+     */
+    public PermissionBits getPermissionBits() {
+        loadPermissions();
+        return permissionBits;
+    }
+
+    /**
+     * 用户权限编码集合，有位图时由位图解码；
+     * 加载位图后字典已重建时旧位图无法解码，改为重新加载编码集合
+     */
+    public Set<String> getPermissionCodes() {
+        loadPermissions();
+        if (permissionCodes == null) {
+            Set<String> decoded = permissionCodeDictionary.decode(permissionBits);
+            if (permissionBits != null && !permissionCodeDictionary.isCurrent(permissionBits)) {
+                long start = System.nanoTime();
+                decoded = rbacCacheService.getUserPermissionCodes(userId);
+                costNanos += System.nanoTime() - start;
+            }
+            permissionCodes = decoded;
+        }
+        return permissionCodes;
+    }
+
+    /**
+     * 是否拥有指定权限：有位图时按字典编号做位测试，否则查编码集合
+     */
+    public boolean hasPermission(String permissionCode) {
+        decisionCount++;
+        PermissionBits bits = getPermissionBits();
+        if (bits != null && permissionCodeDictionary.isCurrent(bits)) {
+            return bits.contains(permissionCodeDictionary.idOf(permissionCode));
+        }
+        return getPermissionCodes().contains(permissionCode);
+    }
+
+    /**
+     * 按判断项记忆鉴权结论，同一请求内相同判断项只计算一次
+     *
+     * @param key      判断项，需实现equals/hashCode
+     * @param decision 实际的鉴权判断
+     */
+    public boolean decide(Object key, BooleanSupplier decision) {
+        decisionCount++;
+        if (decisions == null) {
+            decisions = new HashMap<>(4);
+        }
+        Boolean memo = decisions.get(key);
+        if (memo != null) {
+            memoHits++;
+            return memo;
+        }
+        long start = System.nanoTime();
+        boolean result = decision.getAsBoolean();
+        costNanos += System.nanoTime() - start;
+        decisions.put(key, result);
+        return result;
+    }
+
+    /**
+     * 本请求累计的鉴权耗时（加载授权数据和未命中记忆的判断）
+     */
+    public long getCostNanos() {
+        return costNanos;
+    }
+
+    public int getDecisionCount() {
+        return decisionCount;
+    }
+
+    public int getMemoHits() {
+        return memoHits;
+    }
+
+    private void loadPermissions() {
+        if (permissionsLoaded) {
+            return;
+        }
+        permissionsLoaded = true;
+        if (userId == null) {
+            permissionCodes = Collections.emptySet();
+            return;
+        }
+        long start = System.nanoTime();
+        permissionBits = rbacCacheService.getUserPermissionBits(userId);
+        if (permissionBits == null) {
+            // 权限编码字典未就绪，退回编码集合
+            permissionCodes = rbacCacheService.getUserPermissionCodes(userId);
+        }
+        costNanos += System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,39 @@
+package com.spark.demo.modules.rbac.context;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 鉴权上下文边界过滤器
+ * 排在认证和RBAC过滤器之前，请求结束（包括被后续过滤器拒绝）时上报本请求的鉴权开销；
+ * 上下文本身在第一次鉴权时才创建，不需要鉴权的请求没有额外开销
+ *
+ * @author spark
+ * @date 2025-07-06
+ */
+@Component
+public class AuthorizationContextFilter implements Filter {
+
+    @Autowired
+    private AuthorizationContextResolver authorizationContextResolver;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.getAttribute(AuthorizationContext.REQUEST_ATTRIBUTE) instanceof AuthorizationContext context) {
+                request.removeAttribute(AuthorizationContext.REQUEST_ATTRIBUTE);
+                authorizationContextResolver.report(context);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.spark.demo.modules.rbac.context;
+
+import com.spark.demo.common.context.UserContext;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求级鉴权上下文解析
+ * 每个请求第一次需要鉴权时创建 AuthorizationContext 并存入请求属性，之后各层直接复用；
+ * 当前用户优先取AuthFilter放入UserContext的用户，其次为Session中的userId，最后为X-User-Id请求头
+ *
+ * @author spark
+ * @date 2025-07-06
+ */
+@Slf4j
+@Component
+public class AuthorizationContextResolver {
+
+    @Autowired
+    private RbacCacheService rbacCacheService;
+
+    @Autowired
+    private PermissionCodeDictionary permissionCodeDictionary;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer costTimer;
+
+    private DistributionSummary decisionSummary;
+
+    private Counter memoHitCounter;
+
+    @PostConstruct
+    public void init() {
+        costTimer = Timer.builder("rbac.authorization.cost").description("单个请求的鉴权耗时").register(meterRegistry);
+        decisionSummary = DistributionSummary.builder("rbac.authorization.decisions")
+                .description("单个请求的鉴权判断次数").register(meterRegistry);
+        memoHitCounter = Counter.builder("rbac.authorization.memo.hits")
+                .description("命中请求内记忆的鉴权判断次数").register(meterRegistry);
+    }
+
+    /**
+     * 获取请求的鉴权上下文，首次调用时创建
+     */
+    public AuthorizationContext resolve(HttpServletRequest request) {
+        Object attribute = request.getAttribute(AuthorizationContext.REQUEST_ATTRIBUTE);
+        if (attribute instanceof AuthorizationContext context) {
+            return context;
+        }
+        AuthorizationContext context = create(resolveUserId(request));
+        request.setAttribute(AuthorizationContext.REQUEST_ATTRIBUTE, context);
+        return context;
+    }
+
+    /**
+     * 获取当前线程请求的鉴权上下文；不在请求线程中时按UserContext创建一个仅供本次调用使用的上下文
+     */
+    public AuthorizationContext current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return resolve(servletAttributes.getRequest());
+        }
+        return create(UserContext.getCurrentUserId());
+    }
+
+    /**
+     * 上报请求的鉴权开销，由 AuthorizationContextFilter 在请求结束时调用
+     */
+    public void report(AuthorizationContext context) {
+        costTimer.record(context.getCostNanos(), TimeUnit.NANOSECONDS);
+        decisionSummary.record(context.getDecisionCount());
+        if (context.getMemoHits() > 0) {
+            memoHitCounter.increment(context.getMemoHits());
+        }
+        log.debug("请求鉴权完成, userId: {}, 耗时: {}μs, 判断次数: {}, 记忆命中: {}", context.getUserId(),
+                TimeUnit.NANOSECONDS.toMicros(context.getCostNanos()), context.getDecisionCount(), context.getMemoHits());
+    }
+
+    AuthorizationContext create(Long userId) {
+        return new AuthorizationContext(userId, rbacCacheService, permissionCodeDictionary);
+    }
+
+    /**
+     * 当前用户ID
+     */
+    private Long resolveUserId(HttpServletRequest request) {
+        Long userId = UserContext.getCurrentUserId();
+        if (userId != null) {
+            return userId;
+        }
+
+        // 从Session中获取用户ID
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute("userId") instanceof Number id) {
+            return id.longValue();
+        }
+
+        // 从Header中获取用户ID（如果使用Token认证）
+        String userIdHeader = request.getHeader("X-User-Id");
+        if (userIdHeader != null && !userIdHeader.isEmpty()) {
+            try {
+                return Long.parseLong(userIdHeader);
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户ID格式: {}", userIdHeader);
+            }
+        }
+        return null;
+    }
+}
@@ -6,7 +6,10 @@ import com.spark.demo.common.result.Result;
 import com.spark.demo.entity.Permission;
 import com.spark.demo.modules.rbac.annotation.RequirePermission;
 import com.spark.demo.modules.rbac.annotation.RequireRole;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixRequest;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
 import com.spark.demo.modules.rbac.service.PermissionService;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -37,6 +40,9 @@ public class PermissionController {
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private RbacCacheService rbacCacheService;
+
     // ==================== 权限基础操作 ====================
 
     @GetMapping("/page")
@@ -205,6 +211,16 @@ public class PermissionController {
         return Result.success(hasPermission);
     }
 
+    @PostMapping("/check-matrix")
+    @Operation(summary = "批量检查用户权限", description = "检查多个用户 × 多个权限，返回按行展开的权限位矩阵")
+    @RequirePermission("permission:read")
+    public Result<PermissionMatrixResult> checkPermissionMatrix(@Valid @RequestBody PermissionMatrixRequest request) {
+        log.info("批量检查用户权限, 用户数: {}, 权限数: {}", request.getUserIds().size(), request.getPermissionCodes().size());
+        
+        PermissionMatrixResult result = rbacCacheService.checkPermissionMatrix(request.getUserIds(), request.getPermissionCodes());
+        return Result.success(result);
+    }
+
     // ==================== 权限验证操作 ====================
 
     @GetMapping("/check-code/{permissionCode}")
@@ -6,6 +6,7 @@ import com.spark.demo.entity.Permission;
 import com.spark.demo.entity.Menu;
 import com.spark.demo.modules.rbac.annotation.RequirePermission;
 import com.spark.demo.modules.rbac.annotation.RequireRole;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
 import com.spark.demo.modules.rbac.service.RbacCacheService;
 import com.spark.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,6 +18,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.constraints.NotNull;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -183,9 +185,12 @@ public class UserRbacController {
         
         log.info("批量验证用户权限, userId: {}, permissionCodes: {}", userId, permissionCodes);
         
-        List<Boolean> results = permissionCodes.stream()
-                .map(code -> userService.hasPermission(userId, code))
-                .toList();
+        // 单行的批量校验，用户角色和角色权限位图各只取一次
+        PermissionMatrixResult matrix = rbacCacheService.checkPermissionMatrix(List.of(userId), permissionCodes);
+        List<Boolean> results = new ArrayList<>(permissionCodes.size());
+        for (int j = 0; j < permissionCodes.size(); j++) {
+            results.add(matrix.isGranted(0, j));
+        }
         return Result.success(results);
     }
 
@@ -0,0 +1,30 @@
+package com.spark.demo.modules.rbac.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 批量权限校验请求DTO
+ * 对 userIds × permissionCodes 的每一对做权限判断
+ *
+ * @author spark
+ * @date 2025-07-10
+ */
+@Data
+@Schema(description = "批量权限校验请求")
+public class PermissionMatrixRequest {
+
+    @NotEmpty(message = "用户ID列表不能为空")
+    @Size(max = 10000, message = "单次最多校验10000个用户")
+    @Schema(description = "用户ID列表", example = "[1, 2, 3]")
+    private List<Long> userIds;
+
+    @NotEmpty(message = "权限编码列表不能为空")
+    @Size(max = 500, message = "单次最多校验500个权限编码")
+    @Schema(description = "权限编码列表", example = "[\"user:read\", \"user:update\"]")
+    private List<String> permissionCodes;
+}
@@ -0,0 +1,212 @@
+package com.spark.demo.modules.rbac.filter;
+
+import com.spark.demo.common.cache.CacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.matcher.RouteIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * API权限规则注册表
+ * 从sys_permission（type=3 接口权限）加载路径+方法规则，构建成不可变的RouteIndex快照，
+ * 权限变更时整体重建并原子替换，请求线程只读volatile引用，无锁
+ *
+ * 规则优先级：
+ * 1. 数据库规则，越具体越优先（无通配符优先，其次路径段多者优先，最后按ID）
+ * 2. 内置默认规则，兜底数据库未配置的管理接口
+ *
+ * 刷新时机：启动加载、权限增删改后通过失效总线通知所有节点、定时兜底刷新
+ *
+ * @author spark
+ * @date 2025-06-23
+ */
+@Slf4j
+@Component
+public class ApiPermissionRuleRegistry {
+
+    /**
+     * 失效总线上代表API规则表的名称
+     */
+    public static final String RULES_CACHE_NAME = "rbac:api:rules";
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 数据库中的路径不含context-path，而过滤器匹配的是完整requestURI，构建时统一加上前缀
+     */
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private volatile Snapshot snapshot = buildSnapshot(new ArrayList<>(), "", 0);
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(message -> {
+            if (message.getCacheNames().contains(RULES_CACHE_NAME)) {
+                reload();
+            }
+        });
+        reload();
+    }
+
+    /**
+     * 获取访问指定路径和方法所需的权限编码
+     *
+     * @return 权限编码，无需特殊权限返回null
+     */
+    public String getRequiredPermission(String requestUri, String method) {
+        return snapshot.routes.match(requestUri, method);
+    }
+
+    /**
+     * 从数据库重新加载规则并替换快照，加载失败时保留原快照
+     */
+    public synchronized void reload() {
+        try {
+            List<Permission> permissions = permissionMapper.selectApiPermissions();
+            Snapshot newSnapshot = buildSnapshot(permissions, contextPath, snapshot.version + 1);
+            snapshot = newSnapshot;
+            log.info("API权限规则已加载, 版本: {}, 数据库规则: {}, 规则总数: {}",
+                    newSnapshot.version, newSnapshot.databaseRuleCount, newSnapshot.routes.size());
+        } catch (Exception e) {
+            log.error("加载API权限规则失败，继续使用当前规则, 版本: {}", snapshot.version, e);
+        }
+    }
+
+    /**
+     * 定时兜底刷新，防止错过失效通知
+     */
+    @Scheduled(fixedDelayString = "${rbac.performance.api-rule-refresh-interval:300000}",
+            initialDelayString = "${rbac.performance.api-rule-refresh-interval:300000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public int getRuleCount() {
+        return snapshot.routes.size();
+    }
+
+    static Snapshot buildSnapshot(List<Permission> permissions, String contextPath, long version) {
+        String prefix = StringUtils.hasText(contextPath) && !"/".equals(contextPath) ? trimTrailingSlash(contextPath) : "";
+
+        List<Permission> rules = new ArrayList<>();
+        for (Permission permission : permissions) {
+            if (StringUtils.hasText(permission.getPath()) && StringUtils.hasText(permission.getPermissionCode())) {
+                rules.add(permission);
+            }
+        }
+        rules.sort(Comparator.comparingInt((Permission p) -> wildcardCount(p.getPath()))
+                .thenComparing(p -> -segmentCount(p.getPath()))
+                .thenComparing(Permission::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        RouteIndex.Builder<String> builder = RouteIndex.builder();
+        int databaseRuleCount = 0;
+        for (Permission permission : rules) {
+            String path = permission.getPath().startsWith("/") ? permission.getPath() : "/" + permission.getPath();
+            String method = StringUtils.hasText(permission.getMethod()) ? permission.getMethod().trim() : "*";
+            try {
+                builder.add(prefix + path, method, permission.getPermissionCode());
+                databaseRuleCount++;
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略无效的API权限规则, permissionCode: {}, path: {}, method: {}",
+                        permission.getPermissionCode(), permission.getPath(), permission.getMethod());
+            }
+        }
+        addDefaultRules(builder);
+        return new Snapshot(builder.build(), databaseRuleCount, version);
+    }
+
+    /**
+     * 内置默认规则（原RbacFilter硬编码规则），优先级低于数据库规则
+     */
+    private static void addDefaultRules(RouteIndex.Builder<String> builder) {
+        builder
+                // 用户管理API
+                .add("/api/v1/users/**", "GET", "user:read")
+                .add("/api/v1/users/**", "POST", "user:create")
+                .add("/api/v1/users/**", "PUT", "user:update")
+                .add("/api/v1/users/**", "DELETE", "user:delete")
+
+                // 角色管理API
+                .add("/api/v1/rbac/roles/**", "GET", "role:read")
+                .add("/api/v1/rbac/roles/**", "POST", "role:create")
+                .add("/api/v1/rbac/roles/**", "PUT", "role:update")
+                .add("/api/v1/rbac/roles/**", "DELETE", "role:delete")
+
+                // 权限管理API
+                .add("/api/v1/rbac/permissions/**", "GET", "permission:read")
+                .add("/api/v1/rbac/permissions/**", "POST", "permission:create")
+                .add("/api/v1/rbac/permissions/**", "PUT", "permission:update")
+                .add("/api/v1/rbac/permissions/**", "DELETE", "permission:delete")
+
+                // 菜单管理API
+                .add("/api/v1/rbac/menus/**", "GET", "menu:read")
+                .add("/api/v1/rbac/menus/**", "POST", "menu:create")
+                .add("/api/v1/rbac/menus/**", "PUT", "menu:update")
+                .add("/api/v1/rbac/menus/**", "DELETE", "menu:delete")
+
+                // 系统管理API
+                .add("/api/v1/system/**", "*", "system:manage")
+                .add("/api/v1/rbac/**/cache/**", "DELETE", "system:manage_cache");
+    }
+
+    private static int wildcardCount(String path) {
+        int count = 0;
+        for (String segment : path.split("/")) {
+            if (segment.contains("*") || segment.startsWith("{")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int segmentCount(String path) {
+        int count = 0;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String trimTrailingSlash(String path) {
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * 规则快照，构建完成后不再修改
+     */
+    static final class Snapshot {
+
+        final RouteIndex<String> routes;
+
+        final int databaseRuleCount;
+
+        final long version;
+
+        Snapshot(RouteIndex<String> routes, int databaseRuleCount, long version) {
+            this.routes = routes;
+            this.databaseRuleCount = databaseRuleCount;
+            this.version = version;
+        }
+    }
+}
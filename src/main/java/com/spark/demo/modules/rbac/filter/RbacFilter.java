@@ -2,7 +2,9 @@ package com.spark.demo.modules.rbac.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spark.demo.common.result.Result;
-import com.spark.demo.modules.rbac.service.RbacCacheService;
+import com.spark.demo.modules.rbac.context.AuthorizationContext;
+import com.spark.demo.modules.rbac.context.AuthorizationContextResolver;
+import com.spark.demo.modules.rbac.matcher.RouteIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
@@ -11,15 +13,12 @@ import org.springframework.stereotype.Component;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * RBAC权限过滤器
  * 提供更细粒度的权限控制，在拦截器之前执行
+ * 用户、角色和权限取自请求级 AuthorizationContext，与拦截器、权限切面共用
  * 
  * @author spark
  * @date 2025-01-01
@@ -30,61 +29,31 @@ import java.util.regex.Pattern;
 public class RbacFilter implements Filter {
 
     @Autowired
-    private RbacCacheService rbacCacheService;
+    private AuthorizationContextResolver authorizationContextResolver;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    /**
-     * 不需要权限验证的路径模式
-     */
-    private static final List<Pattern> EXCLUDE_PATTERNS = Arrays.asList(
-            Pattern.compile("^/api/v1/auth/.*"),
-            Pattern.compile("^/api/v1/captcha.*"),
-            Pattern.compile("^/api/v1/sms.*"),
-            Pattern.compile("^/swagger-ui.*"),
-            Pattern.compile("^/v3/api-docs.*"),
-            Pattern.compile("^/favicon\\.ico$"),
-            Pattern.compile("^/error.*"),
-            Pattern.compile("^/actuator.*"),
-            Pattern.compile("^/static/.*"),
-            Pattern.compile("^/css/.*"),
-            Pattern.compile("^/js/.*"),
-            Pattern.compile("^/images/.*")
-    );
+    @Autowired
+    private ApiPermissionRuleRegistry apiPermissionRuleRegistry;
 
     /**
-     * 需要特殊权限的API路径配置
+     * 不需要权限验证的路径（Ant风格）
      */
-    private static final List<ApiPermissionRule> API_PERMISSION_RULES = Arrays.asList(
-            // 用户管理API
-            new ApiPermissionRule("^/api/v1/users.*", "GET", "user:read"),
-            new ApiPermissionRule("^/api/v1/users.*", "POST", "user:create"),
-            new ApiPermissionRule("^/api/v1/users.*", "PUT", "user:update"),
-            new ApiPermissionRule("^/api/v1/users.*", "DELETE", "user:delete"),
-            
-            // 角色管理API
-            new ApiPermissionRule("^/api/v1/rbac/roles.*", "GET", "role:read"),
-            new ApiPermissionRule("^/api/v1/rbac/roles.*", "POST", "role:create"),
-            new ApiPermissionRule("^/api/v1/rbac/roles.*", "PUT", "role:update"),
-            new ApiPermissionRule("^/api/v1/rbac/roles.*", "DELETE", "role:delete"),
-            
-            // 权限管理API
-            new ApiPermissionRule("^/api/v1/rbac/permissions.*", "GET", "permission:read"),
-            new ApiPermissionRule("^/api/v1/rbac/permissions.*", "POST", "permission:create"),
-            new ApiPermissionRule("^/api/v1/rbac/permissions.*", "PUT", "permission:update"),
-            new ApiPermissionRule("^/api/v1/rbac/permissions.*", "DELETE", "permission:delete"),
-            
-            // 菜单管理API
-            new ApiPermissionRule("^/api/v1/rbac/menus.*", "GET", "menu:read"),
-            new ApiPermissionRule("^/api/v1/rbac/menus.*", "POST", "menu:create"),
-            new ApiPermissionRule("^/api/v1/rbac/menus.*", "PUT", "menu:update"),
-            new ApiPermissionRule("^/api/v1/rbac/menus.*", "DELETE", "menu:delete"),
-            
-            // 系统管理API
-            new ApiPermissionRule("^/api/v1/system.*", ".*", "system:manage"),
-            new ApiPermissionRule("^/api/v1/rbac/.*/cache.*", "DELETE", "system:manage_cache")
-    );
+    private static final RouteIndex<Boolean> EXCLUDE_ROUTES = RouteIndex.<Boolean>builder()
+            .add("/api/v1/auth/**", "*", Boolean.TRUE)
+            .add("/api/v1/captcha/**", "*", Boolean.TRUE)
+            .add("/api/v1/sms/**", "*", Boolean.TRUE)
+            .add("/swagger-ui/**", "*", Boolean.TRUE)
+            .add("/v3/api-docs/**", "*", Boolean.TRUE)
+            .add("/favicon.ico", "*", Boolean.TRUE)
+            .add("/error/**", "*", Boolean.TRUE)
+            .add("/actuator/**", "*", Boolean.TRUE)
+            .add("/static/**", "*", Boolean.TRUE)
+            .add("/css/**", "*", Boolean.TRUE)
+            .add("/js/**", "*", Boolean.TRUE)
+            .add("/images/**", "*", Boolean.TRUE)
+            .build();
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) 
@@ -105,8 +74,9 @@ public class RbacFilter implements Filter {
             return;
         }
 
-        // 获取当前用户ID
-        Long userId = getCurrentUserId(httpRequest);
+        // 获取当前用户
+        AuthorizationContext context = authorizationContextResolver.resolve(httpRequest);
+        Long userId = context.getUserId();
         if (userId == null) {
             log.warn("用户未登录，拒绝访问: {} {}", method, requestPath);
             writeUnauthorizedResponse(httpResponse, "用户未登录");
@@ -114,7 +84,7 @@ public class RbacFilter implements Filter {
         }
 
         // 检查是否为超级管理员
-        if (isSuperAdmin(userId)) {
+        if (isSuperAdmin(context)) {
             log.debug("用户 {} 是超级管理员，允许访问", userId);
             chain.doFilter(request, response);
             return;
@@ -123,7 +93,7 @@ public class RbacFilter implements Filter {
         // 检查API权限
         String requiredPermission = getRequiredPermission(requestPath, method);
         if (requiredPermission != null) {
-            boolean hasPermission = rbacCacheService.hasPermission(userId, requiredPermission);
+            boolean hasPermission = context.hasPermission(requiredPermission);
             if (!hasPermission) {
                 log.warn("用户 {} 缺少权限 {} 访问: {} {}", userId, requiredPermission, method, requestPath);
                 writeAccessDeniedResponse(httpResponse, "缺少必要权限: " + requiredPermission);
@@ -139,41 +109,15 @@ public class RbacFilter implements Filter {
      * 检查是否为排除路径
      */
     private boolean isExcludePath(String requestPath) {
-        return EXCLUDE_PATTERNS.stream().anyMatch(pattern -> pattern.matcher(requestPath).matches());
-    }
-
-    /**
-     * 获取当前用户ID
-     */
-    private Long getCurrentUserId(HttpServletRequest request) {
-        // 从Session中获取用户ID
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            Object userIdObj = session.getAttribute("userId");
-            if (userIdObj instanceof Long) {
-                return (Long) userIdObj;
-            }
-        }
-
-        // 从Header中获取用户ID（如果使用Token认证）
-        String userIdHeader = request.getHeader("X-User-Id");
-        if (userIdHeader != null && !userIdHeader.isEmpty()) {
-            try {
-                return Long.parseLong(userIdHeader);
-            } catch (NumberFormatException e) {
-                log.warn("无效的用户ID格式: {}", userIdHeader);
-            }
-        }
-
-        return null;
+        return EXCLUDE_ROUTES.matches(requestPath, null);
     }
 
     /**
      * 检查是否为超级管理员
      */
-    private boolean isSuperAdmin(Long userId) {
+    private boolean isSuperAdmin(AuthorizationContext context) {
         try {
-            return rbacCacheService.hasRole(userId, "super_admin");
+            return context.isSuperAdmin();
         } catch (Exception e) {
             log.error("检查超级管理员权限时发生错误", e);
             return false;
@@ -184,11 +128,7 @@ public class RbacFilter implements Filter {
      * 获取访问指定路径和方法所需的权限
      */
     private String getRequiredPermission(String path, String method) {
-        return API_PERMISSION_RULES.stream()
-                .filter(rule -> rule.matches(path, method))
-                .map(ApiPermissionRule::getPermission)
-                .findFirst()
-                .orElse(null);
+        return apiPermissionRuleRegistry.getRequiredPermission(path, method);
     }
 
     /**
@@ -214,27 +154,4 @@ public class RbacFilter implements Filter {
         String jsonResponse = objectMapper.writeValueAsString(result);
         response.getWriter().write(jsonResponse);
     }
-
-    /**
-     * API权限规则
-     */
-    private static class ApiPermissionRule {
-        private final Pattern pathPattern;
-        private final Pattern methodPattern;
-        private final String permission;
-
-        public ApiPermissionRule(String pathRegex, String methodRegex, String permission) {
-            this.pathPattern = Pattern.compile(pathRegex);
-            this.methodPattern = Pattern.compile(methodRegex, Pattern.CASE_INSENSITIVE);
-            this.permission = permission;
-        }
-
-        public boolean matches(String path, String method) {
-            return pathPattern.matcher(path).matches() && methodPattern.matcher(method).matches();
-        }
-
-        public String getPermission() {
-            return permission;
-        }
-    }
-} 
\ No newline at end of file
+}
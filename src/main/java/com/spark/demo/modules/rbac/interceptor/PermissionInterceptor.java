@@ -2,7 +2,8 @@ package com.spark.demo.modules.rbac.interceptor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spark.demo.common.result.Result;
-import com.spark.demo.modules.rbac.service.RbacCacheService;
+import com.spark.demo.modules.rbac.context.AuthorizationContext;
+import com.spark.demo.modules.rbac.context.AuthorizationContextResolver;
 import com.spark.demo.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +12,6 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -19,6 +19,7 @@ import java.util.List;
 /**
  * 权限拦截器
  * 在请求处理前进行权限验证
+ * 用户和超级管理员标记取自请求级 AuthorizationContext，路径权限结论在请求内记忆（转发、错误分发不再重复判断）
  * 
  * @author spark
  * @date 2025-01-01
@@ -31,7 +32,7 @@ public class PermissionInterceptor implements HandlerInterceptor {
     private UserService userService;
 
     @Autowired
-    private RbacCacheService rbacCacheService;
+    private AuthorizationContextResolver authorizationContextResolver;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -53,11 +54,6 @@ public class PermissionInterceptor implements HandlerInterceptor {
             "/actuator"
     );
 
-    /**
-     * 超级管理员角色，拥有所有权限
-     */
-    private static final String SUPER_ADMIN_ROLE = "super_admin";
-
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         String requestPath = request.getRequestURI();
@@ -71,8 +67,9 @@ public class PermissionInterceptor implements HandlerInterceptor {
             return true;
         }
 
-        // 获取当前用户ID
-        Long userId = getCurrentUserId(request);
+        // 获取当前用户
+        AuthorizationContext context = authorizationContextResolver.resolve(request);
+        Long userId = context.getUserId();
         if (userId == null) {
             log.warn("用户未登录，拒绝访问: {} {}", method, requestPath);
             writeUnauthorizedResponse(response, "用户未登录");
@@ -80,13 +77,17 @@ public class PermissionInterceptor implements HandlerInterceptor {
         }
 
         // 检查是否为超级管理员
-        if (isSuperAdmin(userId)) {
+        if (isSuperAdmin(context)) {
             log.debug("用户 {} 是超级管理员，允许访问", userId);
             return true;
         }
 
         // 检查路径权限
-        boolean hasPermission = userService.hasPathPermission(userId, requestPath, method);
+        // 权限路径不含context-path
+        String contextPath = request.getContextPath();
+        String applicationPath = requestPath.startsWith(contextPath) ? requestPath.substring(contextPath.length()) : requestPath;
+        boolean hasPermission = context.decide(new PathDecision(requestPath, method),
+                () -> userService.hasPathPermission(userId, applicationPath, method));
         if (!hasPermission) {
             log.warn("用户 {} 没有访问权限: {} {}", userId, method, requestPath);
             writeAccessDeniedResponse(response, "没有访问权限");
@@ -104,38 +105,12 @@ public class PermissionInterceptor implements HandlerInterceptor {
         return EXCLUDE_PATHS.stream().anyMatch(requestPath::startsWith);
     }
 
-    /**
-     * 获取当前用户ID
-     */
-    private Long getCurrentUserId(HttpServletRequest request) {
-        // 从Session中获取用户ID
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            Object userIdObj = session.getAttribute("userId");
-            if (userIdObj instanceof Long) {
-                return (Long) userIdObj;
-            }
-        }
-
-        // 从Header中获取用户ID（如果使用Token认证）
-        String userIdHeader = request.getHeader("X-User-Id");
-        if (userIdHeader != null && !userIdHeader.isEmpty()) {
-            try {
-                return Long.parseLong(userIdHeader);
-            } catch (NumberFormatException e) {
-                log.warn("无效的用户ID格式: {}", userIdHeader);
-            }
-        }
-
-        return null;
-    }
-
     /**
      * 检查是否为超级管理员
      */
-    private boolean isSuperAdmin(Long userId) {
+    private boolean isSuperAdmin(AuthorizationContext context) {
         try {
-            return rbacCacheService.hasRole(userId, SUPER_ADMIN_ROLE);
+            return context.isSuperAdmin();
         } catch (Exception e) {
             log.error("检查超级管理员权限时发生错误", e);
             return false;
@@ -165,4 +140,10 @@ public class PermissionInterceptor implements HandlerInterceptor {
         String jsonResponse = objectMapper.writeValueAsString(result);
         response.getWriter().write(jsonResponse);
     }
+
+    /**
+     * 路径权限判断项
+     */
+    private record PathDecision(String path, String method) {
+    }
 } 
\ No newline at end of file
@@ -69,6 +69,19 @@ public interface PermissionMapper extends BaseMapper<Permission> {
     @Select("SELECT COUNT(1) FROM sys_permission WHERE permission_code = #{permissionCode} AND id != #{excludeId} AND deleted_time IS NULL")
     int countByPermissionCodeExcludeId(@Param("permissionCode") String permissionCode, @Param("excludeId") Long excludeId);
 
+    /**
+     * 查询所有配置了路径的有效接口权限（type=3），用于构建API权限规则表
+     */
+    @Select("SELECT * FROM sys_permission WHERE type = 3 AND status = 1 AND deleted_time IS NULL " +
+            "AND path IS NOT NULL AND path != ''")
+    List<Permission> selectApiPermissions();
+
+    /**
+     * 按ID顺序查询全部权限编码（含已禁用、已删除），用于构建编号稳定的权限编码字典
+     */
+    @Select("SELECT id, permission_code FROM sys_permission ORDER BY id ASC")
+    List<Permission> selectAllPermissionCodes();
+
     /**
      * 根据父权限ID查询子权限
      */
@@ -0,0 +1,323 @@
+package com.spark.demo.modules.rbac.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 预编译的路由匹配索引
+ * 以路径段为key的前缀树 + HTTP方法槽位，构建一次后只读，可被多线程无锁共享
+ *
+ * 路由模式语法（与Spring的Ant风格保持一致）：
+ * - 字面量段：/api/v1/users
+ * - 单段通配：* 或 {var}，匹配恰好一个路径段
+ * - 多段通配：**，匹配零个或多个路径段，可出现在任意位置
+ * 方法为 GET/POST/... 或 * 表示任意方法，大小写不敏感
+ *
+ * 匹配语义与原先按顺序扫描的规则列表一致：多条规则同时匹配时，返回最先添加的规则。
+ * 匹配过程只在原始路径字符串上移动下标，不切分字符串、不创建对象，耗时与路径段数成正比。
+ *
+ * @author spark
+ * @date 2025-06-22
+ */
+public final class RouteIndex<T> {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "TRACE"};
+
+    private static final int ANY_METHOD = METHODS.length;
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final Node root;
+
+    private final Object[] payloads;
+
+    private RouteIndex(Node root, Object[] payloads) {
+        this.root = root;
+        this.payloads = payloads;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 查找匹配的规则
+     *
+     * @param path   请求路径（不含查询参数）
+     * @param method HTTP方法
+     * @return 最先添加的匹配规则所携带的数据，无匹配返回null
+     */
+    @SuppressWarnings("unchecked")
+    public T match(String path, String method) {
+        if (path == null) {
+            return null;
+        }
+        int slot = methodSlot(method);
+        int ruleIndex = root.match(path, skipSlashes(path, 0), slot, NO_MATCH);
+        return ruleIndex == NO_MATCH ? null : (T) payloads[ruleIndex];
+    }
+
+    /**
+     * 是否存在匹配的规则
+     */
+    public boolean matches(String path, String method) {
+        return match(path, method) != null;
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return payloads.length;
+    }
+
+    static int methodSlot(String method) {
+        if (method == null) {
+            return -1;
+        }
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equalsIgnoreCase(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSlashes(String path, int pos) {
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == '/') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+
+        /**
+         * 字面量子节点，开放寻址哈希表，按段内容的hashCode定位，避免为查找创建子串
+         */
+        private String[] literalKeys = new String[0];
+        private Node[] literalChildren = new Node[0];
+        private int literalCount;
+
+        /**
+         * 单段通配子节点（* 或 {var}）
+         */
+        private Node singleWildcard;
+
+        /**
+         * 多段通配子节点（**）
+         */
+        private Node multiWildcard;
+
+        /**
+         * 以本节点结尾的规则，按方法槽位存放规则序号，最后一个槽位为任意方法
+         */
+        private final int[] terminalRules = newRuleSlots();
+
+        /**
+         * 本子树内最小的规则序号，用于剪枝
+         */
+        private int minRuleIndex = NO_MATCH;
+
+        int match(String path, int pos, int slot, int best) {
+            if (minRuleIndex >= best) {
+                return best;
+            }
+
+            if (pos >= path.length()) {
+                best = Math.min(best, terminalRule(slot));
+                if (multiWildcard != null) {
+                    best = multiWildcard.match(path, pos, slot, best);
+                }
+                return best;
+            }
+
+            int end = segmentEnd(path, pos);
+            int next = skipSlashes(path, end);
+
+            Node literal = findLiteral(path, pos, end);
+            if (literal != null) {
+                best = literal.match(path, next, slot, best);
+            }
+            if (singleWildcard != null) {
+                best = singleWildcard.match(path, next, slot, best);
+            }
+            if (multiWildcard != null) {
+                // ** 依次尝试吞掉 0..n 个路径段
+                int p = pos;
+                while (true) {
+                    best = multiWildcard.match(path, p, slot, best);
+                    if (p >= path.length()) {
+                        break;
+                    }
+                    p = skipSlashes(path, segmentEnd(path, p));
+                }
+            }
+            return best;
+        }
+
+        private int terminalRule(int slot) {
+            int any = terminalRules[ANY_METHOD];
+            return slot < 0 ? any : Math.min(terminalRules[slot], any);
+        }
+
+        private Node findLiteral(String path, int start, int end) {
+            if (literalKeys.length == 0) {
+                return null;
+            }
+            int length = end - start;
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int mask = literalKeys.length - 1;
+            for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+                String key = literalKeys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == length && key.regionMatches(0, path, start, length)) {
+                    return literalChildren[i];
+                }
+            }
+        }
+
+        private Node childFor(String segment) {
+            if ("**".equals(segment)) {
+                if (multiWildcard == null) {
+                    multiWildcard = new Node();
+                }
+                return multiWildcard;
+            }
+            if ("*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (singleWildcard == null) {
+                    singleWildcard = new Node();
+                }
+                return singleWildcard;
+            }
+            Node existing = getLiteral(segment);
+            if (existing != null) {
+                return existing;
+            }
+            Node child = new Node();
+            putLiteral(segment, child);
+            return child;
+        }
+
+        private Node getLiteral(String segment) {
+            return literalKeys.length == 0 ? null : findLiteral(segment, 0, segment.length());
+        }
+
+        private void putLiteral(String segment, Node child) {
+            int count = literalCount;
+            // 负载因子不超过0.5，保证探测链短
+            if ((count + 1) * 2 > literalKeys.length) {
+                String[] oldKeys = literalKeys;
+                Node[] oldChildren = literalChildren;
+                int capacity = Math.max(4, Integer.highestOneBit(Math.max(1, (count + 1) * 2)) << 1);
+                literalKeys = new String[capacity];
+                literalChildren = new Node[capacity];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        insert(oldKeys[i], oldChildren[i]);
+                    }
+                }
+            }
+            insert(segment, child);
+            literalCount++;
+        }
+
+        private void insert(String segment, Node child) {
+            int mask = literalKeys.length - 1;
+            int i = spread(segment.hashCode()) & mask;
+            while (literalKeys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            literalKeys[i] = segment;
+            literalChildren[i] = child;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int[] newRuleSlots() {
+            int[] slots = new int[METHODS.length + 1];
+            Arrays.fill(slots, NO_MATCH);
+            return slots;
+        }
+    }
+
+    /**
+     * 构建器，非线程安全，build之后的RouteIndex只读
+     */
+    public static final class Builder<T> {
+
+        private final Node root = new Node();
+
+        private final List<Object> payloads = new ArrayList<>();
+
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * 添加规则，添加顺序即匹配优先级
+         *
+         * @param pattern 路由模式
+         * @param method  HTTP方法，* 或null表示任意方法
+         * @param payload 匹配时返回的数据，不能为null
+         */
+        public Builder<T> add(String pattern, String method, T payload) {
+            if (built) {
+                throw new IllegalStateException("RouteIndex已构建，不能继续添加规则");
+            }
+            if (pattern == null || payload == null) {
+                throw new IllegalArgumentException("路由模式和规则数据不能为空");
+            }
+            int slot;
+            if (method == null || "*".equals(method)) {
+                slot = ANY_METHOD;
+            } else {
+                slot = methodSlot(method);
+                if (slot < 0) {
+                    throw new IllegalArgumentException("不支持的HTTP方法: " + method);
+                }
+            }
+
+            int ruleIndex = payloads.size();
+            payloads.add(payload);
+
+            Node node = root;
+            node.minRuleIndex = Math.min(node.minRuleIndex, ruleIndex);
+            for (String segment : pattern.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                node = node.childFor(segment);
+                node.minRuleIndex = Math.min(node.minRuleIndex, ruleIndex);
+            }
+            // 同一模式同一方法保留最先添加的规则
+            if (node.terminalRules[slot] == NO_MATCH) {
+                node.terminalRules[slot] = ruleIndex;
+            }
+            return this;
+        }
+
+        public RouteIndex<T> build() {
+            built = true;
+            return new RouteIndex<>(root, payloads.toArray());
+        }
+    }
+}
@@ -75,6 +75,11 @@ public interface MenuService extends IService<Menu> {
      */
     List<Menu> getMenusByParentId(Long parentId);
 
+    /**
+     * 查询根菜单
+     */
+    List<Menu> getRootMenus();
+
     /**
      * 获取所有可用菜单
      */
@@ -95,6 +100,21 @@ public interface MenuService extends IService<Menu> {
      */
     Menu getMenuByPath(String path);
 
+    /**
+     * 检查菜单路径是否存在
+     */
+    boolean existsByPath(String path);
+
+    /**
+     * 更新菜单排序
+     */
+    boolean updateMenuSort(Long menuId, Integer sort);
+
+    /**
+     * 更新菜单状态
+     */
+    boolean updateMenuStatus(Long menuId, Integer status);
+
     /**
      * 获取用户可访问的菜单路径列表
      */
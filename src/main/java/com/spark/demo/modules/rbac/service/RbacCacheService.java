@@ -3,6 +3,8 @@ package com.spark.demo.modules.rbac.service;
 import com.spark.demo.entity.Role;
 import com.spark.demo.entity.Permission;
 import com.spark.demo.entity.Menu;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
 
 import java.util.List;
 import java.util.Set;
@@ -19,19 +21,26 @@ public interface RbacCacheService {
     // ==================== 用户权限缓存 ====================
 
     /**
-     * 获取用户权限列表（缓存）
+     * 获取用户权限列表（由用户各角色的权限缓存合并）
      * @param userId 用户ID
      * @return 权限列表
      */
     List<Permission> getUserPermissions(Long userId);
 
     /**
-     * 获取用户权限编码集合（缓存）
+     * 获取用户权限编码集合（由权限位图解码，字典未就绪时由权限列表计算）
      * @param userId 用户ID
      * @return 权限编码集合
      */
     Set<String> getUserPermissionCodes(Long userId);
 
+    /**
+     * 获取用户权限位图（由用户各角色的权限位图按位或得到，均与当前字典版本一致）
+     * @param userId 用户ID
+     * @return 权限位图，按当前字典版本编码；字典重建后版本不一致，由调用方清除后重新计算
+     */
+    PermissionBits getUserPermissionBits(Long userId);
+
     /**
      * 检查用户是否拥有指定权限（缓存）
      * @param userId 用户ID
@@ -40,6 +49,14 @@ public interface RbacCacheService {
      */
     boolean hasPermission(Long userId, String permissionCode);
 
+    /**
+     * 批量检查多个用户 × 多个权限（缓存），缓存中没有角色数据的用户按批集合查询加载
+     * @param userIds 用户ID列表
+     * @param permissionCodes 权限编码列表
+     * @return 按行展开的权限位矩阵
+     */
+    PermissionMatrixResult checkPermissionMatrix(List<Long> userIds, List<String> permissionCodes);
+
     /**
      * 刷新用户权限缓存
      * @param userId 用户ID
@@ -52,17 +69,60 @@ public interface RbacCacheService {
      */
     void clearUserPermissions(Long userId);
 
+    // ==================== 角色级缓存 ====================
+
+    /**
+     * 获取用户拥有的角色ID列表（缓存，用户级缓存中唯一按userId存放的数据）
+     * @param userId 用户ID
+     * @return 角色ID列表
+     */
+    List<Long> getUserRoleIds(Long userId);
+
+    /**
+     * 获取角色信息（缓存）
+     * @param roleId 角色ID
+     * @return 角色，不存在或已删除时返回停用状态的占位角色（同样进入缓存）
+     */
+    Role getRoleInfo(Long roleId);
+
+    /**
+     * 获取角色权限列表（缓存）
+     * @param roleId 角色ID
+     * @return 权限列表
+     */
+    List<Permission> getRolePermissions(Long roleId);
+
+    /**
+     * 获取角色权限位图（缓存）
+     * @param roleId 角色ID
+     * @return 权限位图，按当前字典版本编码；字典重建后版本不一致，由调用方清除后重新计算
+     */
+    PermissionBits getRolePermissionBits(Long roleId);
+
+    /**
+     * 获取角色菜单列表（缓存）
+     * @param roleId 角色ID
+     * @return 菜单列表
+     */
+    List<Menu> getRoleMenus(Long roleId);
+
+    /**
+     * 清除角色缓存
+     * @param roleId 角色ID
+     */
+    void clearRoleCache(Long roleId);
+
     // ==================== 用户角色缓存 ====================
 
     /**
-     * 获取用户角色列表（缓存）
+     * 获取用户角色列表（由角色ID列表和角色缓存组装，仅包含启用的角色）
      * @param userId 用户ID
      * @return 角色列表
      */
     List<Role> getUserRoles(Long userId);
 
     /**
-     * 获取用户角色编码集合（缓存）
+     * 获取用户角色编码集合
      * @param userId 用户ID
      * @return 角色编码集合
      */
@@ -91,28 +151,28 @@ public interface RbacCacheService {
     // ==================== 用户菜单缓存 ====================
 
     /**
-     * 获取用户菜单列表（缓存）
+     * 获取用户菜单列表（由用户各角色的菜单缓存合并）
      * @param userId 用户ID
      * @return 菜单列表
      */
     List<Menu> getUserMenus(Long userId);
 
     /**
-     * 获取用户菜单树（缓存）
+     * 获取用户菜单树
      * @param userId 用户ID
      * @return 菜单树
      */
     List<Menu> getUserMenuTree(Long userId);
 
     /**
-     * 获取用户可访问菜单路径集合（缓存）
+     * 获取用户可访问菜单路径集合
      * @param userId 用户ID
      * @return 菜单路径集合
      */
     Set<String> getUserMenuPaths(Long userId);
 
     /**
-     * 检查用户是否有菜单访问权限（缓存）
+     * 检查用户是否有菜单访问权限
      * @param userId 用户ID
      * @param menuCode 菜单编码
      * @return 是否有访问权限
@@ -134,7 +194,7 @@ public interface RbacCacheService {
     // ==================== 路径权限缓存 ====================
 
     /**
-     * 获取用户可访问的API路径集合（缓存）
+     * 获取用户可访问的API路径集合
      * @param userId 用户ID
      * @return API路径集合
      */
@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.spark.demo.entity.Menu;
+import com.spark.demo.modules.rbac.cache.RbacCacheInvalidator;
+import com.spark.demo.modules.rbac.cache.RbacCatalog;
+import com.spark.demo.modules.rbac.cache.UserMenuTreeCache;
 import com.spark.demo.modules.rbac.mapper.MenuMapper;
 import com.spark.demo.modules.rbac.mapper.RoleMenuMapper;
 import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
@@ -37,6 +40,15 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
     @Autowired
     private RoleMenuMapper roleMenuMapper;
 
+    @Autowired
+    private RbacCacheInvalidator rbacCacheInvalidator;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
+    @Autowired
+    private UserMenuTreeCache userMenuTreeCache;
+
     @Override
     public List<Menu> getMenusByUserId(Long userId) {
         log.info("查询用户菜单列表, userId: {}", userId);
@@ -107,50 +119,22 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
 
     @Override
     public List<Menu> getMenuTree() {
-        log.info("查询菜单树结构");
-        
-        try {
-            // 查询所有可用菜单
-            List<Menu> allMenus = getAllAvailableMenus();
-            
-            if (CollectionUtils.isEmpty(allMenus)) {
-                return new ArrayList<>();
-            }
-            
-            // 构建菜单树
-            List<Menu> tree = buildMenuTree(allMenus, 0L);
-            log.info("菜单树构建成功, 根节点数量: {}", tree.size());
-            return tree;
-        } catch (Exception e) {
-            log.error("查询菜单树结构失败", e);
-            return new ArrayList<>();
-        }
+        // 菜单树在目录快照中预先组装
+        List<Menu> tree = rbacCatalog.getMenuTree();
+        log.debug("查询菜单树结构, 根节点数量: {}", tree.size());
+        return tree;
     }
 
     @Override
     public List<Menu> getUserMenuTree(Long userId) {
-        log.info("查询用户菜单树, userId: {}", userId);
-        
         if (userId == null) {
             return new ArrayList<>();
         }
         
-        try {
-            // 查询用户菜单列表
-            List<Menu> userMenus = getMenusByUserId(userId);
-            
-            if (CollectionUtils.isEmpty(userMenus)) {
-                return new ArrayList<>();
-            }
-            
-            // 构建用户菜单树
-            List<Menu> tree = buildMenuTree(userMenus, 0L);
-            log.info("用户菜单树构建成功, userId: {}, 根节点数量: {}", userId, tree.size());
-            return tree;
-        } catch (Exception e) {
-            log.error("查询用户菜单树失败, userId: {}", userId, e);
-            return new ArrayList<>();
-        }
+        // 由全局菜单树按用户角色可访问的菜单裁剪得到，可访问菜单的祖先自动保留
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(userId);
+        log.debug("查询用户菜单树, userId: {}, 根节点数量: {}", userId, tree.size());
+        return tree;
     }
 
     @Override
@@ -189,6 +173,7 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
             
             if (success) {
                 log.info("菜单创建成功, menuId: {}", menu.getId());
+                rbacCacheInvalidator.onMenuCreated(menu.getId());
             } else {
                 log.warn("菜单创建失败");
             }
@@ -228,6 +213,7 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
             
             if (success) {
                 log.info("菜单更新成功, menuId: {}", menu.getId());
+                rbacCacheInvalidator.onMenuChanged(menu.getId());
             } else {
                 log.warn("菜单更新失败");
             }
@@ -252,10 +238,13 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
                 return false;
             }
             
-            // 检查是否有子菜单
-            List<Menu> children = getMenusByParentId(menuId);
-            if (!CollectionUtils.isEmpty(children)) {
-                log.warn("菜单存在子菜单，无法删除, menuId: {}, 子菜单数量: {}", menuId, children.size());
+            // 检查是否有子菜单（以数据库为准，不读目录快照）
+            LambdaQueryWrapper<Menu> childrenWrapper = new LambdaQueryWrapper<>();
+            childrenWrapper.eq(Menu::getParentId, menuId)
+                          .eq(Menu::getStatus, 1);
+            long childCount = menuMapper.selectCount(childrenWrapper);
+            if (childCount > 0) {
+                log.warn("菜单存在子菜单，无法删除, menuId: {}, 子菜单数量: {}", menuId, childCount);
                 return false;
             }
             
@@ -268,6 +257,7 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
             
             if (success) {
                 log.info("菜单删除成功, menuId: {}", menuId);
+                rbacCacheInvalidator.onMenuChanged(menuId);
             } else {
                 log.warn("菜单删除失败");
             }
@@ -335,67 +325,36 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
 
     @Override
     public List<Menu> getMenusByParentId(Long parentId) {
-        log.info("查询子菜单, parentId: {}", parentId);
-        
-        try {
-            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Menu::getParentId, parentId == null ? 0L : parentId)
-                       .eq(Menu::getStatus, 1)
-                       .orderByAsc(Menu::getSort)
-                       .orderByDesc(Menu::getCreatedTime);
-            
-            List<Menu> menus = menuMapper.selectList(queryWrapper);
-            log.info("子菜单查询成功, parentId: {}, 数量: {}", parentId, menus.size());
-            return menus;
-        } catch (Exception e) {
-            log.error("查询子菜单失败, parentId: {}", parentId, e);
-            return new ArrayList<>();
-        }
+        List<Menu> menus = rbacCatalog.getChildMenus(parentId);
+        log.debug("查询子菜单, parentId: {}, 数量: {}", parentId, menus.size());
+        return menus;
+    }
+
+    @Override
+    public List<Menu> getRootMenus() {
+        List<Menu> menus = rbacCatalog.getRootMenus();
+        log.debug("查询根菜单, 数量: {}", menus.size());
+        return menus;
     }
 
     @Override
     public List<Menu> getAllAvailableMenus() {
-        log.info("查询所有可用菜单");
-        
-        try {
-            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Menu::getStatus, 1)
-                       .orderByAsc(Menu::getSort)
-                       .orderByDesc(Menu::getCreatedTime);
-            
-            List<Menu> menus = menuMapper.selectList(queryWrapper);
-            log.info("可用菜单查询成功, 数量: {}", menus.size());
-            return menus;
-        } catch (Exception e) {
-            log.error("查询所有可用菜单失败", e);
-            return new ArrayList<>();
-        }
+        List<Menu> menus = rbacCatalog.getMenus();
+        log.debug("查询所有可用菜单, 数量: {}", menus.size());
+        return menus;
     }
 
     @Override
     public Menu getMenuByCode(String menuCode) {
-        log.info("根据菜单编码查询菜单, menuCode: {}", menuCode);
-        
         if (!StringUtils.hasText(menuCode)) {
             return null;
         }
         
-        try {
-            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Menu::getMenuCode, menuCode)
-                       .eq(Menu::getStatus, 1);
-            
-            Menu menu = menuMapper.selectOne(queryWrapper);
-            if (menu != null) {
-                log.info("菜单查询成功, menuCode: {}, menuId: {}", menuCode, menu.getId());
-            } else {
-                log.warn("菜单不存在, menuCode: {}", menuCode);
-            }
-            return menu;
-        } catch (Exception e) {
-            log.error("根据菜单编码查询菜单失败, menuCode: {}", menuCode, e);
-            return null;
+        Menu menu = rbacCatalog.getMenuByCode(menuCode);
+        if (menu == null) {
+            log.warn("菜单不存在, menuCode: {}", menuCode);
         }
+        return menu;
     }
 
     @Override
@@ -422,28 +381,76 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
 
     @Override
     public Menu getMenuByPath(String path) {
-        log.info("根据路径查询菜单, path: {}", path);
-        
         if (!StringUtils.hasText(path)) {
             return null;
         }
         
-        try {
-            LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Menu::getPath, path)
-                       .eq(Menu::getStatus, 1);
-            
-            Menu menu = menuMapper.selectOne(queryWrapper);
-            if (menu != null) {
-                log.info("菜单查询成功, path: {}, menuId: {}", path, menu.getId());
-            } else {
-                log.warn("菜单不存在, path: {}", path);
-            }
-            return menu;
-        } catch (Exception e) {
-            log.error("根据路径查询菜单失败, path: {}", path, e);
-            return null;
+        Menu menu = rbacCatalog.getMenuByPath(path);
+        if (menu == null) {
+            log.warn("菜单不存在, path: {}", path);
+        }
+        return menu;
+    }
+
+    @Override
+    public boolean existsByPath(String path) {
+        if (!StringUtils.hasText(path)) {
+            return false;
+        }
+        
+        LambdaQueryWrapper<Menu> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(Menu::getPath, path);
+        
+        return menuMapper.selectCount(queryWrapper) > 0;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateMenuSort(Long menuId, Integer sort) {
+        log.info("更新菜单排序, menuId: {}, sort: {}", menuId, sort);
+        
+        if (menuId == null || sort == null) {
+            return false;
+        }
+        
+        Menu menu = new Menu();
+        menu.setId(menuId);
+        menu.setSort(sort);
+        menu.setUpdatedTime(new Date());
+        
+        boolean success = menuMapper.updateById(menu) > 0;
+        if (success) {
+            log.info("菜单排序更新成功, menuId: {}", menuId);
+            rbacCacheInvalidator.onMenuChanged(menuId);
+        } else {
+            log.warn("菜单不存在, menuId: {}", menuId);
         }
+        return success;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateMenuStatus(Long menuId, Integer status) {
+        log.info("更新菜单状态, menuId: {}, status: {}", menuId, status);
+        
+        if (menuId == null || status == null || (status != 0 && status != 1)) {
+            log.warn("无效的菜单状态, menuId: {}, status: {}", menuId, status);
+            return false;
+        }
+        
+        Menu menu = new Menu();
+        menu.setId(menuId);
+        menu.setStatus(status);
+        menu.setUpdatedTime(new Date());
+        
+        boolean success = menuMapper.updateById(menu) > 0;
+        if (success) {
+            log.info("菜单状态更新成功, menuId: {}, status: {}", menuId, status);
+            rbacCacheInvalidator.onMenuChanged(menuId);
+        } else {
+            log.warn("菜单不存在, menuId: {}", menuId);
+        }
+        return success;
     }
 
     @Override
@@ -469,25 +476,4 @@ public class MenuServiceImpl extends ServiceImpl<MenuMapper, Menu> implements Me
             return new ArrayList<>();
         }
     }
-
-    /**
-     * 构建菜单树结构
-     */
-    private List<Menu> buildMenuTree(List<Menu> allMenus, Long parentId) {
-        List<Menu> tree = new ArrayList<>();
-        
-        for (Menu menu : allMenus) {
-            if (Objects.equals(menu.getParentId(), parentId)) {
-                // 递归查找子菜单
-                List<Menu> children = buildMenuTree(allMenus, menu.getId());
-                menu.setChildren(children);
-                tree.add(menu);
-            }
-        }
-        
-        // 按排序字段排序
-        tree.sort(Comparator.comparing(Menu::getSort, Comparator.nullsLast(Integer::compareTo)));
-        
-        return tree;
-    }
 } 
\ No newline at end of file
@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.cache.PathPermissionMatcherCache;
+import com.spark.demo.modules.rbac.cache.RbacCacheInvalidator;
+import com.spark.demo.modules.rbac.cache.RbacCatalog;
 import com.spark.demo.modules.rbac.mapper.PermissionMapper;
 import com.spark.demo.modules.rbac.mapper.RolePermissionMapper;
 import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
@@ -38,6 +41,15 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
     @Autowired
     private RolePermissionMapper rolePermissionMapper;
 
+    @Autowired
+    private RbacCacheInvalidator rbacCacheInvalidator;
+
+    @Autowired
+    private PathPermissionMatcherCache pathPermissionMatcherCache;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
     @Override
     public List<Permission> getPermissionsByUserId(Long userId) {
         log.info("查询用户权限列表, userId: {}", userId);
@@ -108,24 +120,10 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
 
     @Override
     public List<Permission> getPermissionTree() {
-        log.info("查询权限树结构");
-        
-        try {
-            // 查询所有可用权限
-            List<Permission> allPermissions = getAllAvailablePermissions();
-            
-            if (CollectionUtils.isEmpty(allPermissions)) {
-                return new ArrayList<>();
-            }
-            
-            // 构建权限树 - 返回根节点权限
-            List<Permission> tree = buildPermissionTree(allPermissions, 0L);
-            log.info("权限树构建成功, 根节点数量: {}", tree.size());
-            return tree;
-        } catch (Exception e) {
-            log.error("查询权限树结构失败", e);
-            return new ArrayList<>();
-        }
+        // 权限树返回根节点权限，子权限通过 getPermissionsByParentId 逐级获取
+        List<Permission> tree = rbacCatalog.getRootPermissions();
+        log.debug("查询权限树结构, 根节点数量: {}", tree.size());
+        return tree;
     }
 
     @Override
@@ -188,6 +186,7 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
             
             if (success) {
                 log.info("权限创建成功, permissionId: {}", permission.getId());
+                rbacCacheInvalidator.onPermissionCreated(permission.getId());
             } else {
                 log.warn("权限创建失败");
             }
@@ -228,6 +227,7 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
             
             if (success) {
                 log.info("权限更新成功, permissionId: {}", permission.getId());
+                rbacCacheInvalidator.onPermissionChanged(permission.getId());
             } else {
                 log.warn("权限更新失败");
             }
@@ -252,10 +252,13 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
                 return false;
             }
             
-            // 检查是否有子权限
-            List<Permission> children = getPermissionsByParentId(permissionId);
-            if (!CollectionUtils.isEmpty(children)) {
-                log.warn("权限存在子权限，无法删除, permissionId: {}, 子权限数量: {}", permissionId, children.size());
+            // 检查是否有子权限（以数据库为准，不读目录快照）
+            LambdaQueryWrapper<Permission> childrenWrapper = new LambdaQueryWrapper<>();
+            childrenWrapper.eq(Permission::getParentId, permissionId)
+                          .eq(Permission::getStatus, 1);
+            long childCount = permissionMapper.selectCount(childrenWrapper);
+            if (childCount > 0) {
+                log.warn("权限存在子权限，无法删除, permissionId: {}, 子权限数量: {}", permissionId, childCount);
                 return false;
             }
             
@@ -268,6 +271,7 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
             
             if (success) {
                 log.info("权限删除成功, permissionId: {}", permissionId);
+                rbacCacheInvalidator.onPermissionChanged(permissionId);
             } else {
                 log.warn("权限删除失败");
             }
@@ -335,67 +339,29 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
 
     @Override
     public List<Permission> getPermissionsByParentId(Long parentId) {
-        log.info("查询子权限, parentId: {}", parentId);
-        
-        try {
-            LambdaQueryWrapper<Permission> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Permission::getParentId, parentId == null ? 0L : parentId)
-                       .eq(Permission::getStatus, 1)
-                       .orderByAsc(Permission::getSort)
-                       .orderByDesc(Permission::getCreatedTime);
-            
-            List<Permission> permissions = permissionMapper.selectList(queryWrapper);
-            log.info("子权限查询成功, parentId: {}, 数量: {}", parentId, permissions.size());
-            return permissions;
-        } catch (Exception e) {
-            log.error("查询子权限失败, parentId: {}", parentId, e);
-            return new ArrayList<>();
-        }
+        List<Permission> permissions = rbacCatalog.getChildPermissions(parentId);
+        log.debug("查询子权限, parentId: {}, 数量: {}", parentId, permissions.size());
+        return permissions;
     }
 
     @Override
     public List<Permission> getAllAvailablePermissions() {
-        log.info("查询所有可用权限");
-        
-        try {
-            LambdaQueryWrapper<Permission> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Permission::getStatus, 1)
-                       .orderByAsc(Permission::getSort)
-                       .orderByDesc(Permission::getCreatedTime);
-            
-            List<Permission> permissions = permissionMapper.selectList(queryWrapper);
-            log.info("可用权限查询成功, 数量: {}", permissions.size());
-            return permissions;
-        } catch (Exception e) {
-            log.error("查询所有可用权限失败", e);
-            return new ArrayList<>();
-        }
+        List<Permission> permissions = rbacCatalog.getPermissions();
+        log.debug("查询所有可用权限, 数量: {}", permissions.size());
+        return permissions;
     }
 
     @Override
     public Permission getPermissionByCode(String permissionCode) {
-        log.info("根据权限编码查询权限, permissionCode: {}", permissionCode);
-        
         if (!StringUtils.hasText(permissionCode)) {
             return null;
         }
         
-        try {
-            LambdaQueryWrapper<Permission> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Permission::getPermissionCode, permissionCode)
-                       .eq(Permission::getStatus, 1);
-            
-            Permission permission = permissionMapper.selectOne(queryWrapper);
-            if (permission != null) {
-                log.info("权限查询成功, permissionCode: {}, permissionId: {}", permissionCode, permission.getId());
-            } else {
-                log.warn("权限不存在, permissionCode: {}", permissionCode);
-            }
-            return permission;
-        } catch (Exception e) {
-            log.error("根据权限编码查询权限失败, permissionCode: {}", permissionCode, e);
-            return null;
+        Permission permission = rbacCatalog.getPermissionByCode(permissionCode);
+        if (permission == null) {
+            log.warn("权限不存在, permissionCode: {}", permissionCode);
         }
+        return permission;
     }
 
     @Override
@@ -429,15 +395,8 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
         }
         
         try {
-            List<Permission> userPermissions = getPermissionsByUserId(userId);
-            boolean hasPermission = userPermissions.stream()
-                    .anyMatch(permission -> {
-                        boolean pathMatch = path.equals(permission.getPath());
-                        boolean methodMatch = !StringUtils.hasText(method) || 
-                                            !StringUtils.hasText(permission.getMethod()) ||
-                                            method.equalsIgnoreCase(permission.getMethod());
-                        return pathMatch && methodMatch;
-                    });
+            // 按用户角色组合编译的路径匹配器（缓存），支持路径变量和通配符，不查询数据库
+            boolean hasPermission = pathPermissionMatcherCache.matches(userId, path, method);
             
             log.debug("用户路径权限检查结果, userId: {}, path: {}, method: {}, hasPermission: {}", 
                      userId, path, method, hasPermission);
@@ -447,22 +406,4 @@ public class PermissionServiceImpl extends ServiceImpl<PermissionMapper, Permiss
             return false;
         }
     }
-
-    /**
-     * 构建权限树结构（返回根节点权限列表）
-     */
-    private List<Permission> buildPermissionTree(List<Permission> allPermissions, Long parentId) {
-        List<Permission> tree = new ArrayList<>();
-        
-        for (Permission permission : allPermissions) {
-            if (Objects.equals(permission.getParentId(), parentId)) {
-                tree.add(permission);
-            }
-        }
-        
-        // 按排序字段排序
-        tree.sort(Comparator.comparing(Permission::getSort, Comparator.nullsLast(Integer::compareTo)));
-        
-        return tree;
-    }
 } 
\ No newline at end of file
@@ -1,24 +1,32 @@
 package com.spark.demo.modules.rbac.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.spark.demo.common.cache.CacheRefreshLoaders;
 import com.spark.demo.entity.Role;
 import com.spark.demo.entity.Permission;
 import com.spark.demo.entity.Menu;
-import com.spark.demo.entity.User;
-import com.spark.demo.entity.UserRole;
-import com.spark.demo.mapper.UserMapper;
+import com.spark.demo.modules.rbac.cache.PathPermissionMatcherCache;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.cache.RbacCacheWarmer;
+import com.spark.demo.modules.rbac.cache.RoleSetCache;
+import com.spark.demo.modules.rbac.cache.UserMenuTreeCache;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
 import com.spark.demo.modules.rbac.service.RbacCacheService;
 import com.spark.demo.modules.rbac.service.RoleService;
 import com.spark.demo.modules.rbac.service.PermissionService;
 import com.spark.demo.modules.rbac.service.MenuService;
 import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
@@ -27,7 +35,11 @@ import java.util.stream.Collectors;
 /**
  * RBAC缓存服务实现类
  * 使用Spring Cache提供高性能的权限缓存
- * 
+ *
+ * 权限和菜单按角色缓存（key为roleId），用户级只缓存角色ID列表，
+ * 用户的有效权限/菜单在内存中合并各角色的缓存得到：
+ * 相同角色组合的用户共享角色缓存条目，角色变更只需失效该角色自己的条目
+ *
  * @author spark
  * @date 2025-01-01
  */
@@ -45,40 +57,94 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     private MenuService menuService;
 
     @Autowired
-    private UserMapper userMapper;
+    private UserRoleMapper userRoleMapper;
 
     @Autowired
-    private UserRoleMapper userRoleMapper;
+    private PermissionCodeDictionary permissionCodeDictionary;
+
+    @Autowired
+    private RbacCacheWarmer rbacCacheWarmer;
+
+    @Autowired
+    private PathPermissionMatcherCache pathPermissionMatcherCache;
+
+    @Autowired
+    private UserMenuTreeCache userMenuTreeCache;
+
+    @Autowired
+    @Qualifier("cacheManager")
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheRefreshLoaders cacheRefreshLoaders;
+
+    /**
+     * 自身代理，内部调用需经过代理才能命中缓存（近端缓存 -> Redis -> 数据库）
+     */
+    @Lazy
+    @Autowired
+    private RbacCacheService self;
+
+    /**
+     * 注册角色级缓存的提前刷新加载函数，与各 @Cacheable 方法使用相同的回源逻辑
+     */
+    @PostConstruct
+    public void registerRefreshLoaders() {
+        cacheRefreshLoaders.register("rbac:user:role:ids", key -> loadUserRoleIds(toLong(key)));
+        cacheRefreshLoaders.register("rbac:role:info", key -> loadRoleInfo(toLong(key)));
+        cacheRefreshLoaders.register("rbac:role:permissions", key -> loadRolePermissions(toLong(key)));
+        cacheRefreshLoaders.register("rbac:role:permission:bits", key -> encodeRolePermissions(toLong(key)));
+        cacheRefreshLoaders.register("rbac:role:menus", key -> loadRoleMenus(toLong(key)));
+    }
 
     // ==================== 用户权限缓存 ====================
 
     @Override
-    @Cacheable(value = "rbac:user:permissions", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public List<Permission> getUserPermissions(Long userId) {
-        log.debug("从数据库加载用户权限, userId: {}", userId);
-        
         if (userId == null) {
             return new ArrayList<>();
         }
-        
-        try {
-            return permissionService.getPermissionsByUserId(userId);
-        } catch (Exception e) {
-            log.error("获取用户权限失败, userId: {}", userId, e);
-            return new ArrayList<>();
+
+        // 多个角色可能拥有同一权限，按权限ID去重
+        Map<Long, Permission> permissions = new LinkedHashMap<>();
+        for (Long roleId : activeRoleIds(userId)) {
+            for (Permission permission : rolePermissions(roleId)) {
+                permissions.putIfAbsent(permission.getId(), permission);
+            }
         }
+        return new ArrayList<>(permissions.values());
     }
 
     @Override
-    @Cacheable(value = "rbac:user:permission:codes", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public Set<String> getUserPermissionCodes(Long userId) {
         log.debug("获取用户权限编码集合, userId: {}", userId);
-        
-        List<Permission> permissions = getUserPermissions(userId);
-        return permissions.stream()
-                .map(Permission::getPermissionCode)
-                .filter(StringUtils::hasText)
-                .collect(Collectors.toSet());
+
+        PermissionBits bits = getUserPermissionBits(userId);
+        if (bits != null) {
+            return permissionCodeDictionary.decode(bits);
+        }
+        return toPermissionCodes(getUserPermissions(userId));
+    }
+
+    @Override
+    public PermissionBits getUserPermissionBits(Long userId) {
+        if (userId == null || !permissionCodeDictionary.isReady()) {
+            return null;
+        }
+
+        long version = permissionCodeDictionary.getVersion();
+        long[] words = new long[(permissionCodeDictionary.size() + 63) >>> 6];
+        for (Long roleId : activeRoleIds(userId)) {
+            PermissionBits roleBits = resolveRolePermissionBits(roleId);
+            if (roleBits == null || roleBits.getDictionaryVersion() != version) {
+                return null;
+            }
+            long[] roleWords = roleBits.getWords();
+            for (int i = 0; i < Math.min(words.length, roleWords.length); i++) {
+                words[i] |= roleWords[i];
+            }
+        }
+        return new PermissionBits(version, words);
     }
 
     @Override
@@ -86,47 +152,161 @@ public class RbacCacheServiceImpl implements RbacCacheService {
         if (userId == null || !StringUtils.hasText(permissionCode)) {
             return false;
         }
-        
-        Set<String> permissionCodes = getUserPermissionCodes(userId);
-        return permissionCodes.contains(permissionCode);
+        if (!permissionCodeDictionary.isReady()) {
+            return getUserPermissionCodes(userId).contains(permissionCode);
+        }
+
+        // 逐个角色做位测试，命中即返回，不合并位图
+        int permissionId = permissionCodeDictionary.idOf(permissionCode);
+        if (permissionId < 0) {
+            return false;
+        }
+        for (Long roleId : userRoleIds(userId)) {
+            if (!isActiveRole(self.getRoleInfo(roleId))) {
+                continue;
+            }
+            PermissionBits roleBits = resolveRolePermissionBits(roleId);
+            if (roleBits == null) {
+                return getUserPermissionCodes(userId).contains(permissionCode);
+            }
+            if (roleBits.contains(permissionId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:permissions", "rbac:user:permission:codes"}, key = "#userId")
+    public PermissionMatrixResult checkPermissionMatrix(List<Long> userIds, List<String> permissionCodes) {
+        PermissionMatrixResult result = new PermissionMatrixResult(userIds, permissionCodes);
+        if (userIds.isEmpty() || permissionCodes.isEmpty()) {
+            return result;
+        }
+
+        long start = System.nanoTime();
+        Map<Long, List<Long>> roleIdsByUser = bulkUserRoleIds(userIds);
+
+        // 权限编码预先转换为字典编号，字典未就绪时按编码集合判断
+        long dictionaryVersion = permissionCodeDictionary.getVersion();
+        int[] codeIds = null;
+        if (permissionCodeDictionary.isReady()) {
+            codeIds = new int[permissionCodes.size()];
+            for (int j = 0; j < codeIds.length; j++) {
+                String code = permissionCodes.get(j);
+                codeIds[j] = code != null ? permissionCodeDictionary.idOf(code) : -1;
+            }
+        }
+
+        // 角色状态、角色位图在本次调用内只取一次；相同启用角色组合的用户共用同一行结果
+        Map<Long, Boolean> activeRoles = new HashMap<>();
+        Map<Long, PermissionBits> roleBits = new HashMap<>();
+        Map<List<Long>, boolean[]> rows = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            List<Long> roleIds = userId != null
+                    ? roleIdsByUser.getOrDefault(userId, Collections.emptyList()) : Collections.emptyList();
+            List<Long> active = new ArrayList<>(roleIds.size());
+            for (Long roleId : roleIds) {
+                if (activeRoles.computeIfAbsent(roleId, id -> isActiveRole(self.getRoleInfo(id)))) {
+                    active.add(roleId);
+                }
+            }
+            List<Long> roleSet = RoleSetCache.roleSetOfIds(active);
+
+            boolean[] row = rows.get(roleSet);
+            if (row == null) {
+                row = evaluateRow(roleSet, permissionCodes, codeIds, dictionaryVersion, roleBits);
+                rows.put(roleSet, row);
+            }
+            for (int j = 0; j < row.length; j++) {
+                if (row[j]) {
+                    result.grant(i, j);
+                }
+            }
+        }
+
+        log.debug("批量权限校验完成, 用户数: {}, 权限数: {}, 角色组合数: {}, 耗时: {}μs", userIds.size(),
+                permissionCodes.size(), rows.size(), (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    @Override
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void refreshUserPermissions(Long userId) {
         log.info("刷新用户权限缓存, userId: {}", userId);
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:permissions", "rbac:user:permission:codes"}, key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void clearUserPermissions(Long userId) {
         log.info("清除用户权限缓存, userId: {}", userId);
     }
 
+    // ==================== 角色级缓存 ====================
+
+    @Override
+    @Cacheable(value = "rbac:user:role:ids", key = "#userId", sync = true)
+    public List<Long> getUserRoleIds(Long userId) {
+        return loadUserRoleIds(userId);
+    }
+
+    @Override
+    @Cacheable(value = "rbac:role:info", key = "#roleId", sync = true)
+    public Role getRoleInfo(Long roleId) {
+        return loadRoleInfo(roleId);
+    }
+
+    @Override
+    @Cacheable(value = "rbac:role:permissions", key = "#roleId", sync = true)
+    public List<Permission> getRolePermissions(Long roleId) {
+        return loadRolePermissions(roleId);
+    }
+
+    @Override
+    @Cacheable(value = "rbac:role:permission:bits", key = "#roleId", sync = true)
+    public PermissionBits getRolePermissionBits(Long roleId) {
+        return encodeRolePermissions(roleId);
+    }
+
+    @Override
+    @Cacheable(value = "rbac:role:menus", key = "#roleId", sync = true)
+    public List<Menu> getRoleMenus(Long roleId) {
+        return loadRoleMenus(roleId);
+    }
+
+    @Override
+    @Caching(evict = {
+        @CacheEvict(value = "rbac:role:info", key = "#roleId"),
+        @CacheEvict(value = "rbac:role:permissions", key = "#roleId"),
+        @CacheEvict(value = "rbac:role:permission:bits", key = "#roleId"),
+        @CacheEvict(value = "rbac:role:menus", key = "#roleId")
+    })
+    public void clearRoleCache(Long roleId) {
+        log.info("清除角色缓存, roleId: {}", roleId);
+    }
+
     // ==================== 用户角色缓存 ====================
 
     @Override
-    @Cacheable(value = "rbac:user:roles", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public List<Role> getUserRoles(Long userId) {
-        log.debug("从数据库加载用户角色, userId: {}", userId);
-        
         if (userId == null) {
             return new ArrayList<>();
         }
-        
-        try {
-            return roleService.getRolesByUserId(userId);
-        } catch (Exception e) {
-            log.error("获取用户角色失败, userId: {}", userId, e);
-            return new ArrayList<>();
+
+        List<Role> roles = new ArrayList<>();
+        for (Long roleId : userRoleIds(userId)) {
+            Role role = self.getRoleInfo(roleId);
+            if (isActiveRole(role)) {
+                roles.add(role);
+            }
         }
+        return roles;
     }
 
     @Override
-    @Cacheable(value = "rbac:user:role:codes", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public Set<String> getUserRoleCodes(Long userId) {
         log.debug("获取用户角色编码集合, userId: {}", userId);
-        
+
         List<Role> roles = getUserRoles(userId);
         return roles.stream()
                 .map(Role::getRoleCode)
@@ -139,19 +319,24 @@ public class RbacCacheServiceImpl implements RbacCacheService {
         if (userId == null || !StringUtils.hasText(roleCode)) {
             return false;
         }
-        
-        Set<String> roleCodes = getUserRoleCodes(userId);
-        return roleCodes.contains(roleCode);
+
+        for (Long roleId : userRoleIds(userId)) {
+            Role role = self.getRoleInfo(roleId);
+            if (isActiveRole(role) && roleCode.equals(role.getRoleCode())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:roles", "rbac:user:role:codes"}, key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void refreshUserRoles(Long userId) {
         log.info("刷新用户角色缓存, userId: {}", userId);
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:roles", "rbac:user:role:codes"}, key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void clearUserRoles(Long userId) {
         log.info("清除用户角色缓存, userId: {}", userId);
     }
@@ -159,44 +344,32 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     // ==================== 用户菜单缓存 ====================
 
     @Override
-    @Cacheable(value = "rbac:user:menus", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public List<Menu> getUserMenus(Long userId) {
-        log.debug("从数据库加载用户菜单, userId: {}", userId);
-        
         if (userId == null) {
             return new ArrayList<>();
         }
-        
-        try {
-            return menuService.getMenusByUserId(userId);
-        } catch (Exception e) {
-            log.error("获取用户菜单失败, userId: {}", userId, e);
-            return new ArrayList<>();
+
+        Map<Long, Menu> menus = new LinkedHashMap<>();
+        for (Long roleId : activeRoleIds(userId)) {
+            for (Menu menu : roleMenus(roleId)) {
+                menus.putIfAbsent(menu.getId(), menu);
+            }
         }
+        List<Menu> result = new ArrayList<>(menus.values());
+        result.sort(Comparator.comparing(Menu::getSort, Comparator.nullsLast(Integer::compareTo)));
+        return result;
     }
 
     @Override
-    @Cacheable(value = "rbac:user:menu:tree", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public List<Menu> getUserMenuTree(Long userId) {
-        log.debug("从数据库加载用户菜单树, userId: {}", userId);
-        
-        if (userId == null) {
-            return new ArrayList<>();
-        }
-        
-        try {
-            return menuService.getUserMenuTree(userId);
-        } catch (Exception e) {
-            log.error("获取用户菜单树失败, userId: {}", userId, e);
-            return new ArrayList<>();
-        }
+        // 按角色组合裁剪全局菜单树，相同角色组合的用户共享同一棵树
+        return userMenuTreeCache.getUserMenuTree(userId);
     }
 
     @Override
-    @Cacheable(value = "rbac:user:menu:paths", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public Set<String> getUserMenuPaths(Long userId) {
         log.debug("获取用户菜单路径集合, userId: {}", userId);
-        
+
         List<Menu> menus = getUserMenus(userId);
         return menus.stream()
                 .map(Menu::getPath)
@@ -209,23 +382,25 @@ public class RbacCacheServiceImpl implements RbacCacheService {
         if (userId == null || !StringUtils.hasText(menuCode)) {
             return false;
         }
-        
-        try {
-            return menuService.hasMenuAccess(userId, menuCode);
-        } catch (Exception e) {
-            log.error("检查菜单访问权限失败, userId: {}, menuCode: {}", userId, menuCode, e);
-            return false;
+
+        for (Long roleId : activeRoleIds(userId)) {
+            for (Menu menu : roleMenus(roleId)) {
+                if (menuCode.equals(menu.getMenuCode())) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:menus", "rbac:user:menu:tree", "rbac:user:menu:paths"}, key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void refreshUserMenus(Long userId) {
         log.info("刷新用户菜单缓存, userId: {}", userId);
     }
 
     @Override
-    @CacheEvict(value = {"rbac:user:menus", "rbac:user:menu:tree", "rbac:user:menu:paths"}, key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void clearUserMenus(Long userId) {
         log.info("清除用户菜单缓存, userId: {}", userId);
     }
@@ -233,21 +408,9 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     // ==================== 路径权限缓存 ====================
 
     @Override
-    @Cacheable(value = "rbac:user:api:paths", key = "#userId", unless = "#result == null || #result.isEmpty()")
     public Set<String> getUserApiPaths(Long userId) {
         log.debug("获取用户API路径集合, userId: {}", userId);
-        
-        if (userId == null) {
-            return new HashSet<>();
-        }
-        
-        try {
-            List<String> paths = menuService.getUserAccessibleMenuPaths(userId);
-            return new HashSet<>(paths);
-        } catch (Exception e) {
-            log.error("获取用户API路径失败, userId: {}", userId, e);
-            return new HashSet<>();
-        }
+        return getUserMenuPaths(userId);
     }
 
     @Override
@@ -255,9 +418,9 @@ public class RbacCacheServiceImpl implements RbacCacheService {
         if (userId == null || !StringUtils.hasText(path)) {
             return false;
         }
-        
+
         try {
-            return permissionService.hasPathPermission(userId, path, method);
+            return pathPermissionMatcherCache.matches(userId, path, method);
         } catch (Exception e) {
             log.error("检查API访问权限失败, userId: {}, path: {}, method: {}", userId, path, method, e);
             return false;
@@ -265,13 +428,13 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     }
 
     @Override
-    @CacheEvict(value = "rbac:user:api:paths", key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void refreshUserApiPaths(Long userId) {
         log.info("刷新用户API路径缓存, userId: {}", userId);
     }
 
     @Override
-    @CacheEvict(value = "rbac:user:api:paths", key = "#userId")
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void clearUserApiPaths(Long userId) {
         log.info("清除用户API路径缓存, userId: {}", userId);
     }
@@ -279,89 +442,56 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     // ==================== 综合缓存管理 ====================
 
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "rbac:user:permissions", key = "#userId"),
-        @CacheEvict(value = "rbac:user:permission:codes", key = "#userId"),
-        @CacheEvict(value = "rbac:user:roles", key = "#userId"),
-        @CacheEvict(value = "rbac:user:role:codes", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menus", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menu:tree", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menu:paths", key = "#userId"),
-        @CacheEvict(value = "rbac:user:api:paths", key = "#userId")
-    })
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void refreshUserAllCache(Long userId) {
         log.info("刷新用户所有RBAC缓存, userId: {}", userId);
     }
 
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "rbac:user:permissions", key = "#userId"),
-        @CacheEvict(value = "rbac:user:permission:codes", key = "#userId"),
-        @CacheEvict(value = "rbac:user:roles", key = "#userId"),
-        @CacheEvict(value = "rbac:user:role:codes", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menus", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menu:tree", key = "#userId"),
-        @CacheEvict(value = "rbac:user:menu:paths", key = "#userId"),
-        @CacheEvict(value = "rbac:user:api:paths", key = "#userId")
-    })
+    @CacheEvict(value = "rbac:user:role:ids", key = "#userId")
     public void clearUserAllCache(Long userId) {
         log.info("清除用户所有RBAC缓存, userId: {}", userId);
     }
 
     @Override
     @Caching(evict = {
-        @CacheEvict(value = "rbac:user:permissions", allEntries = true),
-        @CacheEvict(value = "rbac:user:permission:codes", allEntries = true),
-        @CacheEvict(value = "rbac:user:roles", allEntries = true),
-        @CacheEvict(value = "rbac:user:role:codes", allEntries = true),
-        @CacheEvict(value = "rbac:user:menus", allEntries = true),
-        @CacheEvict(value = "rbac:user:menu:tree", allEntries = true),
-        @CacheEvict(value = "rbac:user:menu:paths", allEntries = true),
-        @CacheEvict(value = "rbac:user:api:paths", allEntries = true)
+        @CacheEvict(value = "rbac:user:role:ids", allEntries = true),
+        @CacheEvict(value = "rbac:role:info", allEntries = true),
+        @CacheEvict(value = "rbac:role:permissions", allEntries = true),
+        @CacheEvict(value = "rbac:role:permission:bits", allEntries = true),
+        @CacheEvict(value = "rbac:role:menus", allEntries = true)
     })
     public void clearAllUsersCache() {
+        // allEntries由缓存写入器按SCAN + UNLINK分批清理，见 RedisScanDeleter
         log.info("清除所有用户RBAC缓存");
     }
 
     @Override
     public void clearCacheByRoleChange(Long roleId) {
-        log.info("角色变更，清除相关用户缓存, roleId: {}", roleId);
-        
+        log.info("角色变更，清除角色缓存, roleId: {}", roleId);
+
         if (roleId == null) {
             return;
         }
-        
-        try {
-            // 查找拥有该角色的所有用户
-            LambdaQueryWrapper<UserRole> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(UserRole::getRoleId, roleId);
-            List<UserRole> userRoles = userRoleMapper.selectList(wrapper);
-            
-            // 清除这些用户的缓存
-            for (UserRole userRole : userRoles) {
-                clearUserAllCache(userRole.getUserId());
-            }
-            
-            log.info("角色变更缓存清理完成, roleId: {}, 影响用户数: {}", roleId, userRoles.size());
-        } catch (Exception e) {
-            log.error("角色变更缓存清理失败, roleId: {}", roleId, e);
-        }
+
+        // 用户的有效权限由角色缓存合并得到，只需失效该角色自身的条目
+        self.clearRoleCache(roleId);
     }
 
     @Override
+    @Caching(evict = {
+        @CacheEvict(value = "rbac:role:permissions", allEntries = true),
+        @CacheEvict(value = "rbac:role:permission:bits", allEntries = true)
+    })
     public void clearCacheByPermissionChange(Long permissionId) {
-        log.info("权限变更，清除所有用户缓存, permissionId: {}", permissionId);
-        
-        // 权限变更可能影响多个角色，为简化处理，清除所有用户缓存
-        clearAllUsersCache();
+        // 权限可能被多个角色引用，角色数量有限，直接清空角色权限缓存
+        log.info("权限变更，清除所有角色权限缓存, permissionId: {}", permissionId);
     }
 
     @Override
+    @CacheEvict(value = "rbac:role:menus", allEntries = true)
     public void clearCacheByMenuChange(Long menuId) {
-        log.info("菜单变更，清除所有用户缓存, menuId: {}", menuId);
-        
-        // 菜单变更可能影响多个角色，为简化处理，清除所有用户缓存
-        clearAllUsersCache();
+        log.info("菜单变更，清除所有角色菜单缓存, menuId: {}", menuId);
     }
 
     // ==================== 缓存统计 ====================
@@ -376,22 +506,20 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     @Override
     public void warmUpUserCache(Long userId) {
         log.info("预热用户缓存, userId: {}", userId);
-        
+
         if (userId == null) {
             return;
         }
-        
+
         try {
-            // 预加载用户的所有RBAC数据到缓存
-            getUserPermissions(userId);
-            getUserPermissionCodes(userId);
-            getUserRoles(userId);
-            getUserRoleCodes(userId);
-            getUserMenus(userId);
-            getUserMenuTree(userId);
-            getUserMenuPaths(userId);
-            getUserApiPaths(userId);
-            
+            // 预加载用户角色ID及各角色的权限、位图、菜单
+            for (Long roleId : userRoleIds(userId)) {
+                self.getRoleInfo(roleId);
+                self.getRolePermissions(roleId);
+                self.getRolePermissionBits(roleId);
+                self.getRoleMenus(roleId);
+            }
+
             log.info("用户缓存预热完成, userId: {}", userId);
         } catch (Exception e) {
             log.error("用户缓存预热失败, userId: {}", userId, e);
@@ -401,28 +529,217 @@ public class RbacCacheServiceImpl implements RbacCacheService {
     @Override
     public void warmUpAllActiveUsersCache() {
         log.info("开始预热所有活跃用户缓存");
-        
+
         try {
-            // 查询所有活跃用户（最近30天登录的用户）
-            LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(User::getStatus, 1) // 正常状态
-                   .isNull(User::getDeletedTime) // 未删除
-                   .orderByDesc(User::getUpdatedTime)
-                   .last("LIMIT 1000"); // 限制数量，避免一次性加载过多
-            
-            List<User> activeUsers = userMapper.selectList(wrapper);
-            
-            for (User user : activeUsers) {
-                try {
-                    warmUpUserCache(user.getId());
-                } catch (Exception e) {
-                    log.warn("预热用户缓存失败, userId: {}", user.getId(), e);
-                }
-            }
-            
-            log.info("所有活跃用户缓存预热完成, 用户数: {}", activeUsers.size());
+            // 按批次集合查询并管道写入，批次在预热线程池上并行执行
+            int warmed = rbacCacheWarmer.warmUpActiveUsers();
+            log.info("所有活跃用户缓存预热完成, 用户数: {}", warmed);
         } catch (Exception e) {
             log.error("预热所有活跃用户缓存失败", e);
         }
     }
-} 
\ No newline at end of file
+
+    // ==================== 回源加载（@Cacheable 方法与提前刷新共用） ====================
+
+    private List<Long> loadUserRoleIds(Long userId) {
+        log.debug("从数据库加载用户角色ID, userId: {}", userId);
+
+        if (userId == null) {
+            return new ArrayList<>();
+        }
+
+        // 加载异常直接抛出，不能当作无角色处理
+        List<Long> roleIds = userRoleMapper.selectRoleIdsByUserId(userId);
+        return roleIds != null ? roleIds : new ArrayList<>();
+    }
+
+    private Role loadRoleInfo(Long roleId) {
+        log.debug("从数据库加载角色信息, roleId: {}", roleId);
+
+        Role role = roleId != null ? roleService.getById(roleId) : null;
+        if (role == null) {
+            // 不存在或已删除的角色缓存为停用占位，仍关联该角色的用户不会每次鉴权都回源数据库
+            role = new Role();
+            role.setId(roleId);
+            role.setStatus(0);
+        }
+        return role;
+    }
+
+    private List<Permission> loadRolePermissions(Long roleId) {
+        log.debug("从数据库加载角色权限, roleId: {}", roleId);
+
+        if (roleId == null) {
+            return new ArrayList<>();
+        }
+
+        List<Permission> permissions = permissionService.getPermissionsByRoleId(roleId);
+        return permissions != null ? permissions : new ArrayList<>();
+    }
+
+    private PermissionBits encodeRolePermissions(Long roleId) {
+        // 字典未就绪时得到空位图，字典加载后版本号变化，由 resolveRolePermissionBits 重新计算
+        List<Permission> permissions = roleId != null ? rolePermissions(roleId) : Collections.emptyList();
+        log.debug("计算角色权限位图, roleId: {}", roleId);
+        return permissionCodeDictionary.encode(toPermissionCodes(permissions));
+    }
+
+    private List<Menu> loadRoleMenus(Long roleId) {
+        log.debug("从数据库加载角色菜单, roleId: {}", roleId);
+
+        if (roleId == null) {
+            return new ArrayList<>();
+        }
+
+        List<Menu> menus = menuService.getMenusByRoleId(roleId);
+        return menus != null ? menus : new ArrayList<>();
+    }
+
+    private static Long toLong(Object key) {
+        return key instanceof Number number ? number.longValue() : Long.valueOf(String.valueOf(key));
+    }
+
+    /**
+     * 用户拥有的角色ID，兼容缓存中的空值
+     */
+    private List<Long> userRoleIds(Long userId) {
+        List<Long> roleIds = self.getUserRoleIds(userId);
+        return roleIds != null ? roleIds : Collections.emptyList();
+    }
+
+    /**
+     * 角色权限，兼容缓存中的空值
+     */
+    private List<Permission> rolePermissions(Long roleId) {
+        List<Permission> permissions = self.getRolePermissions(roleId);
+        return permissions != null ? permissions : Collections.emptyList();
+    }
+
+    private List<Menu> roleMenus(Long roleId) {
+        List<Menu> menus = self.getRoleMenus(roleId);
+        return menus != null ? menus : Collections.emptyList();
+    }
+
+    /**
+     * 批量获取用户角色ID：先查缓存，未命中的用户由 RbacCacheWarmer 集合查询加载并写回缓存
+     */
+    private Map<Long, List<Long>> bulkUserRoleIds(List<Long> userIds) {
+        Map<Long, List<Long>> roleIdsByUser = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        Cache cache = cacheManager.getCache("rbac:user:role:ids");
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            Cache.ValueWrapper cached = cache != null ? cache.get(userId) : null;
+            if (cached != null && cached.get() instanceof List<?> roleIds) {
+                roleIdsByUser.put(userId, toLongs(roleIds));
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // 与单用户加载一致，数据库异常直接抛出，不按无角色处理
+            roleIdsByUser.putAll(rbacCacheWarmer.loadUserRoleIds(missing));
+        }
+        return roleIdsByUser;
+    }
+
+    /**
+     * 计算一个启用角色组合对各权限编码的判断结果
+     */
+    private boolean[] evaluateRow(List<Long> roleIds, List<String> permissionCodes, int[] codeIds,
+                                  long dictionaryVersion, Map<Long, PermissionBits> roleBits) {
+        boolean[] row = new boolean[permissionCodes.size()];
+        if (roleIds.isEmpty()) {
+            return row;
+        }
+
+        long[] words = null;
+        if (codeIds != null) {
+            words = new long[0];
+            for (Long roleId : roleIds) {
+                PermissionBits bits = roleBits.computeIfAbsent(roleId, this::resolveRolePermissionBits);
+                if (bits == null || bits.getDictionaryVersion() != dictionaryVersion) {
+                    words = null;
+                    break;
+                }
+                long[] roleWords = bits.getWords();
+                if (roleWords.length > words.length) {
+                    words = Arrays.copyOf(words, roleWords.length);
+                }
+                for (int k = 0; k < roleWords.length; k++) {
+                    words[k] |= roleWords[k];
+                }
+            }
+        }
+
+        if (words != null) {
+            for (int j = 0; j < row.length; j++) {
+                int id = codeIds[j];
+                row[j] = id >= 0 && (id >>> 6) < words.length && (words[id >>> 6] & (1L << id)) != 0;
+            }
+            return row;
+        }
+
+        // 位图不可用（字典未就绪或版本变化），合并各角色的权限编码判断
+        Set<String> codes = new HashSet<>();
+        for (Long roleId : roleIds) {
+            codes.addAll(toPermissionCodes(rolePermissions(roleId)));
+        }
+        for (int j = 0; j < row.length; j++) {
+            row[j] = codes.contains(permissionCodes.get(j));
+        }
+        return row;
+    }
+
+    private static List<Long> toLongs(List<?> values) {
+        List<Long> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value instanceof Number number) {
+                result.add(number.longValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户拥有的启用状态角色ID
+     */
+    private List<Long> activeRoleIds(Long userId) {
+        List<Long> roleIds = userRoleIds(userId);
+        List<Long> active = new ArrayList<>(roleIds.size());
+        for (Long roleId : roleIds) {
+            if (isActiveRole(self.getRoleInfo(roleId))) {
+                active.add(roleId);
+            }
+        }
+        return active;
+    }
+
+    private boolean isActiveRole(Role role) {
+        return role != null && role.getStatus() != null && role.getStatus() == 1;
+    }
+
+    /**
+     * 获取与当前字典版本一致的角色权限位图，版本不一致时清除该角色缓存并重新计算
+     */
+    private PermissionBits resolveRolePermissionBits(Long roleId) {
+        PermissionBits bits = self.getRolePermissionBits(roleId);
+        if (bits != null && !permissionCodeDictionary.isCurrent(bits)) {
+            // 字典已重建，旧位图的编号含义可能已变化
+            log.debug("角色权限位图字典版本过期，重新计算, roleId: {}", roleId);
+            self.clearRoleCache(roleId);
+            bits = self.getRolePermissionBits(roleId);
+        }
+        return permissionCodeDictionary.isCurrent(bits) ? bits : null;
+    }
+
+    private Set<String> toPermissionCodes(List<Permission> permissions) {
+        return permissions.stream()
+                .map(Permission::getPermissionCode)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+    }
+}
@@ -7,9 +7,11 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.spark.demo.entity.Role;
 import com.spark.demo.entity.RoleMenu;
 import com.spark.demo.entity.RolePermission;
+import com.spark.demo.modules.rbac.cache.RbacCacheInvalidator;
 import com.spark.demo.modules.rbac.mapper.RoleMapper;
 import com.spark.demo.modules.rbac.mapper.RoleMenuMapper;
 import com.spark.demo.modules.rbac.mapper.RolePermissionMapper;
+import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
 import com.spark.demo.modules.rbac.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +36,8 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     private final RoleMapper roleMapper;
     private final RolePermissionMapper rolePermissionMapper;
     private final RoleMenuMapper roleMenuMapper;
+    private final UserRoleMapper userRoleMapper;
+    private final RbacCacheInvalidator rbacCacheInvalidator;
 
     @Override
     public List<Role> getRolesByUserId(Long userId) {
@@ -79,7 +83,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         
         role.setUpdatedTime(new Date());
         
-        return updateById(role);
+        boolean updated = updateById(role);
+        rbacCacheInvalidator.onRoleChanged(role.getId());
+        return updated;
     }
 
     @Override
@@ -91,12 +97,19 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         // 删除角色菜单关联
         roleMenuMapper.deleteByRoleId(roleId);
         
+        // 删除用户角色关联，并失效这些用户的角色ID缓存
+        List<Long> userIds = userRoleMapper.selectUserIdsByRoleId(roleId);
+        userRoleMapper.deleteByRoleId(roleId);
+        userIds.forEach(rbacCacheInvalidator::onUserRolesChanged);
+        
         // 逻辑删除角色
         Role role = new Role();
         role.setId(roleId);
         role.setDeletedTime(new Date());
         
-        return updateById(role);
+        boolean deleted = updateById(role);
+        rbacCacheInvalidator.onRoleChanged(roleId);
+        return deleted;
     }
 
     @Override
@@ -128,6 +141,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     public boolean assignPermissionsToRole(Long roleId, List<Long> permissionIds) {
         // 先删除原有的角色权限关联
         rolePermissionMapper.deleteByRoleId(roleId);
+        rbacCacheInvalidator.onRoleChanged(roleId);
         
         // 如果权限列表为空，则只删除不添加
         if (CollectionUtils.isEmpty(permissionIds)) {
@@ -154,6 +168,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     public boolean assignMenusToRole(Long roleId, List<Long> menuIds) {
         // 先删除原有的角色菜单关联
         roleMenuMapper.deleteByRoleId(roleId);
+        rbacCacheInvalidator.onRoleChanged(roleId);
         
         // 如果菜单列表为空，则只删除不添加
         if (CollectionUtils.isEmpty(menuIds)) {
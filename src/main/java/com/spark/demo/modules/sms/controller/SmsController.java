@@ -1,5 +1,6 @@
 package com.spark.demo.modules.sms.controller;
 
+import com.spark.demo.common.annotation.RateLimit;
 import com.spark.demo.common.result.Result;
 import com.spark.demo.common.util.ApiDocUtil;
 import com.spark.demo.service.SmsService;
@@ -120,6 +121,8 @@ public class SmsController {
             )
         )
     )
+    @RateLimit(key = "sms:send", countProperty = "app.security.rate-limit.sms-limit", count = 1,
+            limitType = RateLimit.LimitType.IP, store = RateLimit.Store.REDIS, message = "发送过于频繁，请稍后再试")
     @PostMapping("/send")
     public Result<Void> sendVerifyCode(
             @Parameter(
@@ -11,6 +11,8 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.spark.demo.common.context.UserContext;
 import com.spark.demo.common.exception.BusinessException;
 import com.spark.demo.common.result.ResultCode;
+import com.spark.demo.common.session.UserSessionSnapshot;
+import com.spark.demo.common.session.UserVersionRegistry;
 import com.spark.demo.converter.UserConverter;
 import com.spark.demo.dto.LoginDTO;
 import com.spark.demo.dto.PasswordLoginDTO;
@@ -22,6 +24,7 @@ import com.spark.demo.entity.Permission;
 import com.spark.demo.entity.Menu;
 import com.spark.demo.entity.UserRole;
 import com.spark.demo.mapper.UserMapper;
+import com.spark.demo.modules.rbac.cache.RbacCacheInvalidator;
 import com.spark.demo.modules.rbac.service.RoleService;
 import com.spark.demo.modules.rbac.service.PermissionService;
 import com.spark.demo.modules.rbac.service.MenuService;
@@ -77,6 +80,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
     @Autowired
     private UserRoleMapper userRoleMapper;
 
+    @Autowired
+    private RbacCacheInvalidator rbacCacheInvalidator;
+
+    @Autowired
+    private UserVersionRegistry userVersionRegistry;
+
     private final UserConverter userConverter = UserConverter.INSTANCE;
     
     // 手机号正则
@@ -195,6 +204,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
                 session.setAttribute("userId", user.getId()); // 内部使用
                 session.setAttribute("username", user.getUsername());
                 session.setAttribute("role", user.getRole());
+                session.setAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE,
+                        UserSessionSnapshot.of(user, userVersionRegistry.currentVersion(user.getUuid())));
                 
                 // 立即设置用户上下文，使得登录后立即可以获取当前用户信息
                 UserContext.setCurrentUser(user);
@@ -391,6 +402,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             }
             
             userMapper.deleteById(user.getId()); // MyBatis-Plus自动处理逻辑删除
+            rbacCacheInvalidator.onUserAccountChanged(uuid);
             log.info("删除用户成功，UUID: {}", uuid);
             
         } catch (BusinessException e) {
@@ -413,6 +425,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             throw new BusinessException(ResultCode.NOT_FOUND, "用户不存在或已被删除");
         }
         userMapper.deleteById(id);
+        rbacCacheInvalidator.onUserAccountChanged(user.getUuid());
         log.info("删除用户成功，用户ID: {}", id);
     }
 
@@ -452,6 +465,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             updateUserFields(user, userDTO);
             
             userMapper.updateById(user);
+            rbacCacheInvalidator.onUserAccountChanged(uuid);
             log.info("更新用户信息成功，UUID: {}", uuid);
             
             return userConverter.entityToVo(userMapper.selectById(user.getId()));
@@ -480,6 +494,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
         updateUserFields(user, userDTO);
 
         userMapper.updateById(user);
+        rbacCacheInvalidator.onUserAccountChanged(user.getUuid());
         log.info("更新用户成功，用户ID: {}", id);
         return userConverter.entityToVo(userMapper.selectById(id));
     }
@@ -563,7 +578,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
 
     @Override
     @Timed(value = "user.service.findByUuid", description = "查找用户通过UUID")
-    @Cacheable(value = "userCache", key = "#uuid", condition = "#result != null")
+    @Cacheable(value = "userCache", key = "#uuid", sync = true)
     public User findByUuid(String uuid) {
         if (!StringUtils.hasText(uuid)) {
             return null;
@@ -608,6 +623,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             // 更新密码
             user.setPassword(encryptPassword(newPassword));
             userMapper.updateById(user);
+            rbacCacheInvalidator.onUserAccountChanged(uuid);
             
             log.info("用户修改密码成功，UUID: {}", uuid);
             
@@ -651,6 +667,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             // 更新状态
             user.setStatus(status);
             userMapper.updateById(user);
+            rbacCacheInvalidator.onUserAccountChanged(uuid);
             
             // 转换为VO并返回
             UserVO userVO = userConverter.entityToVo(user);
@@ -857,6 +874,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
             session.setAttribute("userId", user.getId()); // 内部使用
             session.setAttribute("username", user.getUsername());
             session.setAttribute("role", user.getRole());
+            session.setAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE,
+                    UserSessionSnapshot.of(user, userVersionRegistry.currentVersion(user.getUuid())));
             
             // 立即设置用户上下文，使得登录后立即可以获取当前用户信息
             UserContext.setCurrentUser(user);
@@ -900,6 +919,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
                 userRole.setCreatedTime(new Date());
                 userRoleMapper.insert(userRole);
             }
+            rbacCacheInvalidator.onUserRolesChanged(userId);
             
             log.info("用户角色分配成功, userId: {}, roleIds: {}", userId, roleIds);
             return true;
@@ -924,6 +944,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper,User> implements Use
                         .in(UserRole::getRoleId, roleIds);
             
             int deletedCount = userRoleMapper.delete(deleteWrapper);
+            rbacCacheInvalidator.onUserRolesChanged(userId);
             log.info("用户角色移除成功, userId: {}, 移除数量: {}", userId, deletedCount);
             return deletedCount > 0;
         } catch (Exception e) {
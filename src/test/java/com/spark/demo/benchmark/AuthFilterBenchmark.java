@@ -0,0 +1,293 @@
+package com.spark.demo.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.context.UserContext;
+import com.spark.demo.common.result.Result;
+import com.spark.demo.common.result.ResultCode;
+import com.spark.demo.common.session.UserSessionSnapshot;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.entity.User;
+import com.spark.demo.filter.AuthFilter;
+import com.spark.demo.service.impl.UserServiceImpl;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthFilter基准测试
+ * 对比改造前（每请求INFO日志、stream匹配排除路径、提前解析IP、逐次序列化响应体）与当前实现
+ * 在已登录请求、未登录请求（401）两种场景下的耗时与每请求分配字节数
+ *
+ * 日志按生产默认级别INFO输出到丢弃型Appender，保留格式化开销；用户查询替换为固定返回，
+ * 用户版本号使用进程内Redis替身，只衡量过滤器本身
+ *
+ * 运行方式：mvn test-compile 后执行本类main方法，已开启 -prof gc，关注 gc.alloc.rate.norm
+ *
+ * @author spark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private LegacyAuthFilter legacyFilter;
+
+    private AuthFilter authFilter;
+
+    private MockHttpServletRequest authenticatedRequest;
+
+    private MockHttpServletRequest anonymousRequest;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        routeLogsToDiscardingAppender(LegacyAuthFilter.class.getName(), AuthFilter.class.getName());
+
+        StubUserService userService = new StubUserService();
+        legacyFilter = new LegacyAuthFilter(userService);
+        UserVersionRegistry userVersionRegistry = new UserVersionRegistry();
+        ReflectionTestUtils.setField(userVersionRegistry, "stringRedisTemplate",
+                new StringRedisTemplate(new RedisPipelineBenchmark.StandInConnectionFactory(0)));
+        ReflectionTestUtils.setField(userVersionRegistry, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        userVersionRegistry.init();
+        authFilter = new AuthFilter();
+        ReflectionTestUtils.setField(authFilter, "userService", userService);
+        ReflectionTestUtils.setField(authFilter, "userVersionRegistry", userVersionRegistry);
+
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userUuid", StubUserService.UUID);
+        session.setAttribute("userId", 1L);
+        session.setAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE, UserSessionSnapshot.of(userService.user,
+                userVersionRegistry.currentVersion(StubUserService.UUID)));
+        authenticatedRequest = newRequest("/api/v1/users/info");
+        authenticatedRequest.setSession(session);
+        anonymousRequest = newRequest("/api/v1/users/info");
+
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int legacyAuthenticated() throws Exception {
+        return run(legacyFilter, authenticatedRequest);
+    }
+
+    @Benchmark
+    public int currentAuthenticated() throws Exception {
+        return run(authFilter, authenticatedRequest);
+    }
+
+    @Benchmark
+    public int legacyUnauthorized() throws Exception {
+        return run(legacyFilter, anonymousRequest);
+    }
+
+    @Benchmark
+    public int currentUnauthorized() throws Exception {
+        return run(authFilter, anonymousRequest);
+    }
+
+    private int run(Filter filter, MockHttpServletRequest request) throws Exception {
+        response.reset();
+        filter.doFilter(request, response, NOOP_CHAIN);
+        return response.getStatus();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    private static MockHttpServletRequest newRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader("X-Forwarded-For", "10.0.0.1, 10.0.0.2");
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+
+    private static void routeLogsToDiscardingAppender(String... loggerNames) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{50} - %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        for (String loggerName : loggerNames) {
+            Logger logger = context.getLogger(loggerName);
+            logger.setLevel(Level.INFO);
+            logger.setAdditive(false);
+            logger.addAppender(appender);
+        }
+    }
+
+    /**
+     * 固定返回同一用户，屏蔽数据库与缓存
+     */
+    static class StubUserService extends UserServiceImpl {
+
+        static final String UUID = "5f0c2a4e-1b7d-4c1e-9a55-0d3b8f1e2c77";
+
+        private final User user;
+
+        StubUserService() {
+            user = new User();
+            user.setId(1L);
+            user.setUuid(UUID);
+            user.setStatus(1);
+        }
+
+        @Override
+        public User findByUuid(String uuid) {
+            return UUID.equals(uuid) ? user : null;
+        }
+    }
+
+    /**
+     * 改造前的AuthFilter实现，仅供对比
+     */
+    static class LegacyAuthFilter implements Filter {
+
+        private static final org.slf4j.Logger log = LoggerFactory.getLogger(LegacyAuthFilter.class);
+
+        private static final List<String> EXCLUDE_PATHS = Arrays.asList(
+                "/api/v1/users/login",
+                "/api/v1/users/register",
+                "/api/v1/users/password-login",
+                "/api/v1/users/sms-login",
+                "/api/v1/sms/send",
+                "/api/swagger-ui",
+                "/api/v3/api-docs",
+                "/api/doc.html",
+                "/api/favicon.ico",
+                "/api/webjars",
+                "/api/swagger-resources",
+                "/error"
+        );
+
+        private final StubUserService userService;
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        LegacyAuthFilter(StubUserService userService) {
+            this.userService = userService;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+            String requestURI = httpRequest.getRequestURI();
+            String method = httpRequest.getMethod();
+            String clientIp = getClientIpAddress(httpRequest);
+
+            log.info("AuthFilter处理请求 - URI: {}, Method: {}", requestURI, method);
+
+            if ("OPTIONS".equalsIgnoreCase(method)) {
+                log.info("OPTIONS预检请求直接放行: {}", requestURI);
+                chain.doFilter(request, response);
+                return;
+            }
+
+            log.debug("检查排除路径 - URI: {}, 排除路径列表: {}", requestURI, EXCLUDE_PATHS);
+            boolean excluded = EXCLUDE_PATHS.stream().anyMatch(requestURI::startsWith);
+            log.debug("排除路径检查结果 - URI: {}, 是否排除: {}", requestURI, excluded);
+
+            try {
+                if (excluded) {
+                    log.info("请求路径在排除列表中: {}", requestURI);
+                    chain.doFilter(request, response);
+                    return;
+                }
+
+                HttpSession session = httpRequest.getSession(false);
+                User currentUser = null;
+                if (session != null) {
+                    String userUuid = (String) session.getAttribute("userUuid");
+                    if (userUuid != null) {
+                        currentUser = userService.findByUuid(userUuid);
+                        if (currentUser != null && currentUser.getDeletedTime() != null) {
+                            currentUser = null;
+                        }
+                    }
+                }
+
+                if (currentUser == null) {
+                    log.warn("用户未登录，请求路径: {}, IP: {}, Session存在: {}",
+                            requestURI, clientIp, session != null);
+                    writeResponse(httpResponse, HttpServletResponse.SC_UNAUTHORIZED,
+                            Result.fail(ResultCode.UNAUTHORIZED.getCode(), "用户未登录"));
+                    return;
+                }
+
+                UserContext.setCurrentUser(currentUser);
+                chain.doFilter(request, response);
+            } catch (ServletException | IOException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("认证过滤器异常，请求路径: {}, IP: {}", requestURI, clientIp, e);
+                writeResponse(httpResponse, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                        Result.fail(ResultCode.FAIL.getCode(), "认证异常"));
+            } finally {
+                UserContext.clear();
+            }
+        }
+
+        private void writeResponse(HttpServletResponse response, int status, Result<Void> result) throws IOException {
+            response.setStatus(status);
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write(objectMapper.writeValueAsString(result));
+        }
+
+        private String getClientIpAddress(HttpServletRequest request) {
+            String xForwardedFor = request.getHeader("X-Forwarded-For");
+            if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
+                return xForwardedFor.split(",")[0].trim();
+            }
+            String xRealIp = request.getHeader("X-Real-IP");
+            if (xRealIp != null && !xRealIp.isEmpty() && !"unknown".equalsIgnoreCase(xRealIp)) {
+                return xRealIp;
+            }
+            return request.getRemoteAddr();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.spark.demo.benchmark;
+
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
+import com.spark.demo.common.util.JwtUtil;
+import com.spark.demo.entity.User;
+import com.spark.demo.modules.auth.security.TokenRevocationList;
+import com.spark.demo.modules.auth.security.VerifiedTokenCache;
+import com.spark.demo.modules.auth.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验签吞吐量基准测试
+ * 对比改造前 JwtAuthenticationFilter 的做法（每次调用重建密钥和解析器，validateToken 后再 getUsernameFromToken，
+ * 每请求验签两次）、当前的预构建解析器 + tryParseClaims 解析一次，以及 VerifiedTokenCache 命中；
+ * 另对比未吊销token的吊销检查：本地布隆过滤器判定 vs 每请求查询Redis（替身连接模拟50μs往返）
+ *
+ * 运行方式：mvn test-compile 后执行本类main方法，已开启 -prof gc
+ *
+ * @author spark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForHS256Algorithm";
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private UserDetails principal;
+
+    private TokenRevocationList tokenRevocationList;
+
+    private StringRedisTemplate remoteRedis;
+
+    private String jti;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 24);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7);
+        jwtUtil.init();
+        token = jwtUtil.generateAccessToken(1001L, "13800138000", Map.of("role", "user", "uuid", "5f0c2a4e"));
+
+        UserVersionRegistry userVersionRegistry = new UserVersionRegistry();
+        ReflectionTestUtils.setField(userVersionRegistry, "stringRedisTemplate",
+                new StringRedisTemplate(new RedisPipelineBenchmark.StandInConnectionFactory(0)));
+        ReflectionTestUtils.setField(userVersionRegistry, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        userVersionRegistry.init();
+        verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "userVersionRegistry", userVersionRegistry);
+        verifiedTokenCache.init();
+        User user = new User();
+        user.setUuid("5f0c2a4e");
+        user.setStatus(1);
+        principal = new CustomUserDetailsService.CustomUserPrincipal(user);
+
+        remoteRedis = new StringRedisTemplate(new RedisPipelineBenchmark.StandInConnectionFactory(50_000));
+        remoteRedis.afterPropertiesSet();
+        tokenRevocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(tokenRevocationList, "stringRedisTemplate", remoteRedis);
+        ReflectionTestUtils.setField(tokenRevocationList, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        tokenRevocationList.init();
+        jti = jwtUtil.parseClaims(token).getId();
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        if (legacyParse(token) == null) {
+            return null;
+        }
+        return legacyParse(token).getSubject();
+    }
+
+    @Benchmark
+    public String parseOnce() {
+        JwtClaims claims = jwtUtil.tryParseClaims(token);
+        return claims != null ? claims.getUsername() : null;
+    }
+
+    @Benchmark
+    public String verifiedCacheHit() {
+        VerifiedTokenCache.VerifiedToken verified =
+                verifiedTokenCache.resolve(token, jwtUtil::tryParseClaims, claims -> principal);
+        return verified != null ? verified.getClaims().getUsername() : null;
+    }
+
+    @Benchmark
+    public boolean revocationCheckBloomFilter() {
+        return tokenRevocationList.isRevoked(jti);
+    }
+
+    @Benchmark
+    public boolean revocationCheckRedisEveryRequest() {
+        return Boolean.TRUE.equals(remoteRedis.hasKey("app:jwt:revoked:" + jti));
+    }
+
+    private static Claims legacyParse(String token) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerifyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,179 @@
+package com.spark.demo.benchmark;
+
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.service.impl.RbacCacheServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量权限校验基准测试
+ * 对比逐对调用 hasPermission 与 checkPermissionMatrix 在10000个（用户, 权限）对上的耗时，
+ * 分别取 10000×1、1000×10、100×100 三种矩阵形状
+ *
+ * 所有用户的角色、角色状态与角色权限位图均已在缓存中（近端缓存命中），
+ * 缓存代理替换为直接读取预先构造好的Map，只衡量校验逻辑本身
+ *
+ * 运行方式：mvn test-compile 后执行本类main方法，加 -prof gc 可观察分配字节数
+ *
+ * @author spark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionMatrixBenchmark {
+
+    private static final int PERMISSION_COUNT = 300;
+
+    private static final int ROLE_COUNT = 40;
+
+    @Param({"10000x1", "1000x10", "100x100"})
+    private String shape;
+
+    private RbacCacheServiceImpl rbacCacheService;
+
+    private List<Long> userIds;
+
+    private List<String> permissionCodes;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = shape.split("x");
+        int userCount = Integer.parseInt(dimensions[0]);
+        int codeCount = Integer.parseInt(dimensions[1]);
+        Random random = new Random(42);
+
+        List<Permission> allPermissions = new ArrayList<>(PERMISSION_COUNT);
+        for (int i = 0; i < PERMISSION_COUNT; i++) {
+            Permission permission = new Permission();
+            permission.setId((long) i + 1);
+            permission.setPermissionCode("res" + (i / 4) + ":" + (i % 4));
+            allPermissions.add(permission);
+        }
+        PermissionMapper permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.selectAllPermissionCodes()).thenReturn(allPermissions);
+        PermissionCodeDictionary dictionary = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(dictionary, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(dictionary, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        dictionary.init();
+
+        // 每个角色随机持有约1/5的权限，少量角色为禁用状态
+        CachedRbacCacheService service = new CachedRbacCacheService();
+        for (long roleId = 1; roleId <= ROLE_COUNT; roleId++) {
+            Role role = new Role();
+            role.setId(roleId);
+            role.setStatus(random.nextInt(10) == 0 ? 0 : 1);
+            List<Permission> permissions = new ArrayList<>();
+            for (Permission permission : allPermissions) {
+                if (random.nextInt(5) == 0) {
+                    permissions.add(permission);
+                }
+            }
+            service.roles.put(roleId, role);
+            service.rolePermissions.put(roleId, permissions);
+            service.roleBits.put(roleId, dictionary.encode(permissions.stream()
+                    .map(Permission::getPermissionCode).collect(Collectors.toSet())));
+        }
+
+        // 每个用户1~3个角色，批量接口读取的用户角色缓存与逐对接口一致
+        CacheManager cacheManager = new ConcurrentMapCacheManager();
+        userIds = new ArrayList<>(userCount);
+        for (long userId = 1; userId <= userCount; userId++) {
+            List<Long> roleIds = new ArrayList<>();
+            int roles = 1 + random.nextInt(3);
+            for (int i = 0; i < roles; i++) {
+                roleIds.add(1L + random.nextInt(ROLE_COUNT));
+            }
+            service.userRoleIds.put(userId, roleIds);
+            cacheManager.getCache("rbac:user:role:ids").put(userId, roleIds);
+            userIds.add(userId);
+        }
+
+        permissionCodes = new ArrayList<>(codeCount);
+        for (int i = 0; i < codeCount; i++) {
+            permissionCodes.add(allPermissions.get(random.nextInt(PERMISSION_COUNT)).getPermissionCode());
+        }
+
+        ReflectionTestUtils.setField(service, "permissionCodeDictionary", dictionary);
+        ReflectionTestUtils.setField(service, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(service, "self", service);
+        rbacCacheService = service;
+    }
+
+    @Benchmark
+    public void perPair(Blackhole blackhole) {
+        for (Long userId : userIds) {
+            for (String permissionCode : permissionCodes) {
+                blackhole.consume(rbacCacheService.hasPermission(userId, permissionCode));
+            }
+        }
+    }
+
+    @Benchmark
+    public PermissionMatrixResult matrix() {
+        return rbacCacheService.checkPermissionMatrix(userIds, permissionCodes);
+    }
+
+    /**
+     * 以Map代替缓存代理，等价于各级缓存全部命中
+     */
+    private static final class CachedRbacCacheService extends RbacCacheServiceImpl {
+        private final Map<Long, List<Long>> userRoleIds = new HashMap<>();
+        private final Map<Long, Role> roles = new HashMap<>();
+        private final Map<Long, List<Permission>> rolePermissions = new HashMap<>();
+        private final Map<Long, PermissionBits> roleBits = new HashMap<>();
+
+        @Override
+        public List<Long> getUserRoleIds(Long userId) {
+            return userRoleIds.get(userId);
+        }
+
+        @Override
+        public Role getRoleInfo(Long roleId) {
+            return roles.get(roleId);
+        }
+
+        @Override
+        public List<Permission> getRolePermissions(Long roleId) {
+            return rolePermissions.get(roleId);
+        }
+
+        @Override
+        public PermissionBits getRolePermissionBits(Long roleId) {
+            return roleBits.get(roleId);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PermissionMatrixBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.spark.demo.benchmark;
+
+import com.spark.demo.common.ratelimit.LocalRateLimitStore;
+import com.spark.demo.common.ratelimit.RateLimitKey;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流存储基准测试（100万个不同key，模拟扫描/僵尸网络按IP限流）
+ * 对比改造前 RateLimitAspect 的做法（每次StringBuilder拼接key，无界 ConcurrentHashMap<String, Bucket>）
+ * 与当前的 RateLimitKey + 分段有界 LocalRateLimitStore（默认最多10万个key）
+ *
+ * main方法先打印两种存储写入100万个key后的堆占用，再运行4线程吞吐量测试，已开启 -prof gc
+ *
+ * @author spark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimitStoreBenchmark {
+
+    private static final int DISTINCT_KEYS = 1_000_000;
+
+    private static final String SCOPE = "rate_limit:com.spark.demo.modules.auth.controller.AuthController.smsLogin";
+
+    private static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private String[] clientIps;
+
+    private LegacyBucketMap legacy;
+
+    private LocalRateLimitStore store;
+
+    @Setup
+    public void setUp() {
+        clientIps = clientIps();
+        legacy = new LegacyBucketMap();
+        store = new LocalRateLimitStore();
+        store.init();
+    }
+
+    @Benchmark
+    public boolean legacyUnboundedBucketMap() {
+        return legacy.tryConsume(clientIps[ThreadLocalRandom.current().nextInt(DISTINCT_KEYS)]);
+    }
+
+    @Benchmark
+    public boolean stripedBoundedStore() {
+        String ip = clientIps[ThreadLocalRandom.current().nextInt(DISTINCT_KEYS)];
+        return store.tryAcquire(new RateLimitKey(SCOPE, ip), 5, PERIOD_NANOS);
+    }
+
+    private static String[] clientIps() {
+        String[] ips = new String[DISTINCT_KEYS];
+        for (int i = 0; i < DISTINCT_KEYS; i++) {
+            ips[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+        }
+        return ips;
+    }
+
+    /**
+     * 改造前的做法：按方法名 + IP 拼接key，每个key一个Bucket，永不清理
+     */
+    static final class LegacyBucketMap {
+
+        private final ConcurrentHashMap<String, Bucket> bucketCache = new ConcurrentHashMap<>();
+
+        boolean tryConsume(String ip) {
+            StringBuilder keyBuilder = new StringBuilder("rate_limit:");
+            keyBuilder.append("com.spark.demo.modules.auth.controller.AuthController")
+                    .append(".")
+                    .append("smsLogin");
+            keyBuilder.append(":").append(ip);
+            Bucket bucket = bucketCache.computeIfAbsent(keyBuilder.toString(), k -> Bucket.builder()
+                    .addLimit(Bandwidth.classic(5, Refill.intervally(5, Duration.ofMinutes(1))))
+                    .build());
+            return bucket.tryConsume(1);
+        }
+
+        int size() {
+            return bucketCache.size();
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String[] ips = clientIps();
+
+        long before = usedHeap();
+        LegacyBucketMap legacy = new LegacyBucketMap();
+        for (String ip : ips) {
+            legacy.tryConsume(ip);
+        }
+        long legacyBytes = usedHeap() - before;
+        System.out.printf("legacy unbounded bucket map: %d keys, %.1f MB%n", legacy.size(), legacyBytes / 1048576.0);
+        legacy = null;
+
+        before = usedHeap();
+        LocalRateLimitStore store = new LocalRateLimitStore();
+        store.init();
+        for (String ip : ips) {
+            store.tryAcquire(new RateLimitKey(SCOPE, ip), 5, PERIOD_NANOS);
+        }
+        long storeBytes = usedHeap() - before;
+        System.out.printf("striped bounded store: %d keys, %.1f MB%n", store.size(), storeBytes / 1048576.0);
+
+        Options options = new OptionsBuilder()
+                .include(RateLimitStoreBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
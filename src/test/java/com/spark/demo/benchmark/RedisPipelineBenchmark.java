@@ -0,0 +1,280 @@
+package com.spark.demo.benchmark;
+
+import com.spark.demo.common.util.RedisUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RedisUtil批量操作基准测试
+ * 对比逐key调用与管道/MGET批量调用在1k、10k key下的耗时与网络往返次数
+ *
+ * 使用进程内的Redis替身：每次非管道命令及每次管道提交模拟一次网络往返（默认100µs），
+ * 因此结果反映的是往返次数的差异，而非Redis服务端性能
+ *
+ * 运行方式：mvn test-compile 后执行本类main方法，会先打印各方式的往返次数再运行JMH
+ *
+ * @author spark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisPipelineBenchmark {
+
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Param({"1000", "10000"})
+    private int keyCount;
+
+    private StandInConnectionFactory connectionFactory;
+
+    private RedisUtil redisUtil;
+
+    private List<String> keys;
+
+    private Map<String, Object> entries;
+
+    @Setup
+    public void setUp() {
+        connectionFactory = new StandInConnectionFactory(ROUND_TRIP_NANOS);
+        redisUtil = newRedisUtil(connectionFactory);
+        keys = new ArrayList<>(keyCount);
+        entries = new LinkedHashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            String key = "bench:user:" + i;
+            keys.add(key);
+            entries.put(key, "value-" + i);
+        }
+        redisUtil.multiSet(entries, 30, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public int setOneByOne() {
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            redisUtil.setObject(entry.getKey(), entry.getValue(), 30, TimeUnit.MINUTES);
+        }
+        return entries.size();
+    }
+
+    @Benchmark
+    public int setPipelined() {
+        redisUtil.multiSet(entries, 30, TimeUnit.MINUTES);
+        return entries.size();
+    }
+
+    @Benchmark
+    public int getOneByOne() {
+        int hits = 0;
+        for (String key : keys) {
+            if (redisUtil.getObject(key) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int getBatched() {
+        return redisUtil.multiGet(keys).size();
+    }
+
+    @Benchmark
+    public long expirePipelined() {
+        return redisUtil.multiExpire(keys, 10, TimeUnit.MINUTES);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printRoundTrips(1000);
+        printRoundTrips(10000);
+
+        Options options = new OptionsBuilder()
+                .include(RedisPipelineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static void printRoundTrips(int keyCount) {
+        RedisPipelineBenchmark benchmark = new RedisPipelineBenchmark();
+        benchmark.keyCount = keyCount;
+        benchmark.setUp();
+        AtomicLong roundTrips = benchmark.connectionFactory.roundTrips;
+
+        roundTrips.set(0);
+        benchmark.setOneByOne();
+        long single = roundTrips.getAndSet(0);
+        benchmark.setPipelined();
+        long pipelined = roundTrips.getAndSet(0);
+        benchmark.getOneByOne();
+        long singleGet = roundTrips.getAndSet(0);
+        benchmark.getBatched();
+        long batchedGet = roundTrips.getAndSet(0);
+        System.out.printf("keys=%d  SET 逐个/管道 往返: %d/%d  GET 逐个/MGET 往返: %d/%d%n",
+                keyCount, single, pipelined, singleGet, batchedGet);
+    }
+
+    private static RedisUtil newRedisUtil(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.afterPropertiesSet();
+
+        StringRedisTemplate stringTemplate = new StringRedisTemplate(connectionFactory);
+
+        RedisUtil redisUtil = new RedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", template);
+        ReflectionTestUtils.setField(redisUtil, "genericRedisTemplate", template);
+        ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", stringTemplate);
+        return redisUtil;
+    }
+
+    /**
+     * Redis替身：内存存储 + 模拟往返延迟
+     * 只实现基准用到的字符串/过期命令，其余命令返回默认值
+     */
+    static class StandInConnectionFactory implements RedisConnectionFactory {
+
+        private static final Set<String> LIFECYCLE_METHODS = Set.of("close", "isClosed", "getNativeConnection",
+                "isQueueing", "isPipelined", "openPipeline", "closePipeline", "stringCommands", "keyCommands",
+                "hashCommands", "zSetCommands", "toString", "hashCode", "equals");
+
+        private final long roundTripNanos;
+
+        private final Map<ByteBuffer, byte[]> store = new ConcurrentHashMap<>();
+
+        final AtomicLong roundTrips = new AtomicLong();
+
+        StandInConnectionFactory(long roundTripNanos) {
+            this.roundTripNanos = roundTripNanos;
+        }
+
+        @Override
+        public RedisConnection getConnection() {
+            List<Object> pipeline = new ArrayList<>();
+            boolean[] pipelined = new boolean[1];
+            Object[] self = new Object[1];
+            self[0] = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RedisConnection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        switch (name) {
+                            case "isPipelined":
+                                return pipelined[0];
+                            case "openPipeline":
+                                pipelined[0] = true;
+                                return null;
+                            case "closePipeline":
+                                pipelined[0] = false;
+                                roundTrip();
+                                List<Object> results = new ArrayList<>(pipeline);
+                                pipeline.clear();
+                                return results;
+                            case "stringCommands":
+                            case "keyCommands":
+                            case "hashCommands":
+                            case "zSetCommands":
+                                return self[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            case "toString":
+                                return "StandInRedisConnection";
+                            default:
+                                break;
+                        }
+                        if (LIFECYCLE_METHODS.contains(name)) {
+                            return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                        }
+
+                        Object result = execute(name, args);
+                        if (pipelined[0]) {
+                            pipeline.add(result);
+                            return null;
+                        }
+                        roundTrip();
+                        return result;
+                    });
+            return (RedisConnection) self[0];
+        }
+
+        private Object execute(String command, Object[] args) {
+            switch (command) {
+                case "get":
+                    return store.get(ByteBuffer.wrap((byte[]) args[0]));
+                case "mGet": {
+                    byte[][] keys = (byte[][]) args[0];
+                    List<byte[]> values = new ArrayList<>(keys.length);
+                    for (byte[] key : keys) {
+                        values.add(store.get(ByteBuffer.wrap(key)));
+                    }
+                    return values;
+                }
+                case "set":
+                case "setEx":
+                case "pSetEx":
+                    // set(key, value, ...) / setEx(key, seconds, value) / pSetEx(key, millis, value)
+                    store.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) ("set".equals(command) ? args[1] : args[2]));
+                    return Boolean.TRUE;
+                case "expire":
+                case "pExpire":
+                    return store.containsKey(ByteBuffer.wrap((byte[]) args[0]));
+                default:
+                    return null;
+            }
+        }
+
+        private void roundTrip() {
+            roundTrips.incrementAndGet();
+            LockSupport.parkNanos(roundTripNanos);
+        }
+
+        @Override
+        public RedisClusterConnection getClusterConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean getConvertPipelineAndTxResults() {
+            return true;
+        }
+
+        @Override
+        public RedisSentinelConnection getSentinelConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+            return null;
+        }
+    }
+}
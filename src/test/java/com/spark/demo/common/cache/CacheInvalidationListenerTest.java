@@ -0,0 +1,79 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存失效消息总线测试
+ *
+ * @author spark
+ */
+class CacheInvalidationListenerTest {
+
+    private static final String NEAR = "rbac:user:role:codes";
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+
+    private TwoLevelCacheManager cacheManager;
+
+    private InMemoryCacheInvalidationBus bus;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, List.of(NEAR), 100, Duration.ofMinutes(1), null);
+        bus = new InMemoryCacheInvalidationBus();
+
+        CacheInvalidationListener listener = new CacheInvalidationListener();
+        ReflectionTestUtils.setField(listener, "cacheInvalidationBus", bus);
+        ReflectionTestUtils.setField(listener, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(listener, "meterRegistry", meterRegistry);
+        listener.init();
+    }
+
+    @Test
+    void testKeyedMessageDropsOnlyLocalEntry() {
+        Cache cache = cacheManager.getCache(NEAR);
+        cache.put(1L, Set.of("admin"));
+        cache.put(2L, Set.of("user"));
+
+        // 模拟JSON传输后key变为Integer
+        bus.publish(CacheInvalidationMessage.of(List.of(NEAR), List.of(1), "user:1"));
+
+        // 本地已丢弃，但远程仍在（由发布节点负责清除）
+        remoteCacheManager.getCache(NEAR).clear();
+        assertNull(cache.get(1L));
+        assertNotNull(cache.get(2L));
+    }
+
+    @Test
+    void testClearAllMessage() {
+        Cache cache = cacheManager.getCache(NEAR);
+        cache.put(1L, Set.of("admin"));
+
+        bus.publish(CacheInvalidationMessage.of(List.of(NEAR), null, "role:1"));
+
+        assertEquals(0, ((TwoLevelCache) cache).localSize());
+    }
+
+    @Test
+    void testLatencyMetricRecorded() {
+        bus.publish(CacheInvalidationMessage.of(List.of(NEAR), null, "menu:1"));
+
+        assertEquals(1, meterRegistry.get("cache.invalidation.latency").tag("origin", "local").timer().count());
+        assertEquals(1.0, meterRegistry.get("cache.invalidation.received").tag("origin", "local").counter().count());
+    }
+}
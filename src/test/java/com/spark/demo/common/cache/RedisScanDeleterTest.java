@@ -0,0 +1,117 @@
+package com.spark.demo.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SCAN批量删除测试
+ *
+ * @author spark
+ */
+class RedisScanDeleterTest {
+
+    private RedisConnection connection;
+
+    private RedisKeyCommands keyCommands;
+
+    private int pendingUnlinks;
+
+    @BeforeEach
+    void setUp() {
+        connection = mock(RedisConnection.class);
+        keyCommands = mock(RedisKeyCommands.class);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        // 管道内每个UNLINK删除1个key
+        when(keyCommands.unlink(any(byte[].class))).thenAnswer(invocation -> {
+            pendingUnlinks++;
+            return null;
+        });
+        when(connection.closePipeline()).thenAnswer(invocation -> {
+            List<Object> results = new ArrayList<>(Collections.nCopies(pendingUnlinks, 1L));
+            pendingUnlinks = 0;
+            return results;
+        });
+    }
+
+    @Test
+    void testDeletesInBatchesWithProgress() {
+        stubScan(5);
+        RedisScanDeleter deleter = new RedisScanDeleter(2);
+        List<long[]> progress = new ArrayList<>();
+
+        long deleted = deleter.delete(connection, bytes("app:cache:userCache:*"),
+                (batches, count) -> progress.add(new long[]{batches, count}));
+
+        assertEquals(5, deleted);
+        verify(connection, times(3)).openPipeline();
+        verify(keyCommands, times(5)).unlink(any(byte[].class));
+        assertEquals(3, progress.size());
+        assertArrayEquals(new long[]{1, 2}, progress.get(0));
+        assertArrayEquals(new long[]{3, 5}, progress.get(2));
+    }
+
+    @Test
+    void testPipelineClosedBeforeNextScanPage() {
+        Cursor<byte[]> cursor = stubScan(4);
+        new RedisScanDeleter(2).delete(connection, bytes("*"), null);
+
+        InOrder order = inOrder(connection, cursor);
+        order.verify(cursor, calls(2)).next();
+        order.verify(connection).openPipeline();
+        order.verify(connection).closePipeline();
+        order.verify(cursor).next();
+    }
+
+    @Test
+    void testNoMatchesDeletesNothing() {
+        stubScan(0);
+
+        assertEquals(0, new RedisScanDeleter(100).delete(connection, bytes("none:*"), null));
+        verify(connection, never()).openPipeline();
+    }
+
+    @Test
+    void testCleanCacheUsesScan() {
+        Cursor<byte[]> cursor = stubScan(3);
+
+        assertEquals(3, new RedisScanDeleter(10).cleanCache(connection, "rbac:role:menus",
+                bytes("app:cache:rbac:role:menus:*")));
+        verify(cursor).close();
+        verify(keyCommands, never()).keys(any(byte[].class));
+    }
+
+    @Test
+    void testInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RedisScanDeleter(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cursor<byte[]> stubScan(int keyCount) {
+        Iterator<byte[]> keys = IntStream.range(0, keyCount).mapToObj(i -> bytes("key:" + i)).iterator();
+        Cursor<byte[]> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> keys.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> keys.next());
+        when(keyCommands.scan(any(ScanOptions.class))).thenReturn(cursor);
+        return cursor;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
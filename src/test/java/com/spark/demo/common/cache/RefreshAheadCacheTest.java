@@ -0,0 +1,221 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提前刷新缓存测试
+ *
+ * @author spark
+ */
+class RefreshAheadCacheTest {
+
+    private static final String NAME = "userCache";
+
+    private ConcurrentMapCache remoteCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private List<Runnable> submitted;
+
+    private CacheRefreshLoaders refreshLoaders;
+
+    private AtomicInteger loads;
+
+    private List<Object> refreshed;
+
+    @BeforeEach
+    void setUp() {
+        remoteCache = new ConcurrentMapCache(NAME, false);
+        meterRegistry = new SimpleMeterRegistry();
+        submitted = new ArrayList<>();
+        loads = new AtomicInteger();
+        refreshed = new ArrayList<>();
+        refreshLoaders = new CacheRefreshLoaders();
+        refreshLoaders.register(NAME, key -> "v" + loads.incrementAndGet());
+    }
+
+    @Test
+    void testFreshEntryIsNotRefreshed() {
+        RefreshAheadCache cache = newCache(Duration.ofHours(1), 0.2, key -> -1);
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    void testExpiringEntryRefreshesInBackground() {
+        // 窗口比例为1，写入后立即处于窗口内；TTL很短，很快到期概率为1
+        RefreshAheadCache cache = newCache(Duration.ofMillis(1), 1.0, key -> -1);
+        cache.get("k", () -> "v" + loads.incrementAndGet());
+        sleepPastExpiry();
+
+        // 命中时直接返回当前值，刷新只提交到后台，使用注册的加载函数而不是调用方的valueLoader
+        assertEquals("v1", cache.get("k", () -> fail("不应调用调用方的加载器")));
+        assertEquals(1, submitted.size());
+        assertEquals(1, loads.get());
+
+        runSubmitted();
+        assertEquals(2, loads.get());
+        assertEquals("v2", remoteCache.get("k").get());
+        assertEquals(List.of("k"), refreshed);
+        assertEquals(1.0, counter("success"));
+    }
+
+    @Test
+    void testCacheWithoutLoaderIsNotRefreshed() {
+        RefreshAheadCache cache = new RefreshAheadCache(remoteCache, Duration.ofMillis(1), 1.0, submitted::add,
+                key -> -1, new CacheRefreshLoaders(), refreshed::add, meterRegistry);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+
+        assertEquals("v1", cache.get("k", () -> "v2"));
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    void testEvictDuringRefreshDiscardsResult() {
+        RefreshAheadCache cache = newCache(Duration.ofMillis(1), 1.0, key -> -1);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+        // 刷新加载期间角色变更提交并清除了该条目
+        refreshLoaders.register(NAME, key -> {
+            cache.evict(key);
+            return "stale";
+        });
+
+        cache.get("k", () -> "v1");
+        runSubmitted();
+
+        assertNull(remoteCache.get("k"));
+        assertTrue(refreshed.isEmpty());
+        assertEquals(1.0, counter("discarded"));
+    }
+
+    @Test
+    void testRemoteInvalidationDuringRefreshDiscardsResult() {
+        RefreshAheadCache cache = newCache(Duration.ofMillis(1), 1.0, key -> -1);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+        refreshLoaders.register(NAME, key -> {
+            // 其他节点的失效通知
+            cache.markInvalidated();
+            return "stale";
+        });
+
+        cache.get("k", () -> "v1");
+        runSubmitted();
+
+        assertEquals("v1", remoteCache.get("k").get());
+        assertEquals(1.0, counter("discarded"));
+    }
+
+    @Test
+    void testOnlyOneRefreshInFlightPerKey() {
+        RefreshAheadCache cache = newCache(Duration.ofMillis(1), 1.0, key -> -1);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+
+        cache.get("k", () -> "v2");
+        cache.get("k", () -> "v3");
+        cache.get("k", () -> "v4");
+
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void testRefreshFailureKeepsCurrentValue() {
+        RefreshAheadCache cache = newCache(Duration.ofMillis(1), 1.0, key -> -1);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+        refreshLoaders.register(NAME, key -> {
+            throw new IllegalStateException("db down");
+        });
+
+        cache.get("k", () -> "v1");
+        runSubmitted();
+
+        assertEquals("v1", remoteCache.get("k").get());
+        assertEquals(1.0, counter("failure"));
+    }
+
+    @Test
+    void testUnknownExpiryIsLookedUpOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+        RefreshAheadCache cache = newCache(Duration.ofHours(1), 0.2, key -> {
+            lookups.incrementAndGet();
+            return Duration.ofHours(1).toMillis();
+        });
+        // 其他节点写入的条目
+        remoteCache.put("k", "remote");
+
+        assertEquals("remote", cache.get("k", () -> fail("不应同步加载")));
+        runSubmitted();
+        assertEquals("remote", cache.get("k", () -> fail("不应同步加载")));
+
+        assertEquals(1, lookups.get());
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    void testRejectedRefreshCanBeRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        RefreshAheadCache cache = new RefreshAheadCache(remoteCache, Duration.ofMillis(1), 1.0, task -> {
+            attempts.incrementAndGet();
+            throw new RejectedExecutionException("queue full");
+        }, key -> -1, refreshLoaders, null, meterRegistry);
+        cache.get("k", () -> "v1");
+        sleepPastExpiry();
+
+        assertEquals("v1", cache.get("k", () -> "v2"));
+        assertEquals("v1", cache.get("k", () -> "v2"));
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void testEvictDropsEntry() {
+        RefreshAheadCache cache = newCache(Duration.ofHours(1), 0.2, key -> -1);
+        cache.put("k", "v1");
+        cache.evict("k");
+
+        assertNull(remoteCache.get("k"));
+        assertEquals("v2", cache.get("k", () -> "v2"));
+    }
+
+    private RefreshAheadCache newCache(Duration ttl, double ratio, java.util.function.ToLongFunction<Object> lookup) {
+        return new RefreshAheadCache(remoteCache, ttl, ratio, submitted::add, lookup, refreshLoaders, refreshed::add,
+                meterRegistry);
+    }
+
+    private void runSubmitted() {
+        List<Runnable> tasks = new ArrayList<>(submitted);
+        submitted.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static void sleepPastExpiry() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("cache.refresh").tag("cache", NAME).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,104 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单飞缓存测试
+ *
+ * @author spark
+ */
+class SingleFlightCacheTest {
+
+    private static final String NAME = "userCache";
+
+    private ConcurrentMapCache remoteCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlightCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCache = new ConcurrentMapCache(NAME, false);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SingleFlightCache(remoteCache, new SingleFlightLoader(NAME, meterRegistry), null);
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get("u1", () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "user-1";
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // 等其余线程进入等待后再放行加载
+            while (counter("coalesced") < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("user-1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, counter("origin"));
+        assertEquals("user-1", remoteCache.get("u1").get());
+        assertEquals(0, cache.inFlightCount());
+    }
+
+    @Test
+    void testHitDoesNotInvokeLoader() {
+        remoteCache.put("u2", "cached");
+
+        assertEquals("cached", cache.get("u2", () -> fail("不应执行加载")));
+    }
+
+    @Test
+    void testNullIsNotCached() {
+        assertNull(cache.get("u3", () -> null));
+        assertNull(remoteCache.get("u3"));
+    }
+
+    @Test
+    void testLoaderFailurePropagatesAndIsNotCached() {
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("u4", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertNull(remoteCache.get("u4"));
+        assertEquals("ok", cache.get("u4", () -> "ok"));
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("cache.load").tag("cache", NAME).tag("result", result).counter().count();
+    }
+}
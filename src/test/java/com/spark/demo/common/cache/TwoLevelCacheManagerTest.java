@@ -0,0 +1,88 @@
+package com.spark.demo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存管理器测试
+ *
+ * @author spark
+ */
+class TwoLevelCacheManagerTest {
+
+    private static final String NEAR = "rbac:user:permission:bits";
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(remoteCacheManager, List.of(NEAR), 100, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @Test
+    void testOnlyConfiguredCachesAreWrapped() {
+        assertInstanceOf(TwoLevelCache.class, cacheManager.getCache(NEAR));
+        assertFalse(cacheManager.getCache("userCache") instanceof TwoLevelCache);
+    }
+
+    @Test
+    void testLocalHitSkipsRemote() {
+        Cache cache = cacheManager.getCache(NEAR);
+        cache.put(1L, Set.of("user:read"));
+
+        // 远程被清空后，本地仍然命中
+        remoteCacheManager.getCache(NEAR).clear();
+        assertEquals(Set.of("user:read"), cache.get(1L).get());
+
+        double hits = meterRegistry.get("cache.gets").tag("cache", "near:" + NEAR).tag("result", "hit")
+                .functionCounter().count();
+        assertEquals(1.0, hits);
+    }
+
+    @Test
+    void testRemoteHitBackfillsLocal() {
+        remoteCacheManager.getCache(NEAR).put(2L, Set.of("role:read"));
+        Cache cache = cacheManager.getCache(NEAR);
+
+        assertEquals(Set.of("role:read"), cache.get(2L).get());
+        remoteCacheManager.getCache(NEAR).evict(2L);
+        assertEquals(Set.of("role:read"), cache.get(2L).get());
+    }
+
+    @Test
+    void testEvictClearsBothLevels() {
+        Cache cache = cacheManager.getCache(NEAR);
+        cache.put(3L, Set.of("menu:read"));
+
+        cache.evict(3L);
+
+        assertNull(cache.get(3L));
+        assertNull(remoteCacheManager.getCache(NEAR).get(3L));
+    }
+
+    @Test
+    void testClearLocalKeepsRemote() {
+        Cache cache = cacheManager.getCache(NEAR);
+        cache.put(4L, Set.of("user:create"));
+
+        cacheManager.clearLocal(NEAR);
+
+        assertEquals(0, ((TwoLevelCache) cache).localSize());
+        assertNotNull(remoteCacheManager.getCache(NEAR).get(4L));
+    }
+}
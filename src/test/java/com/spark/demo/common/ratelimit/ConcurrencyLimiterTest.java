@@ -0,0 +1,118 @@
+package com.spark.demo.common.ratelimit;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发数限流测试
+ *
+ * @author spark
+ */
+class ConcurrencyLimiterTest {
+
+    private static final RateLimitKey KEY = new RateLimitKey("rate_limit:captcha:generate", null);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // 计时器的统计窗口按注册表时钟轮转，与限流器使用同一个假时钟
+        meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, new Clock() {
+            @Override
+            public long wallTime() {
+                return TimeUnit.NANOSECONDS.toMillis(now.get());
+            }
+
+            @Override
+            public long monotonicTime() {
+                return now.get();
+            }
+        });
+        limiter = new ConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limiter, "adjustInterval", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(limiter, "window", Duration.ofSeconds(10));
+        limiter.ticker = now::get;
+    }
+
+    @Test
+    void testInFlightIsBoundedAndReleased() {
+        assertTrue(limiter.tryAcquire(KEY, 2));
+        assertTrue(limiter.tryAcquire(KEY, 2));
+        assertFalse(limiter.tryAcquire(KEY, 2));
+
+        limiter.release(KEY);
+        assertEquals(1, limiter.inFlight(KEY));
+        assertTrue(limiter.tryAcquire(KEY, 2));
+
+        limiter.release(KEY);
+        limiter.release(KEY);
+        assertEquals(0, limiter.inFlight(KEY));
+        limiter.release(KEY);
+        assertEquals(0, limiter.inFlight(KEY));
+    }
+
+    @Test
+    void testAdaptiveLimitShrinksWhenP99ExceedsTarget() {
+        AdaptiveConcurrencyLimit limit = limiter.adaptiveLimit("rate_limit:slow", 40, Duration.ofMillis(100));
+        assertEquals(40, limit.currentLimit());
+
+        recordFor(limit, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(30, limit.currentLimit());
+
+        // 一个统计窗口内不重复收缩
+        recordFor(limit, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(30, limit.currentLimit());
+
+        assertEquals(30.0, meterRegistry.get("ratelimit.adaptive.limit").tag("scope", "rate_limit:slow").gauge().value());
+    }
+
+    @Test
+    void testAdaptiveLimitGrowsBackWithinMax() {
+        AdaptiveConcurrencyLimit limit = limiter.adaptiveLimit("rate_limit:slow", 40, Duration.ofMillis(100));
+        recordFor(limit, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(30, limit.currentLimit());
+
+        // 慢样本过期后p99回落到目标以下，每个调整周期放大 max / 20
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        for (int i = 0; i < 10; i++) {
+            recordFor(limit, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals(40, limit.currentLimit());
+    }
+
+    @Test
+    void testFewSamplesDoNotAdjust() {
+        AdaptiveConcurrencyLimit limit = limiter.adaptiveLimit("rate_limit:slow", 40, Duration.ofMillis(100));
+        limit.record(TimeUnit.SECONDS.toNanos(5));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limit.record(TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(40, limit.currentLimit());
+    }
+
+    /**
+     * 一个调整周期内记录20个相同耗时的样本，最后一个样本触发调整
+     */
+    private void recordFor(AdaptiveConcurrencyLimit limit, long latencyNanos) {
+        for (int i = 0; i < 19; i++) {
+            limit.record(latencyNanos);
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limit.record(latencyNanos);
+    }
+}
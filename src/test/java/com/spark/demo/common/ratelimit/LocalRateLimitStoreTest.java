@@ -0,0 +1,121 @@
+package com.spark.demo.common.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地限流存储测试
+ *
+ * @author spark
+ */
+class LocalRateLimitStoreTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private LocalRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalRateLimitStore();
+        ReflectionTestUtils.setField(store, "maxKeys", 64);
+        ReflectionTestUtils.setField(store, "stripes", 4);
+        ReflectionTestUtils.setField(store, "idleTimeout", Duration.ofMinutes(10));
+        store.ticker = now::get;
+        store.init();
+    }
+
+    @Test
+    void testLimitRefillsEachPeriod() {
+        RateLimitKey key = new RateLimitKey("rate_limit:sms", "10.0.0.1");
+
+        assertTrue(store.tryAcquire(key, 2, MINUTE));
+        assertTrue(store.tryAcquire(key, 2, MINUTE));
+        assertFalse(store.tryAcquire(key, 2, MINUTE));
+
+        now.addAndGet(MINUTE - 1);
+        assertFalse(store.tryAcquire(key, 2, MINUTE));
+
+        now.addAndGet(1);
+        assertTrue(store.tryAcquire(key, 2, MINUTE));
+        assertTrue(store.tryAcquire(key, 2, MINUTE));
+        assertFalse(store.tryAcquire(key, 2, MINUTE));
+    }
+
+    @Test
+    void testSlidingWindowLimitsBurstAcrossBoundary() {
+        RateLimitKey key = new RateLimitKey("rate_limit:sms", "10.0.0.1");
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(store.tryAcquireSliding(key, 4, MINUTE));
+        }
+        assertFalse(store.tryAcquireSliding(key, 4, MINUTE));
+
+        // 固定窗口在边界后立即补满，滑动窗口仍按上一周期的计数限制
+        now.addAndGet(MINUTE + MINUTE / 4);
+        assertTrue(store.tryAcquireSliding(key, 4, MINUTE));
+        assertFalse(store.tryAcquireSliding(key, 4, MINUTE));
+
+        now.addAndGet(MINUTE / 2);
+        assertTrue(store.tryAcquireSliding(key, 4, MINUTE));
+        assertTrue(store.tryAcquireSliding(key, 4, MINUTE));
+        assertFalse(store.tryAcquireSliding(key, 4, MINUTE));
+    }
+
+    @Test
+    void testSubjectsAreLimitedIndependently() {
+        RateLimitKey first = new RateLimitKey("rate_limit:login", "10.0.0.1");
+        RateLimitKey second = new RateLimitKey("rate_limit:login", "10.0.0.2");
+
+        assertTrue(store.tryAcquire(first, 1, MINUTE));
+        assertFalse(store.tryAcquire(new RateLimitKey("rate_limit:login", "10.0.0.1"), 1, MINUTE));
+        assertTrue(store.tryAcquire(second, 1, MINUTE));
+        assertTrue(store.tryAcquire(new RateLimitKey("rate_limit:login", null), 1, MINUTE));
+    }
+
+    @Test
+    void testKeyCountIsBounded() {
+        for (int i = 0; i < 10_000; i++) {
+            store.tryAcquire(new RateLimitKey("rate_limit:scan", "10.0." + (i >> 8) + "." + (i & 0xff)), 5, MINUTE);
+        }
+
+        assertTrue(store.size() <= 64, "key数量: " + store.size());
+    }
+
+    @Test
+    void testIdleKeysAreSwept() {
+        for (int i = 0; i < 20; i++) {
+            store.tryAcquire(new RateLimitKey("rate_limit:api", "user-" + i), 5, MINUTE);
+        }
+        store.sweep();
+        assertEquals(20, store.size());
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        RateLimitKey active = new RateLimitKey("rate_limit:api", "active");
+        store.tryAcquire(active, 5, MINUTE);
+        store.sweep();
+
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testIdleKeyInsideLongWindowIsKept() {
+        RateLimitKey key = new RateLimitKey("rate_limit:daily", "10.0.0.1");
+        long day = TimeUnit.DAYS.toNanos(1);
+        assertTrue(store.tryAcquire(key, 1, day));
+
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        store.sweep();
+
+        assertEquals(1, store.size());
+        assertFalse(store.tryAcquire(key, 1, day));
+    }
+}
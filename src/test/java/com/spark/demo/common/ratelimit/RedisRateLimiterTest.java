@@ -0,0 +1,105 @@
+package com.spark.demo.common.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis分布式限流测试
+ *
+ * @author spark
+ */
+@SuppressWarnings("unchecked")
+class RedisRateLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private static final RateLimitKey KEY = new RateLimitKey("rate_limit:auth:password-login", "10.0.0.1");
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        LocalRateLimitStore localStore = new LocalRateLimitStore();
+        localStore.init();
+
+        limiter = new RedisRateLimiter();
+        ReflectionTestUtils.setField(limiter, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(limiter, "localRateLimitStore", localStore);
+        ReflectionTestUtils.setField(limiter, "leaseTtl", Duration.ofSeconds(1));
+        limiter.ticker = now::get;
+        limiter.init();
+    }
+
+    @Test
+    void testEachRequestTakesOneTokenFromRedis() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L, 0L);
+
+        assertTrue(limiter.tryAcquire(KEY, 5, MINUTE));
+        assertFalse(limiter.tryAcquire(KEY, 5, MINUTE));
+
+        verify(stringRedisTemplate, times(2)).execute(any(RedisScript.class),
+                eq(List.of("rate_limit:auth:password-login:10.0.0.1")), eq("5"), eq("60000"), eq("1"));
+    }
+
+    @Test
+    void testLeasedTokensAreConsumedLocally() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(10L);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquireLeased(KEY, 100, MINUTE, 10));
+        }
+
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(),
+                eq("100"), eq("60000"), eq("10"));
+    }
+
+    @Test
+    void testExhaustedOrExpiredLeaseGoesBackToRedis() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L, 2L, 0L);
+
+        assertTrue(limiter.tryAcquireLeased(KEY, 100, MINUTE, 10));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(limiter.tryAcquireLeased(KEY, 100, MINUTE, 10));
+        assertTrue(limiter.tryAcquireLeased(KEY, 100, MINUTE, 10));
+        assertFalse(limiter.tryAcquireLeased(KEY, 100, MINUTE, 10));
+
+        verify(stringRedisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void testLeaseSizeIsCappedByLimit() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(3L);
+
+        limiter.tryAcquireLeased(KEY, 3, MINUTE, 10);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), eq("3"), eq("60000"), eq("3"));
+    }
+
+    @Test
+    void testRedisFailureFallsBackToLocalLimit() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(limiter.tryAcquire(KEY, 2, MINUTE));
+        assertTrue(limiter.tryAcquireLeased(KEY, 2, MINUTE, 10));
+        assertFalse(limiter.tryAcquire(KEY, 2, MINUTE));
+    }
+}
@@ -0,0 +1,39 @@
+package com.spark.demo.common.session;
+
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户版本号登记配置校验测试
+ *
+ * @author spark
+ */
+class UserVersionRegistryTest {
+
+    private UserVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new UserVersionRegistry();
+        ReflectionTestUtils.setField(registry, "stringRedisTemplate", mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(registry, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+    }
+
+    @Test
+    void testVersionTtlMustOutliveAccessToken() {
+        ReflectionTestUtils.setField(registry, "accessTokenHours", 48);
+        ReflectionTestUtils.setField(registry, "versionTtl", Duration.ofDays(2));
+        assertThrows(IllegalStateException.class, registry::init);
+
+        ReflectionTestUtils.setField(registry, "versionTtl", Duration.ofHours(49));
+        assertDoesNotThrow(registry::init);
+    }
+}
@@ -0,0 +1,55 @@
+package com.spark.demo.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可信代理客户端IP解析测试
+ *
+ * @author spark
+ */
+class IpUtilTest {
+
+    private static final Set<String> PROXIES = Set.of("10.0.0.1", "10.0.0.2");
+
+    @Test
+    void testForwardedHeadersIgnoredWithoutTrustedProxy() {
+        MockHttpServletRequest request = request("203.0.113.7", "1.2.3.4");
+        request.addHeader("X-Real-IP", "5.6.7.8");
+
+        assertEquals("203.0.113.7", IpUtil.getClientIP(request, Set.of()));
+        assertEquals("203.0.113.7", IpUtil.getClientIP(request, PROXIES));
+    }
+
+    @Test
+    void testForwardedForWalkedFromRightPastTrustedProxies() {
+        // 客户端伪造的最左侧地址不会被采用
+        assertEquals("198.51.100.9",
+                IpUtil.getClientIP(request("10.0.0.1", "1.2.3.4, 198.51.100.9, 10.0.0.2"), PROXIES));
+        // 全部为可信代理时退回直连地址
+        assertEquals("10.0.0.1", IpUtil.getClientIP(request("10.0.0.1", "10.0.0.2"), PROXIES));
+        assertEquals("10.0.0.1", IpUtil.getClientIP(request("10.0.0.1", "1.2.3.4, unknown"), PROXIES));
+    }
+
+    @Test
+    void testRealIpUsedFromTrustedProxy() {
+        MockHttpServletRequest request = request("0:0:0:0:0:0:0:1", null);
+        request.addHeader("X-Real-IP", "198.51.100.9");
+
+        assertEquals("198.51.100.9", IpUtil.getClientIP(request, Set.of("127.0.0.1")));
+        assertEquals("127.0.0.1", IpUtil.getClientIP(request, Set.of()));
+    }
+
+    private MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -138,6 +138,34 @@ class JwtUtilTest extends BaseTest {
         ReflectionTestUtils.setField(jwtUtil, "expiration", 24);
     }
 
+    @Test
+    void testParseClaimsOnce() {
+        Map<String, Object> additionalClaims = new HashMap<>();
+        additionalClaims.put("role", "USER");
+        additionalClaims.put("uuid", "abc-uuid");
+        String token = jwtUtil.generateAccessToken(7L, "testuser", additionalClaims);
+
+        JwtClaims claims = jwtUtil.parseClaims(token);
+
+        assertEquals("testuser", claims.getUsername());
+        assertEquals(7L, claims.getUserId());
+        assertTrue(claims.isAccessToken());
+        assertEquals("USER", claims.getRole());
+        assertEquals("abc-uuid", claims.getUuid());
+        assertTrue(claims.getRemainingMillis() > 0);
+    }
+
+    @Test
+    void testTryParseClaimsReturnsNullForInvalidToken() {
+        String token = jwtUtil.generateRefreshToken(1L, "testuser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.tryParseClaims(token).isRefreshToken());
+        assertNull(jwtUtil.tryParseClaims(tampered));
+        assertNull(jwtUtil.tryParseClaims("invalid.token.format"));
+        assertNull(jwtUtil.tryParseClaims(""));
+    }
+
     @Test
     void testParseInvalidToken() {
         // 测试解析无效token时的异常处理
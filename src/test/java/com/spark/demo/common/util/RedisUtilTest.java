@@ -0,0 +1,248 @@
+package com.spark.demo.common.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisUtil批量操作测试
+ * 管道以替身执行：回调内的每条命令记录一个结果，executePipelined 返回本批的结果列表
+ *
+ * @author spark
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+class RedisUtilTest {
+
+    private static final int FLUSH_SIZE = 2;
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ValueOperations<String, Object> valueOps;
+
+    private ValueOperations<String, String> stringValueOps;
+
+    private RedisOperations<String, Object> pipelineOps;
+
+    private ValueOperations<String, Object> pipelineValueOps;
+
+    private HashOperations<String, Object, Object> pipelineHashOps;
+
+    private final Map<String, Object> store = new HashMap<>();
+
+    private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+
+    private final List<Object> pending = new ArrayList<>();
+
+    private final List<Integer> pipelineSizes = new ArrayList<>();
+
+    private final List<Integer> multiGetSizes = new ArrayList<>();
+
+    private RedisUtil redisUtil;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        stringValueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringValueOps);
+        when(valueOps.multiGet(anyCollection())).thenAnswer(invocation -> lookup(invocation.getArgument(0)));
+        when(stringValueOps.multiGet(anyCollection())).thenAnswer(invocation -> lookup(invocation.getArgument(0)));
+
+        // 管道内的操作：每条命令登记一个结果
+        pipelineOps = mock(RedisOperations.class);
+        pipelineValueOps = mock(ValueOperations.class);
+        pipelineHashOps = mock(HashOperations.class);
+        when(pipelineOps.opsForValue()).thenReturn(pipelineValueOps);
+        when(pipelineOps.opsForHash()).thenReturn(pipelineHashOps);
+        doAnswer(invocation -> pending.add(Boolean.TRUE))
+                .when(pipelineValueOps).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+        doAnswer(invocation -> pending.add(Boolean.TRUE)).when(pipelineHashOps).putAll(anyString(), anyMap());
+        when(pipelineHashOps.entries(anyString())).thenAnswer(invocation -> {
+            pending.add(hashes.getOrDefault(invocation.<String>getArgument(0), new LinkedHashMap<>()));
+            return null;
+        });
+        when(pipelineOps.expire(anyString(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            pending.add(store.containsKey(invocation.<String>getArgument(0)));
+            return null;
+        });
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenAnswer(invocation -> runPipeline(invocation.getArgument(0)));
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenAnswer(invocation -> runPipeline(invocation.getArgument(0)));
+
+        redisUtil = new RedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(redisUtil, "pipelineFlushSize", FLUSH_SIZE);
+    }
+
+    @Test
+    void testMultiGetKeepsOrderAndNullPositions() {
+        store.put("a", "1");
+        store.put("c", "3");
+        store.put("e", "5");
+
+        List<Object> values = redisUtil.multiGet(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(Arrays.asList("1", null, "3", null, "5"), values);
+        // 按刷新批大小拆分MGET
+        assertEquals(List.of(2, 2, 1), multiGetSizes);
+    }
+
+    @Test
+    void testMultiGetFillsNullsWhenChunkReturnsNothing() {
+        store.put("a", "1");
+        store.put("c", "3");
+        // 第二批MGET返回null（如在事务/管道中执行），该批所有位置补null，后续批不错位
+        doAnswer(invocation -> lookup(invocation.getArgument(0)))
+                .doReturn(null)
+                .doAnswer(invocation -> lookup(invocation.getArgument(0)))
+                .when(valueOps).multiGet(anyCollection());
+
+        List<Object> values = redisUtil.multiGet(List.of("a", "b", "x", "y", "c"));
+
+        assertEquals(Arrays.asList("1", null, null, null, "3"), values);
+    }
+
+    @Test
+    void testMultiGetString() {
+        store.put("k2", "v2");
+
+        assertEquals(Arrays.asList(null, "v2", null), redisUtil.multiGetString(List.of("k1", "k2", "k3")));
+        assertEquals(List.of(2, 1), multiGetSizes);
+    }
+
+    @Test
+    void testMultiSetUsesTimeoutPerKey() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("a", 1);
+        entries.put("bb", 2);
+        entries.put("ccc", 3);
+
+        redisUtil.multiSet(entries, key -> 100L + key.length(), TimeUnit.SECONDS);
+
+        verify(pipelineValueOps).set("a", 1, 101L, TimeUnit.SECONDS);
+        verify(pipelineValueOps).set("bb", 2, 102L, TimeUnit.SECONDS);
+        verify(pipelineValueOps).set("ccc", 3, 103L, TimeUnit.SECONDS);
+        assertEquals(List.of(2, 1), pipelineSizes);
+    }
+
+    @Test
+    void testMultiSetWithUniformTimeout() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            entries.put("key" + i, i);
+        }
+
+        redisUtil.multiSet(entries, 30, TimeUnit.MINUTES);
+
+        for (int i = 0; i < 5; i++) {
+            verify(pipelineValueOps).set("key" + i, i, 30L, TimeUnit.MINUTES);
+        }
+        verify(redisTemplate, times(3)).executePipelined(any(SessionCallback.class));
+        assertEquals(List.of(2, 2, 1), pipelineSizes);
+    }
+
+    @Test
+    void testMultiSetString() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("s1", "a");
+        entries.put("s2", "b");
+
+        redisUtil.multiSetString(entries, 5, TimeUnit.MINUTES);
+
+        verify(pipelineValueOps).set("s1", "a", 5L, TimeUnit.MINUTES);
+        verify(pipelineValueOps).set("s2", "b", 5L, TimeUnit.MINUTES);
+        verify(stringRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void testMultiExpireCountsExistingKeys() {
+        store.put("a", 1);
+        store.put("c", 3);
+
+        long updated = redisUtil.multiExpire(List.of("a", "b", "c"), 10, TimeUnit.SECONDS);
+
+        assertEquals(2, updated);
+        assertEquals(List.of(2, 1), pipelineSizes);
+    }
+
+    @Test
+    void testHashGetAllBatch() {
+        hashes.put("h1", Map.of("f", "1"));
+        hashes.put("h3", Map.of("g", "3"));
+
+        Map<String, Map<Object, Object>> result = redisUtil.hashGetAllBatch(List.of("h1", "h2", "h3"));
+
+        assertEquals(List.of("h1", "h2", "h3"), new ArrayList<>(result.keySet()));
+        assertEquals(Map.of("f", "1"), result.get("h1"));
+        assertTrue(result.get("h2").isEmpty());
+        assertEquals(Map.of("g", "3"), result.get("h3"));
+        assertEquals(List.of(2, 1), pipelineSizes);
+    }
+
+    @Test
+    void testHashSetAllBatchWithAndWithoutTimeout() {
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        batch.put("h1", Map.of("f", 1));
+        batch.put("h2", Map.of("f", 2));
+        batch.put("h3", Map.of("f", 3));
+
+        redisUtil.hashSetAllBatch(batch, 60, TimeUnit.SECONDS);
+
+        verify(pipelineHashOps).putAll("h1", Map.of("f", 1));
+        verify(pipelineHashOps).putAll("h3", Map.of("f", 3));
+        // 每个Hash两条命令（HMSET + EXPIRE），按条目而非命令数分批
+        verify(pipelineOps).expire("h2", 60L, TimeUnit.SECONDS);
+        assertEquals(List.of(4, 2), pipelineSizes);
+
+        clearInvocations(pipelineOps);
+        pipelineSizes.clear();
+        redisUtil.hashSetAllBatch(batch, 0, TimeUnit.SECONDS);
+        verify(pipelineOps, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+        assertEquals(List.of(2, 1), pipelineSizes);
+    }
+
+    private List<Object> lookup(List<String> keys) {
+        multiGetSizes.add(keys.size());
+        List<Object> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(store.get(key));
+        }
+        return values;
+    }
+
+    private List<Object> runPipeline(SessionCallback callback) {
+        pending.clear();
+        callback.execute(pipelineOps);
+        pipelineSizes.add(pending.size());
+        return new ArrayList<>(pending);
+    }
+}
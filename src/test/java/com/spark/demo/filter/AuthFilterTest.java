@@ -0,0 +1,169 @@
+package com.spark.demo.filter;
+
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.context.UserContext;
+import com.spark.demo.common.session.UserSessionSnapshot;
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.config.RedisConfig;
+import com.spark.demo.entity.User;
+import com.spark.demo.service.UserService;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * AuthFilter Session用户快照测试
+ *
+ * @author spark
+ */
+class AuthFilterTest {
+
+    private static final String UUID = "3b9d2f6a-7c41-4e0b-8f2d-5a6c1e9b0d44";
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    private UserService userService;
+
+    private UserVersionRegistry userVersionRegistry;
+
+    private AuthFilter authFilter;
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        when(valueOperations.increment(anyString())).thenAnswer(invocation ->
+                Long.parseLong(redis.merge(invocation.getArgument(0), "1",
+                        (current, one) -> String.valueOf(Long.parseLong(current) + 1))));
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        userVersionRegistry = new UserVersionRegistry();
+        ReflectionTestUtils.setField(userVersionRegistry, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(userVersionRegistry, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        userVersionRegistry.init();
+
+        userService = mock(UserService.class);
+        authFilter = new AuthFilter();
+        ReflectionTestUtils.setField(authFilter, "userService", userService);
+        ReflectionTestUtils.setField(authFilter, "userVersionRegistry", userVersionRegistry);
+
+        User user = user(1);
+        session = new MockHttpSession();
+        session.setAttribute("userUuid", UUID);
+        session.setAttribute("userId", 1L);
+        session.setAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE,
+                UserSessionSnapshot.of(user, userVersionRegistry.currentVersion(UUID)));
+    }
+
+    @Test
+    void testCurrentSnapshotSkipsUserLookup() throws Exception {
+        AtomicReference<User> contextUser = new AtomicReference<>();
+
+        MockHttpServletResponse response = doFilter((req, res) -> contextUser.set(UserContext.getCurrentUser()));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("alice", contextUser.get().getUsername());
+        assertEquals(1L, contextUser.get().getId());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testBumpedVersionReloadsUserOnce() throws Exception {
+        User updated = user(1);
+        updated.setRole("admin");
+        when(userService.getById(1L)).thenReturn(updated);
+
+        userVersionRegistry.bump(UUID);
+        AtomicReference<User> contextUser = new AtomicReference<>();
+        doFilter((req, res) -> contextUser.set(UserContext.getCurrentUser()));
+        doFilter((req, res) -> contextUser.set(UserContext.getCurrentUser()));
+
+        assertEquals("admin", contextUser.get().getRole());
+        UserSessionSnapshot snapshot = (UserSessionSnapshot) session.getAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE);
+        assertEquals(1L, snapshot.getVersion());
+        verify(userService, times(1)).getById(1L);
+    }
+
+    @Test
+    void testUserDisabledAfterBumpIsRejected() throws Exception {
+        when(userService.getById(1L)).thenReturn(user(0));
+
+        userVersionRegistry.bump(UUID);
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = doFilter(chain);
+
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString(StandardCharsets.UTF_8).contains("用户已被禁用"));
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void testDeletedUserIsRejectedAndSnapshotRemoved() throws Exception {
+        userVersionRegistry.bump(UUID);
+
+        MockHttpServletResponse response = doFilter(mock(FilterChain.class));
+
+        assertEquals(401, response.getStatus());
+        assertNull(session.getAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE));
+    }
+
+    @Test
+    void testSessionWithoutSnapshotIsRevalidated() throws Exception {
+        session.removeAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE);
+        when(userService.getById(1L)).thenReturn(user(1));
+
+        doFilter(mock(FilterChain.class));
+        doFilter(mock(FilterChain.class));
+
+        assertNotNull(session.getAttribute(UserSessionSnapshot.SESSION_ATTRIBUTE));
+        verify(userService, times(1)).getById(1L);
+    }
+
+    @Test
+    void testSnapshotRoundTripsThroughSessionSerializer() {
+        RedisSerializer<Object> serializer = new RedisConfig().springSessionDefaultRedisSerializer();
+        UserSessionSnapshot snapshot = UserSessionSnapshot.of(user(1), 7L);
+
+        Object restored = serializer.deserialize(serializer.serialize(snapshot));
+
+        assertEquals(snapshot, restored);
+    }
+
+    private MockHttpServletResponse doFilter(FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/info");
+        request.setSession(session);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static User user(int status) {
+        User user = new User();
+        user.setId(1L);
+        user.setUuid(UUID);
+        user.setUsername("alice");
+        user.setRole("user");
+        user.setStatus(status);
+        return user;
+    }
+}
@@ -0,0 +1,178 @@
+package com.spark.demo.modules.auth.security;
+
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.util.JwtClaims;
+import com.spark.demo.common.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JWT吊销列表测试
+ *
+ * @author spark
+ */
+@SuppressWarnings("unchecked")
+class TokenRevocationListTest {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForHS256Algorithm";
+
+    private JwtUtil jwtUtil;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ValueOperations<String, String> valueOperations;
+
+    private ZSetOperations<String, String> zSetOperations;
+
+    private InMemoryCacheInvalidationBus bus;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 24);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7);
+        jwtUtil.init();
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.range(anyString(), anyLong(), anyLong())).thenReturn(Collections.emptySet());
+
+        bus = new InMemoryCacheInvalidationBus();
+        revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(revocationList, "cacheInvalidationBus", bus);
+    }
+
+    @Test
+    void testNotRevokedIsAnsweredWithoutRedis() {
+        revocationList.init();
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(revocationList.isRevoked(UUID.randomUUID().toString()));
+        }
+
+        verify(stringRedisTemplate, atMost(1)).hasKey(anyString());
+    }
+
+    @Test
+    void testRevokeStoresJtiForRemainingLifetime() {
+        revocationList.init();
+        JwtClaims claims = jwtUtil.parseClaims(jwtUtil.generateRefreshToken(1L, "13800138000"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertTrue(revocationList.revoke(claims));
+
+        verify(valueOperations).setIfAbsent(eq("app:jwt:revoked:" + claims.getId()), eq("1"),
+                argThat((Duration ttl) -> !ttl.isNegative() && ttl.compareTo(Duration.ofDays(7)) <= 0));
+        verify(zSetOperations).add("app:jwt:revocation:index", claims.getId(), claims.getExpiration().getTime());
+        when(stringRedisTemplate.hasKey("app:jwt:revoked:" + claims.getId())).thenReturn(true);
+        assertTrue(revocationList.isRevoked(claims.getId()));
+    }
+
+    @Test
+    void testConsumeSucceedsOnlyOnce() {
+        revocationList.init();
+        JwtClaims claims = jwtUtil.parseClaims(jwtUtil.generateRefreshToken(1L, "13800138000"));
+        // SET NX：第一次写入成功，之后的并发/重复请求写入失败
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true, false);
+
+        assertTrue(revocationList.consume(claims));
+        assertFalse(revocationList.consume(claims));
+        // 重复吊销仍视为已吊销
+        assertTrue(revocationList.revoke(claims));
+        verify(zSetOperations, times(1)).add(anyString(), anyString(), anyDouble());
+
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        assertFalse(revocationList.consume(claims));
+        assertFalse(revocationList.revoke(claims));
+    }
+
+    @Test
+    void testRevocationFromOtherNodeAndRebuildReachFilter() {
+        String indexed = UUID.randomUUID().toString();
+        when(zSetOperations.range(anyString(), anyLong(), anyLong())).thenReturn(Set.of(indexed));
+        when(stringRedisTemplate.hasKey(anyString())).thenReturn(true);
+        revocationList.init();
+
+        String published = UUID.randomUUID().toString();
+        bus.publish(CacheInvalidationMessage.of(Collections.singletonList(TokenRevocationList.CACHE_NAME),
+                Collections.singletonList(published), "jwt-revoke:" + published));
+
+        assertTrue(revocationList.isRevoked(indexed));
+        assertTrue(revocationList.isRevoked(published));
+        verify(zSetOperations).removeRangeByScore(eq("app:jwt:revocation:index"), eq(0d), anyDouble());
+    }
+
+    @Test
+    void testChecksRedisUntilFirstRebuildAndFailsClosed() {
+        when(zSetOperations.range(anyString(), anyLong(), anyLong()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        revocationList.init();
+        String jti = UUID.randomUUID().toString();
+
+        when(stringRedisTemplate.hasKey(anyString())).thenReturn(false);
+        assertFalse(revocationList.isRevoked(jti));
+        verify(stringRedisTemplate).hasKey("app:jwt:revoked:" + jti);
+
+        when(stringRedisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        assertTrue(revocationList.isRevoked(jti));
+    }
+
+    @Test
+    void testTokenWithoutJtiCannotBeRevoked() {
+        revocationList.init();
+        JwtClaims claims = jwtUtil.parseClaims(Jwts.builder()
+                .subject("13800138000")
+                .claims(Map.of("userId", 1L, "type", JwtClaims.TYPE_ACCESS))
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact());
+
+        assertFalse(revocationList.revoke(claims));
+        assertFalse(revocationList.isRevoked(null));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void testBloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "误判数: " + falsePositives);
+    }
+}
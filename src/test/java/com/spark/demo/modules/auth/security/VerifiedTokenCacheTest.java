@@ -0,0 +1,134 @@
+package com.spark.demo.modules.auth.security;
+
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
+import com.spark.demo.common.util.JwtUtil;
+import com.spark.demo.entity.User;
+import com.spark.demo.modules.auth.service.CustomUserDetailsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 已验签JWT缓存测试
+ *
+ * @author spark
+ */
+class VerifiedTokenCacheTest {
+
+    private static final String UUID = "9e1f4c2a-0b3d-4a5e-8f6c-7d2b1a0e9c33";
+
+    private JwtUtil jwtUtil;
+
+    private UserVersionRegistry userVersionRegistry;
+
+    private VerifiedTokenCache cache;
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private final AtomicInteger principalLoads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 24);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7);
+        jwtUtil.init();
+
+        userVersionRegistry = mock(UserVersionRegistry.class);
+        when(userVersionRegistry.currentVersion(anyString())).thenReturn(0L);
+
+        cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "userVersionRegistry", userVersionRegistry);
+        cache.init();
+    }
+
+    @Test
+    void testRepeatedTokenSkipsVerificationAndUserLookup() {
+        String token = accessToken();
+
+        VerifiedTokenCache.VerifiedToken first = resolve(token);
+        VerifiedTokenCache.VerifiedToken second = resolve(token);
+
+        assertSame(first, second);
+        assertEquals("13800138000", second.getClaims().getUsername());
+        assertEquals(1, verifications.get());
+        assertEquals(1, principalLoads.get());
+    }
+
+    @Test
+    void testUserVersionChangeForcesReload() {
+        String token = accessToken();
+        resolve(token);
+
+        when(userVersionRegistry.currentVersion(UUID)).thenReturn(1L);
+        VerifiedTokenCache.VerifiedToken reloaded = resolve(token);
+        resolve(token);
+
+        assertEquals(1L, reloaded.getVersion());
+        assertEquals(2, verifications.get());
+        assertEquals(2, principalLoads.get());
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        String token = accessToken();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(resolve(tampered));
+        assertNull(resolve(tampered));
+        assertEquals(2, verifications.get());
+        assertEquals(0, principalLoads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testUnknownVersionIsNotCached() {
+        when(userVersionRegistry.currentVersion(UUID)).thenReturn(UserVersionRegistry.UNKNOWN);
+        String token = accessToken();
+
+        assertNotNull(resolve(token));
+        assertNotNull(resolve(token));
+        assertEquals(2, principalLoads.get());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysVerifies() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        String token = accessToken();
+
+        resolve(token);
+        resolve(token);
+
+        assertEquals(2, verifications.get());
+    }
+
+    private VerifiedTokenCache.VerifiedToken resolve(String token) {
+        Function<JwtClaims, UserDetails> loader = claims -> {
+            principalLoads.incrementAndGet();
+            User user = new User();
+            user.setUuid(UUID);
+            user.setPhone(claims.getUsername());
+            user.setStatus(1);
+            return new CustomUserDetailsService.CustomUserPrincipal(user);
+        };
+        return cache.resolve(token, value -> {
+            verifications.incrementAndGet();
+            return jwtUtil.tryParseClaims(value);
+        }, loader);
+    }
+
+    private String accessToken() {
+        return jwtUtil.generateAccessToken(1L, "13800138000", Map.of("role", "user", "uuid", UUID));
+    }
+}
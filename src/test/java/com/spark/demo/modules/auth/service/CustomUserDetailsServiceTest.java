@@ -0,0 +1,116 @@
+package com.spark.demo.modules.auth.service;
+
+import com.spark.demo.common.session.UserVersionRegistry;
+import com.spark.demo.common.util.JwtClaims;
+import com.spark.demo.common.util.JwtUtil;
+import com.spark.demo.entity.User;
+import com.spark.demo.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 由JWT声明构建用户主体测试
+ *
+ * @author spark
+ */
+class CustomUserDetailsServiceTest {
+
+    private static final String UUID = "3c8e5b1a-6d2f-4e9a-b7c0-1f2d3e4a5b6c";
+
+    private JwtUtil jwtUtil;
+
+    private UserService userService;
+
+    private UserVersionRegistry userVersionRegistry;
+
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "mySecretKeyForJWTTokenGenerationThatShouldBeLongEnoughForHS256Algorithm");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 24);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7);
+        jwtUtil.init();
+
+        userService = mock(UserService.class);
+        User dbUser = new User();
+        dbUser.setId(1L);
+        dbUser.setUuid(UUID);
+        dbUser.setPhone("13800138000");
+        dbUser.setRole("user");
+        dbUser.setStatus(0);
+        when(userService.getOne(any())).thenReturn(dbUser);
+
+        userVersionRegistry = mock(UserVersionRegistry.class);
+        when(userVersionRegistry.currentVersion(UUID)).thenReturn(3L);
+
+        userDetailsService = new CustomUserDetailsService(userService, userVersionRegistry);
+    }
+
+    @Test
+    void testCurrentStampBuildsPrincipalWithoutDatabase() {
+        UserDetails principal = userDetailsService.loadUserByClaims(claims(accessToken(3L)));
+
+        assertEquals("13800138000", principal.getUsername());
+        assertTrue(principal.isEnabled());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().iterator().next().getAuthority());
+        CustomUserDetailsService.CustomUserPrincipal custom = (CustomUserDetailsService.CustomUserPrincipal) principal;
+        assertEquals(1L, custom.getUser().getId());
+        assertEquals(UUID, custom.getUser().getUuid());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testStaleOrMissingStampFallsBackToDatabase() {
+        UserDetails stale = userDetailsService.loadUserByClaims(claims(accessToken(2L)));
+        UserDetails unstamped = userDetailsService.loadUserByClaims(claims(accessToken(null)));
+
+        assertFalse(stale.isEnabled());
+        assertEquals("ROLE_USER", stale.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElse(null));
+        assertFalse(unstamped.isEnabled());
+        verify(userService, times(2)).getOne(any());
+    }
+
+    @Test
+    void testUnknownVersionFallsBackToDatabase() {
+        when(userVersionRegistry.currentVersion(UUID)).thenReturn(UserVersionRegistry.UNKNOWN);
+
+        userDetailsService.loadUserByClaims(claims(accessToken(UserVersionRegistry.UNKNOWN)));
+
+        verify(userService).getOne(any());
+    }
+
+    @Test
+    void testRefreshTokenAndDisabledModeUseDatabase() {
+        userDetailsService.loadUserByClaims(claims(jwtUtil.generateRefreshToken(1L, "13800138000")));
+        ReflectionTestUtils.setField(userDetailsService, "statelessPrincipalEnabled", false);
+        userDetailsService.loadUserByClaims(claims(accessToken(3L)));
+
+        verify(userService, times(2)).getOne(any());
+    }
+
+    private JwtClaims claims(String token) {
+        return jwtUtil.parseClaims(token);
+    }
+
+    private String accessToken(Long stamp) {
+        Map<String, Object> additionalClaims = new HashMap<>();
+        additionalClaims.put("role", "admin");
+        additionalClaims.put("uuid", UUID);
+        if (stamp != null) {
+            additionalClaims.put(JwtClaims.PERMISSION_VERSION, stamp);
+        }
+        return jwtUtil.generateAccessToken(1L, "13800138000", additionalClaims);
+    }
+}
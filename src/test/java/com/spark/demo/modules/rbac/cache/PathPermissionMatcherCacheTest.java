@@ -0,0 +1,129 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户路径权限匹配器缓存测试
+ *
+ * @author spark
+ */
+class PathPermissionMatcherCacheTest {
+
+    private RbacCacheService rbacCacheService;
+
+    private InMemoryCacheInvalidationBus cacheInvalidationBus;
+
+    private PathPermissionMatcherCache matcherCache;
+
+    @BeforeEach
+    void setUp() {
+        rbacCacheService = mock(RbacCacheService.class);
+        when(rbacCacheService.getUserRoles(1L)).thenReturn(List.of(role(20L), role(10L)));
+        when(rbacCacheService.getUserRoles(2L)).thenReturn(List.of(role(10L), role(20L)));
+        when(rbacCacheService.getUserRoles(3L)).thenReturn(List.of(role(30L)));
+        when(rbacCacheService.getRolePermissions(10L)).thenReturn(List.of(
+                permission("user:list", "/v1/users/list", "GET"),
+                permission("user:read", "/v1/users/{uuid}", "GET"),
+                permission("user", null, null)));
+        when(rbacCacheService.getRolePermissions(20L)).thenReturn(List.of(
+                permission("role:manage", "/v1/roles/**", null),
+                permission("invalid", "/v1/invalid", "FETCH")));
+        when(rbacCacheService.getRolePermissions(30L)).thenReturn(List.of(
+                permission("user:create", "/v1/users", "POST")));
+
+        cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+        matcherCache = new PathPermissionMatcherCache();
+        ReflectionTestUtils.setField(matcherCache, "rbacCacheService", rbacCacheService);
+        ReflectionTestUtils.setField(matcherCache, "cacheInvalidationBus", cacheInvalidationBus);
+        matcherCache.init();
+    }
+
+    @Test
+    void testExactVariableAndWildcardPaths() {
+        assertTrue(matcherCache.matches(1L, "/v1/users/list", "GET"));
+        assertTrue(matcherCache.matches(1L, "/v1/users/3b9d2f6a-7c41", "get"));
+        assertFalse(matcherCache.matches(1L, "/v1/users/3b9d2f6a-7c41", "DELETE"));
+        assertFalse(matcherCache.matches(1L, "/v1/users/3b9d2f6a-7c41/roles", "GET"));
+        assertTrue(matcherCache.matches(1L, "/v1/roles/5/permissions", "PUT"));
+        assertFalse(matcherCache.matches(1L, "/v1/invalid", "GET"));
+
+        assertTrue(matcherCache.matches(3L, "/v1/users", "POST"));
+        assertFalse(matcherCache.matches(3L, "/v1/users/list", "GET"));
+        assertFalse(matcherCache.matches(null, "/v1/users/list", "GET"));
+    }
+
+    @Test
+    void testUsersWithSameRolesShareCompiledMatcher() {
+        assertSame(matcherCache.matcherFor(1L), matcherCache.matcherFor(2L));
+        matcherCache.matches(1L, "/v1/users/list", "GET");
+        matcherCache.matches(2L, "/v1/users/list", "GET");
+
+        assertEquals(1, matcherCache.size());
+        verify(rbacCacheService, times(1)).getRolePermissions(10L);
+        verify(rbacCacheService, times(1)).getRolePermissions(20L);
+    }
+
+    @Test
+    void testRoleInvalidationDropsAffectedMatchers() {
+        matcherCache.matches(1L, "/v1/users/list", "GET");
+        matcherCache.matches(3L, "/v1/users", "POST");
+        assertEquals(2, matcherCache.size());
+
+        when(rbacCacheService.getRolePermissions(10L)).thenReturn(List.of());
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(RbacCacheInvalidator.ROLE_CACHE_NAMES,
+                List.of(10L), "role:10"));
+
+        assertEquals(1, matcherCache.size());
+        assertFalse(matcherCache.matches(1L, "/v1/users/list", "GET"));
+        assertTrue(matcherCache.matches(1L, "/v1/roles/5", "GET"));
+    }
+
+    @Test
+    void testMatcherCompiledDuringInvalidationIsNotCached() {
+        when(rbacCacheService.getRolePermissions(30L)).thenAnswer(invocation -> {
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(RbacCacheInvalidator.ROLE_CACHE_NAMES,
+                    List.of(99L), "role:99"));
+            return List.of(permission("user:create", "/v1/users", "POST"));
+        });
+
+        assertTrue(matcherCache.matches(3L, "/v1/users", "POST"));
+        assertEquals(0, matcherCache.size());
+    }
+
+    @Test
+    void testPermissionChangeDropsAllMatchers() {
+        matcherCache.matches(1L, "/v1/users/list", "GET");
+        matcherCache.matches(3L, "/v1/users", "POST");
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of("rbac:role:permissions"), null, "permission:1"));
+
+        assertEquals(0, matcherCache.size());
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        role.setStatus(1);
+        return role;
+    }
+
+    private static Permission permission(String code, String path, String method) {
+        Permission permission = new Permission();
+        permission.setPermissionCode(code);
+        permission.setPath(path);
+        permission.setMethod(method);
+        return permission;
+    }
+}
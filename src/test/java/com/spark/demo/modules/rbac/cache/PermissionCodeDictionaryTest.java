@@ -0,0 +1,118 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 权限编码字典与权限位图测试
+ *
+ * @author spark
+ */
+class PermissionCodeDictionaryTest {
+
+    private PermissionMapper permissionMapper;
+
+    private InMemoryCacheInvalidationBus bus;
+
+    private PermissionCodeDictionary dictionary;
+
+    private List<Permission> permissions;
+
+    @BeforeEach
+    void setUp() {
+        permissions = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            permissions.add(permission("perm:" + i));
+        }
+        permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.selectAllPermissionCodes()).thenAnswer(invocation -> new ArrayList<>(permissions));
+        bus = new InMemoryCacheInvalidationBus();
+
+        dictionary = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(dictionary, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(dictionary, "cacheInvalidationBus", bus);
+        dictionary.init();
+    }
+
+    @Test
+    void testEncodeAndDecodeAcrossWords() {
+        PermissionBits bits = dictionary.encode(List.of("perm:1", "perm:63", "perm:64", "unknown"));
+
+        assertEquals(2, bits.getWords().length);
+        assertEquals(3, bits.cardinality());
+        assertTrue(bits.contains(dictionary.idOf("perm:64")));
+        assertFalse(bits.contains(dictionary.idOf("perm:2")));
+        assertFalse(bits.contains(dictionary.idOf("unknown")));
+        assertEquals(Set.of("perm:1", "perm:63", "perm:64"), dictionary.decode(bits));
+    }
+
+    @Test
+    void testCompiledRequirementAndOr() {
+        PermissionBits bits = dictionary.encode(List.of("perm:1", "perm:65"));
+
+        assertTrue(dictionary.compile(new String[]{"perm:1", "perm:65"}).matchesAll(bits));
+        assertFalse(dictionary.compile(new String[]{"perm:1", "perm:2"}).matchesAll(bits));
+        assertTrue(dictionary.compile(new String[]{"perm:2", "perm:65"}).matchesAny(bits));
+        assertFalse(dictionary.compile(new String[]{"perm:2", "perm:3"}).matchesAny(bits));
+
+        // 字典中不存在的编码，AND关系下永远不满足
+        assertFalse(dictionary.compile(new String[]{"perm:1", "unknown"}).matchesAll(bits));
+        assertTrue(dictionary.compile(new String[]{"perm:1", "unknown"}).matchesAny(bits));
+    }
+
+    @Test
+    void testVersionChangesOnReloadThroughBus() {
+        PermissionBits bits = dictionary.encode(List.of("perm:1"));
+        long version = dictionary.getVersion();
+
+        permissions.add(permission("perm:new"));
+        bus.publish(CacheInvalidationMessage.of(Collections.singletonList(PermissionCodeDictionary.CACHE_NAME), null, "test"));
+
+        assertNotEquals(version, dictionary.getVersion());
+        assertFalse(dictionary.isCurrent(bits));
+        assertEquals(70, dictionary.idOf("perm:new"));
+        // 追加编码不影响已有编号
+        assertEquals(1, dictionary.idOf("perm:1"));
+    }
+
+    @Test
+    void testSameCodesProduceSameVersion() {
+        PermissionCodeDictionary other = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(other, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(other, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        other.init();
+
+        assertEquals(dictionary.getVersion(), other.getVersion());
+    }
+
+    @Test
+    void testBitsJsonRoundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        PermissionBits bits = dictionary.encode(List.of("perm:3", "perm:66"));
+
+        PermissionBits restored = objectMapper.readValue(objectMapper.writeValueAsString(bits), PermissionBits.class);
+
+        assertEquals(bits, restored);
+    }
+
+    private Permission permission(String code) {
+        Permission permission = new Permission();
+        permission.setId((long) permissions.size() + 1);
+        permission.setPermissionCode(code);
+        return permission;
+    }
+}
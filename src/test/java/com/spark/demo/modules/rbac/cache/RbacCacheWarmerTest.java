@@ -0,0 +1,230 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheBatchWriter;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.entity.RoleMenu;
+import com.spark.demo.entity.RolePermission;
+import com.spark.demo.entity.UserRole;
+import com.spark.demo.mapper.UserMapper;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.mapper.RoleMapper;
+import com.spark.demo.modules.rbac.mapper.RoleMenuMapper;
+import com.spark.demo.modules.rbac.mapper.RolePermissionMapper;
+import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * RBAC缓存批量预热测试
+ *
+ * @author spark
+ */
+class RbacCacheWarmerTest {
+
+    private UserRoleMapper userRoleMapper;
+
+    private RoleMapper roleMapper;
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private PermissionCodeDictionary dictionary;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RbacCacheWarmer warmer;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaQueryWrapper解析列名依赖实体元数据，单元测试中手动注册
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        for (Class<?> entity : List.of(UserRole.class, RolePermission.class, RoleMenu.class, Permission.class, Menu.class)) {
+            TableInfoHelper.initTableInfo(assistant, entity);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Permission> allPermissions = List.of(permission(1L, "user:read"), permission(2L, "user:update"));
+        PermissionMapper permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.selectAllPermissionCodes()).thenReturn(allPermissions);
+        when(permissionMapper.selectList(any())).thenReturn(allPermissions);
+        dictionary = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(dictionary, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(dictionary, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        dictionary.init();
+
+        // 用户1 -> 角色10；用户2 -> 角色10、20；用户3 无角色
+        userRoleMapper = mock(UserRoleMapper.class);
+        when(userRoleMapper.selectList(any())).thenReturn(
+                List.of(userRole(1L, 10L), userRole(2L, 10L), userRole(2L, 20L)));
+        roleMapper = mock(RoleMapper.class);
+        when(roleMapper.selectBatchIds(any())).thenAnswer(invocation -> {
+            List<Role> roles = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                roles.add(role((Long) id));
+            }
+            return roles;
+        });
+        RolePermissionMapper rolePermissionMapper = mock(RolePermissionMapper.class);
+        when(rolePermissionMapper.selectList(any())).thenReturn(
+                List.of(rolePermission(10L, 1L), rolePermission(10L, 2L), rolePermission(20L, 1L)));
+        RoleMenuMapper roleMenuMapper = mock(RoleMenuMapper.class);
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of(roleMenu(10L, 5L), roleMenu(20L, 6L)));
+        MenuMapper menuMapper = mock(MenuMapper.class);
+        when(menuMapper.selectList(any())).thenReturn(List.of(menu(5L, 1), menu(6L, 2)));
+
+        cacheManager = new ConcurrentMapCacheManager();
+        CacheBatchWriter cacheBatchWriter = new CacheBatchWriter();
+        ReflectionTestUtils.setField(cacheBatchWriter, "cacheManager", cacheManager);
+
+        meterRegistry = new SimpleMeterRegistry();
+        warmer = new RbacCacheWarmer();
+        ReflectionTestUtils.setField(warmer, "userMapper", mock(UserMapper.class));
+        ReflectionTestUtils.setField(warmer, "userRoleMapper", userRoleMapper);
+        ReflectionTestUtils.setField(warmer, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(warmer, "rolePermissionMapper", rolePermissionMapper);
+        ReflectionTestUtils.setField(warmer, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(warmer, "roleMenuMapper", roleMenuMapper);
+        ReflectionTestUtils.setField(warmer, "menuMapper", menuMapper);
+        ReflectionTestUtils.setField(warmer, "permissionCodeDictionary", dictionary);
+        ReflectionTestUtils.setField(warmer, "cacheBatchWriter", cacheBatchWriter);
+        ReflectionTestUtils.setField(warmer, "warmupExecutor", (java.util.concurrent.Executor) Runnable::run);
+        ReflectionTestUtils.setField(warmer, "meterRegistry", meterRegistry);
+        warmer.init();
+    }
+
+    @Test
+    void testWarmUpPopulatesUserAndRoleCaches() {
+        assertEquals(3, warmer.warmUp(List.of(1L, 2L, 3L)));
+
+        assertEquals(List.of(10L), cached("rbac:user:role:ids", 1L));
+        assertEquals(List.of(10L, 20L), cached("rbac:user:role:ids", 2L));
+        assertEquals(List.of(), cached("rbac:user:role:ids", 3L));
+        assertEquals("role10", ((Role) cached("rbac:role:info", 10L)).getRoleCode());
+        assertEquals(2, ((List<?>) cached("rbac:role:permissions", 10L)).size());
+        assertEquals(1, ((List<?>) cached("rbac:role:permissions", 20L)).size());
+
+        PermissionBits bits = (PermissionBits) cached("rbac:role:permission:bits", 20L);
+        assertEquals(dictionary.encode(List.of("user:read")).getWords()[0], bits.getWords()[0]);
+
+        List<?> menus = (List<?>) cached("rbac:role:menus", 20L);
+        assertEquals(1, menus.size());
+        assertEquals(6L, ((Menu) menus.get(0)).getId());
+    }
+
+    @Test
+    void testSharedRolesAreLoadedOncePerRun() {
+        ReflectionTestUtils.setField(warmer, "batchSize", 1);
+
+        warmer.warmUp(List.of(1L, 2L, 3L));
+
+        // 第二批只查询新出现的角色20，角色10不重复查询；第三批用户无角色，不查询角色
+        verify(roleMapper).selectBatchIds(List.of(10L));
+        verify(roleMapper).selectBatchIds(List.of(20L));
+        verifyNoMoreInteractions(roleMapper);
+        assertEquals(2.0, meterRegistry.get("rbac.warmup.roles").counter().count());
+    }
+
+    @Test
+    void testProgressAndMetrics() {
+        ReflectionTestUtils.setField(warmer, "batchSize", 2);
+
+        warmer.warmUp(List.of(1L, 2L, 3L));
+
+        assertEquals(1.0, warmer.progress());
+        assertEquals(3.0, meterRegistry.get("rbac.warmup.users").counter().count());
+        assertEquals(2, meterRegistry.get("rbac.warmup.batch").timer().count());
+        assertEquals(1.0, meterRegistry.get("rbac.warmup.progress").gauge().value());
+    }
+
+    @Test
+    void testLoadUserRoleIdsSplitsQueries() {
+        ReflectionTestUtils.setField(warmer, "userRoleLoadBatchSize", 2);
+
+        Map<Long, List<Long>> roleIdsByUser = warmer.loadUserRoleIds(List.of(3L, 2L, 1L));
+
+        // 每条IN查询最多2个用户；结果顺序与入参一致，关系不属于本批的用户不会串入
+        verify(userRoleMapper, times(2)).selectList(any());
+        assertEquals(List.of(3L, 2L, 1L), new ArrayList<>(roleIdsByUser.keySet()));
+        assertEquals(List.of(10L, 20L), roleIdsByUser.get(2L));
+        assertEquals(List.of(10L), roleIdsByUser.get(1L));
+        assertEquals(List.of(), roleIdsByUser.get(3L));
+        assertEquals(List.of(), cached("rbac:user:role:ids", 3L));
+        assertEquals(List.of(10L), cached("rbac:user:role:ids", 1L));
+    }
+
+    @Test
+    void testEmptyUserListDoesNothing() {
+        assertEquals(0, warmer.warmUp(List.of()));
+        verifyNoInteractions(userRoleMapper);
+    }
+
+    private Object cached(String cacheName, Object key) {
+        return cacheManager.getCache(cacheName).get(key).get();
+    }
+
+    private static UserRole userRole(Long userId, Long roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private static RolePermission rolePermission(Long roleId, Long permissionId) {
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermissionId(permissionId);
+        return rolePermission;
+    }
+
+    private static RoleMenu roleMenu(Long roleId, Long menuId) {
+        RoleMenu roleMenu = new RoleMenu();
+        roleMenu.setRoleId(roleId);
+        roleMenu.setMenuId(menuId);
+        return roleMenu;
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleCode("role" + id);
+        role.setStatus(1);
+        return role;
+    }
+
+    private static Permission permission(Long id, String code) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionCode(code);
+        permission.setStatus(1);
+        return permission;
+    }
+
+    private static Menu menu(Long id, int sort) {
+        Menu menu = new Menu();
+        menu.setId(id);
+        menu.setSort(sort);
+        menu.setStatus(1);
+        return menu;
+    }
+}
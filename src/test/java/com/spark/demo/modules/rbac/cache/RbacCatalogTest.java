@@ -0,0 +1,162 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * RBAC菜单/权限目录快照测试
+ *
+ * @author spark
+ */
+class RbacCatalogTest {
+
+    private MenuMapper menuMapper;
+
+    private PermissionMapper permissionMapper;
+
+    private InMemoryCacheInvalidationBus cacheInvalidationBus;
+
+    private RbacCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        menuMapper = mock(MenuMapper.class);
+        permissionMapper = mock(PermissionMapper.class);
+        when(menuMapper.selectList(any())).thenReturn(List.of(
+                menu(1L, 0L, "system", "/system", 1),
+                menu(2L, 1L, "user", "/system/user", 2),
+                menu(3L, 1L, "role", "/system/role", 1),
+                menu(4L, 0L, "dashboard", "/dashboard", null),
+                menu(5L, 99L, "orphan", "/orphan", 1),
+                menu(6L, 3L, "role_edit", "/system/role/edit", 1)));
+        when(permissionMapper.selectList(any())).thenReturn(List.of(
+                permission(10L, 0L, "user", 2),
+                permission(11L, 10L, "user:read", 1),
+                permission(12L, null, "role", 1)));
+
+        cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+        catalog = new RbacCatalog();
+        ReflectionTestUtils.setField(catalog, "menuMapper", menuMapper);
+        ReflectionTestUtils.setField(catalog, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(catalog, "cacheInvalidationBus", cacheInvalidationBus);
+        catalog.init();
+    }
+
+    @Test
+    void testMenuTreeIsPrebuiltInSortOrder() {
+        List<Menu> tree = catalog.getMenuTree();
+        assertEquals(List.of("system", "dashboard"), codes(tree));
+
+        Menu system = tree.get(0);
+        assertEquals(List.of("role", "user"), codes(system.getChildren()));
+        assertEquals(List.of("role_edit"), codes(system.getChildren().get(0).getChildren()));
+        assertTrue(system.getChildren().get(1).getChildren().isEmpty());
+        assertTrue(tree.get(1).getChildren().isEmpty());
+
+        // 父菜单未启用的菜单不在树中，但仍可按编码/路径查询
+        assertEquals(5L, catalog.getMenuByCode("orphan").getId());
+        assertSame(tree, catalog.getMenuTree());
+        assertThrows(UnsupportedOperationException.class, () -> system.getChildren().add(new Menu()));
+    }
+
+    @Test
+    void testFlatLookupsDoNotCarryChildren() {
+        assertEquals(List.of("system", "dashboard"), codes(catalog.getRootMenus()));
+        assertEquals(List.of("role", "user"), codes(catalog.getChildMenus(1L)));
+        assertEquals(catalog.getRootMenus(), catalog.getChildMenus(null));
+        assertTrue(catalog.getChildMenus(42L).isEmpty());
+        assertNull(catalog.getChildMenus(1L).get(0).getChildren());
+
+        assertEquals(3L, catalog.getMenuByPath("/system/role").getId());
+        assertNull(catalog.getMenuByPath("/missing"));
+        assertNull(catalog.getMenuByCode(null));
+        assertEquals(6, catalog.getMenus().size());
+    }
+
+    @Test
+    void testPermissionIndexes() {
+        // 父ID为空的权限视为根权限
+        assertEquals(List.of("role", "user"), permissionCodes(catalog.getRootPermissions()));
+        assertEquals(List.of("user:read"), permissionCodes(catalog.getChildPermissions(10L)));
+        assertEquals(11L, catalog.getPermissionByCode("user:read").getId());
+        assertEquals("role", catalog.getPermission(12L).getPermissionCode());
+        assertNull(catalog.getPermissionByCode("missing"));
+    }
+
+    @Test
+    void testInvalidationSwapsOnlyTheAffectedSnapshot() {
+        long menuVersion = catalog.getMenuVersion();
+        long permissionVersion = catalog.getPermissionVersion();
+        when(menuMapper.selectList(any())).thenReturn(List.of(menu(1L, 0L, "system", "/system", 1)));
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of(RbacCatalog.MENU_CACHE_NAME), null, "menu:2"));
+
+        assertEquals(menuVersion + 1, catalog.getMenuVersion());
+        assertEquals(permissionVersion, catalog.getPermissionVersion());
+        assertEquals(List.of("system"), codes(catalog.getMenuTree()));
+        assertTrue(catalog.getMenuTree().get(0).getChildren().isEmpty());
+        verify(permissionMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void testFailedReloadKeepsCurrentSnapshot() {
+        List<Menu> tree = catalog.getMenuTree();
+        when(menuMapper.selectList(any())).thenThrow(new IllegalStateException("db down"));
+
+        catalog.reloadMenus();
+
+        assertSame(tree, catalog.getMenuTree());
+        assertEquals(1L, catalog.getMenuVersion());
+    }
+
+    private static List<String> codes(List<Menu> menus) {
+        List<String> codes = new ArrayList<>();
+        for (Menu menu : menus) {
+            codes.add(menu.getMenuCode());
+        }
+        return codes;
+    }
+
+    private static List<String> permissionCodes(List<Permission> permissions) {
+        List<String> codes = new ArrayList<>();
+        for (Permission permission : permissions) {
+            codes.add(permission.getPermissionCode());
+        }
+        return codes;
+    }
+
+    private static Menu menu(Long id, Long parentId, String code, String path, Integer sort) {
+        Menu menu = new Menu();
+        menu.setId(id);
+        menu.setParentId(parentId);
+        menu.setMenuCode(code);
+        menu.setPath(path);
+        menu.setSort(sort);
+        menu.setStatus(1);
+        return menu;
+    }
+
+    private static Permission permission(Long id, Long parentId, String code, Integer sort) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setParentId(parentId);
+        permission.setPermissionCode(code);
+        permission.setSort(sort);
+        permission.setStatus(1);
+        return permission;
+    }
+}
@@ -0,0 +1,99 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按角色组合共享的本地缓存测试
+ *
+ * @author spark
+ */
+class RoleSetCacheTest {
+
+    private static final String SOURCE = "rbac:role:menus";
+
+    private InMemoryCacheInvalidationBus cacheInvalidationBus;
+
+    private RoleSetCache<String> cache;
+
+    private AtomicInteger builds;
+
+    @BeforeEach
+    void setUp() {
+        cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+        cache = new RoleSetCache<>(Set.of(SOURCE), 100, Duration.ofMinutes(1), cacheInvalidationBus);
+        builds = new AtomicInteger();
+    }
+
+    @Test
+    void testRoleSetKeyIsSortedAndShared() {
+        List<Long> key = RoleSetCache.roleSetOf(List.of(role(20L), role(10L)));
+        assertEquals(List.of(10L, 20L), key);
+        assertThrows(UnsupportedOperationException.class, () -> key.add(30L));
+        assertEquals(key, RoleSetCache.roleSetOfIds(Set.of(20L, 10L)));
+
+        assertEquals("[10, 20]#1", cache.get(key, this::build));
+        assertEquals("[10, 20]#1", cache.get(RoleSetCache.roleSetOfIds(List.of(20L, 10L)), this::build));
+        assertEquals(1, builds.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testInvalidationDropsOnlyAffectedRoleSets() {
+        cache.get(List.of(10L, 20L), this::build);
+        cache.get(List.of(30L), this::build);
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of("rbac:role:permissions"), List.of(10L), "role:10"));
+        assertEquals(2, cache.size());
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of(SOURCE), List.of(10L), "role:10"));
+        assertEquals(1, cache.size());
+        assertEquals("[30]#2", cache.get(List.of(30L), this::build));
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of(SOURCE), null, "menu:1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testResultBuiltDuringInvalidationIsNotRetained() {
+        String value = cache.get(List.of(10L), key -> {
+            // 构建期间到达的失效消息：构建结果可能基于失效前的数据
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of(SOURCE), List.of(99L), "role:99"));
+            return build(key);
+        });
+
+        assertEquals("[10]#1", value);
+        assertEquals(0, cache.size());
+        assertEquals("[10]#2", cache.get(List.of(10L), this::build));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testStaleEntryIsRebuilt() {
+        cache.get(List.of(10L), this::build);
+
+        assertEquals("[10]#2", cache.get(List.of(10L), value -> value.endsWith("#2"), this::build));
+        assertEquals("[10]#2", cache.get(List.of(10L), this::build));
+        assertEquals(2, builds.get());
+    }
+
+    private String build(List<Long> roleIds) {
+        return roleIds + "#" + builds.incrementAndGet();
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        return role;
+    }
+}
@@ -0,0 +1,161 @@
+package com.spark.demo.modules.rbac.cache;
+
+import com.spark.demo.common.cache.CacheInvalidationMessage;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Role;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户菜单树投影缓存测试
+ *
+ * @author spark
+ */
+class UserMenuTreeCacheTest {
+
+    private MenuMapper menuMapper;
+
+    private RbacCacheService rbacCacheService;
+
+    private InMemoryCacheInvalidationBus cacheInvalidationBus;
+
+    private RbacCatalog catalog;
+
+    private UserMenuTreeCache userMenuTreeCache;
+
+    @BeforeEach
+    void setUp() {
+        menuMapper = mock(MenuMapper.class);
+        when(menuMapper.selectList(any())).thenReturn(List.of(
+                menu(1L, 0L, "system", 1),
+                menu(2L, 1L, "user", 1),
+                menu(3L, 1L, "role", 2),
+                menu(4L, 3L, "role_edit", 1),
+                menu(5L, 0L, "monitor", 2),
+                menu(6L, 5L, "log", 1)));
+
+        rbacCacheService = mock(RbacCacheService.class);
+        when(rbacCacheService.getUserRoles(1L)).thenReturn(List.of(role(20L), role(10L)));
+        when(rbacCacheService.getUserRoles(2L)).thenReturn(List.of(role(10L), role(20L)));
+        when(rbacCacheService.getUserRoles(3L)).thenReturn(List.of());
+        // 角色10只分配了叶子菜单，角色20分配了完整的监控目录
+        when(rbacCacheService.getRoleMenus(10L)).thenReturn(List.of(menu(4L, 3L, "role_edit", 1)));
+        when(rbacCacheService.getRoleMenus(20L)).thenReturn(List.of(menu(5L, 0L, "monitor", 2), menu(6L, 5L, "log", 1)));
+
+        cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+        catalog = new RbacCatalog();
+        ReflectionTestUtils.setField(catalog, "menuMapper", menuMapper);
+        ReflectionTestUtils.setField(catalog, "permissionMapper", mock(PermissionMapper.class));
+        ReflectionTestUtils.setField(catalog, "cacheInvalidationBus", cacheInvalidationBus);
+        catalog.init();
+
+        userMenuTreeCache = new UserMenuTreeCache();
+        ReflectionTestUtils.setField(userMenuTreeCache, "rbacCacheService", rbacCacheService);
+        ReflectionTestUtils.setField(userMenuTreeCache, "rbacCatalog", catalog);
+        ReflectionTestUtils.setField(userMenuTreeCache, "cacheInvalidationBus", cacheInvalidationBus);
+        userMenuTreeCache.init();
+    }
+
+    @Test
+    void testAncestorsAreIncludedAndUnprunedSubtreesShared() {
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(1L);
+
+        assertEquals(List.of("system", "monitor"), codes(tree));
+        Menu system = tree.get(0);
+        assertEquals(List.of("role"), codes(system.getChildren()));
+        assertEquals(List.of("role_edit"), codes(system.getChildren().get(0).getChildren()));
+
+        // 被裁剪过的节点是副本，完整保留的子树直接复用全局树节点
+        List<Menu> globalTree = catalog.getMenuTree();
+        assertNotSame(globalTree.get(0), system);
+        assertEquals(List.of("user", "role"), codes(globalTree.get(0).getChildren()));
+        assertSame(globalTree.get(1), tree.get(1));
+        assertSame(globalTree.get(0).getChildren().get(1).getChildren().get(0),
+                system.getChildren().get(0).getChildren().get(0));
+    }
+
+    @Test
+    void testSameRoleCombinationSharesTree() {
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(1L);
+
+        assertSame(tree, userMenuTreeCache.getUserMenuTree(2L));
+        assertEquals(1, userMenuTreeCache.size());
+        verify(rbacCacheService, times(1)).getRoleMenus(10L);
+        assertTrue(userMenuTreeCache.getUserMenuTree(3L).isEmpty());
+        assertTrue(userMenuTreeCache.getUserMenuTree(null).isEmpty());
+    }
+
+    @Test
+    void testRoleMenuInvalidationDropsProjection() {
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(1L);
+        when(rbacCacheService.getRoleMenus(10L)).thenReturn(List.of(menu(2L, 1L, "user", 1)));
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of("rbac:role:menus"), List.of(10L), "role:10"));
+
+        List<Menu> refreshed = userMenuTreeCache.getUserMenuTree(1L);
+        assertNotSame(tree, refreshed);
+        assertEquals(List.of("user"), codes(refreshed.get(0).getChildren()));
+    }
+
+    @Test
+    void testProjectionBuiltDuringInvalidationIsNotCached() {
+        when(rbacCacheService.getRoleMenus(10L)).thenAnswer(invocation -> {
+            cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of("rbac:role:menus"), List.of(99L), "role:99"));
+            return List.of(menu(4L, 3L, "role_edit", 1));
+        });
+
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(1L);
+
+        assertEquals(List.of("system", "monitor"), codes(tree));
+        assertEquals(0, userMenuTreeCache.size());
+    }
+
+    @Test
+    void testCatalogReloadReprojects() {
+        List<Menu> tree = userMenuTreeCache.getUserMenuTree(1L);
+        when(menuMapper.selectList(any())).thenReturn(List.of(menu(5L, 0L, "monitor", 2), menu(6L, 5L, "log", 1)));
+
+        cacheInvalidationBus.publish(CacheInvalidationMessage.of(List.of(RbacCatalog.MENU_CACHE_NAME), null, "menu:1"));
+
+        List<Menu> refreshed = userMenuTreeCache.getUserMenuTree(1L);
+        assertNotSame(tree, refreshed);
+        assertEquals(List.of("monitor"), codes(refreshed));
+    }
+
+    private static List<String> codes(List<Menu> menus) {
+        List<String> codes = new ArrayList<>();
+        for (Menu menu : menus) {
+            codes.add(menu.getMenuCode());
+        }
+        return codes;
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        role.setStatus(1);
+        return role;
+    }
+
+    private static Menu menu(Long id, Long parentId, String code, Integer sort) {
+        Menu menu = new Menu();
+        menu.setId(id);
+        menu.setParentId(parentId);
+        menu.setMenuCode(code);
+        menu.setSort(sort);
+        menu.setStatus(1);
+        return menu;
+    }
+}
@@ -0,0 +1,192 @@
+package com.spark.demo.modules.rbac.context;
+
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.common.context.UserContext;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.User;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.service.RbacCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 请求级鉴权上下文测试
+ *
+ * @author spark
+ */
+class AuthorizationContextTest {
+
+    private static final Long USER_ID = 100L;
+
+    private RbacCacheService rbacCacheService;
+
+    private PermissionMapper permissionMapper;
+
+    private PermissionCodeDictionary dictionary;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthorizationContextResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.selectAllPermissionCodes()).thenReturn(List.of(
+                permission(1L, "user:read"), permission(2L, "user:update"), permission(3L, "role:read")));
+        dictionary = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(dictionary, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(dictionary, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        dictionary.init();
+
+        rbacCacheService = mock(RbacCacheService.class);
+        when(rbacCacheService.getUserRoleCodes(USER_ID)).thenReturn(Set.of("admin"));
+        when(rbacCacheService.getUserPermissionBits(USER_ID)).thenReturn(dictionary.encode(List.of("user:read", "role:read")));
+
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new AuthorizationContextResolver();
+        ReflectionTestUtils.setField(resolver, "rbacCacheService", rbacCacheService);
+        ReflectionTestUtils.setField(resolver, "permissionCodeDictionary", dictionary);
+        ReflectionTestUtils.setField(resolver, "meterRegistry", meterRegistry);
+        resolver.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+    }
+
+    @Test
+    void testGrantsAreLoadedOncePerRequest() {
+        MockHttpServletRequest request = sessionRequest();
+
+        AuthorizationContext filterContext = resolver.resolve(request);
+        assertFalse(filterContext.isSuperAdmin());
+        assertTrue(filterContext.hasPermission("user:read"));
+        assertFalse(filterContext.hasPermission("user:update"));
+
+        AuthorizationContext interceptorContext = resolver.resolve(request);
+        assertSame(filterContext, interceptorContext);
+        assertTrue(interceptorContext.hasRole("admin"));
+        assertEquals(Set.of("user:read", "role:read"), interceptorContext.getPermissionCodes());
+
+        verify(rbacCacheService, times(1)).getUserRoleCodes(USER_ID);
+        verify(rbacCacheService, times(1)).getUserPermissionBits(USER_ID);
+        verify(rbacCacheService, never()).getUserPermissionCodes(USER_ID);
+    }
+
+    @Test
+    void testDecisionsAreMemoizedByKey() {
+        AuthorizationContext context = resolver.resolve(sessionRequest());
+        AtomicInteger evaluations = new AtomicInteger();
+
+        assertTrue(context.decide("GET /api/v1/users", () -> evaluations.incrementAndGet() > 0));
+        assertTrue(context.decide("GET /api/v1/users", () -> evaluations.incrementAndGet() > 0));
+        assertTrue(context.decide("POST /api/v1/users", () -> evaluations.incrementAndGet() > 0));
+
+        assertEquals(2, evaluations.get());
+        assertEquals(3, context.getDecisionCount());
+        assertEquals(1, context.getMemoHits());
+    }
+
+    @Test
+    void testPermissionCodesFallbackWhenDictionaryNotReady() {
+        when(rbacCacheService.getUserPermissionBits(USER_ID)).thenReturn(null);
+        when(rbacCacheService.getUserPermissionCodes(USER_ID)).thenReturn(Set.of("user:update"));
+
+        AuthorizationContext context = resolver.resolve(sessionRequest());
+
+        assertTrue(context.hasPermission("user:update"));
+        assertFalse(context.hasPermission("user:read"));
+        verify(rbacCacheService, times(1)).getUserPermissionCodes(USER_ID);
+    }
+
+    @Test
+    void testStaleBitsReloadPermissionCodes() {
+        when(rbacCacheService.getUserPermissionCodes(USER_ID)).thenReturn(Set.of("user:read", "role:read"));
+        AuthorizationContext context = resolver.resolve(sessionRequest());
+        assertNotNull(context.getPermissionBits());
+
+        // 位图加载后字典重建，旧位图不再能按当前字典解码
+        when(permissionMapper.selectAllPermissionCodes()).thenReturn(List.of(permission(4L, "menu:read"),
+                permission(1L, "user:read"), permission(2L, "user:update"), permission(3L, "role:read")));
+        dictionary.reload();
+        assertFalse(dictionary.isCurrent(context.getPermissionBits()));
+
+        assertTrue(context.hasPermission("user:read"));
+        assertTrue(context.hasPermission("role:read"));
+        assertFalse(context.hasPermission("user:update"));
+        assertEquals(Set.of("user:read", "role:read"), context.getPermissionCodes());
+        verify(rbacCacheService, times(1)).getUserPermissionCodes(USER_ID);
+    }
+
+    @Test
+    void testUserIdResolution() {
+        User user = new User();
+        user.setId(7L);
+        UserContext.setCurrentUser(user);
+        assertEquals(7L, resolver.resolve(sessionRequest()).getUserId());
+        UserContext.clear();
+
+        assertEquals(USER_ID, resolver.resolve(sessionRequest()).getUserId());
+
+        MockHttpServletRequest headerRequest = new MockHttpServletRequest("GET", "/api/v1/users");
+        headerRequest.addHeader("X-User-Id", "42");
+        assertEquals(42L, resolver.resolve(headerRequest).getUserId());
+
+        AuthorizationContext anonymous = resolver.resolve(new MockHttpServletRequest("GET", "/api/v1/users"));
+        assertFalse(anonymous.isAuthenticated());
+        assertFalse(anonymous.hasPermission("user:read"));
+        verify(rbacCacheService, never()).getUserRoleCodes(null);
+    }
+
+    @Test
+    void testFilterReportsCostOncePerRequest() throws Exception {
+        AuthorizationContextFilter filter = new AuthorizationContextFilter();
+        ReflectionTestUtils.setField(filter, "authorizationContextResolver", resolver);
+        MockHttpServletRequest request = sessionRequest();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            AuthorizationContext context = resolver.resolve((MockHttpServletRequest) req);
+            context.isSuperAdmin();
+            context.decide("GET /api/v1/users", () -> true);
+            context.decide("GET /api/v1/users", () -> true);
+        });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/auth/login"), new MockHttpServletResponse(),
+                (req, res) -> {
+                });
+
+        assertEquals(1, meterRegistry.get("rbac.authorization.cost").timer().count());
+        assertEquals(2.0, meterRegistry.get("rbac.authorization.decisions").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("rbac.authorization.memo.hits").counter().count());
+        assertNull(request.getAttribute(AuthorizationContext.REQUEST_ATTRIBUTE));
+    }
+
+    private static MockHttpServletRequest sessionRequest() {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userId", USER_ID);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.setSession(session);
+        return request;
+    }
+
+    private static Permission permission(Long id, String code) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionCode(code);
+        return permission;
+    }
+}
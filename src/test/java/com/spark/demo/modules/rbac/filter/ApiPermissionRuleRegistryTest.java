@@ -0,0 +1,112 @@
+package com.spark.demo.modules.rbac.filter;
+
+import com.spark.demo.entity.Permission;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * API权限规则注册表测试
+ *
+ * @author spark
+ */
+class ApiPermissionRuleRegistryTest {
+
+    @Test
+    void testContextPathPrefix() {
+        List<Permission> permissions = List.of(rule(1L, "order:read", "/api/v1/orders/**", "GET"),
+                rule(2L, "report:read", "api/v1/reports/**", "GET"));
+
+        ApiPermissionRuleRegistry.Snapshot prefixed = ApiPermissionRuleRegistry.buildSnapshot(permissions, "/app", 1);
+        assertEquals("order:read", prefixed.routes.match("/app/api/v1/orders/1", "GET"));
+        assertEquals("report:read", prefixed.routes.match("/app/api/v1/reports/daily", "GET"));
+        assertNull(prefixed.routes.match("/api/v1/orders/1", "GET"));
+
+        // 末尾斜杠不会产生双斜杠
+        ApiPermissionRuleRegistry.Snapshot trailingSlash = ApiPermissionRuleRegistry.buildSnapshot(permissions, "/app/", 1);
+        assertEquals("order:read", trailingSlash.routes.match("/app/api/v1/orders/1", "GET"));
+
+        // 根路径与未配置等价，不加前缀
+        for (String contextPath : new String[]{"/", "", null}) {
+            ApiPermissionRuleRegistry.Snapshot root = ApiPermissionRuleRegistry.buildSnapshot(permissions, contextPath, 1);
+            assertEquals("order:read", root.routes.match("/api/v1/orders/1", "GET"), String.valueOf(contextPath));
+        }
+    }
+
+    @Test
+    void testLiteralRulesWinOverWildcards() {
+        List<Permission> permissions = List.of(
+                rule(1L, "order:any", "/api/v1/orders/**", null),
+                rule(2L, "order:item", "/api/v1/orders/{id}/items", "GET"),
+                rule(3L, "order:export", "/api/v1/orders/export", "GET"),
+                rule(4L, "order:export:pdf", "/api/v1/orders/export/pdf", "GET"));
+
+        ApiPermissionRuleRegistry.Snapshot snapshot = ApiPermissionRuleRegistry.buildSnapshot(permissions, "", 1);
+
+        // 无通配符优先，其次路径段多者优先
+        assertEquals("order:export", snapshot.routes.match("/api/v1/orders/export", "GET"));
+        assertEquals("order:export:pdf", snapshot.routes.match("/api/v1/orders/export/pdf", "GET"));
+        assertEquals("order:item", snapshot.routes.match("/api/v1/orders/42/items", "GET"));
+        assertEquals("order:any", snapshot.routes.match("/api/v1/orders/42/items", "DELETE"));
+        assertEquals("order:any", snapshot.routes.match("/api/v1/orders/export", "DELETE"));
+        assertEquals(4, snapshot.databaseRuleCount);
+    }
+
+    @Test
+    void testDefaultRulesAppendedAfterDatabaseRules() {
+        ApiPermissionRuleRegistry.Snapshot defaults = ApiPermissionRuleRegistry.buildSnapshot(List.of(), "", 1);
+        assertEquals(0, defaults.databaseRuleCount);
+        assertEquals("user:read", defaults.routes.match("/api/v1/users/1", "GET"));
+        assertEquals("role:delete", defaults.routes.match("/api/v1/rbac/roles/1", "DELETE"));
+        assertEquals("system:manage", defaults.routes.match("/api/v1/system/config", "PATCH"));
+        assertEquals("system:manage_cache", defaults.routes.match("/api/v1/rbac/users/1/cache", "DELETE"));
+        assertNull(defaults.routes.match("/api/v1/orders/1", "GET"));
+
+        // 数据库规则覆盖同一路径的内置规则，无效规则被忽略且不计数
+        ApiPermissionRuleRegistry.Snapshot overridden = ApiPermissionRuleRegistry.buildSnapshot(List.of(
+                rule(1L, "user:profile", "/api/v1/users/info", "GET"),
+                rule(2L, "", "/api/v1/users/**", "GET"),
+                rule(3L, "user:none", null, "GET")), "", 1);
+        assertEquals(1, overridden.databaseRuleCount);
+        assertEquals("user:profile", overridden.routes.match("/api/v1/users/info", "GET"));
+        assertEquals("user:read", overridden.routes.match("/api/v1/users/2", "GET"));
+        assertEquals(defaults.routes.size() + 1, overridden.routes.size());
+    }
+
+    @Test
+    void testReloadKeepsSnapshotWhenMapperFails() {
+        PermissionMapper permissionMapper = mock(PermissionMapper.class);
+        ApiPermissionRuleRegistry registry = new ApiPermissionRuleRegistry();
+        ReflectionTestUtils.setField(registry, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(registry, "contextPath", "");
+
+        when(permissionMapper.selectApiPermissions())
+                .thenReturn(List.of(rule(1L, "order:read", "/api/v1/orders/**", "GET")))
+                .thenThrow(new IllegalStateException("db down"));
+
+        registry.reload();
+        long version = registry.getVersion();
+        int ruleCount = registry.getRuleCount();
+        assertEquals("order:read", registry.getRequiredPermission("/api/v1/orders/1", "GET"));
+
+        registry.reload();
+        assertEquals(version, registry.getVersion());
+        assertEquals(ruleCount, registry.getRuleCount());
+        assertEquals("order:read", registry.getRequiredPermission("/api/v1/orders/1", "GET"));
+        verify(permissionMapper, times(2)).selectApiPermissions();
+    }
+
+    private Permission rule(Long id, String code, String path, String method) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionCode(code);
+        permission.setPath(path);
+        permission.setMethod(method);
+        return permission;
+    }
+}
@@ -0,0 +1,80 @@
+package com.spark.demo.modules.rbac.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 路由匹配索引测试
+ *
+ * @author spark
+ */
+class RouteIndexTest {
+
+    @Test
+    void testPrefixAndMethodMatch() {
+        RouteIndex<String> index = RouteIndex.<String>builder()
+                .add("/api/v1/users/**", "GET", "user:read")
+                .add("/api/v1/users/**", "DELETE", "user:delete")
+                .build();
+
+        assertEquals("user:read", index.match("/api/v1/users", "GET"));
+        assertEquals("user:read", index.match("/api/v1/users/abc/roles", "get"));
+        assertEquals("user:delete", index.match("/api/v1/users/abc", "DELETE"));
+        assertNull(index.match("/api/v1/users/abc", "PATCH"));
+        assertNull(index.match("/api/v1/usersx", "GET"));
+        assertNull(index.match("/api/v1", "GET"));
+    }
+
+    @Test
+    void testFirstAddedRuleWins() {
+        RouteIndex<String> index = RouteIndex.<String>builder()
+                .add("/api/v1/rbac/roles/**", "DELETE", "role:delete")
+                .add("/api/v1/rbac/**/cache/**", "DELETE", "system:manage_cache")
+                .build();
+
+        // 与原先按顺序扫描的语义一致：角色规则先声明，优先生效
+        assertEquals("role:delete", index.match("/api/v1/rbac/roles/cache", "DELETE"));
+        assertEquals("system:manage_cache", index.match("/api/v1/rbac/users/1/cache", "DELETE"));
+        assertEquals("system:manage_cache", index.match("/api/v1/rbac/cache/all", "DELETE"));
+    }
+
+    @Test
+    void testAnyMethodAndWildcards() {
+        RouteIndex<String> index = RouteIndex.<String>builder()
+                .add("/api/v1/system/**", "*", "system:manage")
+                .add("/api/v1/users/{uuid}/status", "PUT", "user:update")
+                .add("/api/v1/files/*", "GET", "file:read")
+                .add("/favicon.ico", null, "static")
+                .build();
+
+        assertEquals("system:manage", index.match("/api/v1/system/config", "OPTIONS"));
+        assertEquals("user:update", index.match("/api/v1/users/7f3a/status", "PUT"));
+        assertNull(index.match("/api/v1/users/7f3a/b/status", "PUT"));
+        assertEquals("file:read", index.match("/api/v1/files/a.png", "GET"));
+        assertNull(index.match("/api/v1/files", "GET"));
+        assertEquals("static", index.match("/favicon.ico", "GET"));
+    }
+
+    @Test
+    void testManyLiteralSiblings() {
+        RouteIndex.Builder<String> builder = RouteIndex.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add("/api/v1/res" + i + "/**", "GET", "res" + i);
+        }
+        RouteIndex<String> index = builder.build();
+
+        assertEquals(500, index.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals("res" + i, index.match("/api/v1/res" + i + "/1", "GET"));
+        }
+        assertNull(index.match("/api/v1/res500/1", "GET"));
+    }
+
+    @Test
+    void testBuilderCannotBeReused() {
+        RouteIndex.Builder<String> builder = RouteIndex.builder();
+        builder.add("/a", "GET", "a").build();
+        assertThrows(IllegalStateException.class, () -> builder.add("/b", "GET", "b"));
+    }
+}
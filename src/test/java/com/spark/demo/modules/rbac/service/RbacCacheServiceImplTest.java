@@ -0,0 +1,256 @@
+package com.spark.demo.modules.rbac.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.spark.demo.common.cache.CacheBatchWriter;
+import com.spark.demo.common.cache.InMemoryCacheInvalidationBus;
+import com.spark.demo.entity.Menu;
+import com.spark.demo.entity.Permission;
+import com.spark.demo.entity.Role;
+import com.spark.demo.entity.UserRole;
+import com.spark.demo.modules.rbac.cache.PermissionBits;
+import com.spark.demo.modules.rbac.cache.PermissionCodeDictionary;
+import com.spark.demo.modules.rbac.cache.RbacCacheWarmer;
+import com.spark.demo.modules.rbac.cache.RbacCatalog;
+import com.spark.demo.modules.rbac.cache.UserMenuTreeCache;
+import com.spark.demo.modules.rbac.dto.PermissionMatrixResult;
+import com.spark.demo.modules.rbac.mapper.MenuMapper;
+import com.spark.demo.modules.rbac.mapper.PermissionMapper;
+import com.spark.demo.modules.rbac.mapper.UserRoleMapper;
+import com.spark.demo.modules.rbac.service.impl.RbacCacheServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * RBAC缓存服务角色合并逻辑测试
+ *
+ * @author spark
+ */
+class RbacCacheServiceImplTest {
+
+    private static final Long USER_ID = 100L;
+
+    private RoleService roleService;
+
+    private PermissionService permissionService;
+
+    private MenuService menuService;
+
+    private UserRoleMapper userRoleMapper;
+
+    private CacheManager cacheManager;
+
+    private RbacCacheServiceImpl rbacCacheService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaQueryWrapper解析列名依赖实体元数据，单元测试中手动注册
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserRole.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        roleService = mock(RoleService.class);
+        permissionService = mock(PermissionService.class);
+        menuService = mock(MenuService.class);
+        userRoleMapper = mock(UserRoleMapper.class);
+
+        List<Permission> allPermissions = List.of(
+                permission(1L, "user:read"), permission(2L, "user:update"), permission(3L, "role:read"));
+        PermissionMapper permissionMapper = mock(PermissionMapper.class);
+        when(permissionMapper.selectAllPermissionCodes()).thenReturn(allPermissions);
+        PermissionCodeDictionary dictionary = new PermissionCodeDictionary();
+        ReflectionTestUtils.setField(dictionary, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(dictionary, "cacheInvalidationBus", new InMemoryCacheInvalidationBus());
+        dictionary.init();
+
+        when(userRoleMapper.selectRoleIdsByUserId(USER_ID)).thenReturn(List.of(10L, 20L, 30L));
+        when(roleService.getById(10L)).thenReturn(role(10L, "admin", 1));
+        when(roleService.getById(20L)).thenReturn(role(20L, "auditor", 1));
+        when(roleService.getById(30L)).thenReturn(role(30L, "disabled", 0));
+        when(permissionService.getPermissionsByRoleId(10L)).thenReturn(List.of(allPermissions.get(0), allPermissions.get(1)));
+        when(permissionService.getPermissionsByRoleId(20L)).thenReturn(List.of(allPermissions.get(0)));
+        when(permissionService.getPermissionsByRoleId(30L)).thenReturn(List.of(allPermissions.get(2)));
+        when(menuService.getMenusByRoleId(10L)).thenReturn(List.of(menu(1L, 0L, "system", 1), menu(2L, 1L, "user", 1)));
+        when(menuService.getMenusByRoleId(20L)).thenReturn(List.of(menu(1L, 0L, "system", 1), menu(3L, 1L, "log", 2)));
+
+        rbacCacheService = new RbacCacheServiceImpl();
+        ReflectionTestUtils.setField(rbacCacheService, "roleService", roleService);
+        ReflectionTestUtils.setField(rbacCacheService, "permissionService", permissionService);
+        ReflectionTestUtils.setField(rbacCacheService, "menuService", menuService);
+        ReflectionTestUtils.setField(rbacCacheService, "userRoleMapper", userRoleMapper);
+        ReflectionTestUtils.setField(rbacCacheService, "permissionCodeDictionary", dictionary);
+        ReflectionTestUtils.setField(rbacCacheService, "self", rbacCacheService);
+
+        InMemoryCacheInvalidationBus cacheInvalidationBus = new InMemoryCacheInvalidationBus();
+        MenuMapper menuMapper = mock(MenuMapper.class);
+        when(menuMapper.selectList(any())).thenReturn(List.of(menu(1L, 0L, "system", 1), menu(2L, 1L, "user", 1),
+                menu(3L, 1L, "log", 2), menu(4L, 0L, "monitor", 2)));
+        RbacCatalog catalog = new RbacCatalog();
+        ReflectionTestUtils.setField(catalog, "menuMapper", menuMapper);
+        ReflectionTestUtils.setField(catalog, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(catalog, "cacheInvalidationBus", cacheInvalidationBus);
+        catalog.init();
+        UserMenuTreeCache userMenuTreeCache = new UserMenuTreeCache();
+        ReflectionTestUtils.setField(userMenuTreeCache, "rbacCacheService", rbacCacheService);
+        ReflectionTestUtils.setField(userMenuTreeCache, "rbacCatalog", catalog);
+        ReflectionTestUtils.setField(userMenuTreeCache, "cacheInvalidationBus", cacheInvalidationBus);
+        userMenuTreeCache.init();
+        ReflectionTestUtils.setField(rbacCacheService, "userMenuTreeCache", userMenuTreeCache);
+
+        cacheManager = new ConcurrentMapCacheManager();
+        CacheBatchWriter cacheBatchWriter = new CacheBatchWriter();
+        ReflectionTestUtils.setField(cacheBatchWriter, "cacheManager", cacheManager);
+        RbacCacheWarmer rbacCacheWarmer = new RbacCacheWarmer();
+        ReflectionTestUtils.setField(rbacCacheWarmer, "userRoleMapper", userRoleMapper);
+        ReflectionTestUtils.setField(rbacCacheWarmer, "cacheBatchWriter", cacheBatchWriter);
+        ReflectionTestUtils.setField(rbacCacheService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(rbacCacheService, "rbacCacheWarmer", rbacCacheWarmer);
+    }
+
+    @Test
+    void testPermissionsAreUnionOfActiveRoles() {
+        List<Permission> permissions = rbacCacheService.getUserPermissions(USER_ID);
+
+        assertEquals(2, permissions.size());
+        assertEquals(Set.of("user:read", "user:update"), rbacCacheService.getUserPermissionCodes(USER_ID));
+    }
+
+    @Test
+    void testHasPermissionSkipsDisabledRole() {
+        assertTrue(rbacCacheService.hasPermission(USER_ID, "user:update"));
+        assertFalse(rbacCacheService.hasPermission(USER_ID, "role:read"));
+        assertFalse(rbacCacheService.hasPermission(USER_ID, "unknown"));
+    }
+
+    @Test
+    void testPermissionBitsMatchCodes() {
+        PermissionBits bits = rbacCacheService.getUserPermissionBits(USER_ID);
+
+        assertEquals(2, bits.cardinality());
+    }
+
+    @Test
+    void testRoles() {
+        assertEquals(Set.of("admin", "auditor"), rbacCacheService.getUserRoleCodes(USER_ID));
+        assertTrue(rbacCacheService.hasRole(USER_ID, "auditor"));
+        assertFalse(rbacCacheService.hasRole(USER_ID, "disabled"));
+    }
+
+    @Test
+    void testDeletedRoleLoadsAsInactivePlaceholder() {
+        // 已删除角色查询不到，返回可缓存的停用占位而不是null
+        Role deleted = rbacCacheService.getRoleInfo(40L);
+
+        assertNotNull(deleted);
+        assertEquals(40L, deleted.getId());
+        assertEquals(0, deleted.getStatus());
+        assertEquals(List.of(), rbacCacheService.getRolePermissions(40L));
+        assertEquals(0, rbacCacheService.getRolePermissionBits(40L).cardinality());
+    }
+
+    @Test
+    void testLoaderErrorsPropagate() {
+        when(userRoleMapper.selectRoleIdsByUserId(USER_ID)).thenThrow(new IllegalStateException("db down"));
+        when(permissionService.getPermissionsByRoleId(10L)).thenThrow(new IllegalStateException("db down"));
+
+        // 数据库异常不能被当作无角色、无权限
+        assertThrows(IllegalStateException.class, () -> rbacCacheService.getUserRoleIds(USER_ID));
+        assertThrows(IllegalStateException.class, () -> rbacCacheService.getRolePermissions(10L));
+        assertThrows(IllegalStateException.class, () -> rbacCacheService.hasPermission(USER_ID, "user:read"));
+    }
+
+    @Test
+    void testMenuTreeDoesNotMutateRoleMenus() {
+        List<Menu> tree = rbacCacheService.getUserMenuTree(USER_ID);
+
+        assertEquals(1, tree.size());
+        assertEquals(List.of("user", "log"), tree.get(0).getChildren().stream().map(Menu::getMenuCode).toList());
+        // 角色缓存中的菜单对象不应被挂上子节点
+        assertNull(menuService.getMenusByRoleId(10L).get(0).getChildren());
+        assertTrue(rbacCacheService.hasMenuAccess(USER_ID, "log"));
+    }
+
+    @Test
+    void testPermissionMatrixLoadsMissingUsersInOneQuery() {
+        cacheManager.getCache("rbac:user:role:ids").put(USER_ID, List.of(10L, 20L, 30L));
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(userRole(101L, 20L), userRole(102L, 30L)));
+        when(userRoleMapper.selectRoleIdsByUserId(101L)).thenReturn(List.of(20L));
+        when(userRoleMapper.selectRoleIdsByUserId(102L)).thenReturn(List.of(30L));
+
+        List<Long> userIds = List.of(USER_ID, 101L, 102L, 103L);
+        List<String> codes = List.of("user:read", "user:update", "role:read", "unknown");
+        PermissionMatrixResult matrix = rbacCacheService.checkPermissionMatrix(userIds, codes);
+
+        for (int i = 0; i < userIds.size(); i++) {
+            for (int j = 0; j < codes.size(); j++) {
+                assertEquals(rbacCacheService.hasPermission(userIds.get(i), codes.get(j)), matrix.isGranted(i, j),
+                        userIds.get(i) + " / " + codes.get(j));
+            }
+        }
+        assertEquals(3, matrix.getGrantedCount());
+        // 未命中缓存的3个用户在一条IN查询中加载，并写回缓存（无角色的用户缓存为空列表）
+        verify(userRoleMapper, times(1)).selectList(any());
+        assertEquals(List.of(20L), cacheManager.getCache("rbac:user:role:ids").get(101L).get());
+        assertEquals(List.of(), cacheManager.getCache("rbac:user:role:ids").get(103L).get());
+    }
+
+    @Test
+    void testPermissionMatrixBitmapLayout() {
+        cacheManager.getCache("rbac:user:role:ids").put(USER_ID, List.of(10L));
+
+        PermissionMatrixResult matrix = rbacCacheService.checkPermissionMatrix(
+                List.of(USER_ID, USER_ID), List.of("role:read", "user:read", "user:update"));
+
+        // 行优先展开：第0行 011，第1行 011 -> 位 1、2、4、5
+        byte[] bitmap = Base64.getDecoder().decode(matrix.getBitmap());
+        assertArrayEquals(new byte[]{0b110110}, bitmap);
+        verify(userRoleMapper, never()).selectList(any());
+    }
+
+    private Permission permission(Long id, String code) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionCode(code);
+        return permission;
+    }
+
+    private UserRole userRole(Long userId, Long roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private Role role(Long id, String code, int status) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleCode(code);
+        role.setStatus(status);
+        return role;
+    }
+
+    private Menu menu(Long id, Long parentId, String code, int sort) {
+        Menu menu = new Menu();
+        menu.setId(id);
+        menu.setParentId(parentId);
+        menu.setMenuCode(code);
+        menu.setSort(sort);
+        menu.setPath("/" + code);
+        return menu;
+    }
+}